@@ -0,0 +1,89 @@
+package io.github.ohmry.stateless.token.benchmark;
+
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicy;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicyHolder;
+import io.github.ohmry.stateless.token.domain.AccessToken;
+import io.github.ohmry.stateless.token.engine.SigningKey;
+import io.github.ohmry.stateless.token.engine.TokenAlgorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@code create} and {@code parse} of an access token for every supported signature algorithm.
+ *
+ * @author ohmry
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AlgorithmBenchmark {
+    @Param({"HS256", "HS384", "HS512", "ES256", "EdDSA"})
+    public TokenAlgorithm algorithm;
+
+    private String tokenValue;
+
+    @Setup
+    public void setUp() throws Exception {
+        StatelessTokenPolicy policy = StatelessTokenPolicy.builder()
+                .tokenSigningKey(this.signingKey())
+                .tokenTimeout(300L)
+                .build();
+        new StatelessTokenPolicyHolder().setStatelessTokenPolicy(policy);
+        this.tokenValue = AccessToken.create("user-123").getValue();
+    }
+
+    /**
+     * Signs a new access token.
+     *
+     * @return the created token
+     */
+    @Benchmark
+    public AccessToken<String> create() {
+        return AccessToken.create("user-123");
+    }
+
+    /**
+     * Verifies an access token.
+     *
+     * @return the parsed token
+     */
+    @Benchmark
+    public AccessToken<String> parse() {
+        return AccessToken.parse(this.tokenValue, String.class);
+    }
+
+    private SigningKey signingKey() throws Exception {
+        switch (this.algorithm) {
+            case ES256 -> {
+                KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+                generator.initialize(new ECGenParameterSpec("secp256r1"));
+                KeyPair keyPair = generator.generateKeyPair();
+                return SigningKey.asymmetric(this.algorithm, keyPair.getPrivate(), keyPair.getPublic());
+            }
+            case EdDSA -> {
+                KeyPair keyPair = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+                return SigningKey.asymmetric(this.algorithm, keyPair.getPrivate(), keyPair.getPublic());
+            }
+            default -> {
+                return SigningKey.hmac(this.algorithm, "ABCDEFGH".repeat(8));
+            }
+        }
+    }
+}
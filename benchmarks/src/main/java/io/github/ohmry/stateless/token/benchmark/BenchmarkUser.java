@@ -0,0 +1,21 @@
+package io.github.ohmry.stateless.token.benchmark;
+
+/**
+ * A small user POJO, shaped like the subjects applications usually put in their tokens.
+ *
+ * @author ohmry
+ */
+public class BenchmarkUser {
+    public Long id;
+    public String name;
+
+    public BenchmarkUser() {
+        this.id = null;
+        this.name = null;
+    }
+
+    public BenchmarkUser(long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+}
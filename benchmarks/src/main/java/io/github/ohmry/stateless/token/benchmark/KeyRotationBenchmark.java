@@ -0,0 +1,95 @@
+package io.github.ohmry.stateless.token.benchmark;
+
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicy;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicyHolder;
+import io.github.ohmry.stateless.token.domain.AccessToken;
+import io.github.ohmry.stateless.token.engine.SigningKey;
+import io.github.ohmry.stateless.token.engine.TokenAlgorithm;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@code parse} of an access token with a growing number of previous keys, for tokens signed
+ * with the current key, with the oldest previous key, and with the oldest previous key but without {@code kid}.
+ *
+ * @author ohmry
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyRotationBenchmark {
+    @Param({"0", "1", "4"})
+    public int previousKeys;
+
+    @Param({"CURRENT", "PREVIOUS", "LEGACY"})
+    public String signedWith;
+
+    private String tokenValue;
+
+    @Setup
+    public void setUp() {
+        SigningKey[] verificationKeys = new SigningKey[this.previousKeys];
+        for (int i = 0; i < this.previousKeys; i++) {
+            verificationKeys[i] = SigningKey.hmac(TokenAlgorithm.HS512, secret(i));
+        }
+        StatelessTokenPolicy policy = StatelessTokenPolicy.builder()
+                .tokenSecret("ABCDEFGH".repeat(8))
+                .tokenVerificationKeys(verificationKeys)
+                .tokenTimeout(300L)
+                .build();
+        new StatelessTokenPolicyHolder().setStatelessTokenPolicy(policy);
+
+        String oldestSecret = this.previousKeys > 0 ? secret(this.previousKeys - 1) : "ABCDEFGH".repeat(8);
+        this.tokenValue = switch (this.signedWith) {
+            case "PREVIOUS" -> {
+                StatelessTokenPolicy previousPolicy = StatelessTokenPolicy.builder()
+                        .tokenSecret(oldestSecret)
+                        .tokenTimeout(300L)
+                        .build();
+                new StatelessTokenPolicyHolder().setStatelessTokenPolicy(previousPolicy);
+                String value = AccessToken.create("user-123").getValue();
+                new StatelessTokenPolicyHolder().setStatelessTokenPolicy(policy);
+                yield value;
+            }
+            case "LEGACY" -> Jwts.builder()
+                    .subject("\"user-123\"")
+                    .signWith(Keys.hmacShaKeyFor(oldestSecret.getBytes(StandardCharsets.UTF_8)), Jwts.SIG.HS512)
+                    .issuedAt(new Date())
+                    .expiration(new Date(System.currentTimeMillis() + 3_600_000L))
+                    .compact();
+            default -> AccessToken.create("user-123").getValue();
+        };
+    }
+
+    /**
+     * Verifies an access token.
+     *
+     * @return the parsed token
+     */
+    @Benchmark
+    public AccessToken<String> parse() {
+        return AccessToken.parse(this.tokenValue, String.class);
+    }
+
+    private static String secret(int index) {
+        return String.format("%08d", index).repeat(8);
+    }
+}
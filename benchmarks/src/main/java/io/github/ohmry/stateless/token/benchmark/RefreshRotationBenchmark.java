@@ -0,0 +1,86 @@
+package io.github.ohmry.stateless.token.benchmark;
+
+import io.github.ohmry.stateless.token.rotation.InMemoryRefreshTokenStore;
+import io.github.ohmry.stateless.token.rotation.RefreshTokenStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures the throughput of {@link InMemoryRefreshTokenStore#rotate} over many families, on one thread
+ * and on all available processors at once, with a growing number of lock stripes.
+ *
+ * @author ohmry
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RefreshRotationBenchmark {
+    private static final int FAMILIES = 1 << 16;
+
+    @Param({"1", "64"})
+    public int stripes;
+
+    private InMemoryRefreshTokenStore refreshTokenStore;
+    private String[] familyIds;
+    private long expirationSeconds;
+
+    @Setup
+    public void setUp() {
+        this.refreshTokenStore = new InMemoryRefreshTokenStore(this.stripes);
+        this.familyIds = new String[FAMILIES];
+        this.expirationSeconds = System.currentTimeMillis() / 1000 + 3600;
+        for (int i = 0; i < FAMILIES; i++) {
+            this.familyIds[i] = "family-" + i;
+            this.refreshTokenStore.register(this.familyIds[i], "token", this.expirationSeconds);
+        }
+    }
+
+    /**
+     * Per-thread cursor over the families, so that threads rotate different families.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private static final AtomicInteger THREADS = new AtomicInteger();
+        private int index = THREADS.getAndIncrement() * 7919;
+    }
+
+    /**
+     * Rotates a family to the token id it already has, which keeps every family rotatable.
+     *
+     * @param cursor the family cursor of the thread
+     * @return the rotation outcome
+     */
+    @Benchmark
+    public RefreshTokenStore.Rotation rotate(Cursor cursor) {
+        String familyId = this.familyIds[cursor.index++ & (FAMILIES - 1)];
+        return this.refreshTokenStore.rotate(familyId, "token", "token", this.expirationSeconds);
+    }
+
+    /**
+     * Rotates families on all available processors at once.
+     *
+     * @param cursor the family cursor of the thread
+     * @return the rotation outcome
+     */
+    @Benchmark
+    @Threads(Threads.MAX)
+    public RefreshTokenStore.Rotation rotateContended(Cursor cursor) {
+        return this.rotate(cursor);
+    }
+}
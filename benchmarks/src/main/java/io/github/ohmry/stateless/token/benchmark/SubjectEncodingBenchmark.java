@@ -0,0 +1,120 @@
+package io.github.ohmry.stateless.token.benchmark;
+
+import io.github.ohmry.stateless.token.codec.SubjectEncoding;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicy;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicyHolder;
+import io.github.ohmry.stateless.token.domain.AccessToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@code create} and {@code parse} of an access token for each subject encoding, with and without
+ * compression, for a small and a large map subject. The token length of each combination, which is what ends up
+ * in every {@code Authorization} header, is reported separately by {@link #main(String[])}, so that it does not
+ * mix with the benchmark output.
+ *
+ * @author ohmry
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SubjectEncodingBenchmark {
+    @Param({"JSON", "CBOR", "SMILE", "CLAIMS"})
+    public SubjectEncoding subjectEncoding;
+
+    @Param({"false", "true"})
+    public boolean compressed;
+
+    @Param({"SMALL", "LARGE"})
+    public String subjectSize;
+
+    private Map<String, Object> subject;
+    private String tokenValue;
+
+    @Setup
+    public void setUp() {
+        publishPolicy(this.subjectEncoding, this.compressed);
+        this.subject = subject(this.subjectSize);
+        this.tokenValue = AccessToken.create(this.subject).getValue();
+    }
+
+    /**
+     * Prints the access token length of every parameter combination of this benchmark.
+     *
+     * @param args ignored
+     */
+    public static void main(String[] args) {
+        System.out.printf("%-8s %-10s %-7s %s%n", "Encoding", "Compressed", "Subject", "Length");
+        for (SubjectEncoding subjectEncoding : SubjectEncoding.values()) {
+            for (boolean compressed : new boolean[]{false, true}) {
+                publishPolicy(subjectEncoding, compressed);
+                for (String subjectSize : new String[]{"SMALL", "LARGE"}) {
+                    String tokenValue = AccessToken.create(subject(subjectSize)).getValue();
+                    System.out.printf("%-8s %-10s %-7s %d%n", subjectEncoding, compressed, subjectSize, tokenValue.length());
+                }
+            }
+        }
+    }
+
+    private static void publishPolicy(SubjectEncoding subjectEncoding, boolean compressed) {
+        StatelessTokenPolicy policy = StatelessTokenPolicy.builder()
+                .tokenSecret("ABCDEFGH".repeat(8))
+                .tokenTimeout(300L)
+                .subjectEncoding(subjectEncoding)
+                .subjectCompressionThreshold(compressed ? 128 : null)
+                .build();
+        new StatelessTokenPolicyHolder().setStatelessTokenPolicy(policy);
+    }
+
+    private static Map<String, Object> subject(String subjectSize) {
+        Map<String, Object> subject = new LinkedHashMap<>();
+        subject.put("id", 123L);
+        subject.put("name", "User123");
+        if ("LARGE".equals(subjectSize)) {
+            subject.put("email", "user123@example.com");
+            subject.put("tenant", "tenant-7f3a9c");
+            subject.put("roles", List.of("USER", "ADMIN", "AUDITOR", "BILLING"));
+            for (int i = 0; i < 16; i++) {
+                subject.put("permission" + i, "resource:" + i + ":read,write");
+            }
+        }
+        return subject;
+    }
+
+    /**
+     * Creates an access token.
+     *
+     * @return the created token
+     */
+    @Benchmark
+    public AccessToken<Map<String, Object>> create() {
+        return AccessToken.create(this.subject);
+    }
+
+    /**
+     * Parses an access token.
+     *
+     * @return the parsed token
+     */
+    @Benchmark
+    public AccessToken<Map<String, Object>> parse() {
+        return AccessToken.parse(this.tokenValue, SubjectShape.MAP_TYPE);
+    }
+}
@@ -0,0 +1,44 @@
+package io.github.ohmry.stateless.token.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import java.util.Map;
+
+/**
+ * The subject shapes covered by the token benchmarks.
+ *
+ * @author ohmry
+ */
+public enum SubjectShape {
+    /**
+     * A plain string subject, parsed with {@code String.class}.
+     */
+    STRING,
+    /**
+     * A {@link BenchmarkUser} subject, parsed with {@code BenchmarkUser.class}.
+     */
+    POJO,
+    /**
+     * A map subject, parsed with {@link #MAP_TYPE}.
+     */
+    MAP;
+
+    /**
+     * The type reference used to parse map subjects.
+     */
+    public static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
+    /**
+     * Returns a subject of this shape.
+     *
+     * @param id the user id encoded in the subject
+     * @return the subject
+     */
+    public Object subject(long id) {
+        return switch (this) {
+            case STRING -> "user-id-" + id;
+            case POJO -> new BenchmarkUser(id, "User" + id);
+            case MAP -> Map.of("id", id, "name", "User" + id, "roles", "USER,ADMIN");
+        };
+    }
+}
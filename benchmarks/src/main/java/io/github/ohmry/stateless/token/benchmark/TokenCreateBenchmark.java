@@ -0,0 +1,98 @@
+package io.github.ohmry.stateless.token.benchmark;
+
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicy;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicyHolder;
+import io.github.ohmry.stateless.token.domain.AccessToken;
+import io.github.ohmry.stateless.token.domain.RefreshToken;
+import io.github.ohmry.stateless.token.domain.Token;
+import io.github.ohmry.stateless.token.domain.TokenType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@code create} of every token type for every subject shape, on a single thread
+ * and with all available processors issuing at the same time.
+ *
+ * @author ohmry
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenCreateBenchmark {
+    @Param({"TOKEN", "ACCESS", "REFRESH"})
+    public TokenType tokenType;
+
+    @Param({"STRING", "POJO", "MAP"})
+    public SubjectShape subjectShape;
+
+    private Object subject;
+
+    @Setup
+    public void setUp() {
+        StatelessTokenPolicy policy = StatelessTokenPolicy.builder()
+                .tokenSecret("ABCDEFGH".repeat(8))
+                .tokenTimeout(300L)
+                .build();
+        new StatelessTokenPolicyHolder().setStatelessTokenPolicy(policy);
+        this.subject = this.subjectShape.subject(123L);
+    }
+
+    /**
+     * Creates a token on a single thread.
+     *
+     * @return the created token
+     */
+    @Benchmark
+    public Token<Object> create() {
+        return this.createToken();
+    }
+
+    /**
+     * Creates tokens on all available processors at once.
+     *
+     * @return the created token
+     */
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Token<Object> createContended() {
+        return this.createToken();
+    }
+
+    /**
+     * Issues a token string without creating a token instance.
+     * Refresh tokens have no mint method, they are created as usual.
+     *
+     * @return the token string
+     */
+    @Benchmark
+    public String mint() {
+        return switch (this.tokenType) {
+            case TOKEN -> Token.mint(this.subject);
+            case ACCESS -> AccessToken.mint(this.subject);
+            case REFRESH -> RefreshToken.create(this.subject).getValue();
+        };
+    }
+
+    private Token<Object> createToken() {
+        return switch (this.tokenType) {
+            case TOKEN -> Token.create(this.subject);
+            case ACCESS -> AccessToken.create(this.subject);
+            case REFRESH -> RefreshToken.create(this.subject);
+        };
+    }
+}
@@ -0,0 +1,135 @@
+package io.github.ohmry.stateless.token.benchmark;
+
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicy;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicyHolder;
+import io.github.ohmry.stateless.token.domain.AccessToken;
+import io.github.ohmry.stateless.token.domain.RefreshToken;
+import io.github.ohmry.stateless.token.domain.Token;
+import io.github.ohmry.stateless.token.domain.TokenType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@code parse} of every token type for every subject shape and for valid, expired and
+ * tampered input, on a single thread and with all available processors parsing at the same time.
+ *
+ * @author ohmry
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenParseBenchmark {
+    @Param({"TOKEN", "ACCESS", "REFRESH"})
+    public TokenType tokenType;
+
+    @Param({"STRING", "POJO", "MAP"})
+    public SubjectShape subjectShape;
+
+    @Param({"VALID", "EXPIRED", "TAMPERED"})
+    public Input input;
+
+    private String tokenValue;
+
+    @Setup
+    public void setUp() {
+        StatelessTokenPolicy policy = StatelessTokenPolicy.builder()
+                .tokenSecret("ABCDEFGH".repeat(8))
+                .tokenTimeout(300L)
+                .build();
+        new StatelessTokenPolicyHolder().setStatelessTokenPolicy(policy);
+
+        Object subject = this.subjectShape.subject(123L);
+        this.tokenValue = switch (this.input) {
+            case VALID -> this.createToken(subject, 300L);
+            case EXPIRED -> this.createToken(subject, -10L);
+            case TAMPERED -> {
+                // Keeps a well-formed token but pairs another subject's payload with this signature.
+                String[] segments = this.createToken(subject, 300L).split("\\.");
+                String otherPayload = this.createToken(this.subjectShape.subject(456L), 300L).split("\\.")[1];
+                yield segments[0] + "." + otherPayload + "." + segments[2];
+            }
+        };
+    }
+
+    /**
+     * Parses the token on a single thread.
+     *
+     * @return the parsed token
+     */
+    @Benchmark
+    public Token<?> parse() {
+        return this.parseToken();
+    }
+
+    /**
+     * Parses the token on all available processors at once.
+     *
+     * @return the parsed token
+     */
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Token<?> parseContended() {
+        return this.parseToken();
+    }
+
+    private String createToken(Object subject, long timeoutSeconds) {
+        return switch (this.tokenType) {
+            case TOKEN -> Token.create(subject, timeoutSeconds).getValue();
+            case ACCESS -> AccessToken.create(subject, timeoutSeconds).getValue();
+            case REFRESH -> RefreshToken.create(subject, timeoutSeconds).getValue();
+        };
+    }
+
+    private Token<?> parseToken() {
+        return switch (this.tokenType) {
+            case TOKEN -> switch (this.subjectShape) {
+                case STRING -> Token.parse(this.tokenValue, String.class);
+                case POJO -> Token.parse(this.tokenValue, BenchmarkUser.class);
+                case MAP -> Token.parse(this.tokenValue, SubjectShape.MAP_TYPE);
+            };
+            case ACCESS -> switch (this.subjectShape) {
+                case STRING -> AccessToken.parse(this.tokenValue, String.class);
+                case POJO -> AccessToken.parse(this.tokenValue, BenchmarkUser.class);
+                case MAP -> AccessToken.parse(this.tokenValue, SubjectShape.MAP_TYPE);
+            };
+            case REFRESH -> switch (this.subjectShape) {
+                case STRING -> RefreshToken.parse(this.tokenValue, String.class);
+                case POJO -> RefreshToken.parse(this.tokenValue, BenchmarkUser.class);
+                case MAP -> RefreshToken.parse(this.tokenValue, SubjectShape.MAP_TYPE);
+            };
+        };
+    }
+
+    /**
+     * The kinds of token input.
+     */
+    public enum Input {
+        /**
+         * A token that verifies.
+         */
+        VALID,
+        /**
+         * A correctly signed token whose expiration is in the past.
+         */
+        EXPIRED,
+        /**
+         * A well-formed token whose signature does not match its payload.
+         */
+        TAMPERED
+    }
+}
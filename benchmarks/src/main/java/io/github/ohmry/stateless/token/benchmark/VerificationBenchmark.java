@@ -0,0 +1,147 @@
+package io.github.ohmry.stateless.token.benchmark;
+
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicy;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicyHolder;
+import io.github.ohmry.stateless.token.domain.AccessToken;
+import io.github.ohmry.stateless.token.engine.TokenPeek;
+import io.github.ohmry.stateless.token.engine.VerifiedClaims;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares building a JWT parser for every token, a shared JWT parser and the token engine,
+ * which verifies HS512 tokens with its specialized verifier, and the unverified token peek as a lower bound.
+ * A replayed tampered token is verified with and without the rejected token cache.
+ * Run with {@code -prof gc} to see the allocation rate per parse.
+ *
+ * @author ohmry
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VerificationBenchmark {
+    private StatelessTokenPolicy policy;
+    private JwtParser sharedParser;
+    private String tokenValue;
+    private StatelessTokenPolicy rejectingPolicy;
+    private String tamperedTokenValue;
+
+    @Setup
+    public void setUp() {
+        this.policy = StatelessTokenPolicy.builder()
+                .tokenSecret("ABCDEFGH".repeat(8))
+                .tokenTimeout(300L)
+                .build();
+        new StatelessTokenPolicyHolder().setStatelessTokenPolicy(this.policy);
+        this.sharedParser = Jwts.parser()
+                                .verifyWith(this.policy.getAccessTokenSecretKey())
+                                .build();
+        this.tokenValue = AccessToken.create("user-id-123").getValue();
+        this.tamperedTokenValue = this.tokenValue.substring(0, this.tokenValue.length() - 4) + "AAAA";
+        this.rejectingPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret("ABCDEFGH".repeat(8))
+                .tokenTimeout(300L)
+                .rejectedTokenCache(10_000L)
+                .build();
+    }
+
+    /**
+     * Parses the token the way tokens were parsed before the engine existed.
+     *
+     * @return the verified claims
+     */
+    @Benchmark
+    public Claims parserPerCall() {
+        return Jwts.parser()
+                   .verifyWith(this.policy.getAccessTokenSecretKey())
+                   .build()
+                   .parseSignedClaims(this.tokenValue)
+                   .getPayload();
+    }
+
+    /**
+     * Parses the token with a JWT parser that was built once.
+     *
+     * @return the verified claims
+     */
+    @Benchmark
+    public Claims sharedParser() {
+        return this.sharedParser.parseSignedClaims(this.tokenValue).getPayload();
+    }
+
+    /**
+     * Verifies the token with the token engine.
+     *
+     * @return the verified claims
+     */
+    @Benchmark
+    public VerifiedClaims engineParse() {
+        return this.policy.getTokenEngine().parse(this.policy.getAccessTokenSecretKey(), this.tokenValue);
+    }
+
+    /**
+     * Parses the token through the public API.
+     *
+     * @return the parsed access token
+     */
+    @Benchmark
+    public AccessToken<String> accessTokenParse() {
+        return AccessToken.parse(this.tokenValue, String.class);
+    }
+
+    /**
+     * Reads the header and standard claims without verification.
+     *
+     * @return the unverified header and claims
+     */
+    @Benchmark
+    public TokenPeek peek() {
+        return TokenPeek.of(this.tokenValue);
+    }
+
+    /**
+     * Verifies a tampered token, which fails with a full signature verification every time.
+     *
+     * @return the rejection
+     */
+    @Benchmark
+    public JwtException tamperedParse() {
+        return rejection(this.policy, this.tamperedTokenValue);
+    }
+
+    /**
+     * Verifies a replayed tampered token with the rejected token cache, which fails with a digest lookup.
+     *
+     * @return the rejection
+     */
+    @Benchmark
+    public JwtException tamperedParseRejectedCache() {
+        return rejection(this.rejectingPolicy, this.tamperedTokenValue);
+    }
+
+    private static JwtException rejection(StatelessTokenPolicy policy, String tokenValue) {
+        try {
+            policy.getTokenEngine().parse(policy.getAccessTokenSigningKey(), tokenValue);
+            throw new IllegalStateException("Tampered token was accepted.");
+        } catch (JwtException e) {
+            return e;
+        }
+    }
+}
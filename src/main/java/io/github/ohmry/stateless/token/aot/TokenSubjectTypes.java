@@ -0,0 +1,34 @@
+package io.github.ohmry.stateless.token.aot;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the classes tokens carry as subjects, so that native images can serialize and deserialize them.
+ * Place it on any bean class, typically the application class; the {@link TokenSubjectTypesAotProcessor}
+ * registers reflection hints for the declared classes and the types of their properties.
+ * It has no effect on applications that do not run ahead-of-time processing.
+ *
+ * <pre>{@code
+ * @SpringBootApplication
+ * @TokenSubjectTypes({User.class, Session.class})
+ * public class Application {
+ * }
+ * }</pre>
+ *
+ * @author ohmry
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface TokenSubjectTypes {
+    /**
+     * Returns the subject classes.
+     *
+     * @return the classes tokens carry as subjects
+     */
+    Class<?>[] value();
+}
@@ -0,0 +1,66 @@
+package io.github.ohmry.stateless.token.aot;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.beans.factory.aot.BeanFactoryInitializationAotContribution;
+import org.springframework.beans.factory.aot.BeanFactoryInitializationAotProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.core.annotation.MergedAnnotation;
+import org.springframework.core.annotation.MergedAnnotations;
+import org.springframework.core.env.Environment;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Registers reflection hints for token subject types during ahead-of-time processing.
+ * Subject types are collected from {@link TokenSubjectTypes} annotations on bean classes, from the
+ * comma-separated class names of the {@code stateless.token.aot.subjectTypes} property and from the
+ * {@code stateless.token.web.subjectType} property of the web integrations.
+ * Hints are registered the way Spring registers them for {@code @RegisterReflectionForBinding},
+ * so the properties of a subject type and their types are covered as well.
+ *
+ * @author ohmry
+ */
+public class TokenSubjectTypesAotProcessor implements BeanFactoryInitializationAotProcessor {
+    /**
+     * Default constructor.
+     */
+    public TokenSubjectTypesAotProcessor() {}
+
+    @Override
+    public BeanFactoryInitializationAotContribution processAheadOfTime(ConfigurableListableBeanFactory beanFactory) {
+        Set<Class<?>> subjectTypes = new LinkedHashSet<>();
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+            Class<?> beanType = beanFactory.getType(beanName, false);
+            if (beanType != null) {
+                MergedAnnotations.from(ClassUtils.getUserClass(beanType), MergedAnnotations.SearchStrategy.TYPE_HIERARCHY)
+                                 .stream(TokenSubjectTypes.class)
+                                 .map(annotation -> annotation.getClassArray(MergedAnnotation.VALUE))
+                                 .forEach(classes -> subjectTypes.addAll(Arrays.asList(classes)));
+            }
+        }
+        if (beanFactory.containsBean("environment")) {
+            Environment environment = beanFactory.getBean("environment", Environment.class);
+            ClassLoader classLoader = beanFactory.getBeanClassLoader();
+            String subjectTypesValue = environment.getProperty("stateless.token.aot.subjectTypes");
+            for (String subjectType : StringUtils.commaDelimitedListToStringArray(subjectTypesValue)) {
+                if (StringUtils.hasText(subjectType)) {
+                    subjectTypes.add(ClassUtils.resolveClassName(subjectType.trim(), classLoader));
+                }
+            }
+            String webSubjectTypeValue = environment.getProperty("stateless.token.web.subjectType");
+            if (StringUtils.hasText(webSubjectTypeValue)) {
+                subjectTypes.add(ClassUtils.resolveClassName(webSubjectTypeValue.trim(), classLoader));
+            }
+        }
+        subjectTypes.remove(Object.class);
+        if (subjectTypes.isEmpty()) {
+            return null;
+        }
+        return (generationContext, beanFactoryInitializationCode) -> new BindingReflectionHintsRegistrar()
+                .registerReflectionHints(generationContext.getRuntimeHints().reflection(), subjectTypes.toArray(new Class<?>[0]));
+    }
+}
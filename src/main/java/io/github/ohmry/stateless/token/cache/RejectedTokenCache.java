@@ -0,0 +1,121 @@
+package io.github.ohmry.stateless.token.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, time-limited cache of tokens that recently failed verification.
+ * Clients and attackers that replay the same bad token are rejected with a digest lookup instead of a
+ * signature verification. Entries expire after a fixed time to live, independently of any token expiration,
+ * so that the cache only absorbs bursts and a key rotation is picked up quickly.
+ * A failure to decode the subject is only remembered for the subject type it happened with.
+ *
+ * @author ohmry
+ */
+public final class RejectedTokenCache {
+    private final Cache<TokenDigest, RejectedToken> cache;
+    private final LongAdder hitCount;
+    private final LongAdder missCount;
+
+    /**
+     * Creates a new cache holding at most the given number of rejected tokens for the given time.
+     *
+     * @param maximumSize the maximum number of cached rejected tokens
+     * @param timeToLive how long a rejected token is remembered
+     * @throws IllegalArgumentException if maximumSize or timeToLive is not positive
+     */
+    public RejectedTokenCache(long maximumSize, Duration timeToLive) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be greater than 0.");
+        }
+        if (timeToLive == null || timeToLive.isNegative() || timeToLive.isZero()) {
+            throw new IllegalArgumentException("timeToLive must be greater than 0.");
+        }
+        this.cache = Caffeine.newBuilder()
+                             .maximumSize(maximumSize)
+                             .expireAfterWrite(timeToLive)
+                             .build();
+        this.hitCount = new LongAdder();
+        this.missCount = new LongAdder();
+    }
+
+    /**
+     * Returns why the token was rejected, if it was rejected recently.
+     *
+     * @param digest the digest of the token string
+     * @param subjectType the requested subject type, or null if no subject is decoded
+     * @return the exception the token was rejected with, or null if there is no usable entry
+     */
+    public Exception get(TokenDigest digest, Type subjectType) {
+        RejectedToken rejectedToken = this.cache.getIfPresent(digest);
+        if (rejectedToken == null
+                || (rejectedToken.subjectType != null && !rejectedToken.subjectType.equals(subjectType))) {
+            this.missCount.increment();
+            return null;
+        }
+        this.hitCount.increment();
+        return rejectedToken.rejection;
+    }
+
+    /**
+     * Stores a token that failed verification, whatever subject type it is parsed with.
+     *
+     * @param digest the digest of the token string
+     * @param rejection the exception the token was rejected with
+     */
+    public void put(TokenDigest digest, Exception rejection) {
+        this.put(digest, null, rejection);
+    }
+
+    /**
+     * Stores a token whose subject could not be decoded into the given type.
+     *
+     * @param digest the digest of the token string
+     * @param subjectType the subject type the token was rejected for, or null for every type
+     * @param rejection the exception the token was rejected with
+     */
+    public void put(TokenDigest digest, Type subjectType, Exception rejection) {
+        this.cache.put(digest, new RejectedToken(subjectType, rejection));
+    }
+
+    /**
+     * Returns the number of lookups that found a rejected token, i.e. the number of verifications saved.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return this.hitCount.sum();
+    }
+
+    /**
+     * Returns the number of lookups that did not find a rejected token.
+     *
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return this.missCount.sum();
+    }
+
+    /**
+     * Returns the approximate number of cached rejected tokens.
+     *
+     * @return the estimated size of the cache
+     */
+    public long estimatedSize() {
+        return this.cache.estimatedSize();
+    }
+
+    private static final class RejectedToken {
+        private final Type subjectType;
+        private final Exception rejection;
+
+        private RejectedToken(Type subjectType, Exception rejection) {
+            this.subjectType = subjectType;
+            this.rejection = rejection;
+        }
+    }
+}
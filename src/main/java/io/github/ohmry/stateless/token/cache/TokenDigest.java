@@ -0,0 +1,75 @@
+package io.github.ohmry.stateless.token.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 digest of a token string, used as a compact cache key instead of the token itself.
+ * The digest is scoped so that the same token string verified with different keys never
+ * shares a cache entry.
+ *
+ * @author ohmry
+ */
+public final class TokenDigest {
+    private static final ThreadLocal<MessageDigest> MESSAGE_DIGEST = ThreadLocal.withInitial(TokenDigest::newMessageDigest);
+
+    private final long first;
+    private final long second;
+    private final long third;
+    private final long fourth;
+
+    private TokenDigest(byte[] digest) {
+        ByteBuffer buffer = ByteBuffer.wrap(digest);
+        this.first = buffer.getLong();
+        this.second = buffer.getLong();
+        this.third = buffer.getLong();
+        this.fourth = buffer.getLong();
+    }
+
+    /**
+     * Computes the digest of a token string within the given scope.
+     *
+     * @param scope the scope of the digest, such as the identifier of the verification key
+     * @param tokenValue the token string
+     * @return the token digest
+     */
+    public static TokenDigest of(int scope, String tokenValue) {
+        MessageDigest messageDigest = MESSAGE_DIGEST.get();
+        messageDigest.update((byte) (scope >>> 24));
+        messageDigest.update((byte) (scope >>> 16));
+        messageDigest.update((byte) (scope >>> 8));
+        messageDigest.update((byte) scope);
+        return new TokenDigest(messageDigest.digest(tokenValue.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private static MessageDigest newMessageDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof TokenDigest)) {
+            return false;
+        }
+        TokenDigest digest = (TokenDigest) other;
+        return this.first == digest.first
+                && this.second == digest.second
+                && this.third == digest.third
+                && this.fourth == digest.fourth;
+    }
+
+    @Override
+    public int hashCode() {
+        // The digest is already uniformly distributed, so any of its bits make a good hash.
+        return (int) (this.first ^ (this.first >>> 32));
+    }
+}
@@ -0,0 +1,229 @@
+package io.github.ohmry.stateless.token.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.lang.reflect.Type;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of tokens whose signature has already been verified.
+ * Entries hold the decoded subject and the token expiration, and are never served once the
+ * token has expired. Eviction uses Caffeine's W-TinyLFU policy, which keeps frequently used
+ * tokens even under scan-heavy traffic.
+ * A cached subject is shared by every token parsed from the same string, so the token engine
+ * stores mutable subjects as a {@link io.github.ohmry.stateless.token.codec.SubjectCodec#snapshot(Object) snapshot}
+ * and decodes a new instance from it on every hit.
+ *
+ * @author ohmry
+ */
+public final class VerifiedTokenCache {
+    private final Cache<TokenDigest, CachedToken> cache;
+    private final LongAdder hitCount;
+    private final LongAdder missCount;
+
+    /**
+     * Creates a new cache holding at most the given number of tokens.
+     *
+     * @param maximumSize the maximum number of cached tokens
+     * @throws IllegalArgumentException if maximumSize is not positive
+     */
+    public VerifiedTokenCache(long maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be greater than 0.");
+        }
+        this.cache = Caffeine.newBuilder()
+                             .maximumSize(maximumSize)
+                             .expireAfter(new TokenExpiry())
+                             .build();
+        this.hitCount = new LongAdder();
+        this.missCount = new LongAdder();
+    }
+
+    /**
+     * Returns the cached token for the digest if it was decoded into the same subject type and has not expired.
+     *
+     * @param digest the digest of the token string
+     * @param subjectType the requested subject type
+     * @return the cached token, or null if there is no usable entry
+     */
+    public CachedToken get(TokenDigest digest, Type subjectType) {
+        return this.get(digest, subjectType, System.currentTimeMillis());
+    }
+
+    /**
+     * Returns the cached token for the digest if it was decoded into the same subject type and has not expired at the given time.
+     *
+     * @param digest the digest of the token string
+     * @param subjectType the requested subject type
+     * @param nowMillis the time the expiration is checked against, in epoch milliseconds
+     * @return the cached token, or null if there is no usable entry
+     */
+    public CachedToken get(TokenDigest digest, Type subjectType, long nowMillis) {
+        CachedToken cachedToken = this.cache.getIfPresent(digest);
+        if (cachedToken == null
+                || !cachedToken.getSubjectType().equals(subjectType)
+                || cachedToken.getExpiresAtMillis() <= nowMillis) {
+            this.missCount.increment();
+            return null;
+        }
+        this.hitCount.increment();
+        return cachedToken;
+    }
+
+    /**
+     * Returns whether a usable entry for the digest is cached, without counting a hit or miss.
+     *
+     * @param digest the digest of the token string
+     * @param subjectType the requested subject type
+     * @return true if {@link #get(TokenDigest, Type)} would return an entry
+     */
+    public boolean contains(TokenDigest digest, Type subjectType) {
+        return this.contains(digest, subjectType, System.currentTimeMillis());
+    }
+
+    /**
+     * Returns whether a usable entry for the digest is cached at the given time, without counting a hit or miss.
+     *
+     * @param digest the digest of the token string
+     * @param subjectType the requested subject type
+     * @param nowMillis the time the expiration is checked against, in epoch milliseconds
+     * @return true if {@link #get(TokenDigest, Type, long)} would return an entry
+     */
+    public boolean contains(TokenDigest digest, Type subjectType, long nowMillis) {
+        CachedToken cachedToken = this.cache.getIfPresent(digest);
+        return cachedToken != null
+                && cachedToken.getSubjectType().equals(subjectType)
+                && cachedToken.getExpiresAtMillis() > nowMillis;
+    }
+
+    /**
+     * Stores a verified token.
+     *
+     * @param digest the digest of the token string
+     * @param subjectType the type the subject was decoded into
+     * @param subject the decoded subject
+     * @param expiresAtMillis the token expiration in epoch milliseconds
+     */
+    public void put(TokenDigest digest, Type subjectType, Object subject, long expiresAtMillis) {
+        this.put(digest, null, subjectType, subject, expiresAtMillis);
+    }
+
+    /**
+     * Stores a verified token together with its id.
+     *
+     * @param digest the digest of the token string
+     * @param tokenId the id of the token, or null if it has none
+     * @param subjectType the type the subject was decoded into
+     * @param subject the decoded subject
+     * @param expiresAtMillis the token expiration in epoch milliseconds
+     */
+    public void put(TokenDigest digest, String tokenId, Type subjectType, Object subject, long expiresAtMillis) {
+        if (expiresAtMillis > System.currentTimeMillis()) {
+            this.cache.put(digest, new CachedToken(tokenId, subjectType, subject, expiresAtMillis));
+        }
+    }
+
+    /**
+     * Returns the number of lookups that were served from the cache.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return this.hitCount.sum();
+    }
+
+    /**
+     * Returns the number of lookups that were not served from the cache.
+     *
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return this.missCount.sum();
+    }
+
+    /**
+     * Returns the approximate number of cached tokens.
+     *
+     * @return the estimated size of the cache
+     */
+    public long estimatedSize() {
+        return this.cache.estimatedSize();
+    }
+
+    /**
+     * Verified token held by the cache.
+     */
+    public static final class CachedToken {
+        private final String tokenId;
+        private final Type subjectType;
+        private final Object subject;
+        private final long expiresAtMillis;
+
+        private CachedToken(String tokenId, Type subjectType, Object subject, long expiresAtMillis) {
+            this.tokenId = tokenId;
+            this.subjectType = subjectType;
+            this.subject = subject;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        /**
+         * Returns the id of the token.
+         *
+         * @return the token id, or null if the token has none
+         */
+        public String getTokenId() {
+            return tokenId;
+        }
+
+        /**
+         * Returns the type the subject was decoded into.
+         *
+         * @return the subject type
+         */
+        public Type getSubjectType() {
+            return subjectType;
+        }
+
+        /**
+         * Returns the decoded subject.
+         *
+         * @return the subject
+         */
+        public Object getSubject() {
+            return subject;
+        }
+
+        /**
+         * Returns the token expiration.
+         *
+         * @return the expiration in epoch milliseconds
+         */
+        public long getExpiresAtMillis() {
+            return expiresAtMillis;
+        }
+    }
+
+    /**
+     * Expires each entry at the expiration of its token.
+     */
+    private static final class TokenExpiry implements Expiry<TokenDigest, CachedToken> {
+        @Override
+        public long expireAfterCreate(TokenDigest key, CachedToken value, long currentTime) {
+            long remainingMillis = value.getExpiresAtMillis() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+        }
+
+        @Override
+        public long expireAfterUpdate(TokenDigest key, CachedToken value, long currentTime, long currentDuration) {
+            return this.expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(TokenDigest key, CachedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
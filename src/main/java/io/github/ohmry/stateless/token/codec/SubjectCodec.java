@@ -0,0 +1,437 @@
+package io.github.ohmry.stateless.token.codec;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.ser.std.BeanSerializerBase;
+import com.fasterxml.jackson.databind.ser.std.MapSerializer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Serializes and deserializes token subjects with a single shared {@link ObjectMapper}.
+ * Readers and writers are created once per subject type and reused, so Jackson's serializer
+ * and deserializer caches survive across tokens.
+ * Subject types are keyed by {@link Type}, which covers {@link Class}, the type captured by a
+ * {@link TypeReference} and {@link com.fasterxml.jackson.databind.JavaType}.
+ * Subjects are encoded with the {@link SubjectEncoding} of the codec. A binary subject starts with a byte
+ * holding the encoding id and a compression flag, so tokens written in any encoding can be read back
+ * regardless of the encoding the codec currently writes.
+ * With {@link SubjectEncoding#CLAIMS}, whether a subject type is written as an object is found out once
+ * per type; the subject is then converted into top-level claims and converted back from the claims that
+ * are not {@link #REGISTERED_CLAIMS registered claims}.
+ *
+ * @author ohmry
+ */
+public final class SubjectCodec {
+    /**
+     * The claim binary subjects are written into.
+     */
+    public static final String BINARY_SUBJECT_CLAIM = "sbj";
+
+    /**
+     * The claims a flattened subject must not have properties named like, since they are written by the token itself.
+     */
+    public static final Set<String> REGISTERED_CLAIMS = Set.of("iss", "sub", "aud", "exp", "nbf", "iat", "jti", BINARY_SUBJECT_CLAIM);
+
+    private static final Set<Class<?>> IMMUTABLE_TYPES = Set.of(String.class, Boolean.class, Character.class,
+            Byte.class, Short.class, Integer.class, Long.class, Float.class, Double.class, BigInteger.class, BigDecimal.class,
+            UUID.class, Instant.class, LocalDate.class, LocalDateTime.class, OffsetDateTime.class, ZonedDateTime.class, Duration.class);
+    private static final int ENCODING_MASK = 0x0F;
+    private static final int DEFLATED = 0x80;
+    private static final int MAX_INFLATED_LENGTH = 1 << 20;
+
+    private final ObjectMapper objectMapper;
+    private final ConcurrentMap<Type, ObjectReader> readers;
+    private final ConcurrentMap<Class<?>, ObjectWriter> writers;
+    private final SubjectEncoding encoding;
+    private final int compressionThreshold;
+    private final ConcurrentMap<SubjectEncoding, SubjectCodec> binaryCodecs;
+    private final ConcurrentMap<Class<?>, Boolean> flattenable;
+    private final JavaType claimsType;
+
+    /**
+     * Creates a new codec backed by a default {@link ObjectMapper}.
+     */
+    public SubjectCodec() {
+        this(new ObjectMapper());
+    }
+
+    /**
+     * Creates a new codec backed by the given {@link ObjectMapper}.
+     * The mapper must not be reconfigured after it is handed to the codec.
+     *
+     * @param objectMapper the object mapper used to serialize and deserialize subjects
+     * @throws IllegalArgumentException if objectMapper is null
+     */
+    public SubjectCodec(ObjectMapper objectMapper) {
+        this(objectMapper, SubjectEncoding.JSON, -1);
+    }
+
+    /**
+     * Creates a new codec that encodes subjects with the given encoding.
+     * Binary encodings use a copy of the given {@link ObjectMapper} with the same configuration and modules.
+     *
+     * @param objectMapper the object mapper used to serialize and deserialize subjects
+     * @param encoding the encoding subjects are written in
+     * @param compressionThreshold the length in bytes from which binary subjects are DEFLATE compressed, or a negative value to never compress
+     * @throws IllegalArgumentException if objectMapper or encoding is null
+     * @throws IllegalStateException if the dataformat module of a binary encoding is not on the classpath
+     */
+    public SubjectCodec(ObjectMapper objectMapper, SubjectEncoding encoding, int compressionThreshold) {
+        if (objectMapper == null) {
+            throw new IllegalArgumentException("objectMapper must be not null.");
+        }
+        if (encoding == null) {
+            throw new IllegalArgumentException("encoding must be not null.");
+        }
+        this.objectMapper = objectMapper;
+        this.readers = new ConcurrentHashMap<>();
+        this.writers = new ConcurrentHashMap<>();
+        this.encoding = encoding;
+        this.compressionThreshold = compressionThreshold;
+        this.binaryCodecs = new ConcurrentHashMap<>();
+        this.flattenable = new ConcurrentHashMap<>();
+        this.claimsType = objectMapper.getTypeFactory().constructMapType(LinkedHashMap.class, String.class, Object.class);
+        if (encoding.isBinary()) {
+            this.binaryCodec(encoding);
+        }
+    }
+
+    /**
+     * Returns the object mapper backing this codec.
+     *
+     * @return the object mapper
+     */
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    /**
+     * Returns the encoding subjects are written in.
+     *
+     * @return the subject encoding
+     */
+    public SubjectEncoding getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * Returns the length from which binary subjects are compressed.
+     *
+     * @return the compression threshold in bytes, or a negative value if subjects are never compressed
+     */
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    /**
+     * Returns the claim subjects are written into: {@code sub} for JSON, {@link #BINARY_SUBJECT_CLAIM} otherwise.
+     *
+     * @return the subject claim name
+     */
+    public String getSubjectClaim() {
+        return this.encoding.isBinary() ? BINARY_SUBJECT_CLAIM : "sub";
+    }
+
+    /**
+     * Encodes the subject with the encoding of this codec.
+     *
+     * @param subject the subject to encode
+     * @return the JSON representation, or the base64url encoded binary representation of the subject
+     * @throws JsonProcessingException if the subject cannot be serialized
+     */
+    public String encode(Object subject) throws JsonProcessingException {
+        if (!this.encoding.isBinary()) {
+            return this.write(subject);
+        }
+        SubjectCodec binaryCodec = this.binaryCodec(this.encoding);
+        byte[] value = subject == null
+                ? binaryCodec.objectMapper.writeValueAsBytes(null)
+                : binaryCodec.writerFor(subject.getClass()).writeValueAsBytes(subject);
+        int header = this.encoding.getId();
+        if (this.compressionThreshold >= 0 && value.length >= this.compressionThreshold) {
+            byte[] deflated = deflate(value);
+            if (deflated.length < value.length) {
+                value = deflated;
+                header |= DEFLATED;
+            }
+        }
+        byte[] bytes = new byte[value.length + 1];
+        bytes[0] = (byte) header;
+        System.arraycopy(value, 0, bytes, 1, value.length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Encodes the subject into the claims it is written as.
+     * With {@link SubjectEncoding#CLAIMS}, a subject that is serialized as a JSON object yields its properties;
+     * any other subject yields the {@link #getSubjectClaim() subject claim} holding {@link #encode(Object)}.
+     *
+     * @param subject the subject to encode
+     * @return the subject claims
+     * @throws JsonProcessingException if the subject cannot be serialized
+     * @throws IllegalArgumentException if a property of a flattened subject is named like a registered claim
+     */
+    public Map<String, Object> encodeClaims(Object subject) throws JsonProcessingException {
+        if (this.encoding != SubjectEncoding.CLAIMS || subject == null || !this.isFlattenable(subject.getClass())) {
+            return Collections.singletonMap(this.getSubjectClaim(), this.encode(subject));
+        }
+        Map<String, Object> claims = this.objectMapper.convertValue(subject, this.claimsType);
+        for (String name : claims.keySet()) {
+            if (REGISTERED_CLAIMS.contains(name)) {
+                throw new IllegalArgumentException("Subject property " + name + " collides with the registered claim of the same name.");
+            }
+        }
+        return claims;
+    }
+
+    /**
+     * Decodes a subject that was written as JSON into the {@code sub} claim, in a binary encoding
+     * into the {@link #BINARY_SUBJECT_CLAIM} claim, or as top-level claims.
+     *
+     * @param <T> the type of the subject
+     * @param subject the JSON subject, used if binarySubject is null
+     * @param binarySubject the base64url encoded binary subject, or null
+     * @param subjectClaims the claims other than the registered claims, used if both subject and binarySubject are null
+     * @param subjectType the subject type
+     * @return the decoded subject
+     * @throws JsonProcessingException if the value cannot be deserialized
+     * @throws IllegalArgumentException if the binary subject is malformed
+     */
+    public <T> T decode(String subject, String binarySubject, Map<String, Object> subjectClaims, Type subjectType) throws JsonProcessingException {
+        if (binarySubject == null && subject == null) {
+            return this.read(this.objectMapper.valueToTree(subjectClaims != null ? subjectClaims : Map.of()), subjectType);
+        }
+        if (binarySubject == null) {
+            return this.readerFor(subjectType).readValue(subject);
+        }
+        byte[] bytes = Base64.getUrlDecoder().decode(binarySubject);
+        if (bytes.length == 0) {
+            throw new IllegalArgumentException("Empty binary subject.");
+        }
+        SubjectEncoding binaryEncoding = SubjectEncoding.ofId(bytes[0] & ENCODING_MASK);
+        if (binaryEncoding == null) {
+            throw new IllegalArgumentException("Unknown subject encoding " + (bytes[0] & ENCODING_MASK) + ".");
+        }
+        ObjectReader reader = this.binaryCodec(binaryEncoding).readerFor(subjectType);
+        try {
+            if ((bytes[0] & DEFLATED) != 0) {
+                byte[] inflated = inflate(bytes, 1, bytes.length - 1);
+                return reader.readValue(inflated);
+            }
+            return reader.readValue(bytes, 1, bytes.length - 1);
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException e) {
+            // Reading from a byte array only fails on malformed content, which Jackson reports as JsonProcessingException.
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Serializes the subject to a JSON string.
+     *
+     * @param subject the subject to serialize
+     * @return the JSON representation of the subject
+     * @throws JsonProcessingException if the subject cannot be serialized
+     */
+    public String write(Object subject) throws JsonProcessingException {
+        if (subject == null) {
+            return this.objectMapper.writeValueAsString(null);
+        }
+        return this.writerFor(subject.getClass()).writeValueAsString(subject);
+    }
+
+    /**
+     * Deserializes a JSON string into the given class type.
+     *
+     * @param <T> the type of the subject
+     * @param value the JSON representation of the subject
+     * @param subjectType the class type of the subject
+     * @return the deserialized subject
+     * @throws JsonProcessingException if the value cannot be deserialized
+     */
+    public <T> T read(String value, Class<T> subjectType) throws JsonProcessingException {
+        return this.readerFor(subjectType).readValue(value);
+    }
+
+    /**
+     * Deserializes a JSON string into the type captured by the given type reference.
+     *
+     * @param <T> the type of the subject
+     * @param value the JSON representation of the subject
+     * @param typeReference the type reference for the subject type
+     * @return the deserialized subject
+     * @throws JsonProcessingException if the value cannot be deserialized
+     */
+    public <T> T read(String value, TypeReference<?> typeReference) throws JsonProcessingException {
+        return this.readerFor(typeReference.getType()).readValue(value);
+    }
+
+    /**
+     * Deserializes a JSON tree into the given type.
+     *
+     * @param <T> the type of the subject
+     * @param tree the JSON tree of the subject
+     * @param subjectType the subject type
+     * @return the deserialized subject, which shares no state with the tree
+     * @throws JsonProcessingException if the tree cannot be deserialized into the type
+     */
+    public <T> T read(JsonNode tree, Type subjectType) throws JsonProcessingException {
+        try {
+            return this.readerFor(subjectType).readValue(tree);
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException e) {
+            // Reading from a tree only fails on content that does not fit the type, which Jackson reports as JsonProcessingException.
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns a copy of the subject that can be shared and turned back into an independent subject with {@link #read(JsonNode, Type)}.
+     * Subjects of well-known immutable classes, and null, are returned as is.
+     *
+     * @param subject the decoded subject
+     * @return the subject itself if it is immutable, otherwise its JSON tree
+     */
+    public Object snapshot(Object subject) {
+        if (subject == null || isImmutable(subject.getClass())) {
+            return subject;
+        }
+        return this.objectMapper.valueToTree(subject);
+    }
+
+    /**
+     * Returns the cached reader for the given type, creating it on first use.
+     *
+     * @param subjectType the subject type
+     * @return the object reader for the subject type
+     */
+    public ObjectReader readerFor(Type subjectType) {
+        Objects.requireNonNull(subjectType, "subjectType must be not null.");
+        return this.readers.computeIfAbsent(subjectType,
+                type -> this.objectMapper.readerFor(this.objectMapper.getTypeFactory().constructType(type)));
+    }
+
+    /**
+     * Returns the cached writer for the given class, creating it on first use.
+     *
+     * @param subjectClass the runtime class of the subject
+     * @return the object writer for the subject class
+     */
+    public ObjectWriter writerFor(Class<?> subjectClass) {
+        Objects.requireNonNull(subjectClass, "subjectClass must be not null.");
+        return this.writers.computeIfAbsent(subjectClass, this.objectMapper::writerFor);
+    }
+
+    /**
+     * Returns whether instances of the class cannot be modified, so that one instance can be handed to every caller.
+     */
+    private static boolean isImmutable(Class<?> subjectClass) {
+        return subjectClass.isEnum() || IMMUTABLE_TYPES.contains(subjectClass);
+    }
+
+    /**
+     * Returns whether subjects of the given class are serialized as a JSON object, which is looked up once per class.
+     */
+    private boolean isFlattenable(Class<?> subjectClass) throws JsonProcessingException {
+        Boolean flattenable = this.flattenable.get(subjectClass);
+        if (flattenable == null) {
+            JsonSerializer<?> serializer = this.objectMapper.getSerializerProviderInstance().findValueSerializer(subjectClass);
+            flattenable = serializer instanceof BeanSerializerBase || serializer instanceof MapSerializer;
+            this.flattenable.putIfAbsent(subjectClass, flattenable);
+        }
+        return flattenable;
+    }
+
+    /**
+     * Returns the codec of a binary encoding, whose mapper is a copy of this mapper with the binary factory.
+     */
+    private SubjectCodec binaryCodec(SubjectEncoding binaryEncoding) {
+        SubjectCodec binaryCodec = this.binaryCodecs.get(binaryEncoding);
+        if (binaryCodec == null) {
+            binaryCodec = this.binaryCodecs.computeIfAbsent(binaryEncoding,
+                    key -> new SubjectCodec(this.objectMapper.copyWith(key.newFactory())));
+        }
+        return binaryCodec;
+    }
+
+    private static byte[] deflate(byte[] value) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(value);
+            deflater.finish();
+            byte[] buffer = new byte[value.length + 64];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+            return Arrays.copyOf(buffer, length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Inflates raw DEFLATE data, refusing output beyond {@link #MAX_INFLATED_LENGTH} so a small token cannot expand without bound.
+     */
+    private static byte[] inflate(byte[] value, int offset, int length) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(value, offset, length);
+            byte[] buffer = new byte[Math.max(64, length * 4)];
+            int inflatedLength = 0;
+            while (!inflater.finished()) {
+                if (inflatedLength == buffer.length) {
+                    if (buffer.length >= MAX_INFLATED_LENGTH) {
+                        throw new IllegalArgumentException("Binary subject exceeds " + MAX_INFLATED_LENGTH + " bytes.");
+                    }
+                    buffer = Arrays.copyOf(buffer, Math.min(buffer.length * 2, MAX_INFLATED_LENGTH));
+                }
+                int inflated = inflater.inflate(buffer, inflatedLength, buffer.length - inflatedLength);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Truncated binary subject.");
+                }
+                inflatedLength += inflated;
+            }
+            return Arrays.copyOf(buffer, inflatedLength);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Malformed binary subject.", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package io.github.ohmry.stateless.token.codec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+
+/**
+ * The encodings a token subject can be written in.
+ * JSON subjects are written as a string into the {@code sub} claim. Binary subjects are written
+ * base64url encoded into the {@link SubjectCodec#BINARY_SUBJECT_CLAIM} claim, which avoids escaping
+ * the subject JSON inside the claims JSON and is usually smaller for structured subjects.
+ * Claims subjects have their properties written as top-level claims, so the claims JSON is the only
+ * JSON document of the token and other services can read the subject fields as plain claims.
+ * The binary encodings need the matching {@code jackson-dataformat} module on the classpath.
+ *
+ * @author ohmry
+ */
+public enum SubjectEncoding {
+    /**
+     * JSON text in the {@code sub} claim. This is the default.
+     */
+    JSON(0),
+    /**
+     * CBOR (RFC 8949), written with {@code jackson-dataformat-cbor}.
+     */
+    CBOR(1),
+    /**
+     * Smile, written with {@code jackson-dataformat-smile}.
+     */
+    SMILE(2),
+    /**
+     * The subject properties as top-level claims. Subjects that are not serialized as a JSON object,
+     * such as strings, numbers and collections, are written as JSON text into the {@code sub} claim.
+     */
+    CLAIMS(3);
+
+    private final int id;
+
+    SubjectEncoding(int id) {
+        this.id = id;
+    }
+
+    /**
+     * Returns the id written into the first byte of a binary subject.
+     *
+     * @return the encoding id
+     */
+    int getId() {
+        return id;
+    }
+
+    /**
+     * Returns whether subjects are written into the binary subject claim.
+     *
+     * @return true for binary encodings
+     */
+    public boolean isBinary() {
+        return this == CBOR || this == SMILE;
+    }
+
+    /**
+     * Returns the binary encoding with the given id.
+     *
+     * @param id the encoding id
+     * @return the encoding, or null if the id is not a binary encoding
+     */
+    static SubjectEncoding ofId(int id) {
+        for (SubjectEncoding encoding : values()) {
+            if (encoding.id == id && encoding.isBinary()) {
+                return encoding;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates a factory for this binary encoding.
+     *
+     * @return a new factory
+     * @throws IllegalStateException if the dataformat module of the encoding is not on the classpath
+     */
+    JsonFactory newFactory() {
+        try {
+            switch (this) {
+                case CBOR:
+                    return new com.fasterxml.jackson.dataformat.cbor.CBORFactory();
+                case SMILE:
+                    return new com.fasterxml.jackson.dataformat.smile.SmileFactory();
+                default:
+                    return new JsonFactory();
+            }
+        } catch (NoClassDefFoundError e) {
+            throw new IllegalStateException("jackson-dataformat-" + this.name().toLowerCase() + " is required for the " + this + " subject encoding.", e);
+        }
+    }
+}
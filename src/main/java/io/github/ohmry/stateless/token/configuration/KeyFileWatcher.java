@@ -0,0 +1,185 @@
+package io.github.ohmry.stateless.token.configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Watches the files key material is read from and publishes a rebuilt StatelessTokenPolicy when they change.
+ * The directories of the files are watched rather than the files themselves, so files that are replaced
+ * through a symbolic link, as mounted secrets are, are noticed as well.
+ * The new policy, with all its keys and parsers, is built on the watcher thread and only published once it
+ * is complete; if it cannot be built, for example because a file was only partially written, the current
+ * policy stays in place.
+ *
+ * @author ohmry
+ */
+public class KeyFileWatcher implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(KeyFileWatcher.class);
+    private static final long QUIET_PERIOD_MILLIS = 200L;
+
+    private final List<Path> files;
+    private final Supplier<StatelessTokenPolicy> policyFactory;
+    private final Consumer<StatelessTokenPolicy> publisher;
+    private byte[] fingerprint;
+    private WatchService watchService;
+    private Thread thread;
+
+    /**
+     * Creates a new watcher.
+     *
+     * @param files the files key material is read from
+     * @param policyFactory the factory building a policy from the current contents of the files
+     * @param publisher the consumer the rebuilt policy is published to
+     * @throws IllegalArgumentException if files, policyFactory or publisher is null
+     */
+    public KeyFileWatcher(Collection<Path> files, Supplier<StatelessTokenPolicy> policyFactory, Consumer<StatelessTokenPolicy> publisher) {
+        if (files == null) {
+            throw new IllegalArgumentException("files must be not null.");
+        }
+        if (policyFactory == null) {
+            throw new IllegalArgumentException("policyFactory must be not null.");
+        }
+        if (publisher == null) {
+            throw new IllegalArgumentException("publisher must be not null.");
+        }
+        this.files = new ArrayList<>();
+        for (Path file : files) {
+            this.files.add(file.toAbsolutePath());
+        }
+        this.policyFactory = policyFactory;
+        this.publisher = publisher;
+        this.fingerprint = this.readFingerprint();
+    }
+
+    /**
+     * Starts watching the files on a daemon thread.
+     *
+     * @throws UncheckedIOException if the directories of the files cannot be watched
+     */
+    public synchronized void start() {
+        if (this.thread != null) {
+            return;
+        }
+        Set<Path> directories = new LinkedHashSet<>();
+        for (Path file : this.files) {
+            directories.add(file.getParent());
+        }
+        try {
+            this.watchService = FileSystems.getDefault().newWatchService();
+            for (Path directory : directories) {
+                directory.register(this.watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY,
+                        StandardWatchEventKinds.ENTRY_DELETE);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to watch the key files.", e);
+        }
+        this.thread = new Thread(this::watch, "stateless-token-key-watcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+        logger.info("Watching key files in {}.", directories);
+    }
+
+    /**
+     * Rebuilds and publishes the policy if the contents of the files changed since the last reload.
+     *
+     * @return true if a new policy was published
+     */
+    public synchronized boolean reload() {
+        byte[] fingerprint = this.readFingerprint();
+        if (Arrays.equals(fingerprint, this.fingerprint)) {
+            return false;
+        }
+        StatelessTokenPolicy policy;
+        try {
+            policy = this.policyFactory.get();
+        } catch (RuntimeException e) {
+            logger.error("Unable to rebuild the StatelessTokenPolicy from the key files. The current policy stays in place.", e);
+            return false;
+        }
+        this.publisher.accept(policy);
+        this.fingerprint = fingerprint;
+        logger.info("Published a StatelessTokenPolicy rebuilt from the key files.");
+        return true;
+    }
+
+    /**
+     * Stops watching the files.
+     */
+    @Override
+    public synchronized void close() {
+        if (this.thread == null) {
+            return;
+        }
+        this.thread.interrupt();
+        try {
+            this.watchService.close();
+        } catch (IOException e) {
+            logger.debug("Unable to close the key file watch service.", e);
+        }
+        this.thread = null;
+    }
+
+    private void watch() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = this.watchService.take();
+                key.pollEvents();
+                key.reset();
+                // Files are often written in several steps, so the policy is rebuilt once the directories are quiet.
+                WatchKey next;
+                while ((next = this.watchService.poll(QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    next.pollEvents();
+                    next.reset();
+                }
+                this.reload();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            logger.debug("Stopped watching the key files.");
+        }
+    }
+
+    /**
+     * Returns a digest over the contents of all files, with missing files treated as empty.
+     */
+    private byte[] readFingerprint() {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Path file : this.files) {
+                digest.update(file.toString().getBytes(StandardCharsets.UTF_8));
+                if (Files.isReadable(file)) {
+                    digest.update(Files.readAllBytes(file));
+                }
+            }
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } catch (IOException e) {
+            logger.warn("Unable to read the key files.", e);
+            return this.fingerprint;
+        }
+    }
+}
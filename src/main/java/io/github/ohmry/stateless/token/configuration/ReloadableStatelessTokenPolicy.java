@@ -0,0 +1,65 @@
+package io.github.ohmry.stateless.token.configuration;
+
+import org.springframework.aop.TargetSource;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+
+/**
+ * Holds the policy most recently built from watched key files and hands out a proxy that always delegates to it.
+ * When key material is read from files, the proxy is registered as the StatelessTokenPolicy bean, so beans
+ * that inject the policy see every reloaded policy, just like StatelessTokenPolicyAware beans.
+ *
+ * @author ohmry
+ */
+final class ReloadableStatelessTokenPolicy implements TargetSource {
+    private volatile StatelessTokenPolicy policy;
+
+    ReloadableStatelessTokenPolicy() {}
+
+    /**
+     * Replaces the policy the proxy delegates to.
+     */
+    void set(StatelessTokenPolicy policy) {
+        this.policy = policy;
+    }
+
+    /**
+     * Returns a proxy that delegates every call to the current policy.
+     */
+    StatelessTokenPolicy proxy() {
+        ProxyFactory proxyFactory = new ProxyFactory();
+        proxyFactory.setTargetSource(this);
+        proxyFactory.setProxyTargetClass(true);
+        return (StatelessTokenPolicy) proxyFactory.getProxy(StatelessTokenPolicy.class.getClassLoader());
+    }
+
+    /**
+     * Returns the policy a reloadable proxy currently delegates to, or the given policy if it is no such proxy.
+     * Beans that receive the policy directly are republished on every reload, so they skip the proxy.
+     */
+    static StatelessTokenPolicy unwrap(StatelessTokenPolicy policy) {
+        if (policy instanceof Advised && ((Advised) policy).getTargetSource() instanceof ReloadableStatelessTokenPolicy) {
+            return ((ReloadableStatelessTokenPolicy) ((Advised) policy).getTargetSource()).policy;
+        }
+        return policy;
+    }
+
+    @Override
+    public Class<?> getTargetClass() {
+        return StatelessTokenPolicy.class;
+    }
+
+    @Override
+    public boolean isStatic() {
+        return false;
+    }
+
+    @Override
+    public Object getTarget() {
+        return this.policy;
+    }
+
+    @Override
+    public void releaseTarget(Object target) {
+    }
+}
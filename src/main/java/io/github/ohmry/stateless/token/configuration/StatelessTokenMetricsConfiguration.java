@@ -0,0 +1,48 @@
+package io.github.ohmry.stateless.token.configuration;
+
+import io.github.ohmry.stateless.token.metrics.MicrometerTokenMetrics;
+import io.github.ohmry.stateless.token.metrics.TokenMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Spring Boot auto-configuration for Micrometer token metrics.
+ * It is active when Micrometer is on the classpath and a MeterRegistry bean exists, and can be
+ * turned off with {@code stateless.token.metrics.enabled=false}.
+ *
+ * @author ohmry
+ */
+@AutoConfiguration(
+        afterName = "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration",
+        before = StatelessTokenPolicyConfiguration.class)
+@ConditionalOnClass(MeterRegistry.class)
+@ConditionalOnProperty(prefix = "stateless.token.metrics", name = "enabled", matchIfMissing = true)
+public class StatelessTokenMetricsConfiguration {
+    private static final Logger logger = LoggerFactory.getLogger(StatelessTokenMetricsConfiguration.class);
+
+    /**
+     * Default constructor.
+     */
+    public StatelessTokenMetricsConfiguration() {}
+
+    /**
+     * Creates a TokenMetrics bean that records to the MeterRegistry.
+     *
+     * @param meterRegistry the meter registry
+     * @return a MicrometerTokenMetrics instance
+     */
+    @Bean
+    @ConditionalOnBean(MeterRegistry.class)
+    @ConditionalOnMissingBean
+    public TokenMetrics tokenMetrics(MeterRegistry meterRegistry) {
+        logger.debug("Creating MicrometerTokenMetrics bean.");
+        return new MicrometerTokenMetrics(meterRegistry);
+    }
+}
@@ -1,8 +1,20 @@
 package io.github.ohmry.stateless.token.configuration;
 
-import io.jsonwebtoken.Jwts;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.ohmry.stateless.token.cache.RejectedTokenCache;
+import io.github.ohmry.stateless.token.cache.VerifiedTokenCache;
+import io.github.ohmry.stateless.token.codec.SubjectCodec;
+import io.github.ohmry.stateless.token.codec.SubjectEncoding;
+import io.github.ohmry.stateless.token.domain.AccessTokenRenewal;
+import io.github.ohmry.stateless.token.engine.SigningKey;
+import io.github.ohmry.stateless.token.engine.TokenAlgorithm;
+import io.github.ohmry.stateless.token.engine.TokenClock;
+import io.github.ohmry.stateless.token.engine.TokenEngine;
+import io.github.ohmry.stateless.token.engine.TokenPreCheck;
+import io.github.ohmry.stateless.token.metrics.TokenMetrics;
+import io.github.ohmry.stateless.token.revocation.TokenRevocationList;
+import io.github.ohmry.stateless.token.rotation.RefreshTokenStore;
 import io.jsonwebtoken.security.Keys;
-import io.jsonwebtoken.security.MacAlgorithm;
 import io.jsonwebtoken.security.WeakKeyException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,50 +22,118 @@ import org.slf4j.LoggerFactory;
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
+import java.time.Duration;
 import java.util.Base64;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
 
 import static java.util.Base64.getEncoder;
 
 /**
  * Configuration policy for stateless tokens.
- * This class holds the secret keys and timeout settings for tokens, access tokens, and refresh tokens.
+ * This class holds the signing keys and timeout settings for tokens, access tokens, and refresh tokens.
+ * Each token type can be signed with its own algorithm; HS512 is used unless configured otherwise.
+ * Besides its signing key, each token type can have verification keys, for example the keys replaced by
+ * a secret rotation, so tokens signed before the rotation stay valid until they expire.
  *
  * @author ohmry
  */
 public class StatelessTokenPolicy {
-    private final SecretKey tokenSecretKey;
-    private final SecretKey accessTokenSecretKey;
-    private final SecretKey refreshTokenSecretKey;
+    private final SigningKey tokenSigningKey;
+    private final SigningKey accessTokenSigningKey;
+    private final SigningKey refreshTokenSigningKey;
+    private final List<SigningKey> tokenVerificationKeys;
+    private final List<SigningKey> accessTokenVerificationKeys;
+    private final List<SigningKey> refreshTokenVerificationKeys;
     private final long tokenTimeoutSeconds;
     private final long accessTokenTimeoutSeconds;
     private final long refreshTokenTimeoutSeconds;
+    private final RefreshTokenStore refreshTokenStore;
+    private final TokenEngine tokenEngine;
+    private final AccessTokenRenewal accessTokenRenewal;
 
     /**
      * Returns the secret key for general tokens.
      *
-     * @return the token secret key
+     * @return the token secret key, or null if general tokens are signed with an asymmetric algorithm
      */
     public SecretKey getTokenSecretKey() {
-        return tokenSecretKey;
+        return secretKeyOf(tokenSigningKey);
     }
 
     /**
      * Returns the secret key for access tokens.
      *
-     * @return the access token secret key
+     * @return the access token secret key, or null if access tokens are signed with an asymmetric algorithm
      */
     public SecretKey getAccessTokenSecretKey() {
-        return accessTokenSecretKey;
+        return secretKeyOf(accessTokenSigningKey);
     }
 
     /**
      * Returns the secret key for refresh tokens.
      *
-     * @return the refresh token secret key
+     * @return the refresh token secret key, or null if refresh tokens are signed with an asymmetric algorithm
      */
     public SecretKey getRefreshTokenSecretKey() {
-        return refreshTokenSecretKey;
+        return secretKeyOf(refreshTokenSigningKey);
+    }
+
+    /**
+     * Returns the signing key for general tokens.
+     *
+     * @return the token signing key
+     */
+    public SigningKey getTokenSigningKey() {
+        return tokenSigningKey;
+    }
+
+    /**
+     * Returns the signing key for access tokens.
+     *
+     * @return the access token signing key
+     */
+    public SigningKey getAccessTokenSigningKey() {
+        return accessTokenSigningKey;
+    }
+
+    /**
+     * Returns the signing key for refresh tokens.
+     *
+     * @return the refresh token signing key
+     */
+    public SigningKey getRefreshTokenSigningKey() {
+        return refreshTokenSigningKey;
+    }
+
+    /**
+     * Returns the keys general tokens are verified with in addition to their signing key.
+     *
+     * @return the token verification keys
+     */
+    public List<SigningKey> getTokenVerificationKeys() {
+        return tokenVerificationKeys;
+    }
+
+    /**
+     * Returns the keys access tokens are verified with in addition to their signing key.
+     *
+     * @return the access token verification keys
+     */
+    public List<SigningKey> getAccessTokenVerificationKeys() {
+        return accessTokenVerificationKeys;
+    }
+
+    /**
+     * Returns the keys refresh tokens are verified with in addition to their signing key.
+     *
+     * @return the refresh token verification keys
+     */
+    public List<SigningKey> getRefreshTokenVerificationKeys() {
+        return refreshTokenVerificationKeys;
     }
 
     /**
@@ -83,30 +163,171 @@ public class StatelessTokenPolicy {
         return refreshTokenTimeoutSeconds;
     }
 
+    /**
+     * Returns the codec used to serialize and deserialize token subjects.
+     *
+     * @return the subject codec
+     */
+    public SubjectCodec getSubjectCodec() {
+        return tokenEngine.getSubjectCodec();
+    }
+
+    /**
+     * Returns the cache of verified tokens.
+     *
+     * @return the verified token cache, or null if caching is disabled
+     */
+    public VerifiedTokenCache getVerifiedTokenCache() {
+        return tokenEngine.getVerifiedTokenCache();
+    }
+
+    /**
+     * Returns the cache of tokens that recently failed verification.
+     *
+     * @return the rejected token cache, or null if rejected tokens are not cached
+     */
+    public RejectedTokenCache getRejectedTokenCache() {
+        return tokenEngine.getRejectedTokenCache();
+    }
+
+    /**
+     * Returns the pre-check that runs before tokens are verified.
+     *
+     * @return the token pre-check
+     */
+    public TokenPreCheck getPreCheck() {
+        return tokenEngine.getPreCheck();
+    }
+
+    /**
+     * Returns the metrics that token creation and parsing are reported to.
+     *
+     * @return the token metrics
+     */
+    public TokenMetrics getTokenMetrics() {
+        return tokenEngine.getTokenMetrics();
+    }
+
+    /**
+     * Returns the list of revoked tokens.
+     *
+     * @return the token revocation list, or null if revocation is disabled
+     */
+    public TokenRevocationList getRevocationList() {
+        return tokenEngine.getRevocationList();
+    }
+
+    /**
+     * Returns the store of refresh token families.
+     *
+     * @return the refresh token store, or null if refresh token rotation is disabled
+     */
+    public RefreshTokenStore getRefreshTokenStore() {
+        return refreshTokenStore;
+    }
+
+    /**
+     * Returns the sliding renewal of access tokens.
+     *
+     * @return the access token renewal, or null if access tokens are not renewed
+     */
+    public AccessTokenRenewal getAccessTokenRenewal() {
+        return accessTokenRenewal;
+    }
+
+    /**
+     * Returns the clock tokens are issued and validated with.
+     *
+     * @return the token clock
+     */
+    public TokenClock getClock() {
+        return tokenEngine.getClock();
+    }
+
+    /**
+     * Returns how long after their expiration tokens are still accepted.
+     *
+     * @return the clock skew in seconds
+     */
+    public long getClockSkewSeconds() {
+        return tokenEngine.getClockSkewSeconds();
+    }
+
+    /**
+     * Returns the engine used to issue and parse tokens with the keys of this policy.
+     *
+     * @return the token engine
+     */
+    public TokenEngine getTokenEngine() {
+        return tokenEngine;
+    }
+
     /**
      * Creates a new StatelessTokenPolicy with the specified configuration.
      *
-     * @param tokenSecretKey the secret key for general tokens (required)
-     * @param accessTokenSecretKey the secret key for access tokens (optional, defaults to tokenSecretKey)
-     * @param refreshTokenSecretKey the secret key for refresh tokens (optional, defaults to tokenSecretKey)
+     * @param tokenSigningKey the signing key for general tokens (required)
+     * @param accessTokenSigningKey the signing key for access tokens (optional, defaults to tokenSigningKey)
+     * @param refreshTokenSigningKey the signing key for refresh tokens (optional, defaults to tokenSigningKey)
+     * @param tokenVerificationKeys the additional verification keys for general tokens (optional)
+     * @param accessTokenVerificationKeys the additional verification keys for access tokens (optional, defaults to tokenVerificationKeys if the access token signing key is the token signing key)
+     * @param refreshTokenVerificationKeys the additional verification keys for refresh tokens (optional, defaults to tokenVerificationKeys if the refresh token signing key is the token signing key)
      * @param tokenTimeoutSeconds the timeout in seconds for general tokens (required)
      * @param accessTokenTimeoutSeconds the timeout in seconds for access tokens (optional, defaults to 30 minutes)
      * @param refreshTokenTimeoutSeconds the timeout in seconds for refresh tokens (optional, defaults to 12 hours)
-     * @throws IllegalArgumentException if tokenSecretKey or tokenTimeoutSeconds is null
+     * @param objectMapper the object mapper used for token subjects (optional, defaults to a new ObjectMapper)
+     * @param subjectEncoding the encoding token subjects are written in (optional, defaults to {@link SubjectEncoding#JSON})
+     * @param subjectCompressionThreshold the length in bytes from which binary subjects are compressed (optional, subjects are not compressed if null)
+     * @param lazySubjects whether parsed tokens decode their subject on first use
+     * @param clock the clock tokens are issued and validated with (optional, defaults to {@link TokenClock#coarse()})
+     * @param clockSkewSeconds how long after their expiration tokens are still accepted (optional, defaults to 0)
+     * @param verifiedTokenCacheSize the maximum number of cached verified tokens (optional, caching is disabled if null)
+     * @param rejectedTokenCacheSize the maximum number of cached rejected tokens (optional, rejected tokens are not cached if null)
+     * @param rejectedTokenCacheTimeToLiveSeconds how long rejected tokens are cached in seconds (optional, defaults to 60)
+     * @param preCheck the pre-check that runs before tokens are verified (optional, defaults to the default pre-check accepting the configured algorithms)
+     * @param batchExecutor the executor used to verify batches of tokens (optional, defaults to a shared pool with one thread per processor)
+     * @param tokenMetrics the metrics that token creation and parsing are reported to (optional, defaults to {@link TokenMetrics#NOOP})
+     * @param revocationList the list of revoked tokens that parsed tokens are checked against (optional, revocation is disabled if null)
+     * @param refreshTokenStore the store of refresh token families (optional, refresh token rotation is disabled if null)
+     * @param accessTokenRenewalWindow the fraction of the access token timeout before expiration in which access tokens are renewed (optional, renewal is disabled if null)
+     * @param accessTokenRenewalMaximumSize the maximum number of remembered access token replacements (optional, defaults to 10000)
+     * @throws IllegalArgumentException if tokenSigningKey or tokenTimeoutSeconds is null, accessTokenRenewalWindow is not between 0 and 1,
+     *         or accessTokenRenewalWindow is set and the access token timeout is shorter than 2 seconds
      */
-    private StatelessTokenPolicy(SecretKey tokenSecretKey,
-                                 SecretKey accessTokenSecretKey,
-                                 SecretKey refreshTokenSecretKey,
-                                 Long tokenTimeoutSeconds,
-                                 Long accessTokenTimeoutSeconds,
-                                 Long refreshTokenTimeoutSeconds) {
-        if (tokenSecretKey == null) {
+    StatelessTokenPolicy(SigningKey tokenSigningKey,
+                         SigningKey accessTokenSigningKey,
+                         SigningKey refreshTokenSigningKey,
+                         List<SigningKey> tokenVerificationKeys,
+                         List<SigningKey> accessTokenVerificationKeys,
+                         List<SigningKey> refreshTokenVerificationKeys,
+                         Long tokenTimeoutSeconds,
+                         Long accessTokenTimeoutSeconds,
+                         Long refreshTokenTimeoutSeconds,
+                         ObjectMapper objectMapper,
+                         SubjectEncoding subjectEncoding,
+                         Integer subjectCompressionThreshold,
+                         boolean lazySubjects,
+                         TokenClock clock,
+                         Long clockSkewSeconds,
+                         Long verifiedTokenCacheSize,
+                         Long rejectedTokenCacheSize,
+                         Long rejectedTokenCacheTimeToLiveSeconds,
+                         TokenPreCheck preCheck,
+                         Executor batchExecutor,
+                         TokenMetrics tokenMetrics,
+                         TokenRevocationList revocationList,
+                         RefreshTokenStore refreshTokenStore,
+                         Double accessTokenRenewalWindow,
+                         Long accessTokenRenewalMaximumSize) {
+        if (tokenSigningKey == null) {
             throw new IllegalArgumentException("tokenSecretKey must be not null.");
         } else {
-            this.tokenSecretKey = tokenSecretKey;
+            this.tokenSigningKey = tokenSigningKey;
         }
-        this.accessTokenSecretKey = Objects.requireNonNullElse(accessTokenSecretKey, tokenSecretKey);
-        this.refreshTokenSecretKey = Objects.requireNonNullElse(refreshTokenSecretKey, tokenSecretKey);
+        this.accessTokenSigningKey = Objects.requireNonNullElse(accessTokenSigningKey, tokenSigningKey);
+        this.refreshTokenSigningKey = Objects.requireNonNullElse(refreshTokenSigningKey, tokenSigningKey);
+        this.tokenVerificationKeys = tokenVerificationKeys != null ? List.copyOf(tokenVerificationKeys) : List.of();
+        this.accessTokenVerificationKeys = this.verificationKeys(accessTokenVerificationKeys, this.accessTokenSigningKey);
+        this.refreshTokenVerificationKeys = this.verificationKeys(refreshTokenVerificationKeys, this.refreshTokenSigningKey);
 
         if (tokenTimeoutSeconds == null) {
             throw new IllegalArgumentException("tokenTimeoutSeconds must be not null.");
@@ -119,6 +340,77 @@ public class StatelessTokenPolicy {
 
         // default timeout value is 12 hours.
         this.refreshTokenTimeoutSeconds = Objects.requireNonNullElse(refreshTokenTimeoutSeconds, 60 * 60 * 12L);
+
+        this.refreshTokenStore = refreshTokenStore;
+
+        this.tokenEngine = TokenEngine.builder()
+                .subjectCodec(new SubjectCodec(Objects.requireNonNullElseGet(objectMapper, ObjectMapper::new),
+                        Objects.requireNonNullElse(subjectEncoding, SubjectEncoding.JSON),
+                        Objects.requireNonNullElse(subjectCompressionThreshold, -1)))
+                .preCheck(Objects.requireNonNullElseGet(preCheck, () -> TokenPreCheck.builder().algorithms(this.getAlgorithmNames()).build()))
+                .verifiedTokenCache(verifiedTokenCacheSize != null ? new VerifiedTokenCache(verifiedTokenCacheSize) : null)
+                .rejectedTokenCache(rejectedTokenCacheSize != null
+                        ? new RejectedTokenCache(rejectedTokenCacheSize, Duration.ofSeconds(Objects.requireNonNullElse(rejectedTokenCacheTimeToLiveSeconds, 60L)))
+                        : null)
+                .batchExecutor(batchExecutor)
+                .tokenMetrics(tokenMetrics)
+                .revocationList(revocationList)
+                .lazySubjects(lazySubjects)
+                .clock(Objects.requireNonNullElseGet(clock, TokenClock::coarse))
+                .clockSkewSeconds(Objects.requireNonNullElse(clockSkewSeconds, 0L))
+                .keyRing(this.tokenSigningKey, this.tokenVerificationKeys.toArray(new SigningKey[0]))
+                .keyRing(this.accessTokenSigningKey, this.accessTokenVerificationKeys.toArray(new SigningKey[0]))
+                .keyRing(this.refreshTokenSigningKey, this.refreshTokenVerificationKeys.toArray(new SigningKey[0]))
+                .build();
+
+        if (accessTokenRenewalWindow == null) {
+            this.accessTokenRenewal = null;
+        } else if (accessTokenRenewalWindow <= 0 || accessTokenRenewalWindow >= 1) {
+            throw new IllegalArgumentException("accessTokenRenewalWindow must be greater than 0 and less than 1.");
+        } else if (this.accessTokenTimeoutSeconds < 2) {
+            throw new IllegalArgumentException("accessTokenRenewalWindow requires an access token timeout of at least 2 seconds.");
+        } else {
+            // The window is kept at least a second long and a second shorter than the timeout, whatever the rounding.
+            long windowSeconds = Math.round(this.accessTokenTimeoutSeconds * accessTokenRenewalWindow);
+            this.accessTokenRenewal = new AccessTokenRenewal(this.tokenEngine,
+                    this.accessTokenSigningKey,
+                    this.accessTokenTimeoutSeconds,
+                    Math.min(Math.max(1L, windowSeconds), this.accessTokenTimeoutSeconds - 1),
+                    Objects.requireNonNullElse(accessTokenRenewalMaximumSize, 10_000L));
+        }
+    }
+
+    /**
+     * Returns the given verification keys, or the verification keys of general tokens if the token type
+     * shares their signing key and has none of its own.
+     */
+    private List<SigningKey> verificationKeys(List<SigningKey> verificationKeys, SigningKey signingKey) {
+        if (verificationKeys != null) {
+            return List.copyOf(verificationKeys);
+        }
+        return signingKey.equals(this.tokenSigningKey) ? this.tokenVerificationKeys : List.of();
+    }
+
+    /**
+     * Returns the names of the algorithms tokens of this policy are signed or verified with.
+     *
+     * @return the JWS algorithm names
+     */
+    public Set<String> getAlgorithmNames() {
+        Set<String> algorithmNames = new LinkedHashSet<>();
+        algorithmNames.add(this.tokenSigningKey.getAlgorithm().getJwsName());
+        algorithmNames.add(this.accessTokenSigningKey.getAlgorithm().getJwsName());
+        algorithmNames.add(this.refreshTokenSigningKey.getAlgorithm().getJwsName());
+        for (List<SigningKey> verificationKeys : List.of(this.tokenVerificationKeys, this.accessTokenVerificationKeys, this.refreshTokenVerificationKeys)) {
+            for (SigningKey verificationKey : verificationKeys) {
+                algorithmNames.add(verificationKey.getAlgorithm().getJwsName());
+            }
+        }
+        return algorithmNames;
+    }
+
+    private static SecretKey secretKeyOf(SigningKey signingKey) {
+        return signingKey.getAlgorithm().isHmac() ? (SecretKey) signingKey.getVerificationKey() : null;
     }
 
     /**
@@ -137,17 +429,67 @@ public class StatelessTokenPolicy {
         private SecretKey tokenSecretKey;
         private SecretKey accessTokenSecretKey;
         private SecretKey refreshTokenSecretKey;
+        private TokenAlgorithm tokenAlgorithm;
+        private TokenAlgorithm accessTokenAlgorithm;
+        private TokenAlgorithm refreshTokenAlgorithm;
+        private SigningKey tokenSigningKey;
+        private SigningKey accessTokenSigningKey;
+        private SigningKey refreshTokenSigningKey;
+        private List<SigningKey> tokenVerificationKeys;
+        private List<SigningKey> accessTokenVerificationKeys;
+        private List<SigningKey> refreshTokenVerificationKeys;
         private Long tokenTimeoutSeconds;
         private Long accessTokenTimeoutSeconds;
         private Long refreshTokenTimeoutSeconds;
+        private ObjectMapper objectMapper;
+        private SubjectEncoding subjectEncoding;
+        private Integer subjectCompressionThreshold;
+        private boolean lazySubjects;
+        private TokenClock clock;
+        private Long clockSkewSeconds;
+        private Long verifiedTokenCacheSize;
+        private Long rejectedTokenCacheSize;
+        private Long rejectedTokenCacheTimeToLiveSeconds;
+        private TokenPreCheck preCheck;
+        private Executor batchExecutor;
+        private TokenMetrics tokenMetrics;
+        private TokenRevocationList revocationList;
+        private RefreshTokenStore refreshTokenStore;
+        private Double accessTokenRenewalWindow;
+        private Long accessTokenRenewalMaximumSize;
 
         private StatelessTokenPolicyBuilder() {
             this.tokenSecretKey = null;
             this.accessTokenSecretKey = null;
             this.refreshTokenSecretKey = null;
+            this.tokenAlgorithm = null;
+            this.accessTokenAlgorithm = null;
+            this.refreshTokenAlgorithm = null;
+            this.tokenSigningKey = null;
+            this.accessTokenSigningKey = null;
+            this.refreshTokenSigningKey = null;
+            this.tokenVerificationKeys = null;
+            this.accessTokenVerificationKeys = null;
+            this.refreshTokenVerificationKeys = null;
             this.tokenTimeoutSeconds = null;
             this.accessTokenTimeoutSeconds = null;
             this.refreshTokenTimeoutSeconds = null;
+            this.objectMapper = null;
+            this.subjectEncoding = null;
+            this.subjectCompressionThreshold = null;
+            this.lazySubjects = false;
+            this.clock = null;
+            this.clockSkewSeconds = null;
+            this.verifiedTokenCacheSize = null;
+            this.rejectedTokenCacheSize = null;
+            this.rejectedTokenCacheTimeToLiveSeconds = null;
+            this.preCheck = null;
+            this.batchExecutor = null;
+            this.tokenMetrics = null;
+            this.revocationList = null;
+            this.refreshTokenStore = null;
+            this.accessTokenRenewalWindow = null;
+            this.accessTokenRenewalMaximumSize = null;
         }
 
         private void handleWeakKeyException(String secretName) {
@@ -164,6 +506,31 @@ public class StatelessTokenPolicy {
             logger.error(stringBuilder);
         }
 
+        /**
+         * Resolves the signing key of a token type from its explicit signing key, its secret key and algorithm,
+         * or the signing key of general tokens.
+         */
+        private SigningKey signingKey(String secretName, SigningKey signingKey, SecretKey secretKey, TokenAlgorithm algorithm, SigningKey fallback) {
+            if (signingKey != null) {
+                return signingKey;
+            }
+            if (secretKey == null && (fallback == null || algorithm == null || algorithm == fallback.getAlgorithm())) {
+                return fallback;
+            }
+            if (secretKey == null && !fallback.getAlgorithm().isHmac()) {
+                throw new IllegalArgumentException(secretName + " or a signing key must be set to use " + algorithm.getJwsName() + ".");
+            }
+            SecretKey hmacSecretKey = secretKey != null ? secretKey : (SecretKey) fallback.getVerificationKey();
+            TokenAlgorithm hmacAlgorithm = algorithm != null ? algorithm
+                    : fallback != null && fallback.getAlgorithm().isHmac() ? fallback.getAlgorithm() : TokenAlgorithm.HS512;
+            try {
+                return SigningKey.hmac(hmacAlgorithm, hmacSecretKey);
+            } catch (WeakKeyException e) {
+                this.handleWeakKeyException(secretName);
+                throw e;
+            }
+        }
+
         /**
          * Sets the secret key for general tokens.
          *
@@ -215,6 +582,113 @@ public class StatelessTokenPolicy {
             return this;
         }
 
+        /**
+         * Sets the algorithm general tokens are signed with when they use the secret set by {@link #tokenSecret(String)}.
+         *
+         * @param algorithm the HMAC algorithm (defaults to HS512)
+         * @return this builder instance
+         */
+        public StatelessTokenPolicyBuilder tokenAlgorithm(TokenAlgorithm algorithm) {
+            this.tokenAlgorithm = algorithm;
+            return this;
+        }
+
+        /**
+         * Sets the algorithm access tokens are signed with.
+         * Without an access token secret or signing key, the general token secret is used with this algorithm.
+         *
+         * @param algorithm the algorithm (defaults to the general token algorithm)
+         * @return this builder instance
+         */
+        public StatelessTokenPolicyBuilder accessTokenAlgorithm(TokenAlgorithm algorithm) {
+            this.accessTokenAlgorithm = algorithm;
+            return this;
+        }
+
+        /**
+         * Sets the algorithm refresh tokens are signed with.
+         * Without a refresh token secret or signing key, the general token secret is used with this algorithm.
+         *
+         * @param algorithm the algorithm (defaults to the general token algorithm)
+         * @return this builder instance
+         */
+        public StatelessTokenPolicyBuilder refreshTokenAlgorithm(TokenAlgorithm algorithm) {
+            this.refreshTokenAlgorithm = algorithm;
+            return this;
+        }
+
+        /**
+         * Sets the signing key for general tokens, for example an EdDSA or ES256 key pair.
+         * It takes precedence over {@link #tokenSecret(String)}.
+         *
+         * @param signingKey the signing key
+         * @return this builder instance
+         */
+        public StatelessTokenPolicyBuilder tokenSigningKey(SigningKey signingKey) {
+            this.tokenSigningKey = signingKey;
+            return this;
+        }
+
+        /**
+         * Sets the signing key for access tokens.
+         * It takes precedence over {@link #accessTokenSecret(String)}.
+         *
+         * @param signingKey the signing key
+         * @return this builder instance
+         */
+        public StatelessTokenPolicyBuilder accessTokenSigningKey(SigningKey signingKey) {
+            this.accessTokenSigningKey = signingKey;
+            return this;
+        }
+
+        /**
+         * Sets the signing key for refresh tokens.
+         * It takes precedence over {@link #refreshTokenSecret(String)}.
+         *
+         * @param signingKey the signing key
+         * @return this builder instance
+         */
+        public StatelessTokenPolicyBuilder refreshTokenSigningKey(SigningKey signingKey) {
+            this.refreshTokenSigningKey = signingKey;
+            return this;
+        }
+
+        /**
+         * Sets the keys general tokens are verified with in addition to their signing key.
+         * After a key rotation, pass the replaced keys here so the tokens they signed stay valid until they expire.
+         *
+         * @param verificationKeys the verification keys
+         * @return this builder instance
+         */
+        public StatelessTokenPolicyBuilder tokenVerificationKeys(SigningKey... verificationKeys) {
+            this.tokenVerificationKeys = List.of(verificationKeys);
+            return this;
+        }
+
+        /**
+         * Sets the keys access tokens are verified with in addition to their signing key.
+         *
+         * @param verificationKeys the verification keys (default to the general token verification keys
+         *                         if access tokens use the general token signing key)
+         * @return this builder instance
+         */
+        public StatelessTokenPolicyBuilder accessTokenVerificationKeys(SigningKey... verificationKeys) {
+            this.accessTokenVerificationKeys = List.of(verificationKeys);
+            return this;
+        }
+
+        /**
+         * Sets the keys refresh tokens are verified with in addition to their signing key.
+         *
+         * @param verificationKeys the verification keys (default to the general token verification keys
+         *                         if refresh tokens use the general token signing key)
+         * @return this builder instance
+         */
+        public StatelessTokenPolicyBuilder refreshTokenVerificationKeys(SigningKey... verificationKeys) {
+            this.refreshTokenVerificationKeys = List.of(verificationKeys);
+            return this;
+        }
+
         /**
          * Sets the timeout in seconds for general tokens.
          *
@@ -248,6 +722,195 @@ public class StatelessTokenPolicy {
             return this;
         }
 
+        /**
+         * Sets the object mapper used to serialize and deserialize token subjects.
+         * Use this to register custom Jackson modules for subject types.
+         *
+         * @param objectMapper the object mapper
+         * @return this builder instance
+         */
+        public StatelessTokenPolicyBuilder objectMapper(ObjectMapper objectMapper) {
+            this.objectMapper = objectMapper;
+            return this;
+        }
+
+        /**
+         * Sets the encoding token subjects are written in.
+         * Tokens written in any encoding, including JSON tokens issued before, can still be parsed.
+         *
+         * @param subjectEncoding the subject encoding
+         * @return this builder instance
+         */
+        public StatelessTokenPolicyBuilder subjectEncoding(SubjectEncoding subjectEncoding) {
+            this.subjectEncoding = subjectEncoding;
+            return this;
+        }
+
+        /**
+         * Enables DEFLATE compression of binary subjects from the given length.
+         * A subject is only written compressed if that makes it smaller.
+         *
+         * @param thresholdBytes the encoded subject length in bytes from which subjects are compressed, or null to disable compression
+         * @return this builder instance
+         */
+        public StatelessTokenPolicyBuilder subjectCompressionThreshold(Integer thresholdBytes) {
+            this.subjectCompressionThreshold = thresholdBytes;
+            return this;
+        }
+
+        /**
+         * Sets whether parsed tokens decode their subject on first use.
+         * Parsing still verifies the signature, expiration and revocation of every token, so endpoints that
+         * only check {@code isInvalidate()} skip subject deserialization entirely.
+         *
+         * @param lazySubjects true to decode subjects on the first {@code getSubject()} call (defaults to false)
+         * @return this builder instance
+         */
+        public StatelessTokenPolicyBuilder lazySubjects(boolean lazySubjects) {
+            this.lazySubjects = lazySubjects;
+            return this;
+        }
+
+        /**
+         * Sets the clock tokens are issued and validated with.
+         * Use {@link TokenClock#system()} for millisecond precision, or a {@link TokenClock} subclass that tests move forward manually.
+         *
+         * @param clock the token clock (defaults to {@link TokenClock#coarse()})
+         * @return this builder instance
+         */
+        public StatelessTokenPolicyBuilder clock(TokenClock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        /**
+         * Sets how long after their expiration tokens are still accepted, so that nodes whose clocks
+         * drift apart do not reject tokens the issuing node considers valid.
+         *
+         * @param clockSkewSeconds the clock skew in seconds (defaults to 0)
+         * @return this builder instance
+         */
+        public StatelessTokenPolicyBuilder clockSkew(Long clockSkewSeconds) {
+            this.clockSkewSeconds = clockSkewSeconds;
+            return this;
+        }
+
+        /**
+         * Enables the cache of verified tokens.
+         * Tokens found in the cache skip signature verification and subject deserialization until they expire.
+         *
+         * @param maximumSize the maximum number of cached tokens, or null to disable caching
+         * @return this builder instance
+         */
+        public StatelessTokenPolicyBuilder verifiedTokenCache(Long maximumSize) {
+            this.verifiedTokenCacheSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * Enables the cache of tokens that recently failed verification.
+         * Tokens found in the cache are rejected without signature verification until their entry expires.
+         *
+         * @param maximumSize the maximum number of cached rejected tokens, or null to verify every token
+         * @return this builder instance
+         */
+        public StatelessTokenPolicyBuilder rejectedTokenCache(Long maximumSize) {
+            this.rejectedTokenCacheSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * Sets how long rejected tokens are cached.
+         *
+         * @param timeToLiveSeconds the time to live in seconds (defaults to 60)
+         * @return this builder instance
+         */
+        public StatelessTokenPolicyBuilder rejectedTokenCacheTimeToLive(Long timeToLiveSeconds) {
+            this.rejectedTokenCacheTimeToLiveSeconds = timeToLiveSeconds;
+            return this;
+        }
+
+        /**
+         * Sets the pre-check that rejects malformed, oversized, unexpected-algorithm and expired tokens
+         * before any signature work.
+         *
+         * @param preCheck the token pre-check, or {@link TokenPreCheck#disabled()} to verify every token
+         * @return this builder instance
+         */
+        public StatelessTokenPolicyBuilder preCheck(TokenPreCheck preCheck) {
+            this.preCheck = preCheck;
+            return this;
+        }
+
+        /**
+         * Sets the executor used by {@code parseAll} to verify distinct tokens of a batch in parallel.
+         *
+         * @param batchExecutor the batch executor
+         * @return this builder instance
+         */
+        public StatelessTokenPolicyBuilder batchExecutor(Executor batchExecutor) {
+            this.batchExecutor = batchExecutor;
+            return this;
+        }
+
+        /**
+         * Sets the metrics that token creation and parsing are reported to.
+         *
+         * @param tokenMetrics the token metrics, or null to disable metrics
+         * @return this builder instance
+         */
+        public StatelessTokenPolicyBuilder tokenMetrics(TokenMetrics tokenMetrics) {
+            this.tokenMetrics = tokenMetrics;
+            return this;
+        }
+
+        /**
+         * Sets the list of revoked tokens that parsed tokens are checked against.
+         *
+         * @param revocationList the token revocation list, or null to disable revocation
+         * @return this builder instance
+         */
+        public StatelessTokenPolicyBuilder revocationList(TokenRevocationList revocationList) {
+            this.revocationList = revocationList;
+            return this;
+        }
+
+        /**
+         * Sets the store of refresh token families, which enables refresh token rotation.
+         *
+         * @param refreshTokenStore the refresh token store, or null to disable rotation
+         * @return this builder instance
+         */
+        public StatelessTokenPolicyBuilder refreshTokenStore(RefreshTokenStore refreshTokenStore) {
+            this.refreshTokenStore = refreshTokenStore;
+            return this;
+        }
+
+        /**
+         * Enables the sliding renewal of access tokens.
+         * A parsed access token whose remaining lifetime is less than the given fraction of the access token
+         * timeout offers a replacement, which the web integrations return to the client.
+         * The window is rounded to whole seconds and kept at least one second shorter than the timeout.
+         *
+         * @param window the fraction of the access token timeout, between 0 and 1, or null to disable renewal
+         * @return this builder instance
+         */
+        public StatelessTokenPolicyBuilder accessTokenRenewalWindow(Double window) {
+            this.accessTokenRenewalWindow = window;
+            return this;
+        }
+
+        /**
+         * Sets how many access token replacements are remembered, so that each token is renewed only once.
+         *
+         * @param maximumSize the maximum number of remembered replacements (defaults to 10000)
+         * @return this builder instance
+         */
+        public StatelessTokenPolicyBuilder accessTokenRenewalMaximumSize(Long maximumSize) {
+            this.accessTokenRenewalMaximumSize = maximumSize;
+            return this;
+        }
+
         /**
          * Builds a new StatelessTokenPolicy instance with the configured values.
          *
@@ -255,13 +918,37 @@ public class StatelessTokenPolicy {
          * @throws IllegalArgumentException if required fields are not set
          */
         public StatelessTokenPolicy build() {
+            SigningKey tokenSigningKey = this.signingKey("tokenSecret", this.tokenSigningKey, this.tokenSecretKey, this.tokenAlgorithm, null);
+            SigningKey accessTokenSigningKey = tokenSigningKey == null ? null
+                    : this.signingKey("accessTokenSecret", this.accessTokenSigningKey, this.accessTokenSecretKey, this.accessTokenAlgorithm, tokenSigningKey);
+            SigningKey refreshTokenSigningKey = tokenSigningKey == null ? null
+                    : this.signingKey("refreshTokenSecret", this.refreshTokenSigningKey, this.refreshTokenSecretKey, this.refreshTokenAlgorithm, tokenSigningKey);
             return new StatelessTokenPolicy(
-                    this.tokenSecretKey,
-                    this.accessTokenSecretKey,
-                    this.refreshTokenSecretKey,
+                    tokenSigningKey,
+                    accessTokenSigningKey,
+                    refreshTokenSigningKey,
+                    this.tokenVerificationKeys,
+                    this.accessTokenVerificationKeys,
+                    this.refreshTokenVerificationKeys,
                     this.tokenTimeoutSeconds,
                     this.accessTokenTimeoutSeconds,
-                    this.refreshTokenTimeoutSeconds);
+                    this.refreshTokenTimeoutSeconds,
+                    this.objectMapper,
+                    this.subjectEncoding,
+                    this.subjectCompressionThreshold,
+                    this.lazySubjects,
+                    this.clock,
+                    this.clockSkewSeconds,
+                    this.verifiedTokenCacheSize,
+                    this.rejectedTokenCacheSize,
+                    this.rejectedTokenCacheTimeToLiveSeconds,
+                    this.preCheck,
+                    this.batchExecutor,
+                    this.tokenMetrics,
+                    this.revocationList,
+                    this.refreshTokenStore,
+                    this.accessTokenRenewalWindow,
+                    this.accessTokenRenewalMaximumSize);
         }
     }
 }
@@ -1,17 +1,40 @@
 package io.github.ohmry.stateless.token.configuration;
 
+import io.github.ohmry.stateless.token.codec.SubjectEncoding;
+import io.github.ohmry.stateless.token.engine.SigningKey;
+import io.github.ohmry.stateless.token.engine.TokenAlgorithm;
+import io.github.ohmry.stateless.token.engine.TokenClock;
+import io.github.ohmry.stateless.token.engine.TokenPreCheck;
+import io.github.ohmry.stateless.token.metrics.TokenMetrics;
+import io.github.ohmry.stateless.token.revocation.TokenRevocationList;
+import io.github.ohmry.stateless.token.rotation.InMemoryRefreshTokenStore;
+import io.github.ohmry.stateless.token.rotation.RefreshTokenStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
+import org.springframework.core.type.AnnotatedTypeMetadata;
 import org.springframework.util.StringUtils;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
 /**
  * Spring Boot auto-configuration for StatelessTokenPolicy.
  * This configuration reads token policy settings from application properties and creates
@@ -22,6 +45,9 @@ import org.springframework.util.StringUtils;
 @Configuration
 public class StatelessTokenPolicyConfiguration {
     private static final Logger logger = LoggerFactory.getLogger(StatelessTokenPolicyConfiguration.class);
+    private static final String[] KEY_PROPERTY_NAMES = {"secret", "privateKey", "publicKey", "previousSecrets", "previousPublicKeys"};
+
+    private final ReloadableStatelessTokenPolicy reloadablePolicy = new ReloadableStatelessTokenPolicy();
 
     /**
      * Default constructor.
@@ -32,54 +58,234 @@ public class StatelessTokenPolicyConfiguration {
      * Creates a StatelessTokenPolicy bean from application properties.
      * Required properties:
      * <ul>
-     *   <li>stateless.token.secret - Secret key for general tokens</li>
+     *   <li>stateless.token.secret - Secret key for general tokens (for HMAC algorithms)</li>
+     *   <li>stateless.token.publicKey - PEM encoded public key for general tokens (for ES256 and EdDSA)</li>
      *   <li>stateless.token.timeout - Timeout in seconds for general tokens</li>
      * </ul>
      * Optional properties:
      * <ul>
+     *   <li>stateless.token.algorithm - Signature algorithm for general tokens: HS256, HS384, HS512, ES256 or EdDSA (defaults to HS512)</li>
+     *   <li>stateless.token.privateKey - PEM encoded PKCS#8 private key for general tokens (without it tokens can only be verified)</li>
+     *   <li>stateless.accessToken.algorithm, stateless.accessToken.privateKey, stateless.accessToken.publicKey - The same for access tokens (default to the general token settings)</li>
+     *   <li>stateless.refreshToken.algorithm, stateless.refreshToken.privateKey, stateless.refreshToken.publicKey - The same for refresh tokens (default to the general token settings)</li>
+     *   <li>stateless.token.previousSecrets - Comma-separated secrets general tokens are still verified with after a rotation (with the token algorithm if it is an HMAC algorithm, HS512 otherwise)</li>
+     *   <li>stateless.token.previousPublicKeys - Comma-separated PEM encoded public keys general tokens are still verified with after a rotation (with the token algorithm)</li>
+     *   <li>stateless.accessToken.previousSecrets, stateless.accessToken.previousPublicKeys, stateless.refreshToken.previousSecrets, stateless.refreshToken.previousPublicKeys - The same for access and refresh tokens (default to the general token settings if the token type uses the general token key)</li>
      *   <li>stateless.accessToken.secret - Secret key for access tokens (defaults to token.secret)</li>
      *   <li>stateless.accessToken.timeout - Timeout in seconds for access tokens (defaults to 30 minutes)</li>
+     *   <li>stateless.accessToken.renewal.window - Fraction of the access token timeout before expiration in which parsed access tokens offer a replacement (defaults to no renewal)</li>
+     *   <li>stateless.accessToken.renewal.maximumSize - Maximum number of remembered access token replacements (defaults to 10000)</li>
      *   <li>stateless.refreshToken.secret - Secret key for refresh tokens (defaults to token.secret)</li>
      *   <li>stateless.refreshToken.timeout - Timeout in seconds for refresh tokens (defaults to 12 hours)</li>
+     *   <li>stateless.token.cache.enabled - Whether verified tokens are cached (defaults to false)</li>
+     *   <li>stateless.token.cache.maximumSize - Maximum number of cached verified tokens (defaults to 10000)</li>
+     *   <li>stateless.token.rejectedCache.enabled - Whether tokens that failed verification are cached and rejected without verification when replayed (defaults to false)</li>
+     *   <li>stateless.token.rejectedCache.maximumSize - Maximum number of cached rejected tokens (defaults to 10000)</li>
+     *   <li>stateless.token.rejectedCache.timeToLiveSeconds - Seconds a rejected token is cached (defaults to 60)</li>
+     *   <li>stateless.token.precheck.enabled - Whether tokens are pre-checked before verification (defaults to true)</li>
+     *   <li>stateless.token.precheck.maxLength - Maximum accepted token length (defaults to 16384)</li>
+     *   <li>stateless.token.precheck.algorithms - Comma-separated accepted header algorithms (defaults to the configured algorithms)</li>
+     *   <li>stateless.token.precheck.expirationPeek - Whether expired tokens are rejected before verification (defaults to true)</li>
+     *   <li>stateless.token.subject.encoding - Encoding of token subjects: JSON, CBOR, SMILE or CLAIMS (defaults to JSON)</li>
+     *   <li>stateless.token.subject.compressionThreshold - Length in bytes from which binary subjects are DEFLATE compressed (defaults to no compression)</li>
+     *   <li>stateless.token.subject.lazy - Whether parsed tokens decode their subject on the first getSubject() call (defaults to false)</li>
+     *   <li>stateless.token.clock.coarse - Whether token times are read from a clock refreshed once per second instead of the system clock (defaults to true)</li>
+     *   <li>stateless.token.clock.skewSeconds - Seconds tokens are still accepted after their expiration to tolerate clock drift between servers (defaults to 0)</li>
+     *   <li>stateless.token.revocation.enabled - Whether tokens can be revoked by their id (defaults to false)</li>
+     *   <li>stateless.token.revocation.expectedRevocations - Number of live revoked tokens the revocation filter is sized for (defaults to 100000)</li>
+     *   <li>stateless.token.revocation.falsePositiveRate - Rate of revocation filter hits for tokens that were not revoked (defaults to 0.01)</li>
+     *   <li>stateless.refreshToken.rotation.enabled - Whether refresh tokens are exchanged once with reuse detection (defaults to false)</li>
+     *   <li>stateless.refreshToken.rotation.stripes - Number of lock stripes of the in-memory refresh token store (defaults to four per processor)</li>
      * </ul>
+     * Every secret, privateKey, publicKey, previousSecrets and previousPublicKeys property can instead be read from a file
+     * named by the same property with the {@code File} suffix, for example {@code stateless.token.secretFile}.
+     * Token creation and parsing are reported to the TokenMetrics bean, if one is defined, and parsed tokens
+     * are checked against the TokenRevocationList bean, if one is defined. Refresh tokens are rotated
+     * with the RefreshTokenStore bean, if one is defined.
+     * If key material is read from files, the bean is a proxy that delegates to the policy most recently
+     * built by the KeyFileWatcher, so that injected references see reloaded keys.
      *
      * @param environment the Spring environment containing application properties
+     * @param tokenMetrics the provider of the optional TokenMetrics bean
+     * @param revocationList the provider of the optional TokenRevocationList bean
+     * @param refreshTokenStore the provider of the optional RefreshTokenStore bean
      * @return a configured StatelessTokenPolicy instance
      * @throws IllegalArgumentException if required properties are missing
      */
     @Bean
     @ConditionalOnMissingBean
+    public StatelessTokenPolicy statelessTokenPolicy(Environment environment,
+                                                     ObjectProvider<TokenMetrics> tokenMetrics,
+                                                     ObjectProvider<TokenRevocationList> revocationList,
+                                                     ObjectProvider<RefreshTokenStore> refreshTokenStore) {
+        StatelessTokenPolicy policy = this.buildStatelessTokenPolicy(environment, tokenMetrics, revocationList, refreshTokenStore);
+        logger.info("Initialized StatelessTokenPolicyConfiguration.");
+        if (!keyFiles(environment).isEmpty()) {
+            this.reloadablePolicy.set(policy);
+            return this.reloadablePolicy.proxy();
+        }
+        return policy;
+    }
+
+    /**
+     * Creates a TokenRevocationList bean if token revocation is enabled.
+     * The list is a bean of its own, so that revocations survive a policy rebuilt by the KeyFileWatcher.
+     *
+     * @param environment the Spring environment containing application properties
+     * @return an empty TokenRevocationList instance
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "stateless.token.revocation", name = "enabled", havingValue = "true")
+    public TokenRevocationList tokenRevocationList(Environment environment) {
+        int expectedRevocations = environment.getProperty("stateless.token.revocation.expectedRevocations", Integer.class, 100_000);
+        double falsePositiveRate = environment.getProperty("stateless.token.revocation.falsePositiveRate", Double.class, 0.01);
+        logger.debug("Token revocation enabled for {} expected revocations.", expectedRevocations);
+        return new TokenRevocationList(expectedRevocations, falsePositiveRate);
+    }
+
+    /**
+     * Creates an InMemoryRefreshTokenStore bean if refresh token rotation is enabled.
+     * Define a RefreshTokenStore bean of your own to share the families between instances.
+     *
+     * @param environment the Spring environment containing application properties
+     * @return an empty InMemoryRefreshTokenStore instance
+     */
+    @Bean
+    @ConditionalOnMissingBean(RefreshTokenStore.class)
+    @ConditionalOnProperty(prefix = "stateless.refreshToken.rotation", name = "enabled", havingValue = "true")
+    public InMemoryRefreshTokenStore refreshTokenStore(Environment environment) {
+        Integer stripes = environment.getProperty("stateless.refreshToken.rotation.stripes", Integer.class);
+        logger.debug("Refresh token rotation enabled.");
+        return stripes != null ? new InMemoryRefreshTokenStore(stripes) : new InMemoryRefreshTokenStore();
+    }
+
+    /**
+     * Creates a KeyFileWatcher bean if key material is read from files.
+     * When the files change, the policy is rebuilt from the properties and published to the StatelessTokenPolicy
+     * bean and to every StatelessTokenPolicyAware bean, including the StatelessTokenPolicyHolder.
+     *
+     * @param environment the Spring environment containing application properties
+     * @param tokenMetrics the provider of the optional TokenMetrics bean
+     * @param revocationList the provider of the optional TokenRevocationList bean
+     * @param refreshTokenStore the provider of the optional RefreshTokenStore bean
+     * @param statelessTokenPolicyAwareBeans the beans the rebuilt policy is published to
+     * @return a started KeyFileWatcher instance
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    @Conditional(KeyFilesCondition.class)
+    public KeyFileWatcher keyFileWatcher(Environment environment,
+                                         ObjectProvider<TokenMetrics> tokenMetrics,
+                                         ObjectProvider<TokenRevocationList> revocationList,
+                                         ObjectProvider<RefreshTokenStore> refreshTokenStore,
+                                         ObjectProvider<StatelessTokenPolicyAware> statelessTokenPolicyAwareBeans) {
+        KeyFileWatcher keyFileWatcher = new KeyFileWatcher(
+                keyFiles(environment),
+                () -> this.buildStatelessTokenPolicy(environment, tokenMetrics, revocationList, refreshTokenStore),
+                policy -> {
+                    this.reloadablePolicy.set(policy);
+                    statelessTokenPolicyAwareBeans.orderedStream().forEach(bean -> bean.setStatelessTokenPolicy(policy));
+                });
+        keyFileWatcher.start();
+        return keyFileWatcher;
+    }
+
+    /**
+     * Creates a StatelessTokenPolicy from application properties without metrics, revocation and refresh token rotation.
+     * See {@link #statelessTokenPolicy(Environment, ObjectProvider, ObjectProvider, ObjectProvider)} for the supported properties.
+     *
+     * @param environment the Spring environment containing application properties
+     * @return a configured StatelessTokenPolicy instance
+     * @throws IllegalArgumentException if required properties are missing
+     */
     public StatelessTokenPolicy statelessTokenPolicy(Environment environment) {
-        String tokenSecret = environment.getProperty("stateless.token.secret");
-        String accessTokenSecret = environment.getProperty("stateless.accessToken.secret");
-        String refreshTokenSecret = environment.getProperty("stateless.refreshToken.secret");
+        return this.statelessTokenPolicyBuilder(environment).build();
+    }
+
+    private StatelessTokenPolicy buildStatelessTokenPolicy(Environment environment,
+                                                           ObjectProvider<TokenMetrics> tokenMetrics,
+                                                           ObjectProvider<TokenRevocationList> revocationList,
+                                                           ObjectProvider<RefreshTokenStore> refreshTokenStore) {
+        StatelessTokenPolicy.StatelessTokenPolicyBuilder builder = this.statelessTokenPolicyBuilder(environment);
+        TokenMetrics metrics = tokenMetrics.getIfAvailable();
+        if (metrics != null) {
+            builder.tokenMetrics(metrics);
+            logger.debug("Token metrics enabled with {}.", metrics.getClass().getSimpleName());
+        }
+        builder.revocationList(revocationList.getIfAvailable());
+        builder.refreshTokenStore(refreshTokenStore.getIfAvailable());
+        return builder.build();
+    }
+
+    private StatelessTokenPolicy.StatelessTokenPolicyBuilder statelessTokenPolicyBuilder(Environment environment) {
+        String tokenSecret = keyProperty(environment, "stateless.token.secret");
+        String accessTokenSecret = keyProperty(environment, "stateless.accessToken.secret");
+        String refreshTokenSecret = keyProperty(environment, "stateless.refreshToken.secret");
         String tokenTimeoutValue = environment.getProperty("stateless.token.timeout");
         String accessTokenTimeoutValue = environment.getProperty("stateless.accessToken.timeout");
         String refreshTokenTimeoutValue = environment.getProperty("stateless.refreshToken.timeout");
+        String cacheEnabledValue = environment.getProperty("stateless.token.cache.enabled");
+        String cacheMaximumSizeValue = environment.getProperty("stateless.token.cache.maximumSize");
+        String preCheckEnabledValue = environment.getProperty("stateless.token.precheck.enabled");
+        String preCheckMaxLengthValue = environment.getProperty("stateless.token.precheck.maxLength");
+        String preCheckAlgorithmsValue = environment.getProperty("stateless.token.precheck.algorithms");
+        String preCheckExpirationPeekValue = environment.getProperty("stateless.token.precheck.expirationPeek");
+        String tokenAlgorithmValue = environment.getProperty("stateless.token.algorithm");
+        String accessTokenAlgorithmValue = environment.getProperty("stateless.accessToken.algorithm");
+        String refreshTokenAlgorithmValue = environment.getProperty("stateless.refreshToken.algorithm");
+        String tokenPrivateKey = keyProperty(environment, "stateless.token.privateKey");
+        String tokenPublicKey = keyProperty(environment, "stateless.token.publicKey");
+        String accessTokenPrivateKey = keyProperty(environment, "stateless.accessToken.privateKey");
+        String accessTokenPublicKey = keyProperty(environment, "stateless.accessToken.publicKey");
+        String refreshTokenPrivateKey = keyProperty(environment, "stateless.refreshToken.privateKey");
+        String refreshTokenPublicKey = keyProperty(environment, "stateless.refreshToken.publicKey");
         long tokenTimeout;
         Long accessTokenTimeout = null;
         Long refreshTokenTimeout = null;
 
-        if (!StringUtils.hasText(tokenSecret)) {
+        TokenAlgorithm tokenAlgorithm = StringUtils.hasText(tokenAlgorithmValue) ? TokenAlgorithm.of(tokenAlgorithmValue) : TokenAlgorithm.HS512;
+        TokenAlgorithm accessTokenAlgorithm = StringUtils.hasText(accessTokenAlgorithmValue) ? TokenAlgorithm.of(accessTokenAlgorithmValue) : tokenAlgorithm;
+        TokenAlgorithm refreshTokenAlgorithm = StringUtils.hasText(refreshTokenAlgorithmValue) ? TokenAlgorithm.of(refreshTokenAlgorithmValue) : tokenAlgorithm;
+
+        if (tokenAlgorithm.isHmac() && !StringUtils.hasText(tokenSecret)) {
             throw new IllegalArgumentException("stateless.token.secret is required.");
         }
 
+        if (!tokenAlgorithm.isHmac() && !StringUtils.hasText(tokenPublicKey)) {
+            throw new IllegalArgumentException("stateless.token.publicKey is required.");
+        }
+
         if (!StringUtils.hasText(tokenTimeoutValue)) {
             throw new IllegalArgumentException("stateless.token.timeout is required.");
         } else {
             tokenTimeout = Long.parseLong(tokenTimeoutValue);
         }
 
-        if (!StringUtils.hasText(accessTokenSecret)) {
+        if (accessTokenAlgorithm.isHmac() && !StringUtils.hasText(accessTokenSecret)) {
+            if (!StringUtils.hasText(tokenSecret)) {
+                throw new IllegalArgumentException("stateless.accessToken.secret is required.");
+            }
             logger.debug("stateless.accessToken.secret not provided. Using stateless.token.secret as default.");
             accessTokenSecret = tokenSecret;
         }
 
-        if (!StringUtils.hasText(refreshTokenSecret)) {
+        if (refreshTokenAlgorithm.isHmac() && !StringUtils.hasText(refreshTokenSecret)) {
+            if (!StringUtils.hasText(tokenSecret)) {
+                throw new IllegalArgumentException("stateless.refreshToken.secret is required.");
+            }
             logger.debug("stateless.refreshToken.secret not provided. Using stateless.token.secret as default.");
             refreshTokenSecret = tokenSecret;
         }
 
+        if (!accessTokenAlgorithm.isHmac() && !StringUtils.hasText(accessTokenPublicKey) && accessTokenAlgorithm != tokenAlgorithm) {
+            throw new IllegalArgumentException("stateless.accessToken.publicKey is required.");
+        }
+
+        if (!refreshTokenAlgorithm.isHmac() && !StringUtils.hasText(refreshTokenPublicKey) && refreshTokenAlgorithm != tokenAlgorithm) {
+            throw new IllegalArgumentException("stateless.refreshToken.publicKey is required.");
+        }
+
         if (StringUtils.hasText(accessTokenTimeoutValue)) {
             accessTokenTimeout = Long.parseLong(accessTokenTimeoutValue);
         }
@@ -89,11 +295,45 @@ public class StatelessTokenPolicyConfiguration {
         }
 
         StatelessTokenPolicy.StatelessTokenPolicyBuilder builder = StatelessTokenPolicy.builder();
-        builder.tokenSecret(tokenSecret)
-                .accessTokenSecret(accessTokenSecret)
-                .refreshTokenSecret(refreshTokenSecret)
+        builder.tokenAlgorithm(tokenAlgorithm)
+                .accessTokenAlgorithm(accessTokenAlgorithm)
+                .refreshTokenAlgorithm(refreshTokenAlgorithm)
                 .tokenTimeout(tokenTimeout);
 
+        if (tokenAlgorithm.isHmac()) {
+            builder.tokenSecret(tokenSecret);
+        } else {
+            builder.tokenSigningKey(SigningKey.asymmetric(tokenAlgorithm, emptyToNull(tokenPrivateKey), tokenPublicKey));
+        }
+
+        if (accessTokenAlgorithm.isHmac()) {
+            builder.accessTokenSecret(accessTokenSecret);
+        } else if (StringUtils.hasText(accessTokenPublicKey)) {
+            builder.accessTokenSigningKey(SigningKey.asymmetric(accessTokenAlgorithm, emptyToNull(accessTokenPrivateKey), accessTokenPublicKey));
+        }
+
+        if (refreshTokenAlgorithm.isHmac()) {
+            builder.refreshTokenSecret(refreshTokenSecret);
+        } else if (StringUtils.hasText(refreshTokenPublicKey)) {
+            builder.refreshTokenSigningKey(SigningKey.asymmetric(refreshTokenAlgorithm, emptyToNull(refreshTokenPrivateKey), refreshTokenPublicKey));
+        }
+
+        SigningKey[] tokenVerificationKeys = verificationKeys(environment, "stateless.token", tokenAlgorithm);
+        if (tokenVerificationKeys != null) {
+            builder.tokenVerificationKeys(tokenVerificationKeys);
+            logger.debug("{} previous keys configured for tokens.", tokenVerificationKeys.length);
+        }
+
+        SigningKey[] accessTokenVerificationKeys = verificationKeys(environment, "stateless.accessToken", accessTokenAlgorithm);
+        if (accessTokenVerificationKeys != null) {
+            builder.accessTokenVerificationKeys(accessTokenVerificationKeys);
+        }
+
+        SigningKey[] refreshTokenVerificationKeys = verificationKeys(environment, "stateless.refreshToken", refreshTokenAlgorithm);
+        if (refreshTokenVerificationKeys != null) {
+            builder.refreshTokenVerificationKeys(refreshTokenVerificationKeys);
+        }
+
         if (accessTokenTimeout != null) {
             builder.accessTokenTimeout(accessTokenTimeout);
         } else {
@@ -106,8 +346,132 @@ public class StatelessTokenPolicyConfiguration {
             logger.debug("stateless.refreshToken.timeout not provided. Using stateless.token.timeout as default.");
         }
 
-        logger.info("Initialized StatelessTokenPolicyConfiguration.");
-        return builder.build();
+        String subjectEncodingValue = environment.getProperty("stateless.token.subject.encoding");
+        if (StringUtils.hasText(subjectEncodingValue)) {
+            builder.subjectEncoding(SubjectEncoding.valueOf(subjectEncodingValue.trim().toUpperCase()));
+        }
+        builder.subjectCompressionThreshold(environment.getProperty("stateless.token.subject.compressionThreshold", Integer.class));
+        builder.lazySubjects(Boolean.parseBoolean(environment.getProperty("stateless.token.subject.lazy")));
+        builder.clock("false".equalsIgnoreCase(environment.getProperty("stateless.token.clock.coarse")) ? TokenClock.system() : TokenClock.coarse());
+        builder.clockSkew(environment.getProperty("stateless.token.clock.skewSeconds", Long.class));
+        builder.accessTokenRenewalWindow(environment.getProperty("stateless.accessToken.renewal.window", Double.class));
+        builder.accessTokenRenewalMaximumSize(environment.getProperty("stateless.accessToken.renewal.maximumSize", Long.class));
+
+        if (Boolean.parseBoolean(cacheEnabledValue)) {
+            long cacheMaximumSize = 10_000L;
+            if (StringUtils.hasText(cacheMaximumSizeValue)) {
+                cacheMaximumSize = Long.parseLong(cacheMaximumSizeValue);
+            }
+            builder.verifiedTokenCache(cacheMaximumSize);
+            logger.debug("Verified token cache enabled with maximum size {}.", cacheMaximumSize);
+        }
+
+        if (Boolean.parseBoolean(environment.getProperty("stateless.token.rejectedCache.enabled"))) {
+            long rejectedCacheMaximumSize = 10_000L;
+            String rejectedCacheMaximumSizeValue = environment.getProperty("stateless.token.rejectedCache.maximumSize");
+            if (StringUtils.hasText(rejectedCacheMaximumSizeValue)) {
+                rejectedCacheMaximumSize = Long.parseLong(rejectedCacheMaximumSizeValue);
+            }
+            builder.rejectedTokenCache(rejectedCacheMaximumSize);
+            builder.rejectedTokenCacheTimeToLive(environment.getProperty("stateless.token.rejectedCache.timeToLiveSeconds", Long.class));
+            logger.debug("Rejected token cache enabled with maximum size {}.", rejectedCacheMaximumSize);
+        }
+
+        if (StringUtils.hasText(preCheckEnabledValue) && !Boolean.parseBoolean(preCheckEnabledValue)) {
+            builder.preCheck(TokenPreCheck.disabled());
+            logger.debug("Token pre-check disabled.");
+        } else {
+            TokenPreCheck.TokenPreCheckBuilder preCheckBuilder = TokenPreCheck.builder();
+            if (StringUtils.hasText(preCheckMaxLengthValue)) {
+                preCheckBuilder.maxLength(Integer.parseInt(preCheckMaxLengthValue));
+            }
+            if (StringUtils.hasText(preCheckAlgorithmsValue)) {
+                preCheckBuilder.algorithms(StringUtils.commaDelimitedListToSet(StringUtils.trimAllWhitespace(preCheckAlgorithmsValue)));
+            } else {
+                Set<String> algorithms = new LinkedHashSet<>(List.of(tokenAlgorithm.getJwsName(), accessTokenAlgorithm.getJwsName(), refreshTokenAlgorithm.getJwsName()));
+                for (SigningKey[] verificationKeys : new SigningKey[][]{tokenVerificationKeys, accessTokenVerificationKeys, refreshTokenVerificationKeys}) {
+                    if (verificationKeys != null) {
+                        for (SigningKey verificationKey : verificationKeys) {
+                            algorithms.add(verificationKey.getAlgorithm().getJwsName());
+                        }
+                    }
+                }
+                preCheckBuilder.algorithms(algorithms);
+            }
+            if (StringUtils.hasText(preCheckExpirationPeekValue)) {
+                preCheckBuilder.expirationPeek(Boolean.parseBoolean(preCheckExpirationPeekValue));
+            }
+            builder.preCheck(preCheckBuilder.build());
+        }
+
+        return builder;
+    }
+
+    /**
+     * Reads the previous secrets and public keys of a token type, or returns null if none is configured.
+     */
+    private static SigningKey[] verificationKeys(Environment environment, String prefix, TokenAlgorithm algorithm) {
+        String previousSecretsValue = keyProperty(environment, prefix + ".previousSecrets");
+        String previousPublicKeysValue = keyProperty(environment, prefix + ".previousPublicKeys");
+        if (!StringUtils.hasText(previousSecretsValue) && !StringUtils.hasText(previousPublicKeysValue)) {
+            return null;
+        }
+
+        List<SigningKey> verificationKeys = new ArrayList<>();
+        if (StringUtils.hasText(previousSecretsValue)) {
+            TokenAlgorithm hmacAlgorithm = algorithm.isHmac() ? algorithm : TokenAlgorithm.HS512;
+            for (String secret : StringUtils.commaDelimitedListToStringArray(previousSecretsValue)) {
+                if (StringUtils.hasText(secret)) {
+                    verificationKeys.add(SigningKey.hmac(hmacAlgorithm, secret.trim()));
+                }
+            }
+        }
+        if (StringUtils.hasText(previousPublicKeysValue)) {
+            if (algorithm.isHmac()) {
+                throw new IllegalArgumentException(prefix + ".previousPublicKeys requires an ES256 or EdDSA algorithm.");
+            }
+            for (String publicKey : StringUtils.commaDelimitedListToStringArray(previousPublicKeysValue)) {
+                if (StringUtils.hasText(publicKey)) {
+                    verificationKeys.add(SigningKey.asymmetric(algorithm, null, publicKey));
+                }
+            }
+        }
+        return verificationKeys.toArray(new SigningKey[0]);
+    }
+
+    /**
+     * Reads a key property, from the file named by the property with the {@code File} suffix if that is set.
+     */
+    private static String keyProperty(Environment environment, String name) {
+        String file = environment.getProperty(name + "File");
+        if (!StringUtils.hasText(file)) {
+            return environment.getProperty(name);
+        }
+        try {
+            return Files.readString(Path.of(file.trim())).strip();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Unable to read " + name + "File " + file + ".", e);
+        }
+    }
+
+    /**
+     * Returns the files key properties are read from.
+     */
+    private static List<Path> keyFiles(Environment environment) {
+        List<Path> keyFiles = new ArrayList<>();
+        for (String prefix : new String[]{"stateless.token", "stateless.accessToken", "stateless.refreshToken"}) {
+            for (String name : KEY_PROPERTY_NAMES) {
+                String file = environment.getProperty(prefix + "." + name + "File");
+                if (StringUtils.hasText(file)) {
+                    keyFiles.add(Path.of(file.trim()));
+                }
+            }
+        }
+        return keyFiles;
+    }
+
+    private static String emptyToNull(String value) {
+        return StringUtils.hasText(value) ? value : null;
     }
 
     /**
@@ -126,14 +490,25 @@ public class StatelessTokenPolicyConfiguration {
     /**
      * Creates a BeanPostProcessor that injects StatelessTokenPolicy into all beans
      * that implement StatelessTokenPolicyAware.
+     * The method is static so that the post-processor is registered without instantiating this configuration early.
      *
      * @return a BeanPostProcessor instance
      */
     @Bean
-    public BeanPostProcessor statelessTokenPolicyAwareProcessor() {
+    public static BeanPostProcessor statelessTokenPolicyAwareProcessor() {
         return new StatelessTokenPolicyAwareBeanPostProcessor();
     }
 
+    /**
+     * Condition that matches if any key property is read from a file.
+     */
+    static class KeyFilesCondition implements Condition {
+        @Override
+        public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            return !keyFiles(context.getEnvironment()).isEmpty();
+        }
+    }
+
     /**
      * BeanPostProcessor implementation that injects StatelessTokenPolicy into beans
      * implementing StatelessTokenPolicyAware.
@@ -151,7 +526,7 @@ public class StatelessTokenPolicyConfiguration {
         public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
             if (bean instanceof StatelessTokenPolicyAware) {
                 try {
-                    StatelessTokenPolicy policy = applicationContext.getBean(StatelessTokenPolicy.class);
+                    StatelessTokenPolicy policy = ReloadableStatelessTokenPolicy.unwrap(applicationContext.getBean(StatelessTokenPolicy.class));
                     ((StatelessTokenPolicyAware) bean).setStatelessTokenPolicy(policy);
                     logger.debug("Injected StatelessTokenPolicy into bean: {}", beanName);
                 } catch (BeansException e) {
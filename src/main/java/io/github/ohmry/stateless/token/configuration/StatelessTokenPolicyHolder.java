@@ -3,11 +3,14 @@ package io.github.ohmry.stateless.token.configuration;
 /**
  * Holder class that maintains a static reference to the StatelessTokenPolicy.
  * This class implements StatelessTokenPolicyAware to allow Spring to inject the policy.
+ * The reference is volatile, so a policy replaced at runtime, for example by the {@link KeyFileWatcher},
+ * is seen fully built by every thread. Callers that read the policy once per operation always work
+ * with a single, consistent policy.
  *
  * @author ohmry
  */
 public class StatelessTokenPolicyHolder implements StatelessTokenPolicyAware {
-    private static StatelessTokenPolicy statelessTokenPolicy;
+    private static volatile StatelessTokenPolicy statelessTokenPolicy;
 
     /**
      * Default constructor.
@@ -0,0 +1,73 @@
+package io.github.ohmry.stateless.token.configuration;
+
+import io.github.ohmry.stateless.token.web.reactive.TokenWebFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+import org.springframework.web.server.WebFilter;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Spring Boot auto-configuration for WebFlux applications.
+ * It registers a {@link TokenWebFilter} that verifies bearer access tokens on a bounded scheduler
+ * instead of the event loop, and can be turned off with {@code stateless.token.web.enabled=false}.
+ *
+ * @author ohmry
+ */
+@AutoConfiguration(after = StatelessTokenPolicyConfiguration.class)
+@ConditionalOnClass(WebFilter.class)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@ConditionalOnProperty(prefix = "stateless.token.web", name = "enabled", matchIfMissing = true)
+public class StatelessTokenReactiveConfiguration {
+    private static final Logger logger = LoggerFactory.getLogger(StatelessTokenReactiveConfiguration.class);
+
+    /**
+     * Default constructor.
+     */
+    public StatelessTokenReactiveConfiguration() {}
+
+    /**
+     * Creates the bounded scheduler access tokens are verified on.
+     * Optional properties:
+     * <ul>
+     *   <li>stateless.token.web.reactive.threads - Maximum number of verification threads (defaults to the number of processors)</li>
+     *   <li>stateless.token.web.reactive.queuedTasks - Maximum number of tokens waiting for a verification thread (defaults to 100000)</li>
+     * </ul>
+     *
+     * @param environment the Spring environment containing application properties
+     * @return a bounded elastic scheduler
+     */
+    @Bean(destroyMethod = "dispose")
+    @ConditionalOnMissingBean(name = "statelessTokenScheduler")
+    public Scheduler statelessTokenScheduler(Environment environment) {
+        int threads = environment.getProperty("stateless.token.web.reactive.threads", Integer.class, Runtime.getRuntime().availableProcessors());
+        int queuedTasks = environment.getProperty("stateless.token.web.reactive.queuedTasks", Integer.class, 100_000);
+        logger.debug("Creating token verification scheduler with {} threads.", threads);
+        return Schedulers.newBoundedElastic(threads, queuedTasks, "stateless-token");
+    }
+
+    /**
+     * Creates a TokenWebFilter bean that decodes subjects into the class named by
+     * {@code stateless.token.web.subjectType} (defaults to Object).
+     * Requests with an invalid token are passed on unless {@code stateless.token.web.rejectInvalidTokens} is true.
+     *
+     * @param environment the Spring environment containing application properties
+     * @param scheduler the scheduler access tokens are verified on
+     * @return a TokenWebFilter instance
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public TokenWebFilter<?> tokenWebFilter(Environment environment, @Qualifier("statelessTokenScheduler") Scheduler scheduler) {
+        Class<?> subjectType = StatelessTokenWebSupport.subjectType(environment);
+        logger.debug("Creating TokenWebFilter for {} subjects.", subjectType.getName());
+        return new TokenWebFilter<>(subjectType, scheduler, StatelessTokenWebSupport.rejectInvalidTokens(environment));
+    }
+}
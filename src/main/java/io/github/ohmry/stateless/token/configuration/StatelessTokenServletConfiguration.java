@@ -0,0 +1,69 @@
+package io.github.ohmry.stateless.token.configuration;
+
+import io.github.ohmry.stateless.token.web.servlet.TokenFilter;
+import io.github.ohmry.stateless.token.web.servlet.TokenSubjectArgumentResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Spring Boot auto-configuration for Spring MVC applications.
+ * It registers a {@link TokenFilter} that parses the bearer access token once per request and resolves
+ * {@link io.github.ohmry.stateless.token.web.servlet.TokenSubject} parameters from it, and can be turned
+ * off with {@code stateless.token.web.enabled=false}.
+ *
+ * @author ohmry
+ */
+@AutoConfiguration(after = StatelessTokenPolicyConfiguration.class)
+@ConditionalOnClass(WebMvcConfigurer.class)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "stateless.token.web", name = "enabled", matchIfMissing = true)
+public class StatelessTokenServletConfiguration {
+    private static final Logger logger = LoggerFactory.getLogger(StatelessTokenServletConfiguration.class);
+
+    /**
+     * Default constructor.
+     */
+    public StatelessTokenServletConfiguration() {}
+
+    /**
+     * Creates a TokenFilter bean that decodes subjects into the class named by
+     * {@code stateless.token.web.subjectType} (defaults to Object).
+     * Requests with an invalid token are passed on unless {@code stateless.token.web.rejectInvalidTokens} is true.
+     *
+     * @param environment the Spring environment containing application properties
+     * @return a TokenFilter instance
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public TokenFilter<?> tokenFilter(Environment environment) {
+        Class<?> subjectType = StatelessTokenWebSupport.subjectType(environment);
+        logger.debug("Creating TokenFilter for {} subjects.", subjectType.getName());
+        return new TokenFilter<>(subjectType, StatelessTokenWebSupport.rejectInvalidTokens(environment));
+    }
+
+    /**
+     * Creates a WebMvcConfigurer that registers the TokenSubjectArgumentResolver.
+     *
+     * @return a WebMvcConfigurer instance
+     */
+    @Bean
+    public WebMvcConfigurer tokenSubjectWebMvcConfigurer() {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+                resolvers.add(new TokenSubjectArgumentResolver());
+            }
+        };
+    }
+}
@@ -0,0 +1,40 @@
+package io.github.ohmry.stateless.token.configuration;
+
+import org.springframework.core.env.Environment;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Properties shared by the web integrations.
+ *
+ * @author ohmry
+ */
+final class StatelessTokenWebSupport {
+    private StatelessTokenWebSupport() {
+    }
+
+    /**
+     * Returns the class access token subjects are decoded into by the web integrations.
+     *
+     * @param environment the Spring environment containing application properties
+     * @return the class named by {@code stateless.token.web.subjectType}, or Object if it is not set
+     * @throws IllegalArgumentException if the class cannot be found
+     */
+    static Class<?> subjectType(Environment environment) {
+        String subjectTypeValue = environment.getProperty("stateless.token.web.subjectType");
+        if (!StringUtils.hasText(subjectTypeValue)) {
+            return Object.class;
+        }
+        return ClassUtils.resolveClassName(subjectTypeValue.trim(), StatelessTokenWebSupport.class.getClassLoader());
+    }
+
+    /**
+     * Returns whether the web integrations answer requests with an invalid access token with 401.
+     *
+     * @param environment the Spring environment containing application properties
+     * @return the value of {@code stateless.token.web.rejectInvalidTokens}, or false if it is not set
+     */
+    static boolean rejectInvalidTokens(Environment environment) {
+        return environment.getProperty("stateless.token.web.rejectInvalidTokens", Boolean.class, false);
+    }
+}
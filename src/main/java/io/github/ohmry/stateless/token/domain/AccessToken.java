@@ -3,17 +3,28 @@ package io.github.ohmry.stateless.token.domain;
 import com.fasterxml.jackson.core.type.TypeReference;
 import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicy;
 import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicyHolder;
+import io.github.ohmry.stateless.token.engine.SigningKey;
+import io.github.ohmry.stateless.token.engine.TokenEngine;
 
 import javax.crypto.SecretKey;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Represents an access token that extends the base Token class.
  * Access tokens are used for authenticating API requests and have a shorter expiration time.
+ * If the policy renews access tokens, a parsed token close to its expiration offers a replacement,
+ * see {@link #getRenewedValue()}.
  *
  * @param <T> the type of the subject contained in the token
  * @author ohmry
  */
 public class AccessToken<T> extends Token<T> {
+    private final AccessTokenRenewal renewal;
+    private final boolean renewalDue;
+    private volatile String renewedValue;
+
     /**
      * Creates a new access token with the specified secret key, subject, and timeout.
      *
@@ -23,6 +34,8 @@ public class AccessToken<T> extends Token<T> {
      */
     public AccessToken(SecretKey secretKey, T subject, long timeout) {
         super(secretKey, subject, timeout);
+        this.renewal = null;
+        this.renewalDue = false;
     }
     
     /**
@@ -34,6 +47,8 @@ public class AccessToken<T> extends Token<T> {
      */
     public AccessToken(SecretKey secretKey, String tokenValue, Class<T> subjectType) {
         super(secretKey, tokenValue, subjectType);
+        this.renewal = null;
+        this.renewalDue = false;
     }
 
     /**
@@ -45,6 +60,30 @@ public class AccessToken<T> extends Token<T> {
      */
     public AccessToken(SecretKey secretKey, String tokenValue, TypeReference<T> subjectType) {
         super(secretKey, tokenValue, subjectType);
+        this.renewal = null;
+        this.renewalDue = false;
+    }
+
+    private AccessToken(TokenEngine engine, SigningKey signingKey, T subject, long timeout) {
+        super(engine, signingKey, subject, timeout);
+        this.renewal = null;
+        this.renewalDue = false;
+    }
+
+    private AccessToken(TokenEngine engine, SigningKey signingKey, String tokenValue, Type subjectType, AccessTokenRenewal renewal) {
+        super(engine, signingKey, tokenValue, subjectType);
+        this.renewal = renewal;
+        // Decided once at parse time, so the token does not become due while a request is being handled.
+        this.renewalDue = renewal != null
+                && !this.isInvalidate
+                && this.tokenId != null
+                && this.expirationSeconds != null
+                && renewal.isDue(this.expirationSeconds);
+    }
+
+    @Override
+    protected TokenType getTokenType() {
+        return TokenType.ACCESS;
     }
     
     /**
@@ -56,7 +95,7 @@ public class AccessToken<T> extends Token<T> {
      */
     public static <T> AccessToken<T> create(T subject) {
         StatelessTokenPolicy policy = StatelessTokenPolicyHolder.getStatelessTokenPolicy();
-        return new AccessToken<>(policy.getAccessTokenSecretKey(), subject, policy.getAccessTokenTimeoutSeconds());
+        return new AccessToken<>(policy.getTokenEngine(), policy.getAccessTokenSigningKey(), subject, policy.getAccessTokenTimeoutSeconds());
     }
     
     /**
@@ -69,9 +108,22 @@ public class AccessToken<T> extends Token<T> {
      */
     public static <T> AccessToken<T> create(T subject, long timeoutSeconds) {
         StatelessTokenPolicy policy = StatelessTokenPolicyHolder.getStatelessTokenPolicy();
-        return new AccessToken<>(policy.getAccessTokenSecretKey(), subject, timeoutSeconds);
+        return new AccessToken<>(policy.getTokenEngine(), policy.getAccessTokenSigningKey(), subject, timeoutSeconds);
     }
     
+    /**
+     * Issues an access token string with the default policy settings, without creating an AccessToken instance.
+     * This is the cheapest way to issue access tokens, e.g. on login.
+     *
+     * @param subject the subject to be encoded in the token
+     * @return the access token string
+     * @throws IllegalArgumentException if the subject cannot be serialized
+     */
+    public static String mint(Object subject) {
+        StatelessTokenPolicy policy = StatelessTokenPolicyHolder.getStatelessTokenPolicy();
+        return mint(policy.getTokenEngine(), policy.getAccessTokenSigningKey(), TokenType.ACCESS, subject, policy.getAccessTokenTimeoutSeconds());
+    }
+
     /**
      * Parses an access token string and extracts the subject using the specified class type.
      *
@@ -82,7 +134,7 @@ public class AccessToken<T> extends Token<T> {
      */
     public static<T> AccessToken<T> parse(String tokenValue, Class<T> subjectType) {
         StatelessTokenPolicy policy = StatelessTokenPolicyHolder.getStatelessTokenPolicy();
-        return new AccessToken<>(policy.getAccessTokenSecretKey(), tokenValue, subjectType);
+        return new AccessToken<>(policy.getTokenEngine(), policy.getAccessTokenSigningKey(), tokenValue, subjectType, policy.getAccessTokenRenewal());
     }
 
     /**
@@ -95,6 +147,72 @@ public class AccessToken<T> extends Token<T> {
      */
     public static<T> AccessToken<T> parse(String tokenValue, TypeReference<T> subjectType) {
         StatelessTokenPolicy policy = StatelessTokenPolicyHolder.getStatelessTokenPolicy();
-        return new AccessToken<>(policy.getAccessTokenSecretKey(), tokenValue, subjectType);
+        return new AccessToken<>(policy.getTokenEngine(), policy.getAccessTokenSigningKey(), tokenValue, subjectType.getType(), policy.getAccessTokenRenewal());
+    }
+
+    /**
+     * Parses several access token strings at once.
+     * Identical token strings are verified only once, distinct ones are verified in parallel on the
+     * batch executor of the policy, and the results are returned in input order.
+     *
+     * @param <T> the type of the subject
+     * @param tokenValues the token strings to parse
+     * @param subjectType the class type of the subject
+     * @return the parsed access tokens in input order; invalid tokens are returned with {@link #isInvalidate()} set
+     */
+    public static <T> List<AccessToken<T>> parseAll(Collection<String> tokenValues, Class<T> subjectType) {
+        StatelessTokenPolicy policy = StatelessTokenPolicyHolder.getStatelessTokenPolicy();
+        TokenEngine engine = policy.getTokenEngine();
+        SigningKey signingKey = policy.getAccessTokenSigningKey();
+        AccessTokenRenewal renewal = policy.getAccessTokenRenewal();
+        return engine.parseAll(tokenValues, tokenValue -> new AccessToken<T>(engine, signingKey, tokenValue, subjectType, renewal));
+    }
+
+    /**
+     * Parses several access token strings at once.
+     * Identical token strings are verified only once, distinct ones are verified in parallel on the
+     * batch executor of the policy, and the results are returned in input order.
+     *
+     * @param <T> the type of the subject
+     * @param tokenValues the token strings to parse
+     * @param subjectType the type reference for the subject type
+     * @return the parsed access tokens in input order; invalid tokens are returned with {@link #isInvalidate()} set
+     */
+    public static <T> List<AccessToken<T>> parseAll(Collection<String> tokenValues, TypeReference<T> subjectType) {
+        StatelessTokenPolicy policy = StatelessTokenPolicyHolder.getStatelessTokenPolicy();
+        TokenEngine engine = policy.getTokenEngine();
+        SigningKey signingKey = policy.getAccessTokenSigningKey();
+        AccessTokenRenewal renewal = policy.getAccessTokenRenewal();
+        return engine.parseAll(tokenValues, tokenValue -> new AccessToken<T>(engine, signingKey, tokenValue, subjectType.getType(), renewal));
+    }
+
+    /**
+     * Returns whether this token is valid and was close enough to its expiration to be renewed when it was parsed.
+     *
+     * @return true if {@link #getRenewedValue()} returns a replacement
+     */
+    public boolean isRenewalDue() {
+        // A lazily decoded subject can still turn out to be invalid after parsing.
+        return this.renewalDue && !this.isInvalidate;
+    }
+
+    /**
+     * Returns a replacement for this token if it is within the renewal window of the policy.
+     * The replacement carries the subject as decoded into the requested subject type and the access token
+     * timeout of the policy. It is minted once per original token and shared by every request carrying it.
+     *
+     * @return the replacement token string, or null if renewal is disabled, the token is invalid or not yet due
+     * @throws IllegalArgumentException if the subject cannot be serialized
+     */
+    public String getRenewedValue() {
+        String renewedValue = this.renewedValue;
+        if (renewedValue == null && this.isRenewalDue()) {
+            T subject = this.getSubject();
+            if (subject != null) {
+                renewedValue = this.renewal.renew(this.tokenId, subject);
+                this.renewedValue = renewedValue;
+            }
+        }
+        return renewedValue;
     }
 }
@@ -0,0 +1,100 @@
+package io.github.ohmry.stateless.token.domain;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.ohmry.stateless.token.engine.SigningKey;
+import io.github.ohmry.stateless.token.engine.TokenEngine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sliding renewal of access tokens that are about to expire.
+ * A valid access token whose remaining lifetime is within the renewal window gets a replacement,
+ * see {@link AccessToken#getRenewedValue()}, so that clients keep working without a refresh round trip.
+ * Replacements are kept by the id of the token they replace: concurrent requests carrying the same token
+ * wait for the one replacement being minted, and later requests receive the same replacement,
+ * so each token is renewed at most once while it is in the cache.
+ *
+ * @author ohmry
+ */
+public final class AccessTokenRenewal {
+    private final TokenEngine engine;
+    private final SigningKey signingKey;
+    private final long timeoutSeconds;
+    private final long windowMillis;
+    private final Cache<String, String> renewedTokens;
+    private final LongAdder renewalCount;
+
+    /**
+     * Creates a renewal that replaces access tokens expiring within the given window.
+     *
+     * @param engine the engine replacements are issued with
+     * @param signingKey the signing key replacements are signed with
+     * @param timeoutSeconds the expiration time of replacements in seconds
+     * @param windowSeconds the remaining lifetime in seconds from which tokens are renewed
+     * @param maximumSize the maximum number of remembered replacements
+     * @throws IllegalArgumentException if windowSeconds is not between 0 and timeoutSeconds, or maximumSize is not positive
+     */
+    public AccessTokenRenewal(TokenEngine engine, SigningKey signingKey, long timeoutSeconds, long windowSeconds, long maximumSize) {
+        if (windowSeconds <= 0 || windowSeconds >= timeoutSeconds) {
+            throw new IllegalArgumentException("windowSeconds must be greater than 0 and less than timeoutSeconds.");
+        }
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be greater than 0.");
+        }
+        this.engine = engine;
+        this.signingKey = signingKey;
+        this.timeoutSeconds = timeoutSeconds;
+        this.windowMillis = windowSeconds * 1000;
+        // A token is renewed at the earliest when the window starts, so its replacement is not needed after window and skew have passed.
+        this.renewedTokens = Caffeine.newBuilder()
+                                     .maximumSize(maximumSize)
+                                     .expireAfterWrite(Duration.ofSeconds(windowSeconds + engine.getClockSkewSeconds() + 1))
+                                     .build();
+        this.renewalCount = new LongAdder();
+    }
+
+    /**
+     * Returns whether a token with the given expiration is within the renewal window.
+     *
+     * @param expirationSeconds the token expiration in epoch seconds
+     * @return true if the token should be renewed
+     */
+    public boolean isDue(long expirationSeconds) {
+        return expirationSeconds * 1000 - this.engine.getClock().currentTimeMillis() <= this.windowMillis;
+    }
+
+    /**
+     * Returns the replacement of a token, minting it if the token has not been renewed yet.
+     *
+     * @param tokenId the id of the token to replace
+     * @param subject the subject of the replacement
+     * @return the replacement token string
+     * @throws IllegalArgumentException if the subject cannot be serialized
+     */
+    String renew(String tokenId, Object subject) {
+        return this.renewedTokens.get(tokenId, key -> {
+            this.renewalCount.increment();
+            return Token.mint(this.engine, this.signingKey, TokenType.ACCESS, subject, this.timeoutSeconds);
+        });
+    }
+
+    /**
+     * Returns the remaining lifetime from which tokens are renewed.
+     *
+     * @return the renewal window in seconds
+     */
+    public long getWindowSeconds() {
+        return this.windowMillis / 1000;
+    }
+
+    /**
+     * Returns the number of replacements minted.
+     *
+     * @return the renewal count
+     */
+    public long getRenewalCount() {
+        return this.renewalCount.sum();
+    }
+}
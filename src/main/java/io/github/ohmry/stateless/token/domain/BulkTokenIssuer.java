@@ -0,0 +1,287 @@
+package io.github.ohmry.stateless.token.domain;
+
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicy;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicyHolder;
+import io.github.ohmry.stateless.token.engine.TokenEngine;
+import io.github.ohmry.stateless.token.rotation.RefreshTokenStore;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Issues tokens for large numbers of subjects, for example when every session has to be re-issued
+ * after a secret rotation or a user migration.
+ * Subjects are read in chunks; the tokens of a chunk are minted in parallel on the batch executor of
+ * the policy's {@link TokenEngine} and then written out, one line per subject, before the next chunk is read.
+ * Each line holds the tokens of the configured types in order, separated by a tab character, so that
+ * the output never has to be held in memory.
+ * If the policy has a {@link RefreshTokenStore}, every refresh token starts a family, just like
+ * {@link RefreshToken#create(Object)}, so that it can be exchanged with {@link RefreshToken#rotate()}.
+ *
+ * @author ohmry
+ */
+public final class BulkTokenIssuer {
+    private final StatelessTokenPolicy policy;
+    private final TokenType[] tokenTypes;
+    private final int chunkSize;
+
+    private BulkTokenIssuer(StatelessTokenPolicy policy, TokenType[] tokenTypes, int chunkSize) {
+        this.policy = policy;
+        this.tokenTypes = tokenTypes;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Creates a new builder for constructing a BulkTokenIssuer.
+     *
+     * @return a new BulkTokenIssuerBuilder instance
+     */
+    public static BulkTokenIssuerBuilder builder() {
+        return new BulkTokenIssuerBuilder();
+    }
+
+    /**
+     * Issues tokens for every subject and writes them to the writer.
+     * The writer is flushed but not closed.
+     *
+     * @param subjects the subjects to be encoded in the tokens
+     * @param writer the writer receiving one line per subject
+     * @return the issuance statistics
+     * @throws IOException if writing fails
+     * @throws IllegalArgumentException if a subject cannot be serialized
+     */
+    public Result issue(Iterable<?> subjects, Writer writer) throws IOException {
+        return this.issue(subjects.iterator(), writer);
+    }
+
+    /**
+     * Issues tokens for every subject of the stream and writes them to the writer.
+     * The writer is flushed but not closed.
+     *
+     * @param subjects the subjects to be encoded in the tokens
+     * @param writer the writer receiving one line per subject
+     * @return the issuance statistics
+     * @throws IOException if writing fails
+     * @throws IllegalArgumentException if a subject cannot be serialized
+     */
+    public Result issue(Stream<?> subjects, Writer writer) throws IOException {
+        return this.issue(subjects.iterator(), writer);
+    }
+
+    /**
+     * Issues tokens for every subject and writes them to the output stream as US-ASCII text.
+     * The output stream is flushed but not closed.
+     *
+     * @param subjects the subjects to be encoded in the tokens
+     * @param outputStream the output stream receiving one line per subject
+     * @return the issuance statistics
+     * @throws IOException if writing fails
+     * @throws IllegalArgumentException if a subject cannot be serialized
+     */
+    public Result issue(Iterable<?> subjects, OutputStream outputStream) throws IOException {
+        return this.issue(subjects.iterator(), new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.US_ASCII)));
+    }
+
+    /**
+     * Issues tokens for every subject of the stream and writes them to the output stream as US-ASCII text.
+     * The output stream is flushed but not closed.
+     *
+     * @param subjects the subjects to be encoded in the tokens
+     * @param outputStream the output stream receiving one line per subject
+     * @return the issuance statistics
+     * @throws IOException if writing fails
+     * @throws IllegalArgumentException if a subject cannot be serialized
+     */
+    public Result issue(Stream<?> subjects, OutputStream outputStream) throws IOException {
+        return this.issue(subjects.iterator(), new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.US_ASCII)));
+    }
+
+    private Result issue(Iterator<?> subjects, Writer writer) throws IOException {
+        StatelessTokenPolicy policy = this.policy != null ? this.policy : StatelessTokenPolicyHolder.getStatelessTokenPolicy();
+        TokenEngine engine = policy.getTokenEngine();
+        long startedAt = System.nanoTime();
+        long subjectCount = 0;
+
+        List<Object> chunk = new ArrayList<>(this.chunkSize);
+        List<List<String>> columns = new ArrayList<>(this.tokenTypes.length);
+        while (subjects.hasNext()) {
+            chunk.clear();
+            while (chunk.size() < this.chunkSize && subjects.hasNext()) {
+                chunk.add(subjects.next());
+            }
+
+            columns.clear();
+            for (TokenType tokenType : this.tokenTypes) {
+                if (tokenType == TokenType.REFRESH && policy.getRefreshTokenStore() != null) {
+                    columns.add(issueRefreshTokenFamilies(policy, engine, chunk));
+                } else {
+                    columns.add(engine.issueAll(tokenType.signingKey(policy), chunk, tokenType.timeoutSeconds(policy)));
+                }
+            }
+            for (int row = 0; row < chunk.size(); row++) {
+                for (int column = 0; column < columns.size(); column++) {
+                    if (column > 0) {
+                        writer.write('\t');
+                    }
+                    writer.write(columns.get(column).get(row));
+                }
+                writer.write('\n');
+            }
+            subjectCount += chunk.size();
+        }
+        writer.flush();
+
+        return new Result(subjectCount, subjectCount * this.tokenTypes.length, System.nanoTime() - startedAt);
+    }
+
+    private static List<String> issueRefreshTokenFamilies(StatelessTokenPolicy policy, TokenEngine engine, List<Object> subjects) {
+        RefreshTokenStore refreshTokenStore = policy.getRefreshTokenStore();
+        List<String> familyIds = new ArrayList<>(subjects.size());
+        List<String> tokenIds = new ArrayList<>(subjects.size());
+        for (int i = 0; i < subjects.size(); i++) {
+            String familyId = TokenEngine.newTokenId();
+            familyIds.add(familyId);
+            tokenIds.add(familyId + RefreshToken.FAMILY_SEPARATOR + TokenEngine.newTokenId());
+        }
+
+        long issuedAtMillis = engine.getClock().currentTimeMillis();
+        long timeoutSeconds = TokenType.REFRESH.timeoutSeconds(policy);
+        List<String> tokens = engine.issueAll(TokenType.REFRESH.signingKey(policy), subjects, tokenIds, issuedAtMillis, timeoutSeconds);
+        long expirationSeconds = (issuedAtMillis + timeoutSeconds * 1000) / 1000;
+        for (int i = 0; i < familyIds.size(); i++) {
+            refreshTokenStore.register(familyIds.get(i), tokenIds.get(i), expirationSeconds);
+        }
+        return tokens;
+    }
+
+    /**
+     * Statistics of a bulk issuance run.
+     */
+    public static final class Result {
+        private final long subjectCount;
+        private final long tokenCount;
+        private final long elapsedNanos;
+
+        private Result(long subjectCount, long tokenCount, long elapsedNanos) {
+            this.subjectCount = subjectCount;
+            this.tokenCount = tokenCount;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Returns the number of subjects read.
+         *
+         * @return the number of subjects, which is also the number of lines written
+         */
+        public long getSubjectCount() {
+            return subjectCount;
+        }
+
+        /**
+         * Returns the number of tokens issued.
+         *
+         * @return the number of tokens
+         */
+        public long getTokenCount() {
+            return tokenCount;
+        }
+
+        /**
+         * Returns the wall-clock time of the run.
+         *
+         * @return the elapsed time in nanoseconds
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * Returns the issuance throughput of the run.
+         *
+         * @return the number of tokens issued per second
+         */
+        public double getTokensPerSecond() {
+            return this.elapsedNanos > 0 ? this.tokenCount * 1_000_000_000d / this.elapsedNanos : 0d;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d tokens for %d subjects in %.3f s (%.0f tokens/s)",
+                    this.tokenCount, this.subjectCount, this.elapsedNanos / 1_000_000_000d, this.getTokensPerSecond());
+        }
+    }
+
+    /**
+     * Builder class for constructing BulkTokenIssuer instances.
+     */
+    public static class BulkTokenIssuerBuilder {
+        private StatelessTokenPolicy policy;
+        private TokenType[] tokenTypes;
+        private int chunkSize;
+
+        private BulkTokenIssuerBuilder() {
+            this.policy = null;
+            this.tokenTypes = new TokenType[]{TokenType.ACCESS, TokenType.REFRESH};
+            this.chunkSize = 4096;
+        }
+
+        /**
+         * Sets the policy whose keys, expiration times and engine are used.
+         *
+         * @param policy the policy (defaults to the policy held by StatelessTokenPolicyHolder at issuance time)
+         * @return this builder instance
+         */
+        public BulkTokenIssuerBuilder policy(StatelessTokenPolicy policy) {
+            this.policy = policy;
+            return this;
+        }
+
+        /**
+         * Sets the token types issued for each subject, in output column order.
+         *
+         * @param tokenTypes the token types (defaults to ACCESS and REFRESH)
+         * @return this builder instance
+         * @throws IllegalArgumentException if no token type is given
+         */
+        public BulkTokenIssuerBuilder tokenTypes(TokenType... tokenTypes) {
+            if (tokenTypes == null || tokenTypes.length == 0) {
+                throw new IllegalArgumentException("tokenTypes must be not empty.");
+            }
+            this.tokenTypes = Arrays.copyOf(tokenTypes, tokenTypes.length);
+            return this;
+        }
+
+        /**
+         * Sets the number of subjects minted together before their tokens are written.
+         *
+         * @param chunkSize the chunk size (defaults to 4096)
+         * @return this builder instance
+         * @throws IllegalArgumentException if chunkSize is not positive
+         */
+        public BulkTokenIssuerBuilder chunkSize(int chunkSize) {
+            if (chunkSize <= 0) {
+                throw new IllegalArgumentException("chunkSize must be greater than 0.");
+            }
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        /**
+         * Builds a new BulkTokenIssuer instance with the configured values.
+         *
+         * @return a new BulkTokenIssuer instance
+         */
+        public BulkTokenIssuer build() {
+            return new BulkTokenIssuer(this.policy, this.tokenTypes, this.chunkSize);
+        }
+    }
+}
@@ -3,17 +3,28 @@ package io.github.ohmry.stateless.token.domain;
 import com.fasterxml.jackson.core.type.TypeReference;
 import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicy;
 import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicyHolder;
+import io.github.ohmry.stateless.token.engine.SigningKey;
+import io.github.ohmry.stateless.token.engine.TokenEngine;
+import io.github.ohmry.stateless.token.rotation.RefreshTokenRotationException;
+import io.github.ohmry.stateless.token.rotation.RefreshTokenStore;
 
 import javax.crypto.SecretKey;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Represents a refresh token that extends the base Token class.
  * Refresh tokens are used to obtain new access tokens and typically have a longer expiration time.
+ * If the policy has a {@link RefreshTokenStore}, every created refresh token starts a family and can be
+ * exchanged once with {@link #rotate()}; its token id is the family id followed by a dot and a random id.
  *
  * @param <T> the type of the subject contained in the token
  * @author ohmry
  */
 public class RefreshToken<T> extends Token<T> {
+    static final char FAMILY_SEPARATOR = '.';
+
     /**
      * Creates a new refresh token with the specified secret key, subject, and timeout.
      *
@@ -46,6 +57,23 @@ public class RefreshToken<T> extends Token<T> {
     private RefreshToken(SecretKey secretKey, String tokenValue, TypeReference<T> subjectType) {
         super(secretKey, tokenValue, subjectType);
     }
+
+    private RefreshToken(TokenEngine engine, SigningKey signingKey, T subject, long timeout) {
+        super(engine, signingKey, subject, timeout);
+    }
+
+    private RefreshToken(TokenEngine engine, SigningKey signingKey, T subject, String tokenId, long timeout) {
+        super(engine, signingKey, subject, tokenId, timeout);
+    }
+
+    private RefreshToken(TokenEngine engine, SigningKey signingKey, String tokenValue, Type subjectType) {
+        super(engine, signingKey, tokenValue, subjectType);
+    }
+
+    @Override
+    protected TokenType getTokenType() {
+        return TokenType.REFRESH;
+    }
     
     /**
      * Creates a new refresh token with the default policy settings.
@@ -56,7 +84,7 @@ public class RefreshToken<T> extends Token<T> {
      */
     public static <T> RefreshToken<T> create(T subject) {
         StatelessTokenPolicy policy = StatelessTokenPolicyHolder.getStatelessTokenPolicy();
-        return new RefreshToken<>(policy.getRefreshTokenSecretKey(), subject, policy.getRefreshTokenTimeoutSeconds());
+        return create(policy, subject, policy.getRefreshTokenTimeoutSeconds());
     }
     
     /**
@@ -69,7 +97,84 @@ public class RefreshToken<T> extends Token<T> {
      */
     public static <T> RefreshToken<T> create(T subject, long timeoutSeconds) {
         StatelessTokenPolicy policy = StatelessTokenPolicyHolder.getStatelessTokenPolicy();
-        return new RefreshToken<>(policy.getRefreshTokenSecretKey(), subject, timeoutSeconds);
+        return create(policy, subject, timeoutSeconds);
+    }
+
+    private static <T> RefreshToken<T> create(StatelessTokenPolicy policy, T subject, long timeoutSeconds) {
+        RefreshTokenStore refreshTokenStore = policy.getRefreshTokenStore();
+        if (refreshTokenStore == null) {
+            return new RefreshToken<>(policy.getTokenEngine(), policy.getRefreshTokenSigningKey(), subject, timeoutSeconds);
+        }
+        String familyId = TokenEngine.newTokenId();
+        RefreshToken<T> refreshToken = new RefreshToken<>(policy.getTokenEngine(), policy.getRefreshTokenSigningKey(), subject,
+                familyId + FAMILY_SEPARATOR + TokenEngine.newTokenId(), timeoutSeconds);
+        if (!refreshToken.isInvalidate()) {
+            refreshTokenStore.register(familyId, refreshToken.getTokenId(), refreshToken.getExpirationSeconds());
+        }
+        return refreshToken;
+    }
+
+    /**
+     * Exchanges this refresh token for a new access token and a new refresh token of the same family.
+     * This refresh token cannot be exchanged again; if it is, the whole family is revoked, since either
+     * this token or its replacement has been stolen.
+     *
+     * @return the new access and refresh token
+     * @throws IllegalStateException if refresh token rotation is not enabled for the policy
+     * @throws RefreshTokenRotationException if this token is invalid, was already exchanged, or has no known family
+     */
+    public TokenPair<T> rotate() {
+        StatelessTokenPolicy policy = StatelessTokenPolicyHolder.getStatelessTokenPolicy();
+        RefreshTokenStore refreshTokenStore = policy.getRefreshTokenStore();
+        if (refreshTokenStore == null) {
+            throw new IllegalStateException("Refresh token rotation is not enabled.");
+        }
+        T subject = this.getSubject();
+        if (this.isInvalidate) {
+            throw new RefreshTokenRotationException(RefreshTokenRotationException.Reason.INVALID);
+        }
+        String familyId = this.getFamilyId();
+        if (familyId == null) {
+            throw new RefreshTokenRotationException(RefreshTokenRotationException.Reason.UNKNOWN_FAMILY);
+        }
+
+        long timeoutSeconds = policy.getRefreshTokenTimeoutSeconds();
+        String nextTokenId = familyId + FAMILY_SEPARATOR + TokenEngine.newTokenId();
+        long expirationSeconds = (policy.getClock().currentTimeMillis() + timeoutSeconds * 1000) / 1000;
+        switch (refreshTokenStore.rotate(familyId, this.tokenId, nextTokenId, expirationSeconds)) {
+            case ROTATED:
+                break;
+            case REUSED:
+                throw new RefreshTokenRotationException(RefreshTokenRotationException.Reason.REUSED);
+            default:
+                throw new RefreshTokenRotationException(RefreshTokenRotationException.Reason.UNKNOWN_FAMILY);
+        }
+        RefreshToken<T> refreshToken = new RefreshToken<>(policy.getTokenEngine(), policy.getRefreshTokenSigningKey(), subject, nextTokenId, timeoutSeconds);
+        return new TokenPair<>(AccessToken.create(subject), refreshToken);
+    }
+
+    /**
+     * Revokes the family of this refresh token, so that none of its refresh tokens can be exchanged any more.
+     * Use this on logout when refresh token rotation is enabled.
+     *
+     * @throws IllegalStateException if refresh token rotation is not enabled for the policy
+     */
+    public void revokeFamily() {
+        RefreshTokenStore refreshTokenStore = StatelessTokenPolicyHolder.getStatelessTokenPolicy().getRefreshTokenStore();
+        if (refreshTokenStore == null) {
+            throw new IllegalStateException("Refresh token rotation is not enabled.");
+        }
+        refreshTokenStore.revoke(this.getFamilyId());
+    }
+
+    /**
+     * Returns the id of the family this refresh token belongs to.
+     *
+     * @return the family id, or null if the token is invalid or was created without refresh token rotation
+     */
+    public String getFamilyId() {
+        int separator = this.tokenId != null ? this.tokenId.indexOf(FAMILY_SEPARATOR) : -1;
+        return separator > 0 ? this.tokenId.substring(0, separator) : null;
     }
 
     /**
@@ -82,7 +187,7 @@ public class RefreshToken<T> extends Token<T> {
      */
     public static<T> RefreshToken<T> parse(String tokenValue, Class<T> subjectType) {
         StatelessTokenPolicy policy = StatelessTokenPolicyHolder.getStatelessTokenPolicy();
-        return new RefreshToken<>(policy.getRefreshTokenSecretKey(), tokenValue, subjectType);
+        return new RefreshToken<>(policy.getTokenEngine(), policy.getRefreshTokenSigningKey(), tokenValue, subjectType);
     }
 
     /**
@@ -95,6 +200,40 @@ public class RefreshToken<T> extends Token<T> {
      */
     public static<T> RefreshToken<T> parse(String tokenValue, TypeReference<T> subjectType) {
         StatelessTokenPolicy policy = StatelessTokenPolicyHolder.getStatelessTokenPolicy();
-        return new RefreshToken<>(policy.getRefreshTokenSecretKey(), tokenValue, subjectType);
+        return new RefreshToken<>(policy.getTokenEngine(), policy.getRefreshTokenSigningKey(), tokenValue, subjectType.getType());
+    }
+
+    /**
+     * Parses several refresh token strings at once.
+     * Identical token strings are verified only once, distinct ones are verified in parallel on the
+     * batch executor of the policy, and the results are returned in input order.
+     *
+     * @param <T> the type of the subject
+     * @param tokenValues the token strings to parse
+     * @param subjectType the class type of the subject
+     * @return the parsed refresh tokens in input order; invalid tokens are returned with {@link #isInvalidate()} set
+     */
+    public static <T> List<RefreshToken<T>> parseAll(Collection<String> tokenValues, Class<T> subjectType) {
+        StatelessTokenPolicy policy = StatelessTokenPolicyHolder.getStatelessTokenPolicy();
+        TokenEngine engine = policy.getTokenEngine();
+        SigningKey signingKey = policy.getRefreshTokenSigningKey();
+        return engine.parseAll(tokenValues, tokenValue -> new RefreshToken<T>(engine, signingKey, tokenValue, subjectType));
+    }
+
+    /**
+     * Parses several refresh token strings at once.
+     * Identical token strings are verified only once, distinct ones are verified in parallel on the
+     * batch executor of the policy, and the results are returned in input order.
+     *
+     * @param <T> the type of the subject
+     * @param tokenValues the token strings to parse
+     * @param subjectType the type reference for the subject type
+     * @return the parsed refresh tokens in input order; invalid tokens are returned with {@link #isInvalidate()} set
+     */
+    public static <T> List<RefreshToken<T>> parseAll(Collection<String> tokenValues, TypeReference<T> subjectType) {
+        StatelessTokenPolicy policy = StatelessTokenPolicyHolder.getStatelessTokenPolicy();
+        TokenEngine engine = policy.getTokenEngine();
+        SigningKey signingKey = policy.getRefreshTokenSigningKey();
+        return engine.parseAll(tokenValues, tokenValue -> new RefreshToken<T>(engine, signingKey, tokenValue, subjectType.getType()));
     }
-}
\ No newline at end of file
+}
@@ -2,23 +2,33 @@ package io.github.ohmry.stateless.token.domain;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.JavaType;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicy;
 import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicyHolder;
-import io.jsonwebtoken.Claims;
+import io.github.ohmry.stateless.token.engine.SigningKey;
+import io.github.ohmry.stateless.token.engine.TokenEngine;
+import io.github.ohmry.stateless.token.engine.TokenPreCheck;
+import io.github.ohmry.stateless.token.engine.TokenRecentlyRejectedException;
+import io.github.ohmry.stateless.token.engine.TokenRejectedException;
+import io.github.ohmry.stateless.token.engine.TokenRevokedException;
+import io.github.ohmry.stateless.token.engine.VerifiedToken;
+import io.github.ohmry.stateless.token.metrics.TokenMetrics;
+import io.github.ohmry.stateless.token.revocation.TokenRevocationList;
 import io.jsonwebtoken.ExpiredJwtException;
-import io.jsonwebtoken.Jws;
-import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.security.SignatureException;
 
 import javax.crypto.SecretKey;
-import java.util.Date;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Base class for stateless tokens that can contain a subject of any type.
  * This class provides functionality to create and parse JWT tokens with a generic subject type.
+ * If the policy decodes subjects lazily, parsing verifies the signature, expiration and revocation of the
+ * token, and the subject is decoded on the first call to {@link #getSubject()}.
  *
  * @param <T> the type of the subject contained in the token
  * @author ohmry
@@ -36,8 +46,26 @@ public class Token<T> {
     
     /**
      * Indicates whether the token is invalid or expired.
+     * Volatile, since a lazy subject that fails to decode on one thread invalidates the token for all threads.
      */
-    protected boolean isInvalidate;
+    protected volatile boolean isInvalidate;
+
+    /**
+     * The token id ({@code jti}), or null if the token has none.
+     */
+    protected String tokenId;
+
+    /**
+     * The token expiration in epoch seconds, or null if it is unknown.
+     */
+    protected Long expirationSeconds;
+
+    private final TokenEngine engine;
+
+    /**
+     * The verified token whose subject has not been decoded yet, or null once it has been.
+     */
+    private volatile VerifiedToken<T> lazySubject;
     
     /**
      * Creates a new token with the specified secret key, subject, and timeout.
@@ -47,19 +75,59 @@ public class Token<T> {
      * @param timeout the token expiration time in seconds (negative value creates an invalid token)
      */
     protected Token(SecretKey secretKey, T subject, long timeout) {
+        this(engine(), secretKey, subject, timeout);
+    }
+
+    /**
+     * Creates a new token with the specified engine, secret key, subject, and timeout.
+     *
+     * @param engine the engine used to issue the token
+     * @param secretKey the secret key used to sign the token
+     * @param subject the subject to be encoded in the token
+     * @param timeout the token expiration time in seconds (negative value creates an invalid token)
+     */
+    protected Token(TokenEngine engine, SecretKey secretKey, T subject, long timeout) {
+        this(engine, engine.signingKeyFor(secretKey), subject, timeout);
+    }
+
+    /**
+     * Creates a new token with the specified engine, signing key, subject, and timeout.
+     *
+     * @param engine the engine used to issue the token
+     * @param signingKey the signing key used to sign the token
+     * @param subject the subject to be encoded in the token
+     * @param timeout the token expiration time in seconds (negative value creates an invalid token)
+     */
+    protected Token(TokenEngine engine, SigningKey signingKey, T subject, long timeout) {
+        this(engine, signingKey, subject, TokenEngine.newTokenId(), timeout);
+    }
+
+    /**
+     * Creates a new token with the specified engine, signing key, subject, token id, and timeout.
+     *
+     * @param engine the engine used to issue the token
+     * @param signingKey the signing key used to sign the token
+     * @param subject the subject to be encoded in the token
+     * @param tokenId the token id
+     * @param timeout the token expiration time in seconds (negative value creates an invalid token)
+     */
+    protected Token(TokenEngine engine, SigningKey signingKey, T subject, String tokenId, long timeout) {
+        TokenMetrics tokenMetrics = engine.getTokenMetrics();
+        long startedAt = tokenMetrics.isEnabled() ? System.nanoTime() : 0L;
+        this.engine = engine;
         try {
-            ObjectMapper objectMapper = new ObjectMapper();
-            this.value = Jwts.builder()
-                             .subject(objectMapper.writeValueAsString(subject))
-                             .signWith(secretKey, Jwts.SIG.HS512)
-                             .issuedAt(new Date())
-                             .expiration(new Date(System.currentTimeMillis() + timeout * 1000))
-                             .compact();
+            long issuedAtMillis = engine.getClock().currentTimeMillis();
+            this.tokenId = tokenId;
+            this.value = engine.issueSubject(signingKey, subject, this.tokenId, issuedAtMillis, timeout);
+            this.expirationSeconds = (issuedAtMillis + timeout * 1000) / 1000;
             this.isInvalidate = timeout < 0;
             this.subject = timeout < 0 ? null : subject;
         } catch (JsonProcessingException e) {
             throw new IllegalArgumentException(e);
         }
+        if (tokenMetrics.isEnabled()) {
+            tokenMetrics.recordCreate(this.getTokenType(), System.nanoTime() - startedAt, this.value.length());
+        }
     }
     
     /**
@@ -70,26 +138,7 @@ public class Token<T> {
      * @param subjectType the class type of the subject
      */
     protected Token(SecretKey secretKey, String tokenValue, Class<T> subjectType) {
-        this.value = tokenValue;
-        try {
-            Jws<Claims> claims = Jwts.parser()
-                                     .verifyWith(secretKey)
-                                     .build()
-                                     .parseSignedClaims(tokenValue);
-            String subjectValue = claims.getPayload().getSubject();
-            
-            ObjectMapper objectMapper = new ObjectMapper();
-            this.subject = objectMapper.readValue(subjectValue, subjectType);
-            this.isInvalidate = false;
-        } catch (JsonProcessingException e) {
-            Logger logger = Logger.getLogger(Token.class.getName());
-            logger.log(Level.WARNING, "Failed to parse Token", e);
-            this.subject = null;
-            this.isInvalidate = true;
-        } catch (ExpiredJwtException e) {
-            this.subject = null;
-            this.isInvalidate = true;
-        }
+        this(engine(), secretKey, tokenValue, (Type) subjectType);
     }
 
     /**
@@ -100,29 +149,69 @@ public class Token<T> {
      * @param typeReference the type reference for the subject type
      */
     protected Token(SecretKey secretKey, String tokenValue, TypeReference<?> typeReference) {
+        this(engine(), secretKey, tokenValue, typeReference.getType());
+    }
+
+    /**
+     * Parses a token string with the specified engine and extracts the subject using the specified type.
+     *
+     * @param engine the engine used to verify the token
+     * @param secretKey the secret key used to verify the token signature
+     * @param tokenValue the token string to parse
+     * @param subjectType the type of the subject
+     */
+    protected Token(TokenEngine engine, SecretKey secretKey, String tokenValue, Type subjectType) {
+        this(engine, engine.signingKeyFor(secretKey), tokenValue, subjectType);
+    }
+
+    /**
+     * Parses a token string with the specified engine and signing key and extracts the subject using the specified type.
+     *
+     * @param engine the engine used to verify the token
+     * @param signingKey the signing key used to verify the token signature
+     * @param tokenValue the token string to parse
+     * @param subjectType the type of the subject
+     */
+    protected Token(TokenEngine engine, SigningKey signingKey, String tokenValue, Type subjectType) {
+        TokenMetrics tokenMetrics = engine.getTokenMetrics();
+        long startedAt = tokenMetrics.isEnabled() ? System.nanoTime() : 0L;
+        TokenMetrics.Outcome outcome;
+        this.engine = engine;
         this.value = tokenValue;
         try {
-            Jws<Claims> claims = Jwts.parser()
-                    .verifyWith(secretKey)
-                    .build()
-                    .parseSignedClaims(tokenValue);
-            String subjectValue = claims.getPayload().getSubject();
-
-            ObjectMapper objectMapper = new ObjectMapper();
-            JavaType subjectJavaType = objectMapper.getTypeFactory().constructType(typeReference);
-            this.subject = objectMapper.readValue(subjectValue, subjectJavaType);
+            VerifiedToken<T> verifiedToken = engine.parseToken(signingKey, tokenValue, subjectType);
+            this.subject = verifiedToken.getSubject();
+            this.lazySubject = verifiedToken.isLazy() ? verifiedToken : null;
+            this.tokenId = verifiedToken.getTokenId();
+            this.expirationSeconds = verifiedToken.getExpirationSeconds();
             this.isInvalidate = false;
+            outcome = TokenMetrics.Outcome.VALID;
         } catch (JsonProcessingException e) {
             Logger logger = Logger.getLogger(Token.class.getName());
             logger.log(Level.WARNING, "Failed to parse Token", e);
             this.subject = null;
             this.isInvalidate = true;
-        } catch (ExpiredJwtException e) {
+            outcome = TokenMetrics.Outcome.DESERIALIZATION_FAILURE;
+        } catch (JwtException | IllegalArgumentException e) {
+            // Expired, tampered, malformed, revoked, pre-check rejected and recently rejected tokens are all simply invalid.
             this.subject = null;
             this.isInvalidate = true;
+            outcome = outcomeOf(e);
+        }
+        if (tokenMetrics.isEnabled()) {
+            tokenMetrics.recordParse(this.getTokenType(), System.nanoTime() - startedAt, tokenValue != null ? tokenValue.length() : -1, outcome);
         }
     }
 
+    /**
+     * Returns the type of this token, used to tag metrics.
+     *
+     * @return the token type
+     */
+    protected TokenType getTokenType() {
+        return TokenType.TOKEN;
+    }
+
     /**
      * Creates a new token with the default policy settings.
      *
@@ -132,7 +221,7 @@ public class Token<T> {
      */
     public static <T> Token<T> create(T subject) {
         StatelessTokenPolicy policy = StatelessTokenPolicyHolder.getStatelessTokenPolicy();
-        return new Token<>(policy.getTokenSecretKey(), subject, policy.getTokenTimeoutSeconds());
+        return new Token<>(policy.getTokenEngine(), policy.getTokenSigningKey(), subject, policy.getTokenTimeoutSeconds());
     }
 
     /**
@@ -145,7 +234,19 @@ public class Token<T> {
      */
     public static <T> Token<T> create(T subject, long timeoutSeconds) {
         StatelessTokenPolicy policy = StatelessTokenPolicyHolder.getStatelessTokenPolicy();
-        return new Token<>(policy.getTokenSecretKey(), subject, timeoutSeconds);
+        return new Token<>(policy.getTokenEngine(), policy.getTokenSigningKey(), subject, timeoutSeconds);
+    }
+
+    /**
+     * Issues a token string with the default policy settings, without creating a Token instance.
+     *
+     * @param subject the subject to be encoded in the token
+     * @return the token string
+     * @throws IllegalArgumentException if the subject cannot be serialized
+     */
+    public static String mint(Object subject) {
+        StatelessTokenPolicy policy = StatelessTokenPolicyHolder.getStatelessTokenPolicy();
+        return mint(policy.getTokenEngine(), policy.getTokenSigningKey(), TokenType.TOKEN, subject, policy.getTokenTimeoutSeconds());
     }
 
     /**
@@ -158,7 +259,7 @@ public class Token<T> {
      */
     public static <T> Token<T> parse(String tokenValue, Class<T> subjectType) {
         StatelessTokenPolicy policy = StatelessTokenPolicyHolder.getStatelessTokenPolicy();
-        return new Token<>(policy.getTokenSecretKey(), tokenValue, subjectType);
+        return new Token<>(policy.getTokenEngine(), policy.getTokenSigningKey(), tokenValue, subjectType);
     }
 
     /**
@@ -171,7 +272,98 @@ public class Token<T> {
      */
     public static <T> Token<T> parse(String tokenValue, TypeReference<T> subjectType) {
         StatelessTokenPolicy policy = StatelessTokenPolicyHolder.getStatelessTokenPolicy();
-        return new Token<>(policy.getTokenSecretKey(), tokenValue, subjectType);
+        return new Token<>(policy.getTokenEngine(), policy.getTokenSigningKey(), tokenValue, subjectType.getType());
+    }
+
+    /**
+     * Parses several token strings at once.
+     * Identical token strings are verified only once, distinct ones are verified in parallel on the
+     * batch executor of the policy, and the results are returned in input order.
+     *
+     * @param <T> the type of the subject
+     * @param tokenValues the token strings to parse
+     * @param subjectType the class type of the subject
+     * @return the parsed tokens in input order; invalid tokens are returned with {@link #isInvalidate()} set
+     */
+    public static <T> List<? extends Token<T>> parseAll(Collection<String> tokenValues, Class<T> subjectType) {
+        StatelessTokenPolicy policy = StatelessTokenPolicyHolder.getStatelessTokenPolicy();
+        TokenEngine engine = policy.getTokenEngine();
+        SigningKey signingKey = policy.getTokenSigningKey();
+        return engine.parseAll(tokenValues, tokenValue -> new Token<T>(engine, signingKey, tokenValue, subjectType));
+    }
+
+    /**
+     * Parses several token strings at once.
+     * Identical token strings are verified only once, distinct ones are verified in parallel on the
+     * batch executor of the policy, and the results are returned in input order.
+     *
+     * @param <T> the type of the subject
+     * @param tokenValues the token strings to parse
+     * @param subjectType the type reference for the subject type
+     * @return the parsed tokens in input order; invalid tokens are returned with {@link #isInvalidate()} set
+     */
+    public static <T> List<? extends Token<T>> parseAll(Collection<String> tokenValues, TypeReference<T> subjectType) {
+        StatelessTokenPolicy policy = StatelessTokenPolicyHolder.getStatelessTokenPolicy();
+        TokenEngine engine = policy.getTokenEngine();
+        SigningKey signingKey = policy.getTokenSigningKey();
+        return engine.parseAll(tokenValues, tokenValue -> new Token<T>(engine, signingKey, tokenValue, subjectType.getType()));
+    }
+
+    /**
+     * Issues a token string the way the create constructor does, without creating a Token instance.
+     *
+     * @param engine the engine used to issue the token
+     * @param signingKey the signing key used to sign the token
+     * @param tokenType the token type reported to the metrics
+     * @param subject the subject to be encoded in the token
+     * @param timeoutSeconds the token expiration time in seconds
+     * @return the token string
+     * @throws IllegalArgumentException if the subject cannot be serialized
+     */
+    static String mint(TokenEngine engine, SigningKey signingKey, TokenType tokenType, Object subject, long timeoutSeconds) {
+        TokenMetrics tokenMetrics = engine.getTokenMetrics();
+        long startedAt = tokenMetrics.isEnabled() ? System.nanoTime() : 0L;
+        String tokenValue;
+        try {
+            tokenValue = engine.issueSubject(signingKey, subject, TokenEngine.newTokenId(), engine.getClock().currentTimeMillis(), timeoutSeconds);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e);
+        }
+        if (tokenMetrics.isEnabled()) {
+            tokenMetrics.recordCreate(tokenType, System.nanoTime() - startedAt, tokenValue.length());
+        }
+        return tokenValue;
+    }
+
+    private static TokenMetrics.Outcome outcomeOf(RuntimeException e) {
+        if (e instanceof TokenRecentlyRejectedException) {
+            // Replays are reported with the outcome of the rejection they repeat.
+            Throwable rejection = e.getCause();
+            return rejection instanceof RuntimeException ? outcomeOf((RuntimeException) rejection) : TokenMetrics.Outcome.DESERIALIZATION_FAILURE;
+        }
+        if (e instanceof ExpiredJwtException) {
+            return TokenMetrics.Outcome.EXPIRED;
+        }
+        if (e instanceof TokenRejectedException && ((TokenRejectedException) e).getRejection() == TokenPreCheck.Rejection.EXPIRED) {
+            return TokenMetrics.Outcome.EXPIRED;
+        }
+        if (e instanceof SignatureException) {
+            return TokenMetrics.Outcome.BAD_SIGNATURE;
+        }
+        if (e instanceof TokenRevokedException) {
+            return TokenMetrics.Outcome.REVOKED;
+        }
+        return TokenMetrics.Outcome.MALFORMED;
+    }
+
+    /**
+     * Returns the engine of the current policy, or the standalone engine if no policy is configured.
+     *
+     * @return the token engine to issue and parse with
+     */
+    private static TokenEngine engine() {
+        StatelessTokenPolicy policy = StatelessTokenPolicyHolder.getStatelessTokenPolicy();
+        return policy != null ? policy.getTokenEngine() : TokenEngine.standalone();
     }
 
     /**
@@ -185,12 +377,33 @@ public class Token<T> {
     
     /**
      * Returns the subject extracted from the token.
+     * If the policy decodes subjects lazily, the subject is decoded on the first call and kept. A subject
+     * that cannot be decoded is logged, null is returned, and the token is invalid from then on.
      *
      * @return the subject, or null if the token is invalid or expired
      */
     public T getSubject() {
+        VerifiedToken<T> lazySubject = this.lazySubject;
+        if (lazySubject != null) {
+            this.decodeLazySubject(lazySubject);
+        }
         return subject;
     }
+
+    private synchronized void decodeLazySubject(VerifiedToken<T> lazySubject) {
+        if (this.lazySubject == null) {
+            return;
+        }
+        try {
+            this.subject = lazySubject.decodeSubject();
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            Logger logger = Logger.getLogger(Token.class.getName());
+            logger.log(Level.WARNING, "Failed to parse Token", e);
+            this.subject = null;
+            this.isInvalidate = true;
+        }
+        this.lazySubject = null;
+    }
     
     /**
      * Checks if the token is invalid or expired.
@@ -200,4 +413,40 @@ public class Token<T> {
     public boolean isInvalidate() {
         return isInvalidate;
     }
+
+    /**
+     * Returns the token id ({@code jti}).
+     *
+     * @return the token id, or null if the token is invalid or has no id
+     */
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    /**
+     * Returns the token expiration.
+     *
+     * @return the expiration in epoch seconds, or null if the token is invalid
+     */
+    public Long getExpirationSeconds() {
+        return expirationSeconds;
+    }
+
+    /**
+     * Revokes this token, so that parsing it fails until it expires.
+     * The token is added to the revocation list of the policy it was created or parsed with.
+     *
+     * @return true if the token was revoked, false if it has no id or has already expired
+     * @throws IllegalStateException if revocation is not enabled for the policy
+     */
+    public boolean revoke() {
+        TokenRevocationList revocationList = this.engine.getRevocationList();
+        if (revocationList == null) {
+            throw new IllegalStateException("Token revocation is not enabled.");
+        }
+        if (this.tokenId == null || this.expirationSeconds == null) {
+            return false;
+        }
+        return revocationList.revoke(this.tokenId, this.expirationSeconds);
+    }
 }
@@ -0,0 +1,41 @@
+package io.github.ohmry.stateless.token.domain;
+
+/**
+ * An access token together with the refresh token issued alongside it.
+ *
+ * @param <T> the type of the subject contained in the tokens
+ * @author ohmry
+ */
+public class TokenPair<T> {
+    private final AccessToken<T> accessToken;
+    private final RefreshToken<T> refreshToken;
+
+    /**
+     * Creates a new token pair.
+     *
+     * @param accessToken the access token
+     * @param refreshToken the refresh token
+     */
+    public TokenPair(AccessToken<T> accessToken, RefreshToken<T> refreshToken) {
+        this.accessToken = accessToken;
+        this.refreshToken = refreshToken;
+    }
+
+    /**
+     * Returns the access token.
+     *
+     * @return the access token
+     */
+    public AccessToken<T> getAccessToken() {
+        return accessToken;
+    }
+
+    /**
+     * Returns the refresh token.
+     *
+     * @return the refresh token
+     */
+    public RefreshToken<T> getRefreshToken() {
+        return refreshToken;
+    }
+}
@@ -0,0 +1,96 @@
+package io.github.ohmry.stateless.token.domain;
+
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicy;
+import io.github.ohmry.stateless.token.engine.SigningKey;
+
+import java.util.List;
+
+/**
+ * The kinds of tokens managed by a {@link StatelessTokenPolicy}.
+ *
+ * @author ohmry
+ */
+public enum TokenType {
+    /**
+     * A general token, see {@link Token}.
+     */
+    TOKEN,
+    /**
+     * An access token, see {@link AccessToken}.
+     */
+    ACCESS,
+    /**
+     * A refresh token, see {@link RefreshToken}.
+     */
+    REFRESH;
+
+    /**
+     * Returns the token type whose signing or verification keys carry the given key id.
+     * Token types that share a key cannot be told apart by key id; configure distinct keys per token type
+     * when the type has to be known, e.g. from {@link io.github.ohmry.stateless.token.engine.TokenPeek#getKeyId()}.
+     *
+     * @param policy the policy holding the keys
+     * @param keyId the key id of a token
+     * @return the token type, or null if no token type or more than one token type uses the key id
+     */
+    public static TokenType of(StatelessTokenPolicy policy, String keyId) {
+        if (keyId == null) {
+            return null;
+        }
+        TokenType match = null;
+        for (TokenType tokenType : values()) {
+            if (tokenType.hasKeyId(policy, keyId)) {
+                if (match != null) {
+                    return null;
+                }
+                match = tokenType;
+            }
+        }
+        return match;
+    }
+
+    /**
+     * Returns the signing key the policy uses for this token type.
+     *
+     * @param policy the policy holding the signing keys
+     * @return the signing key for this token type
+     */
+    public SigningKey signingKey(StatelessTokenPolicy policy) {
+        return switch (this) {
+            case TOKEN -> policy.getTokenSigningKey();
+            case ACCESS -> policy.getAccessTokenSigningKey();
+            case REFRESH -> policy.getRefreshTokenSigningKey();
+        };
+    }
+
+    /**
+     * Returns the expiration time the policy uses for this token type.
+     *
+     * @param policy the policy holding the expiration times
+     * @return the expiration time in seconds for this token type
+     */
+    public long timeoutSeconds(StatelessTokenPolicy policy) {
+        return switch (this) {
+            case TOKEN -> policy.getTokenTimeoutSeconds();
+            case ACCESS -> policy.getAccessTokenTimeoutSeconds();
+            case REFRESH -> policy.getRefreshTokenTimeoutSeconds();
+        };
+    }
+
+    private boolean hasKeyId(StatelessTokenPolicy policy, String keyId) {
+        if (keyId.equals(this.signingKey(policy).getKeyId())) {
+            return true;
+        }
+        List<SigningKey> verificationKeys = switch (this) {
+            case TOKEN -> policy.getTokenVerificationKeys();
+            case ACCESS -> policy.getAccessTokenVerificationKeys();
+            case REFRESH -> policy.getRefreshTokenVerificationKeys();
+        };
+        for (SigningKey verificationKey : verificationKeys) {
+            if (keyId.equals(verificationKey.getKeyId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,155 @@
+package io.github.ohmry.stateless.token.engine;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Allocation-free base64url codec without padding, as used by compact JWS segments.
+ *
+ * @author ohmry
+ */
+final class Base64Url {
+    private static final byte[] ENCODE_TABLE = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DECODE_TABLE = new byte[128];
+
+    static {
+        Arrays.fill(DECODE_TABLE, (byte) -1);
+        for (int i = 0; i < ENCODE_TABLE.length; i++) {
+            DECODE_TABLE[ENCODE_TABLE[i]] = (byte) i;
+        }
+    }
+
+    private Base64Url() {
+    }
+
+    /**
+     * Returns the number of bytes encoded by a segment of the given length.
+     *
+     * @param encodedLength the number of base64url characters
+     * @return the decoded length, or -1 if no valid encoding has that length
+     */
+    static int decodedLength(int encodedLength) {
+        int remainder = encodedLength & 3;
+        if (remainder == 1) {
+            return -1;
+        }
+        return (encodedLength >> 2) * 3 + (remainder == 0 ? 0 : remainder - 1);
+    }
+
+    /**
+     * Returns the number of base64url characters that encode the given number of bytes.
+     *
+     * @param length the number of bytes
+     * @return the encoded length
+     */
+    static int encodedLength(int length) {
+        int remainder = length % 3;
+        return length / 3 * 4 + (remainder == 0 ? 0 : remainder + 1);
+    }
+
+    /**
+     * Returns whether the given character belongs to the base64url alphabet.
+     *
+     * @param c the character
+     * @return true if the character is a base64url character
+     */
+    static boolean isAlphabet(char c) {
+        return c < 128 && DECODE_TABLE[c] >= 0;
+    }
+
+    /**
+     * Decodes a region of the source into the destination buffer.
+     * Encodings with non-zero trailing bits are rejected so that every byte sequence has exactly one encoding.
+     *
+     * @param source the characters to decode
+     * @param from the index of the first character, inclusive
+     * @param to the index of the last character, exclusive
+     * @param destination the buffer receiving the decoded bytes, at least {@link #decodedLength(int)} long
+     * @return the number of decoded bytes, or -1 if the region is not valid base64url
+     */
+    static int decode(CharSequence source, int from, int to, byte[] destination) {
+        int length = decodedLength(to - from);
+        if (length < 0) {
+            return -1;
+        }
+
+        int position = 0;
+        int i = from;
+        int fullEnd = to - ((to - from) & 3);
+        while (i < fullEnd) {
+            int a = value(source.charAt(i));
+            int b = value(source.charAt(i + 1));
+            int c = value(source.charAt(i + 2));
+            int d = value(source.charAt(i + 3));
+            if ((a | b | c | d) < 0) {
+                return -1;
+            }
+            int bits = a << 18 | b << 12 | c << 6 | d;
+            destination[position++] = (byte) (bits >> 16);
+            destination[position++] = (byte) (bits >> 8);
+            destination[position++] = (byte) bits;
+            i += 4;
+        }
+
+        int remaining = to - i;
+        if (remaining == 2) {
+            int a = value(source.charAt(i));
+            int b = value(source.charAt(i + 1));
+            if ((a | b) < 0 || (b & 0x0F) != 0) {
+                return -1;
+            }
+            destination[position++] = (byte) (a << 2 | b >> 4);
+        } else if (remaining == 3) {
+            int a = value(source.charAt(i));
+            int b = value(source.charAt(i + 1));
+            int c = value(source.charAt(i + 2));
+            if ((a | b | c) < 0 || (c & 0x03) != 0) {
+                return -1;
+            }
+            int bits = a << 12 | b << 6 | c;
+            destination[position++] = (byte) (bits >> 10);
+            destination[position++] = (byte) (bits >> 2);
+        }
+        return position;
+    }
+
+    /**
+     * Encodes a region of the source as ASCII base64url characters into the destination buffer.
+     *
+     * @param source the bytes to encode
+     * @param from the index of the first byte, inclusive
+     * @param to the index of the last byte, exclusive
+     * @param destination the buffer receiving the characters
+     * @param position the index in the destination the first character is written to
+     * @return the index in the destination after the last written character
+     */
+    static int encode(byte[] source, int from, int to, byte[] destination, int position) {
+        int i = from;
+        int fullEnd = to - (to - from) % 3;
+        while (i < fullEnd) {
+            int bits = (source[i] & 0xFF) << 16 | (source[i + 1] & 0xFF) << 8 | source[i + 2] & 0xFF;
+            destination[position++] = ENCODE_TABLE[bits >>> 18];
+            destination[position++] = ENCODE_TABLE[bits >>> 12 & 0x3F];
+            destination[position++] = ENCODE_TABLE[bits >>> 6 & 0x3F];
+            destination[position++] = ENCODE_TABLE[bits & 0x3F];
+            i += 3;
+        }
+
+        int remaining = to - i;
+        if (remaining == 1) {
+            int bits = source[i] & 0xFF;
+            destination[position++] = ENCODE_TABLE[bits >>> 2];
+            destination[position++] = ENCODE_TABLE[bits << 4 & 0x3F];
+        } else if (remaining == 2) {
+            int bits = (source[i] & 0xFF) << 8 | source[i + 1] & 0xFF;
+            destination[position++] = ENCODE_TABLE[bits >>> 10];
+            destination[position++] = ENCODE_TABLE[bits >>> 4 & 0x3F];
+            destination[position++] = ENCODE_TABLE[bits << 2 & 0x3F];
+        }
+        return position;
+    }
+
+    private static int value(char c) {
+        return c < 128 ? DECODE_TABLE[c] : -1;
+    }
+}
@@ -0,0 +1,161 @@
+package io.github.ohmry.stateless.token.engine;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Map;
+
+/**
+ * Specialized signer for HMAC compact JWS tokens, the counterpart of {@link HmacJwsVerifier}.
+ * The header segment is encoded once per key, the payload is written with a Jackson generator into
+ * a reusable per-thread buffer, and the token is base64url encoded and signed in place with per-thread
+ * clones of a {@link Mac} that was initialized with the key once.
+ * The tokens are the same as the ones the JWT builder writes for the key, except for the order of the claims.
+ *
+ * @author ohmry
+ */
+final class HmacJwsSigner {
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    private final SecretKey secretKey;
+    private final String macAlgorithm;
+    private final byte[] header;
+    private final JsonFactory jsonFactory;
+    private final int signatureLength;
+    private final Mac template;
+    private final ThreadLocal<Mac> macs;
+
+    HmacJwsSigner(SecretKey secretKey, TokenAlgorithm algorithm, ObjectMapper objectMapper, String headerSegment) {
+        this.secretKey = secretKey;
+        this.macAlgorithm = algorithm.getJcaName();
+        this.header = (headerSegment + '.').getBytes(StandardCharsets.US_ASCII);
+        // The factory of the mapper writes subject claims with the mapper's configuration and modules.
+        this.jsonFactory = objectMapper.getFactory();
+        this.template = newMac(this.macAlgorithm, secretKey);
+        this.signatureLength = this.template.getMacLength();
+        this.macs = ThreadLocal.withInitial(this::cloneTemplate);
+    }
+
+    /**
+     * Writes and signs a token.
+     *
+     * @param subjectClaims the claims carrying the subject; null values are left out
+     * @param tokenId the token id, or null to write none
+     * @param issuedAtMillis the issue time in epoch milliseconds
+     * @param timeoutSeconds the token expiration time in seconds
+     * @return the compact token string
+     */
+    String sign(Map<String, ?> subjectClaims, String tokenId, long issuedAtMillis, long timeoutSeconds) {
+        Buffers buffers = BUFFERS.get();
+        PayloadBuffer payload = buffers.payload;
+        payload.reset();
+        try (JsonGenerator generator = this.jsonFactory.createGenerator(payload)) {
+            generator.writeStartObject();
+            if (tokenId != null) {
+                generator.writeStringField("jti", tokenId);
+            }
+            for (Map.Entry<String, ?> claim : subjectClaims.entrySet()) {
+                if (claim.getValue() != null) {
+                    generator.writeFieldName(claim.getKey());
+                    generator.writeObject(claim.getValue());
+                }
+            }
+            // Like the JWT builder, the times are truncated to whole seconds.
+            generator.writeNumberField("iat", issuedAtMillis / 1000);
+            generator.writeNumberField("exp", (issuedAtMillis + timeoutSeconds * 1000) / 1000);
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Unable to write JWT payload.", e);
+        }
+
+        byte[] token = buffers.token(this.header.length
+                + Base64Url.encodedLength(payload.size) + 1 + Base64Url.encodedLength(this.signatureLength));
+        System.arraycopy(this.header, 0, token, 0, this.header.length);
+        int position = Base64Url.encode(payload.bytes, 0, payload.size, token, this.header.length);
+        Mac mac = this.macs.get();
+        mac.update(token, 0, position);
+        try {
+            mac.doFinal(buffers.signature, 0);
+        } catch (ShortBufferException e) {
+            throw new IllegalStateException(e);
+        }
+        token[position++] = '.';
+        position = Base64Url.encode(buffers.signature, 0, this.signatureLength, token, position);
+        return new String(token, 0, position, StandardCharsets.ISO_8859_1);
+    }
+
+    private Mac cloneTemplate() {
+        try {
+            return (Mac) this.template.clone();
+        } catch (CloneNotSupportedException e) {
+            return newMac(this.macAlgorithm, this.secretKey);
+        }
+    }
+
+    private static Mac newMac(String macAlgorithm, SecretKey secretKey) {
+        try {
+            Mac mac = Mac.getInstance(macAlgorithm);
+            mac.init(secretKey);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to initialize " + macAlgorithm + ".", e);
+        }
+    }
+
+    /**
+     * Per-thread buffers reused across signings.
+     */
+    private static final class Buffers {
+        private final PayloadBuffer payload = new PayloadBuffer();
+        private final byte[] signature = new byte[64];
+        private byte[] token = new byte[1024];
+
+        byte[] token(int length) {
+            if (this.token.length < length) {
+                this.token = new byte[Math.max(length, this.token.length * 2)];
+            }
+            return this.token;
+        }
+    }
+
+    /**
+     * Growable byte buffer the payload JSON is written into, without the copy on read of a ByteArrayOutputStream.
+     */
+    private static final class PayloadBuffer extends OutputStream {
+        private byte[] bytes = new byte[512];
+        private int size;
+
+        void reset() {
+            this.size = 0;
+        }
+
+        @Override
+        public void write(int b) {
+            this.ensureCapacity(this.size + 1);
+            this.bytes[this.size++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            this.ensureCapacity(this.size + len);
+            System.arraycopy(b, off, this.bytes, this.size, len);
+            this.size += len;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (this.bytes.length < capacity) {
+                byte[] grown = new byte[Math.max(capacity, this.bytes.length * 2)];
+                System.arraycopy(this.bytes, 0, grown, 0, this.size);
+                this.bytes = grown;
+            }
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package io.github.ohmry.stateless.token.engine;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.ohmry.stateless.token.codec.SubjectCodec;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.security.SignatureException;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Specialized verifier for the HMAC compact JWS tokens issued by this library.
+ * Segments are decoded into reusable per-thread buffers and signatures are computed with
+ * per-thread clones of a {@link Mac} that was initialized with the key once.
+ * Tokens with any other header are left to the generic JWT parser.
+ *
+ * @author ohmry
+ */
+final class HmacJwsVerifier {
+    private static final int MAX_SIGNATURE_LENGTH = 64;
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    private final SecretKey secretKey;
+    private final String macAlgorithm;
+    private final int signatureLength;
+    private final String[] headerSegments;
+    private final JsonFactory jsonFactory;
+    private final Mac template;
+    private final ThreadLocal<Mac> macs;
+
+    HmacJwsVerifier(SecretKey secretKey, TokenAlgorithm algorithm, ObjectMapper objectMapper, String... headerSegments) {
+        this.secretKey = secretKey;
+        this.macAlgorithm = algorithm.getJcaName();
+        this.headerSegments = headerSegments;
+        // The factory of the mapper reads flattened subject claims with the mapper's configuration and modules.
+        this.jsonFactory = objectMapper.getFactory();
+        this.template = newMac(this.macAlgorithm, secretKey);
+        this.signatureLength = this.template.getMacLength();
+        this.macs = ThreadLocal.withInitial(this::cloneTemplate);
+    }
+
+    /**
+     * Verifies the token signature and expiration.
+     *
+     * @param tokenValue the token string to verify
+     * @param nowMillis the current time in epoch milliseconds
+     * @return the verified claims, or null if the token must be handled by the generic JWT parser
+     * @throws SignatureException if the signature does not match
+     * @throws MalformedJwtException if a segment cannot be decoded
+     * @throws ExpiredJwtException if the token has expired
+     */
+    VerifiedClaims verify(String tokenValue, long nowMillis) {
+        int headerEnd = this.headerEnd(tokenValue);
+        if (headerEnd < 0) {
+            return null;
+        }
+        int payloadEnd = tokenValue.indexOf('.', headerEnd + 1);
+        if (payloadEnd < 0 || tokenValue.indexOf('.', payloadEnd + 1) >= 0) {
+            return null;
+        }
+
+        Buffers buffers = BUFFERS.get();
+        if (Base64Url.decodedLength(tokenValue.length() - payloadEnd - 1) != this.signatureLength
+                || Base64Url.decode(tokenValue, payloadEnd + 1, tokenValue.length(), buffers.signature) != this.signatureLength) {
+            throw new SignatureException("JWT signature does not match locally computed signature.");
+        }
+
+        byte[] signingInput = buffers.signingInput(payloadEnd);
+        for (int i = 0; i < payloadEnd; i++) {
+            char c = tokenValue.charAt(i);
+            if (c >= 128) {
+                throw new MalformedJwtException("Invalid compact JWT string.");
+            }
+            signingInput[i] = (byte) c;
+        }
+        Mac mac = this.macs.get();
+        mac.update(signingInput, 0, payloadEnd);
+        try {
+            mac.doFinal(buffers.expectedSignature, 0);
+        } catch (ShortBufferException e) {
+            throw new IllegalStateException(e);
+        }
+        // The signatures are compared in constant time.
+        if (!isEqual(buffers.expectedSignature, buffers.signature, this.signatureLength)) {
+            throw new SignatureException("JWT signature does not match locally computed signature.");
+        }
+
+        int payloadLength = Base64Url.decodedLength(payloadEnd - headerEnd - 1);
+        if (payloadLength < 0) {
+            throw new MalformedJwtException("Invalid base64url payload.");
+        }
+        byte[] payload = buffers.payload(payloadLength);
+        if (Base64Url.decode(tokenValue, headerEnd + 1, payloadEnd, payload) < 0) {
+            throw new MalformedJwtException("Invalid base64url payload.");
+        }
+
+        VerifiedClaims claims = this.readClaims(payload, payloadLength);
+        if (claims != null && claims.getExpirationSeconds() != null && nowMillis > claims.getExpirationSeconds() * 1000) {
+            throw new ExpiredJwtException(null, null, "JWT expired.");
+        }
+        return claims;
+    }
+
+    /**
+     * Returns the length of the known header segment the token starts with, or -1 if it starts with none of them.
+     */
+    private int headerEnd(String tokenValue) {
+        for (String headerSegment : this.headerSegments) {
+            int headerEnd = headerSegment.length();
+            if (tokenValue.length() > headerEnd
+                    && tokenValue.charAt(headerEnd) == '.'
+                    && tokenValue.startsWith(headerSegment)) {
+                return headerEnd;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reads the registered claims used by this library and the subject claims of flattened subjects,
+     * or returns null for claims the generic parser must validate.
+     */
+    private VerifiedClaims readClaims(byte[] payload, int length) {
+        String tokenId = null;
+        String subject = null;
+        String binarySubject = null;
+        Map<String, Object> subjectClaims = Map.of();
+        Long issuedAt = null;
+        Long expiration = null;
+        try (JsonParser parser = this.jsonFactory.createParser(payload, 0, length)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new MalformedJwtException("JWT payload is not a JSON object.");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (name) {
+                    case "jti":
+                        if (value != JsonToken.VALUE_STRING) {
+                            return null;
+                        }
+                        tokenId = parser.getText();
+                        break;
+                    case "sub":
+                        if (value != JsonToken.VALUE_STRING) {
+                            return null;
+                        }
+                        subject = parser.getText();
+                        break;
+                    case SubjectCodec.BINARY_SUBJECT_CLAIM:
+                        if (value != JsonToken.VALUE_STRING) {
+                            return null;
+                        }
+                        binarySubject = parser.getText();
+                        break;
+                    case "iat":
+                        if (value != JsonToken.VALUE_NUMBER_INT) {
+                            return null;
+                        }
+                        issuedAt = parser.getLongValue();
+                        break;
+                    case "exp":
+                        if (value != JsonToken.VALUE_NUMBER_INT) {
+                            return null;
+                        }
+                        expiration = parser.getLongValue();
+                        break;
+                    case "nbf":
+                        return null;
+                    default:
+                        if (SubjectCodec.REGISTERED_CLAIMS.contains(name)) {
+                            parser.skipChildren();
+                            break;
+                        }
+                        if (subjectClaims.isEmpty()) {
+                            subjectClaims = new LinkedHashMap<>();
+                        }
+                        subjectClaims.put(name, parser.readValueAs(Object.class));
+                        break;
+                }
+            }
+        } catch (IOException e) {
+            throw new MalformedJwtException("Unable to read JWT payload.", e);
+        }
+        return new VerifiedClaims(tokenId, subject, binarySubject, subjectClaims, issuedAt, expiration);
+    }
+
+    /**
+     * Compares the first length bytes of both arrays in constant time.
+     */
+    private static boolean isEqual(byte[] expected, byte[] actual, int length) {
+        if (expected.length == length) {
+            return MessageDigest.isEqual(expected, actual);
+        }
+        int difference = 0;
+        for (int i = 0; i < length; i++) {
+            difference |= expected[i] ^ actual[i];
+        }
+        return difference == 0;
+    }
+
+    private Mac cloneTemplate() {
+        try {
+            return (Mac) this.template.clone();
+        } catch (CloneNotSupportedException e) {
+            return newMac(this.macAlgorithm, this.secretKey);
+        }
+    }
+
+    private static Mac newMac(String macAlgorithm, SecretKey secretKey) {
+        try {
+            Mac mac = Mac.getInstance(macAlgorithm);
+            mac.init(secretKey);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to initialize " + macAlgorithm + ".", e);
+        }
+    }
+
+    /**
+     * Per-thread buffers reused across verifications.
+     */
+    private static final class Buffers {
+        private final byte[] signature = new byte[MAX_SIGNATURE_LENGTH];
+        private final byte[] expectedSignature = new byte[MAX_SIGNATURE_LENGTH];
+        private byte[] signingInput = new byte[1024];
+        private byte[] payload = new byte[1024];
+
+        byte[] signingInput(int length) {
+            if (this.signingInput.length < length) {
+                this.signingInput = new byte[Math.max(length, this.signingInput.length * 2)];
+            }
+            return this.signingInput;
+        }
+
+        byte[] payload(int length) {
+            if (this.payload.length < length) {
+                this.payload = new byte[Math.max(length, this.payload.length * 2)];
+            }
+            return this.payload;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package io.github.ohmry.stateless.token.engine;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.SecureDigestAlgorithm;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.PublicKey;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Immutable, pre-built signing and verification resources for a single signing key.
+ * Instances are created once per key and shared by every thread using the owning {@link TokenEngine}.
+ *
+ * @author ohmry
+ */
+final class KeyContext {
+    private final SigningKey signingKey;
+    private final SecureDigestAlgorithm<Key, ?> signatureAlgorithm;
+    private final String headerSegment;
+    private final JwtParser parser;
+    private final HmacJwsVerifier verifier;
+    private final HmacJwsSigner signer;
+    private final TokenClock clock;
+    private final long clockSkewMillis;
+
+    @SuppressWarnings("unchecked")
+    KeyContext(SigningKey signingKey, TokenClock clock, long clockSkewSeconds, ObjectMapper objectMapper) {
+        this.signingKey = signingKey;
+        this.clock = clock;
+        this.clockSkewMillis = clockSkewSeconds * 1000;
+        this.signatureAlgorithm = (SecureDigestAlgorithm<Key, ?>) signingKey.getAlgorithm().getSignatureAlgorithm();
+        this.headerSegment = this.headerSegment(signingKey.getKeyId());
+        if (signingKey.getAlgorithm().isHmac()) {
+            SecretKey secretKey = (SecretKey) signingKey.getVerificationKey();
+            this.parser = Jwts.parser()
+                              .verifyWith(secretKey)
+                              .clock(() -> new Date(clock.currentTimeMillis()))
+                              .clockSkewSeconds(clockSkewSeconds)
+                              .build();
+            // Tokens issued before key ids were written have no kid header, they take the fast path as well.
+            this.verifier = new HmacJwsVerifier(secretKey, signingKey.getAlgorithm(), objectMapper, this.headerSegment, this.headerSegment(null));
+            this.signer = new HmacJwsSigner(secretKey, signingKey.getAlgorithm(), objectMapper, this.headerSegment);
+        } else {
+            this.parser = Jwts.parser()
+                              .verifyWith((PublicKey) signingKey.getVerificationKey())
+                              .clock(() -> new Date(clock.currentTimeMillis()))
+                              .clockSkewSeconds(clockSkewSeconds)
+                              .build();
+            this.verifier = null;
+            this.signer = null;
+        }
+    }
+
+    SigningKey getSigningKey() {
+        return signingKey;
+    }
+
+    /**
+     * Returns whether the token starts with the header this key writes.
+     */
+    boolean matchesHeader(String tokenValue) {
+        int headerEnd = this.headerSegment.length();
+        return tokenValue.length() > headerEnd
+                && tokenValue.charAt(headerEnd) == '.'
+                && tokenValue.startsWith(this.headerSegment);
+    }
+
+    String issue(Map<String, ?> subjectClaims, String tokenId, long issuedAtMillis, long timeoutSeconds) {
+        if (!this.signingKey.canSign()) {
+            throw new IllegalStateException("The " + this.signingKey.getAlgorithm().getJwsName() + " key has no private key and can only verify tokens.");
+        }
+        if (this.signer != null) {
+            return this.signer.sign(subjectClaims, tokenId, issuedAtMillis, timeoutSeconds);
+        }
+        return Jwts.builder()
+                   .header().keyId(this.signingKey.getKeyId()).and()
+                   .id(tokenId)
+                   .claims(subjectClaims)
+                   .signWith(this.signingKey.getSigningKey(), this.signatureAlgorithm)
+                   .issuedAt(new Date(issuedAtMillis))
+                   .expiration(new Date(issuedAtMillis + timeoutSeconds * 1000))
+                   .compact();
+    }
+
+    VerifiedClaims verify(String tokenValue) {
+        if (this.verifier != null) {
+            // Shifting the time back by the skew accepts tokens that expired less than the skew ago.
+            VerifiedClaims claims = this.verifier.verify(tokenValue, this.clock.currentTimeMillis() - this.clockSkewMillis);
+            if (claims != null) {
+                return claims;
+            }
+        }
+        return VerifiedClaims.of(this.parser.parseSignedClaims(tokenValue).getPayload());
+    }
+
+    /**
+     * Returns the encoded header that the builder produces for this key and key id, which is the same for every token.
+     */
+    private String headerSegment(String keyId) {
+        if (!this.signingKey.canSign()) {
+            // A verification-only key cannot run the builder, so the header is written the way the builder writes it.
+            String algorithm = "\"alg\":\"" + this.signingKey.getAlgorithm().getJwsName() + "\"";
+            String header = keyId == null
+                    ? "{" + algorithm + "}"
+                    : "{\"kid\":\"" + keyId.replace("\\", "\\\\").replace("\"", "\\\"") + "\"," + algorithm + "}";
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(header.getBytes(StandardCharsets.UTF_8));
+        }
+        String tokenValue = Jwts.builder()
+                                .header().keyId(keyId).and()
+                                .signWith(this.signingKey.getSigningKey(), this.signatureAlgorithm)
+                                .compact();
+        return tokenValue.substring(0, tokenValue.indexOf('.'));
+    }
+}
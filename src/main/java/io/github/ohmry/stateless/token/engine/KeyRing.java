@@ -0,0 +1,169 @@
+package io.github.ohmry.stateless.token.engine;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.security.SignatureException;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The signing key of a token type together with the keys its tokens are still verified with, for example
+ * the keys that were replaced by a secret rotation.
+ * Tokens are issued with the signing key only. A token carrying a {@code kid} header is verified with
+ * the key of that id, found by a hash lookup; a token without one is verified with the keys in the order
+ * of their most recent success, so the key most tokens are signed with is tried first.
+ *
+ * @author ohmry
+ */
+final class KeyRing {
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final int id;
+    private final KeyContext signingContext;
+    private final Map<String, KeyContext> contextsByKeyId;
+    private volatile KeyContext[] recentContexts;
+
+    KeyRing(KeyContext signingContext, List<KeyContext> verificationContexts) {
+        this.id = SEQUENCE.incrementAndGet();
+        this.signingContext = signingContext;
+        this.contextsByKeyId = new HashMap<>();
+        this.contextsByKeyId.put(signingContext.getSigningKey().getKeyId(), signingContext);
+        for (KeyContext context : verificationContexts) {
+            KeyContext previous = this.contextsByKeyId.putIfAbsent(context.getSigningKey().getKeyId(), context);
+            if (previous != null && previous != context) {
+                throw new IllegalArgumentException("Duplicate key id " + context.getSigningKey().getKeyId() + ".");
+            }
+        }
+        KeyContext[] contexts = new KeyContext[this.contextsByKeyId.size()];
+        contexts[0] = signingContext;
+        int index = 1;
+        for (KeyContext context : verificationContexts) {
+            if (context != signingContext && !contains(contexts, index, context)) {
+                contexts[index++] = context;
+            }
+        }
+        this.recentContexts = contexts;
+    }
+
+    /**
+     * Returns the id that scopes the cached verification results of this ring.
+     */
+    int getId() {
+        return id;
+    }
+
+    SigningKey getSigningKey() {
+        return this.signingContext.getSigningKey();
+    }
+
+    String issue(Map<String, ?> subjectClaims, String tokenId, long issuedAtMillis, long timeoutSeconds) {
+        return this.signingContext.issue(subjectClaims, tokenId, issuedAtMillis, timeoutSeconds);
+    }
+
+    VerifiedClaims verify(String tokenValue) {
+        KeyContext[] contexts = this.recentContexts;
+        if (contexts.length == 1 || this.signingContext.matchesHeader(tokenValue)) {
+            return this.signingContext.verify(tokenValue);
+        }
+
+        Header header = readHeader(tokenValue);
+        if (header.keyId != null) {
+            KeyContext context = this.contextsByKeyId.get(header.keyId);
+            if (context == null) {
+                throw new SignatureException("No verification key with key id " + header.keyId + ".");
+            }
+            return context.verify(tokenValue);
+        }
+
+        SignatureException failure = null;
+        for (int i = 0; i < contexts.length; i++) {
+            KeyContext context = contexts[i];
+            if (!context.getSigningKey().getAlgorithm().getJwsName().equals(header.algorithm)) {
+                continue;
+            }
+            try {
+                VerifiedClaims claims = context.verify(tokenValue);
+                if (i > 0) {
+                    this.promote(context);
+                }
+                return claims;
+            } catch (SignatureException e) {
+                failure = e;
+            }
+        }
+        throw failure != null ? failure : new SignatureException("No verification key for algorithm " + header.algorithm + ".");
+    }
+
+    /**
+     * Moves the context to the front of the order tokens without a key id are verified in.
+     * Concurrent promotions may overwrite each other, which only affects the order.
+     */
+    private void promote(KeyContext context) {
+        KeyContext[] contexts = this.recentContexts;
+        KeyContext[] promoted = new KeyContext[contexts.length];
+        promoted[0] = context;
+        int index = 1;
+        for (KeyContext other : contexts) {
+            if (other != context) {
+                promoted[index++] = other;
+            }
+        }
+        this.recentContexts = promoted;
+    }
+
+    private static boolean contains(KeyContext[] contexts, int length, KeyContext context) {
+        for (int i = 0; i < length; i++) {
+            if (contexts[i] == context) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the key id and algorithm of the token header.
+     */
+    private static Header readHeader(String tokenValue) {
+        int headerEnd = tokenValue.indexOf('.');
+        int headerLength = headerEnd > 0 ? Base64Url.decodedLength(headerEnd) : -1;
+        if (headerLength < 0) {
+            throw new MalformedJwtException("Invalid compact JWT string.");
+        }
+        byte[] bytes = new byte[headerLength];
+        if (Base64Url.decode(tokenValue, 0, headerEnd, bytes) < 0) {
+            throw new MalformedJwtException("Invalid base64url header.");
+        }
+        Header header = new Header();
+        try (JsonParser parser = JSON_FACTORY.createParser(bytes)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new MalformedJwtException("JWT header is not a JSON object.");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("kid".equals(name) && value == JsonToken.VALUE_STRING) {
+                    header.keyId = parser.getText();
+                } else if ("alg".equals(name) && value == JsonToken.VALUE_STRING) {
+                    header.algorithm = parser.getText();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            throw new MalformedJwtException("Unable to read JWT header.", e);
+        }
+        return header;
+    }
+
+    private static final class Header {
+        private String keyId;
+        private String algorithm;
+    }
+}
@@ -0,0 +1,244 @@
+package io.github.ohmry.stateless.token.engine;
+
+import io.jsonwebtoken.security.WeakKeyException;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * An algorithm together with the key material needed to sign and verify tokens with it.
+ * Keys are parsed once when the signing key is created; the {@link TokenEngine} then builds its
+ * signing and verification resources once per signing key.
+ * A signing key created from a public key alone can only verify tokens.
+ * Every signing key has a key id that is written to the {@code kid} header of the tokens it signs.
+ * Unless set explicitly, it is derived from the algorithm and the verification key, so every
+ * instance configured with the same key material agrees on it.
+ *
+ * @author ohmry
+ */
+public final class SigningKey {
+    private final TokenAlgorithm algorithm;
+    private final Key signingKey;
+    private final Key verificationKey;
+    private final String keyId;
+
+    private SigningKey(TokenAlgorithm algorithm, Key signingKey, Key verificationKey, String keyId) {
+        this.algorithm = algorithm;
+        this.signingKey = signingKey;
+        this.verificationKey = verificationKey;
+        this.keyId = keyId != null ? keyId : thumbprint(algorithm, verificationKey);
+    }
+
+    /**
+     * Creates an HMAC signing key from a secret string.
+     *
+     * @param algorithm the HMAC algorithm
+     * @param secret the secret string, encoded as UTF-8
+     * @return the signing key
+     * @throws IllegalArgumentException if the algorithm is not an HMAC algorithm
+     * @throws WeakKeyException if the secret is too short for the algorithm
+     */
+    public static SigningKey hmac(TokenAlgorithm algorithm, String secret) {
+        if (secret == null) {
+            throw new IllegalArgumentException("secret must be not null.");
+        }
+        return hmac(algorithm, new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), algorithm.getJcaName()));
+    }
+
+    /**
+     * Creates an HMAC signing key from a secret key.
+     *
+     * @param algorithm the HMAC algorithm
+     * @param secretKey the secret key
+     * @return the signing key
+     * @throws IllegalArgumentException if the algorithm is not an HMAC algorithm
+     * @throws WeakKeyException if the secret key is too short for the algorithm
+     */
+    public static SigningKey hmac(TokenAlgorithm algorithm, SecretKey secretKey) {
+        if (algorithm == null || !algorithm.isHmac()) {
+            throw new IllegalArgumentException("algorithm must be an HMAC algorithm.");
+        }
+        if (secretKey == null) {
+            throw new IllegalArgumentException("secretKey must be not null.");
+        }
+        byte[] encoded = secretKey.getEncoded();
+        if (encoded == null || encoded.length < algorithm.getMinimumSecretLength()) {
+            throw new WeakKeyException("The secret key for " + algorithm.getJwsName() + " must be at least "
+                    + algorithm.getMinimumSecretLength() + " bytes long.");
+        }
+        SecretKey key = algorithm.getJcaName().equalsIgnoreCase(secretKey.getAlgorithm())
+                ? secretKey
+                : new SecretKeySpec(encoded, algorithm.getJcaName());
+        return new SigningKey(algorithm, key, key, null);
+    }
+
+    /**
+     * Creates an asymmetric signing key from a key pair.
+     *
+     * @param algorithm the asymmetric algorithm
+     * @param privateKey the private key used to sign tokens, or null to only verify tokens
+     * @param publicKey the public key used to verify tokens
+     * @return the signing key
+     * @throws IllegalArgumentException if the algorithm is an HMAC algorithm or the public key is null
+     */
+    public static SigningKey asymmetric(TokenAlgorithm algorithm, PrivateKey privateKey, PublicKey publicKey) {
+        if (algorithm == null || algorithm.isHmac()) {
+            throw new IllegalArgumentException("algorithm must be an asymmetric algorithm.");
+        }
+        if (publicKey == null) {
+            throw new IllegalArgumentException("publicKey must be not null.");
+        }
+        return new SigningKey(algorithm, privateKey, publicKey, null);
+    }
+
+    /**
+     * Creates an asymmetric signing key from PEM or base64 encoded keys.
+     * The private key is expected in PKCS#8 and the public key in X.509 SubjectPublicKeyInfo format,
+     * as written by {@code openssl genpkey} and {@code openssl pkey -pubout}.
+     *
+     * @param algorithm the asymmetric algorithm
+     * @param privateKey the encoded private key, or null to only verify tokens
+     * @param publicKey the encoded public key
+     * @return the signing key
+     * @throws IllegalArgumentException if a key cannot be parsed
+     */
+    public static SigningKey asymmetric(TokenAlgorithm algorithm, String privateKey, String publicKey) {
+        if (algorithm == null || algorithm.isHmac()) {
+            throw new IllegalArgumentException("algorithm must be an asymmetric algorithm.");
+        }
+        if (publicKey == null) {
+            throw new IllegalArgumentException("publicKey must be not null.");
+        }
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance(algorithm.getJcaName());
+            PrivateKey parsedPrivateKey = privateKey != null
+                    ? keyFactory.generatePrivate(new PKCS8EncodedKeySpec(decodePem(privateKey)))
+                    : null;
+            PublicKey parsedPublicKey = keyFactory.generatePublic(new X509EncodedKeySpec(decodePem(publicKey)));
+            return asymmetric(algorithm, parsedPrivateKey, parsedPublicKey);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unable to parse the " + algorithm.getJwsName() + " key.", e);
+        }
+    }
+
+    /**
+     * Returns a copy of this signing key with the given key id.
+     *
+     * @param keyId the key id written to the {@code kid} header
+     * @return the signing key with the key id
+     * @throws IllegalArgumentException if the key id is null or empty
+     */
+    public SigningKey withKeyId(String keyId) {
+        if (keyId == null || keyId.isEmpty()) {
+            throw new IllegalArgumentException("keyId must be not null.");
+        }
+        return new SigningKey(this.algorithm, this.signingKey, this.verificationKey, keyId);
+    }
+
+    /**
+     * Returns the algorithm tokens are signed with.
+     *
+     * @return the token algorithm
+     */
+    public TokenAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Returns the key tokens are signed with.
+     *
+     * @return the secret or private key, or null if this key can only verify tokens
+     */
+    public Key getSigningKey() {
+        return signingKey;
+    }
+
+    /**
+     * Returns the key tokens are verified with.
+     *
+     * @return the secret or public key
+     */
+    public Key getVerificationKey() {
+        return verificationKey;
+    }
+
+    /**
+     * Returns the key id written to the {@code kid} header of the tokens signed with this key.
+     *
+     * @return the key id
+     */
+    public String getKeyId() {
+        return keyId;
+    }
+
+    /**
+     * Returns whether tokens can be signed with this key.
+     *
+     * @return true if the signing key is available
+     */
+    public boolean canSign() {
+        return signingKey != null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SigningKey)) {
+            return false;
+        }
+        SigningKey other = (SigningKey) o;
+        return this.algorithm == other.algorithm
+                && this.keyId.equals(other.keyId)
+                && Objects.equals(this.signingKey, other.signingKey)
+                && this.verificationKey.equals(other.verificationKey);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * this.algorithm.hashCode() + this.verificationKey.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "SigningKey{algorithm=" + this.algorithm.getJwsName() + ", keyId=" + this.keyId + ", canSign=" + this.canSign() + "}";
+    }
+
+    /**
+     * Returns the first 8 bytes of the SHA-256 digest of the algorithm name and the encoded verification key, base64url encoded.
+     */
+    private static String thumbprint(TokenAlgorithm algorithm, Key verificationKey) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(algorithm.getJwsName().getBytes(StandardCharsets.US_ASCII));
+            digest.update(verificationKey.getEncoded());
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest.digest(), 8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] decodePem(String value) {
+        StringBuilder base64 = new StringBuilder(value.length());
+        for (String line : value.split("\\R")) {
+            String trimmedLine = line.trim();
+            if (!trimmedLine.startsWith("-----")) {
+                base64.append(trimmedLine);
+            }
+        }
+        return Base64.getMimeDecoder().decode(base64.toString());
+    }
+}
@@ -0,0 +1,112 @@
+package io.github.ohmry.stateless.token.engine;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.SecureDigestAlgorithm;
+
+import javax.crypto.SecretKey;
+
+/**
+ * The signature algorithms tokens can be signed with.
+ * HMAC algorithms sign and verify with the same shared secret. Asymmetric algorithms sign with
+ * a private key, so that services which only verify tokens need nothing but the public key.
+ *
+ * @author ohmry
+ */
+public enum TokenAlgorithm {
+    /**
+     * HMAC using SHA-256, with a secret of at least 32 bytes.
+     */
+    HS256("HS256", Jwts.SIG.HS256, "HmacSHA256", 32),
+    /**
+     * HMAC using SHA-384, with a secret of at least 48 bytes.
+     */
+    HS384("HS384", Jwts.SIG.HS384, "HmacSHA384", 48),
+    /**
+     * HMAC using SHA-512, with a secret of at least 64 bytes. This is the default algorithm.
+     */
+    HS512("HS512", Jwts.SIG.HS512, "HmacSHA512", 64),
+    /**
+     * ECDSA using the P-256 curve and SHA-256.
+     */
+    ES256("ES256", Jwts.SIG.ES256, "EC", 0),
+    /**
+     * EdDSA using Ed25519 or Ed448 keys.
+     */
+    EdDSA("EdDSA", Jwts.SIG.EdDSA, "EdDSA", 0);
+
+    private final String jwsName;
+    private final SecureDigestAlgorithm<?, ?> signatureAlgorithm;
+    private final String jcaName;
+    private final int minimumSecretLength;
+
+    TokenAlgorithm(String jwsName, SecureDigestAlgorithm<?, ?> signatureAlgorithm, String jcaName, int minimumSecretLength) {
+        this.jwsName = jwsName;
+        this.signatureAlgorithm = signatureAlgorithm;
+        this.jcaName = jcaName;
+        this.minimumSecretLength = minimumSecretLength;
+    }
+
+    /**
+     * Returns the algorithm with the given name.
+     *
+     * @param name the JWS algorithm name, for example {@code HS256} or {@code EdDSA}; case is ignored
+     * @return the algorithm
+     * @throws IllegalArgumentException if no algorithm has this name
+     */
+    public static TokenAlgorithm of(String name) {
+        if (name != null) {
+            String trimmedName = name.trim();
+            for (TokenAlgorithm algorithm : values()) {
+                if (algorithm.jwsName.equalsIgnoreCase(trimmedName)) {
+                    return algorithm;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Unsupported token algorithm: " + name + ". Supported algorithms are HS256, HS384, HS512, ES256 and EdDSA.");
+    }
+
+    /**
+     * Returns the HMAC algorithm matching the algorithm name of the secret key, or HS512 if none matches.
+     */
+    static TokenAlgorithm of(SecretKey secretKey) {
+        for (TokenAlgorithm algorithm : values()) {
+            if (algorithm.isHmac() && algorithm.jcaName.equalsIgnoreCase(secretKey.getAlgorithm())) {
+                return algorithm;
+            }
+        }
+        return HS512;
+    }
+
+    /**
+     * Returns the name written to the {@code alg} header.
+     *
+     * @return the JWS algorithm name
+     */
+    public String getJwsName() {
+        return jwsName;
+    }
+
+    /**
+     * Returns whether the algorithm signs and verifies with a shared secret.
+     *
+     * @return true for the HMAC algorithms
+     */
+    public boolean isHmac() {
+        return minimumSecretLength > 0;
+    }
+
+    SecureDigestAlgorithm<?, ?> getSignatureAlgorithm() {
+        return signatureAlgorithm;
+    }
+
+    /**
+     * Returns the JCA name of the Mac for HMAC algorithms, or of the KeyFactory for asymmetric ones.
+     */
+    String getJcaName() {
+        return jcaName;
+    }
+
+    int getMinimumSecretLength() {
+        return minimumSecretLength;
+    }
+}
@@ -0,0 +1,77 @@
+package io.github.ohmry.stateless.token.engine;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The time source tokens are issued and validated with.
+ * The default {@link #coarse()} clock reads a value that a background thread refreshes once a second,
+ * which is as precise as the {@code iat} and {@code exp} claims and avoids a system call per token.
+ * Tests can subclass it with a clock that only moves when told to, instead of sleeping until tokens expire.
+ *
+ * @author ohmry
+ */
+public abstract class TokenClock {
+    private static final TokenClock SYSTEM = new TokenClock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    /**
+     * Constructor for subclasses.
+     */
+    protected TokenClock() {}
+
+    /**
+     * Returns the current time.
+     *
+     * @return the current time in epoch milliseconds
+     */
+    public abstract long currentTimeMillis();
+
+    /**
+     * Returns a clock that reads the system time on every call.
+     *
+     * @return the system clock
+     */
+    public static TokenClock system() {
+        return SYSTEM;
+    }
+
+    /**
+     * Returns the shared clock whose time is refreshed once a second by a daemon thread.
+     * Its time is never ahead of the system time and at most about a second behind it.
+     *
+     * @return the coarse clock
+     */
+    public static TokenClock coarse() {
+        return CoarseTokenClock.INSTANCE;
+    }
+
+    /**
+     * Clock backed by a value that a single daemon thread refreshes, started on first use.
+     */
+    private static final class CoarseTokenClock extends TokenClock {
+        private static final CoarseTokenClock INSTANCE = new CoarseTokenClock();
+
+        private volatile long nowMillis;
+
+        private CoarseTokenClock() {
+            this.nowMillis = System.currentTimeMillis();
+            ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "stateless-token-clock");
+                thread.setDaemon(true);
+                return thread;
+            });
+            ticker.scheduleAtFixedRate(() -> this.nowMillis = System.currentTimeMillis(), 1, 1, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public long currentTimeMillis() {
+            return this.nowMillis;
+        }
+    }
+}
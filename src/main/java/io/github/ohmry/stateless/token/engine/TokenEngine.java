@@ -0,0 +1,939 @@
+package io.github.ohmry.stateless.token.engine;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.ohmry.stateless.token.cache.RejectedTokenCache;
+import io.github.ohmry.stateless.token.cache.TokenDigest;
+import io.github.ohmry.stateless.token.cache.VerifiedTokenCache;
+import io.github.ohmry.stateless.token.codec.SubjectCodec;
+import io.github.ohmry.stateless.token.metrics.TokenMetrics;
+import io.github.ohmry.stateless.token.revocation.TokenRevocationList;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+
+import javax.crypto.SecretKey;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Thread-safe engine that issues and parses signed tokens.
+ * The engine builds the immutable JWT parser for each known signing key once, so the
+ * per-token cost is limited to the actual signature and claims work.
+ * A signing key can be registered together with verification keys, for example the keys replaced by a
+ * secret rotation; tokens are then issued with the signing key and verified with any key of the ring.
+ * Keys that were not registered up front are resolved lazily and cached.
+ * Every issued token carries a random token id ({@code jti}); if a revocation list is set, verified tokens
+ * whose id was revoked are rejected.
+ * If a rejected token cache is set, tokens that recently failed verification are rejected with a
+ * {@link TokenRecentlyRejectedException} before any signature work.
+ * With lazy subjects, parsing verifies the signature, expiration and revocation of a token and leaves the
+ * subject to be decoded by {@link VerifiedToken#decodeSubject()}.
+ * Methods taking a plain {@link SecretKey} use the registered signing key for that secret key,
+ * or the HMAC algorithm matching the key's algorithm name (HS512 by default) if it was not registered.
+ *
+ * @author ohmry
+ */
+public final class TokenEngine {
+    private static final int BATCH_CHUNKS_PER_PROCESSOR = 4;
+    private static final Executor DEFAULT_BATCH_EXECUTOR = defaultBatchExecutor();
+    private static final TokenEngine STANDALONE = new TokenEngine();
+
+    private final SubjectCodec subjectCodec;
+    private final TokenPreCheck preCheck;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final RejectedTokenCache rejectedTokenCache;
+    private final Executor batchExecutor;
+    private final TokenMetrics tokenMetrics;
+    private final TokenRevocationList revocationList;
+    private final boolean lazySubjects;
+    private final TokenClock clock;
+    private final long clockSkewSeconds;
+    private final SigningKey[] registeredKeys;
+    private final KeyRing[] registeredRings;
+    private final ConcurrentMap<SigningKey, KeyContext> contexts;
+    private final ConcurrentMap<SigningKey, KeyRing> rings;
+
+    /**
+     * Creates a new engine with a default subject codec and pre-builds the parsers for the given secret keys.
+     *
+     * @param secretKeys the secret keys that will be used to sign and verify tokens
+     */
+    public TokenEngine(SecretKey... secretKeys) {
+        this(new SubjectCodec(), TokenPreCheck.defaults(), null, null, DEFAULT_BATCH_EXECUTOR, TokenMetrics.NOOP, null, false,
+                TokenClock.system(), 0L, hmacSigningKeys(Arrays.asList(secretKeys)), Collections.nCopies(secretKeys.length, List.of()));
+    }
+
+    private TokenEngine(SubjectCodec subjectCodec,
+                        TokenPreCheck preCheck,
+                        VerifiedTokenCache verifiedTokenCache,
+                        RejectedTokenCache rejectedTokenCache,
+                        Executor batchExecutor,
+                        TokenMetrics tokenMetrics,
+                        TokenRevocationList revocationList,
+                        boolean lazySubjects,
+                        TokenClock clock,
+                        long clockSkewSeconds,
+                        List<SigningKey> signingKeys,
+                        List<List<SigningKey>> verificationKeys) {
+        this.subjectCodec = subjectCodec;
+        this.preCheck = preCheck;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.rejectedTokenCache = rejectedTokenCache;
+        this.batchExecutor = batchExecutor;
+        this.tokenMetrics = tokenMetrics;
+        this.revocationList = revocationList;
+        this.lazySubjects = lazySubjects;
+        this.clock = clock;
+        this.clockSkewSeconds = clockSkewSeconds;
+        this.contexts = new ConcurrentHashMap<>();
+        this.rings = new ConcurrentHashMap<>();
+        this.registeredKeys = signingKeys.toArray(new SigningKey[0]);
+        this.registeredRings = new KeyRing[signingKeys.size()];
+        for (int i = 0; i < signingKeys.size(); i++) {
+            List<KeyContext> verificationContexts = new ArrayList<>();
+            for (SigningKey verificationKey : verificationKeys.get(i)) {
+                verificationContexts.add(this.contextFor(verificationKey));
+            }
+            KeyRing ring = new KeyRing(this.contextFor(signingKeys.get(i)), verificationContexts);
+            this.registeredRings[i] = ring;
+            this.rings.putIfAbsent(signingKeys.get(i), ring);
+        }
+    }
+
+    /**
+     * Creates a new builder for constructing a TokenEngine.
+     *
+     * @return a new TokenEngineBuilder instance
+     */
+    public static TokenEngineBuilder builder() {
+        return new TokenEngineBuilder();
+    }
+
+    /**
+     * Returns a shared engine without any registered key.
+     * It is used when tokens are created or parsed without a configured policy.
+     *
+     * @return the standalone engine
+     */
+    public static TokenEngine standalone() {
+        return STANDALONE;
+    }
+
+    /**
+     * Returns the codec used to serialize and deserialize token subjects.
+     *
+     * @return the subject codec
+     */
+    public SubjectCodec getSubjectCodec() {
+        return subjectCodec;
+    }
+
+    /**
+     * Returns the pre-check that runs before tokens are verified.
+     *
+     * @return the token pre-check
+     */
+    public TokenPreCheck getPreCheck() {
+        return preCheck;
+    }
+
+    /**
+     * Returns the cache of verified tokens.
+     *
+     * @return the verified token cache, or null if caching is disabled
+     */
+    public VerifiedTokenCache getVerifiedTokenCache() {
+        return verifiedTokenCache;
+    }
+
+    /**
+     * Returns the cache of tokens that recently failed verification.
+     *
+     * @return the rejected token cache, or null if rejected tokens are not cached
+     */
+    public RejectedTokenCache getRejectedTokenCache() {
+        return rejectedTokenCache;
+    }
+
+    /**
+     * Returns the executor used to verify batches of tokens in parallel.
+     *
+     * @return the batch executor
+     */
+    public Executor getBatchExecutor() {
+        return batchExecutor;
+    }
+
+    /**
+     * Returns the metrics that token creation and parsing are reported to.
+     *
+     * @return the token metrics, {@link TokenMetrics#NOOP} if metrics are disabled
+     */
+    public TokenMetrics getTokenMetrics() {
+        return tokenMetrics;
+    }
+
+    /**
+     * Returns the list of revoked tokens.
+     *
+     * @return the token revocation list, or null if revocation is disabled
+     */
+    public TokenRevocationList getRevocationList() {
+        return revocationList;
+    }
+
+    /**
+     * Returns whether parsed tokens leave their subject to be decoded on first use.
+     *
+     * @return true if subjects are decoded lazily
+     */
+    public boolean isLazySubjects() {
+        return lazySubjects;
+    }
+
+    /**
+     * Returns the clock tokens are issued and validated with.
+     *
+     * @return the token clock
+     */
+    public TokenClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Returns how long after their expiration tokens are still accepted, to tolerate clock differences between nodes.
+     *
+     * @return the clock skew in seconds
+     */
+    public long getClockSkewSeconds() {
+        return clockSkewSeconds;
+    }
+
+    /**
+     * Returns a new random token id.
+     *
+     * @return a 128-bit random id, base64url encoded
+     */
+    public static String newTokenId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long high = random.nextLong();
+        long low = random.nextLong();
+        byte[] bytes = new byte[16];
+        for (int i = 0; i < 8; i++) {
+            bytes[i] = (byte) (high >>> (56 - 8 * i));
+            bytes[8 + i] = (byte) (low >>> (56 - 8 * i));
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Returns the signing key used for the given secret key.
+     *
+     * @param secretKey the secret key
+     * @return the registered signing key for the secret key, or an HMAC signing key for it
+     */
+    public SigningKey signingKeyFor(SecretKey secretKey) {
+        return this.ringFor(secretKey).getSigningKey();
+    }
+
+    /**
+     * Issues a compact signed token for the given serialized subject.
+     *
+     * @param secretKey the secret key used to sign the token
+     * @param subject the serialized subject
+     * @param timeoutSeconds the token expiration time in seconds
+     * @return the compact token string
+     */
+    public String issue(SecretKey secretKey, String subject, long timeoutSeconds) {
+        return this.ringFor(secretKey).issue(Collections.singletonMap(Claims.SUBJECT, subject), newTokenId(), this.clock.currentTimeMillis(), timeoutSeconds);
+    }
+
+    /**
+     * Issues a compact signed token for the given serialized subject.
+     *
+     * @param signingKey the signing key used to sign the token
+     * @param subject the serialized subject
+     * @param timeoutSeconds the token expiration time in seconds
+     * @return the compact token string
+     * @throws IllegalStateException if the signing key can only verify tokens
+     */
+    public String issue(SigningKey signingKey, String subject, long timeoutSeconds) {
+        return this.ringFor(signingKey).issue(Collections.singletonMap(Claims.SUBJECT, subject), newTokenId(), this.clock.currentTimeMillis(), timeoutSeconds);
+    }
+
+    /**
+     * Issues a compact signed token with the given id and issue time for the given serialized subject.
+     *
+     * @param signingKey the signing key used to sign the token
+     * @param subject the serialized subject
+     * @param tokenId the token id
+     * @param issuedAtMillis the issue time in epoch milliseconds
+     * @param timeoutSeconds the token expiration time in seconds
+     * @return the compact token string
+     * @throws IllegalStateException if the signing key can only verify tokens
+     */
+    public String issue(SigningKey signingKey, String subject, String tokenId, long issuedAtMillis, long timeoutSeconds) {
+        return this.ringFor(signingKey).issue(Collections.singletonMap(Claims.SUBJECT, subject), tokenId, issuedAtMillis, timeoutSeconds);
+    }
+
+    /**
+     * Issues a compact signed token for the given subject, encoded with the encoding of the subject codec.
+     * With {@link io.github.ohmry.stateless.token.codec.SubjectEncoding#CLAIMS}, the subject properties are written as top-level claims.
+     *
+     * @param signingKey the signing key used to sign the token
+     * @param subject the subject to be encoded in the token
+     * @param tokenId the token id
+     * @param issuedAtMillis the issue time in epoch milliseconds
+     * @param timeoutSeconds the token expiration time in seconds
+     * @return the compact token string
+     * @throws JsonProcessingException if the subject cannot be serialized
+     * @throws IllegalStateException if the signing key can only verify tokens
+     */
+    public String issueSubject(SigningKey signingKey, Object subject, String tokenId, long issuedAtMillis, long timeoutSeconds) throws JsonProcessingException {
+        return this.ringFor(signingKey).issue(this.subjectCodec.encodeClaims(subject), tokenId, issuedAtMillis, timeoutSeconds);
+    }
+
+    /**
+     * Verifies the token signature and expiration and returns its claims.
+     * HMAC tokens with the header issued by this engine are verified by a specialized verifier,
+     * any other token is verified by the generic JWT parser.
+     * If verification keys were registered with the signing key, the token is verified with the key named
+     * by its {@code kid} header, or with each key of the ring if it has none.
+     *
+     * @param secretKey the secret key used to verify the token signature
+     * @param tokenValue the token string to parse
+     * @return the verified claims
+     * @throws TokenRejectedException if the token is rejected by the pre-check
+     * @throws io.jsonwebtoken.JwtException if the token is invalid or expired
+     */
+    public VerifiedClaims parse(SecretKey secretKey, String tokenValue) {
+        this.preCheck(tokenValue);
+        return this.verify(this.ringFor(secretKey), tokenValue);
+    }
+
+    /**
+     * Verifies the token signature and expiration and returns its claims.
+     *
+     * @param signingKey the signing key used to verify the token signature
+     * @param tokenValue the token string to parse
+     * @return the verified claims
+     * @throws TokenRejectedException if the token is rejected by the pre-check
+     * @throws TokenRevokedException if the token has been revoked
+     * @throws io.jsonwebtoken.JwtException if the token is invalid or expired
+     */
+    public VerifiedClaims parse(SigningKey signingKey, String tokenValue) {
+        this.preCheck(tokenValue);
+        return this.verify(this.ringFor(signingKey), tokenValue);
+    }
+
+    /**
+     * Verifies the token and decodes its subject into the given type.
+     * If the verified token cache is enabled, tokens that were already verified are served from it.
+     *
+     * @param <T> the type of the subject
+     * @param secretKey the secret key used to verify the token signature
+     * @param tokenValue the token string to parse
+     * @param subjectType the subject type
+     * @return the decoded subject
+     * @throws TokenRejectedException if the token is rejected by the pre-check
+     * @throws io.jsonwebtoken.JwtException if the token is invalid or expired
+     * @throws JsonProcessingException if the subject cannot be decoded into the given type
+     */
+    public <T> T parseSubject(SecretKey secretKey, String tokenValue, Type subjectType) throws JsonProcessingException {
+        this.preCheck(tokenValue);
+        return this.<T>parseToken(this.ringFor(secretKey), tokenValue, subjectType).decodeSubject();
+    }
+
+    /**
+     * Verifies the token and decodes its subject into the given type.
+     * If the verified token cache is enabled, tokens that were already verified are served from it.
+     *
+     * @param <T> the type of the subject
+     * @param signingKey the signing key used to verify the token signature
+     * @param tokenValue the token string to parse
+     * @param subjectType the subject type
+     * @return the decoded subject
+     * @throws TokenRejectedException if the token is rejected by the pre-check
+     * @throws io.jsonwebtoken.JwtException if the token is invalid or expired
+     * @throws JsonProcessingException if the subject cannot be decoded into the given type
+     */
+    public <T> T parseSubject(SigningKey signingKey, String tokenValue, Type subjectType) throws JsonProcessingException {
+        this.preCheck(tokenValue);
+        return this.<T>parseToken(this.ringFor(signingKey), tokenValue, subjectType).decodeSubject();
+    }
+
+    /**
+     * Verifies the token and decodes its subject into the given type, keeping the token id and expiration.
+     * If the verified token cache is enabled, tokens that were already verified are served from it.
+     * If subjects are decoded lazily, the subject of a token that was not served from the cache is only
+     * decoded, and then cached, by {@link VerifiedToken#decodeSubject()}.
+     *
+     * @param <T> the type of the subject
+     * @param signingKey the signing key used to verify the token signature
+     * @param tokenValue the token string to parse
+     * @param subjectType the subject type
+     * @return the verified token
+     * @throws TokenRejectedException if the token is rejected by the pre-check
+     * @throws TokenRevokedException if the token has been revoked
+     * @throws io.jsonwebtoken.JwtException if the token is invalid or expired
+     * @throws JsonProcessingException if the subject cannot be decoded into the given type
+     */
+    public <T> VerifiedToken<T> parseToken(SigningKey signingKey, String tokenValue, Type subjectType) throws JsonProcessingException {
+        this.preCheck(tokenValue);
+        return this.parseToken(this.ringFor(signingKey), tokenValue, subjectType);
+    }
+
+    /**
+     * Returns whether parsing the token would be served from the verified token cache.
+     * Callers that must not block, such as event-loop threads, can parse cached tokens inline
+     * and hand everything else to a worker.
+     *
+     * @param signingKey the signing key used to verify the token signature
+     * @param tokenValue the token string
+     * @param subjectType the subject type
+     * @return true if the token was already verified and decoded into the subject type
+     */
+    public boolean isCached(SigningKey signingKey, String tokenValue, Type subjectType) {
+        if (this.verifiedTokenCache == null || tokenValue == null) {
+            return false;
+        }
+        return this.verifiedTokenCache.contains(TokenDigest.of(this.ringFor(signingKey).getId(), tokenValue), subjectType, this.validationTimeMillis());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> VerifiedToken<T> parseToken(KeyRing ring, String tokenValue, Type subjectType) throws JsonProcessingException {
+        if (this.verifiedTokenCache == null && this.rejectedTokenCache == null) {
+            return this.verifiedToken(this.checkRevocation(ring.verify(tokenValue)), subjectType, null);
+        }
+
+        TokenDigest digest = TokenDigest.of(ring.getId(), tokenValue);
+        if (this.verifiedTokenCache != null) {
+            VerifiedTokenCache.CachedToken cachedToken = this.verifiedTokenCache.get(digest, subjectType, this.validationTimeMillis());
+            if (cachedToken != null) {
+                this.checkRevocation(cachedToken.getTokenId());
+                Object subject = cachedToken.getSubject();
+                // Mutable subjects are cached as JSON trees, so every caller gets its own instance.
+                if (subject instanceof JsonNode) {
+                    subject = this.subjectCodec.read((JsonNode) subject, subjectType);
+                }
+                return new VerifiedToken<>(cachedToken.getTokenId(), (T) subject, cachedToken.getExpiresAtMillis() / 1000);
+            }
+        }
+
+        VerifiedClaims claims = this.verify(ring, tokenValue, digest, subjectType);
+        TokenDigest verifiedDigest = this.verifiedTokenCache != null ? digest : null;
+        if (this.rejectedTokenCache == null || this.lazySubjects) {
+            return this.verifiedToken(claims, subjectType, verifiedDigest);
+        }
+        try {
+            return this.verifiedToken(claims, subjectType, verifiedDigest);
+        } catch (JsonProcessingException e) {
+            this.rejectedTokenCache.put(digest, subjectType, e);
+            throw e;
+        }
+    }
+
+    private VerifiedClaims verify(KeyRing ring, String tokenValue) {
+        if (this.rejectedTokenCache == null || tokenValue == null) {
+            return this.checkRevocation(ring.verify(tokenValue));
+        }
+        return this.verify(ring, tokenValue, TokenDigest.of(ring.getId(), tokenValue), null);
+    }
+
+    /**
+     * Verifies a token unless it failed verification recently, and remembers it if it fails now.
+     */
+    private VerifiedClaims verify(KeyRing ring, String tokenValue, TokenDigest digest, Type subjectType) {
+        if (this.rejectedTokenCache == null) {
+            return this.checkRevocation(ring.verify(tokenValue));
+        }
+        Exception rejection = this.rejectedTokenCache.get(digest, subjectType);
+        if (rejection != null) {
+            throw new TokenRecentlyRejectedException(rejection);
+        }
+        try {
+            return this.checkRevocation(ring.verify(tokenValue));
+        } catch (JwtException | IllegalArgumentException e) {
+            this.rejectedTokenCache.put(digest, e);
+            throw e;
+        }
+    }
+
+    private <T> VerifiedToken<T> verifiedToken(VerifiedClaims claims, Type subjectType, TokenDigest digest) throws JsonProcessingException {
+        if (this.lazySubjects) {
+            return new VerifiedToken<>(claims.getTokenId(), () -> this.decodeSubject(claims, subjectType, digest), claims.getExpirationSeconds());
+        }
+        return new VerifiedToken<>(claims.getTokenId(), this.<T>decodeSubject(claims, subjectType, digest), claims.getExpirationSeconds());
+    }
+
+    /**
+     * Decodes the subject of verified claims and caches it under the digest, if there is one.
+     */
+    private <T> T decodeSubject(VerifiedClaims claims, Type subjectType, TokenDigest digest) throws JsonProcessingException {
+        T subject = this.subjectCodec.decode(claims.getSubject(), claims.getBinarySubject(), claims.getSubjectClaims(), subjectType);
+        if (digest != null && claims.getExpirationSeconds() != null) {
+            this.verifiedTokenCache.put(digest, claims.getTokenId(), subjectType, this.subjectCodec.snapshot(subject), claims.getExpirationSeconds() * 1000);
+        }
+        return subject;
+    }
+
+    private VerifiedClaims checkRevocation(VerifiedClaims claims) {
+        this.checkRevocation(claims.getTokenId());
+        return claims;
+    }
+
+    private void checkRevocation(String tokenId) {
+        if (this.revocationList != null && this.revocationList.isRevoked(tokenId)) {
+            throw new TokenRevokedException(tokenId);
+        }
+    }
+
+    /**
+     * Applies the parser to every token string of a batch.
+     * Identical token strings are parsed only once and share the same result. Distinct token strings
+     * are split into chunks that are parsed in parallel on the batch executor.
+     * The parser is expected to turn failures into results rather than throw.
+     *
+     * @param <R> the type of the parse result
+     * @param tokenValues the token strings to parse
+     * @param parser the function parsing a single token string
+     * @return the results in input order
+     */
+    public <R> List<R> parseAll(Collection<String> tokenValues, Function<String, R> parser) {
+        int size = tokenValues.size();
+        int[] distinctIndexes = new int[size];
+        List<String> distinctValues = new ArrayList<>();
+        Map<String, Integer> seen = new HashMap<>();
+        int position = 0;
+        for (String tokenValue : tokenValues) {
+            Integer distinctIndex = seen.putIfAbsent(tokenValue, distinctValues.size());
+            if (distinctIndex == null) {
+                distinctIndex = distinctValues.size();
+                distinctValues.add(tokenValue);
+            }
+            distinctIndexes[position++] = distinctIndex;
+        }
+
+        List<R> distinctResults = this.mapAll(distinctValues, parser);
+        List<R> results = new ArrayList<>(size);
+        for (int distinctIndex : distinctIndexes) {
+            results.add(distinctResults.get(distinctIndex));
+        }
+        return results;
+    }
+
+    /**
+     * Issues a token for every subject of a batch in parallel on the batch executor.
+     *
+     * @param secretKey the secret key used to sign the tokens
+     * @param subjects the subjects to be encoded in the tokens
+     * @param timeoutSeconds the token expiration time in seconds
+     * @return the compact token strings in subject order
+     * @throws IllegalArgumentException if a subject cannot be serialized
+     */
+    public List<String> issueAll(SecretKey secretKey, List<?> subjects, long timeoutSeconds) {
+        return this.issueAll(this.ringFor(secretKey), subjects, timeoutSeconds);
+    }
+
+    /**
+     * Issues a token for every subject of a batch in parallel on the batch executor.
+     *
+     * @param signingKey the signing key used to sign the tokens
+     * @param subjects the subjects to be encoded in the tokens
+     * @param timeoutSeconds the token expiration time in seconds
+     * @return the compact token strings in subject order
+     * @throws IllegalArgumentException if a subject cannot be serialized
+     * @throws IllegalStateException if the signing key can only verify tokens
+     */
+    public List<String> issueAll(SigningKey signingKey, List<?> subjects, long timeoutSeconds) {
+        return this.issueAll(this.ringFor(signingKey), subjects, timeoutSeconds);
+    }
+
+    /**
+     * Issues a token with the given id and issue time for every subject of a batch in parallel on the batch executor.
+     *
+     * @param signingKey the signing key used to sign the tokens
+     * @param subjects the subjects to be encoded in the tokens
+     * @param tokenIds the token ids in subject order
+     * @param issuedAtMillis the issue time of all tokens in epoch milliseconds
+     * @param timeoutSeconds the token expiration time in seconds
+     * @return the compact token strings in subject order
+     * @throws IllegalArgumentException if a subject cannot be serialized, or tokenIds and subjects differ in size
+     * @throws IllegalStateException if the signing key can only verify tokens
+     */
+    public List<String> issueAll(SigningKey signingKey, List<?> subjects, List<String> tokenIds, long issuedAtMillis, long timeoutSeconds) {
+        if (tokenIds.size() != subjects.size()) {
+            throw new IllegalArgumentException("tokenIds must have as many elements as subjects.");
+        }
+        KeyRing ring = this.ringFor(signingKey);
+        return this.mapAll(IntStream.range(0, subjects.size()).boxed().toList(), index -> {
+            try {
+                return ring.issue(this.subjectCodec.encodeClaims(subjects.get(index)), tokenIds.get(index), issuedAtMillis, timeoutSeconds);
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException(e);
+            }
+        });
+    }
+
+    private List<String> issueAll(KeyRing ring, List<?> subjects, long timeoutSeconds) {
+        return this.mapAll(subjects, subject -> {
+            try {
+                return ring.issue(this.subjectCodec.encodeClaims(subject), newTokenId(), this.clock.currentTimeMillis(), timeoutSeconds);
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException(e);
+            }
+        });
+    }
+
+    /**
+     * Applies the function to every item, splitting the items into chunks that run in parallel on the batch executor.
+     * The calling thread processes chunks as well and only waits for chunks that a worker has already started,
+     * so a batch started on a thread of the batch executor itself cannot deadlock waiting for queued work.
+     */
+    @SuppressWarnings("unchecked")
+    private <S, R> List<R> mapAll(List<S> items, Function<? super S, R> function) {
+        Object[] results = new Object[items.size()];
+        int chunks = Math.min(results.length, Runtime.getRuntime().availableProcessors() * BATCH_CHUNKS_PER_PROCESSOR);
+        if (chunks <= 1) {
+            for (int i = 0; i < results.length; i++) {
+                results[i] = function.apply(items.get(i));
+            }
+        } else {
+            AtomicInteger nextChunk = new AtomicInteger();
+            CountDownLatch finishedChunks = new CountDownLatch(chunks);
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            Runnable worker = () -> {
+                int chunk;
+                while ((chunk = nextChunk.getAndIncrement()) < chunks) {
+                    int from = (int) ((long) results.length * chunk / chunks);
+                    int to = (int) ((long) results.length * (chunk + 1) / chunks);
+                    try {
+                        for (int i = from; i < to && failure.get() == null; i++) {
+                            results[i] = function.apply(items.get(i));
+                        }
+                    } catch (RuntimeException | Error e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        finishedChunks.countDown();
+                    }
+                }
+            };
+            // One chunk is left to the calling thread; workers that start after every chunk was taken return at once.
+            for (int helper = 1; helper < chunks; helper++) {
+                try {
+                    this.batchExecutor.execute(worker);
+                } catch (RejectedExecutionException e) {
+                    // A saturated executor leaves the remaining chunks to the calling thread.
+                    break;
+                }
+            }
+            worker.run();
+            awaitUninterruptibly(finishedChunks);
+            Throwable cause = failure.get();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause != null) {
+                throw (Error) cause;
+            }
+        }
+        return (List<R>) Arrays.asList(results);
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void preCheck(String tokenValue) {
+        TokenPreCheck.Rejection rejection = this.preCheck.check(tokenValue, this.validationTimeMillis());
+        if (rejection != null) {
+            throw new TokenRejectedException(rejection);
+        }
+    }
+
+    /**
+     * Returns the time expirations are checked against, which lags the clock by the skew.
+     */
+    private long validationTimeMillis() {
+        return this.clock.currentTimeMillis() - this.clockSkewSeconds * 1000;
+    }
+
+    private KeyRing ringFor(SigningKey signingKey) {
+        // Registered keys are the same instances held by the policy, so an identity check
+        // avoids hashing the key material on the hot path.
+        for (int i = 0; i < this.registeredKeys.length; i++) {
+            if (this.registeredKeys[i] == signingKey) {
+                return this.registeredRings[i];
+            }
+        }
+        return this.rings.computeIfAbsent(signingKey, key -> new KeyRing(this.contextFor(key), List.of()));
+    }
+
+    private KeyRing ringFor(SecretKey secretKey) {
+        for (int i = 0; i < this.registeredKeys.length; i++) {
+            if (this.registeredKeys[i].getVerificationKey() == secretKey) {
+                return this.registeredRings[i];
+            }
+        }
+        return this.ringFor(SigningKey.hmac(TokenAlgorithm.of(secretKey), secretKey));
+    }
+
+    private KeyContext contextFor(SigningKey signingKey) {
+        return this.contexts.computeIfAbsent(signingKey, key -> new KeyContext(key, this.clock, this.clockSkewSeconds, this.subjectCodec.getObjectMapper()));
+    }
+
+    private static List<SigningKey> hmacSigningKeys(List<SecretKey> secretKeys) {
+        List<SigningKey> signingKeys = new ArrayList<>(secretKeys.size());
+        for (SecretKey secretKey : secretKeys) {
+            signingKeys.add(SigningKey.hmac(TokenAlgorithm.of(secretKey), secretKey));
+        }
+        return signingKeys;
+    }
+
+    /**
+     * Returns a fixed pool of daemon threads, one per processor.
+     * The verifier and signer keep their Mac instances and buffers per thread, so batches must run on
+     * long-lived platform threads; a thread per task would initialize them again for every chunk.
+     */
+    private static Executor defaultBatchExecutor() {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "stateless-token-batch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Builder class for constructing TokenEngine instances.
+     */
+    public static class TokenEngineBuilder {
+        private SubjectCodec subjectCodec;
+        private TokenPreCheck preCheck;
+        private VerifiedTokenCache verifiedTokenCache;
+        private RejectedTokenCache rejectedTokenCache;
+        private Executor batchExecutor;
+        private TokenMetrics tokenMetrics;
+        private TokenRevocationList revocationList;
+        private boolean lazySubjects;
+        private TokenClock clock;
+        private long clockSkewSeconds;
+        private final List<SigningKey> signingKeys;
+        private final List<List<SigningKey>> verificationKeys;
+
+        private TokenEngineBuilder() {
+            this.subjectCodec = null;
+            this.preCheck = null;
+            this.verifiedTokenCache = null;
+            this.rejectedTokenCache = null;
+            this.batchExecutor = null;
+            this.tokenMetrics = null;
+            this.revocationList = null;
+            this.lazySubjects = false;
+            this.clock = null;
+            this.clockSkewSeconds = 0L;
+            this.signingKeys = new ArrayList<>();
+            this.verificationKeys = new ArrayList<>();
+        }
+
+        /**
+         * Sets the codec used to serialize and deserialize token subjects.
+         *
+         * @param subjectCodec the subject codec (defaults to a codec with a new ObjectMapper)
+         * @return this builder instance
+         */
+        public TokenEngineBuilder subjectCodec(SubjectCodec subjectCodec) {
+            this.subjectCodec = subjectCodec;
+            return this;
+        }
+
+        /**
+         * Sets the pre-check that runs before tokens are verified.
+         *
+         * @param preCheck the token pre-check (defaults to {@link TokenPreCheck#defaults()})
+         * @return this builder instance
+         */
+        public TokenEngineBuilder preCheck(TokenPreCheck preCheck) {
+            this.preCheck = preCheck;
+            return this;
+        }
+
+        /**
+         * Sets the cache of verified tokens.
+         *
+         * @param verifiedTokenCache the verified token cache, or null to disable caching
+         * @return this builder instance
+         */
+        public TokenEngineBuilder verifiedTokenCache(VerifiedTokenCache verifiedTokenCache) {
+            this.verifiedTokenCache = verifiedTokenCache;
+            return this;
+        }
+
+        /**
+         * Sets the cache of tokens that recently failed verification.
+         *
+         * @param rejectedTokenCache the rejected token cache, or null to verify every token
+         * @return this builder instance
+         */
+        public TokenEngineBuilder rejectedTokenCache(RejectedTokenCache rejectedTokenCache) {
+            this.rejectedTokenCache = rejectedTokenCache;
+            return this;
+        }
+
+        /**
+         * Sets the executor used to verify batches of tokens in parallel.
+         *
+         * @param batchExecutor the batch executor (defaults to a shared fixed pool with one daemon thread per processor)
+         * @return this builder instance
+         */
+        public TokenEngineBuilder batchExecutor(Executor batchExecutor) {
+            this.batchExecutor = batchExecutor;
+            return this;
+        }
+
+        /**
+         * Sets the metrics that token creation and parsing are reported to.
+         *
+         * @param tokenMetrics the token metrics (defaults to {@link TokenMetrics#NOOP})
+         * @return this builder instance
+         */
+        public TokenEngineBuilder tokenMetrics(TokenMetrics tokenMetrics) {
+            this.tokenMetrics = tokenMetrics;
+            return this;
+        }
+
+        /**
+         * Sets the list of revoked tokens that verified tokens are checked against.
+         *
+         * @param revocationList the token revocation list, or null to disable revocation
+         * @return this builder instance
+         */
+        public TokenEngineBuilder revocationList(TokenRevocationList revocationList) {
+            this.revocationList = revocationList;
+            return this;
+        }
+
+        /**
+         * Sets whether parsed tokens leave their subject to be decoded on first use.
+         *
+         * @param lazySubjects true to decode subjects lazily (defaults to false)
+         * @return this builder instance
+         */
+        public TokenEngineBuilder lazySubjects(boolean lazySubjects) {
+            this.lazySubjects = lazySubjects;
+            return this;
+        }
+
+        /**
+         * Sets the clock tokens are issued and validated with.
+         *
+         * @param clock the token clock (defaults to {@link TokenClock#system()})
+         * @return this builder instance
+         */
+        public TokenEngineBuilder clock(TokenClock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        /**
+         * Sets how long after their expiration tokens are still accepted.
+         *
+         * @param clockSkewSeconds the clock skew in seconds (defaults to 0)
+         * @return this builder instance
+         * @throws IllegalArgumentException if clockSkewSeconds is negative
+         */
+        public TokenEngineBuilder clockSkewSeconds(long clockSkewSeconds) {
+            if (clockSkewSeconds < 0) {
+                throw new IllegalArgumentException("clockSkewSeconds must be not negative.");
+            }
+            this.clockSkewSeconds = clockSkewSeconds;
+            return this;
+        }
+
+        /**
+         * Registers secret keys whose parsers are built up front.
+         *
+         * @param secretKeys the secret keys that will be used to sign and verify tokens
+         * @return this builder instance
+         */
+        public TokenEngineBuilder secretKeys(SecretKey... secretKeys) {
+            return this.signingKeys(hmacSigningKeys(Arrays.asList(secretKeys)).toArray(new SigningKey[0]));
+        }
+
+        /**
+         * Registers signing keys whose signing and verification resources are built up front.
+         *
+         * @param signingKeys the signing keys that will be used to sign and verify tokens
+         * @return this builder instance
+         */
+        public TokenEngineBuilder signingKeys(SigningKey... signingKeys) {
+            for (SigningKey signingKey : signingKeys) {
+                this.keyRing(signingKey);
+            }
+            return this;
+        }
+
+        /**
+         * Registers a signing key together with the keys its tokens are also verified with.
+         * Tokens are issued with the signing key only. Use this to keep accepting the tokens signed
+         * before a key rotation until they expire.
+         *
+         * @param signingKey the key tokens are signed with
+         * @param verificationKeys the keys tokens are also verified with
+         * @return this builder instance
+         * @throws IllegalArgumentException if two different keys have the same key id
+         */
+        public TokenEngineBuilder keyRing(SigningKey signingKey, SigningKey... verificationKeys) {
+            if (signingKey == null) {
+                throw new IllegalArgumentException("signingKey must be not null.");
+            }
+            this.signingKeys.add(signingKey);
+            this.verificationKeys.add(List.of(verificationKeys));
+            return this;
+        }
+
+        /**
+         * Builds a new TokenEngine instance with the configured values.
+         *
+         * @return a new TokenEngine instance
+         */
+        public TokenEngine build() {
+            SubjectCodec subjectCodec = this.subjectCodec != null ? this.subjectCodec : new SubjectCodec();
+            TokenPreCheck preCheck = this.preCheck != null ? this.preCheck : TokenPreCheck.defaults();
+            Executor batchExecutor = this.batchExecutor != null ? this.batchExecutor : DEFAULT_BATCH_EXECUTOR;
+            TokenMetrics tokenMetrics = this.tokenMetrics != null ? this.tokenMetrics : TokenMetrics.NOOP;
+            TokenClock clock = this.clock != null ? this.clock : TokenClock.system();
+            return new TokenEngine(subjectCodec, preCheck, this.verifiedTokenCache, this.rejectedTokenCache, batchExecutor, tokenMetrics, this.revocationList, this.lazySubjects,
+                    clock, this.clockSkewSeconds, this.signingKeys, this.verificationKeys);
+        }
+    }
+}
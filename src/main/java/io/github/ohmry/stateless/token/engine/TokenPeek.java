@@ -0,0 +1,205 @@
+package io.github.ohmry.stateless.token.engine;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * The header and standard claims of a token, read <strong>without verifying the token</strong>.
+ * A peek only decodes the header and payload segments and scans them for a handful of fields,
+ * so it costs a fraction of a parse and is meant for routing, rate limiting, sharding and logging.
+ * Nothing read here can be trusted: anyone can write a token with any key id, token id or expiration,
+ * so every decision that grants access has to be made on a parsed token.
+ *
+ * @author ohmry
+ */
+public final class TokenPeek {
+    /**
+     * The longest token that is peeked at; the per-thread decode buffer never grows beyond it.
+     */
+    public static final int MAX_LENGTH = 16 * 1024;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final ThreadLocal<byte[][]> BUFFER = ThreadLocal.withInitial(() -> new byte[][]{new byte[256]});
+
+    private String algorithm;
+    private String keyId;
+    private String tokenId;
+    private String subject;
+    private long issuedAtSeconds = -1;
+    private long expirationSeconds = -1;
+
+    private TokenPeek() {
+    }
+
+    /**
+     * Reads the header and standard claims of a token without verifying it.
+     *
+     * @param tokenValue the token string
+     * @return the unverified header and claims, or null if the token is not a compact JWS with JSON header and payload
+     */
+    public static TokenPeek of(String tokenValue) {
+        if (tokenValue == null || tokenValue.length() > MAX_LENGTH) {
+            return null;
+        }
+        int headerEnd = tokenValue.indexOf('.');
+        int payloadEnd = headerEnd > 0 ? tokenValue.indexOf('.', headerEnd + 1) : -1;
+        if (payloadEnd <= headerEnd + 1 || tokenValue.indexOf('.', payloadEnd + 1) >= 0) {
+            return null;
+        }
+
+        TokenPeek peek = new TokenPeek();
+        try {
+            if (!peek.readHeader(tokenValue, headerEnd) || !peek.readPayload(tokenValue, headerEnd + 1, payloadEnd)) {
+                return null;
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        return peek;
+    }
+
+    private boolean readHeader(String tokenValue, int headerEnd) throws IOException {
+        byte[] header = buffer(Base64Url.decodedLength(headerEnd));
+        int headerLength = Base64Url.decode(tokenValue, 0, headerEnd, header);
+        if (headerLength < 0) {
+            return false;
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(header, 0, headerLength)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return false;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (value == JsonToken.VALUE_STRING && "alg".equals(name)) {
+                    this.algorithm = parser.getText();
+                } else if (value == JsonToken.VALUE_STRING && "kid".equals(name)) {
+                    this.keyId = parser.getText();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean readPayload(String tokenValue, int from, int to) throws IOException {
+        byte[] payload = buffer(Base64Url.decodedLength(to - from));
+        int payloadLength = Base64Url.decode(tokenValue, from, to, payload);
+        if (payloadLength < 0) {
+            return false;
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(payload, 0, payloadLength)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return false;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (value == JsonToken.VALUE_NUMBER_INT && "exp".equals(name)) {
+                    this.expirationSeconds = parser.getLongValue();
+                } else if (value == JsonToken.VALUE_NUMBER_INT && "iat".equals(name)) {
+                    this.issuedAtSeconds = parser.getLongValue();
+                } else if (value == JsonToken.VALUE_STRING && "jti".equals(name)) {
+                    this.tokenId = parser.getText();
+                } else if (value == JsonToken.VALUE_STRING && "sub".equals(name)) {
+                    this.subject = parser.getText();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return true;
+    }
+
+    private static byte[] buffer(int length) {
+        byte[][] holder = BUFFER.get();
+        if (length < 0) {
+            return holder[0];
+        }
+        if (holder[0].length < length) {
+            holder[0] = new byte[Math.max(length, holder[0].length * 2)];
+        }
+        return holder[0];
+    }
+
+    /**
+     * Returns the {@code alg} header.
+     *
+     * @return the algorithm name, or null if the header has none
+     */
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Returns the {@code kid} header.
+     * Use {@code TokenType.of(policy, keyId)} to tell which kind of token a key id belongs to.
+     *
+     * @return the key id, or null if the header has none
+     */
+    public String getKeyId() {
+        return keyId;
+    }
+
+    /**
+     * Returns the {@code jti} claim.
+     *
+     * @return the token id, or null if the token has none
+     */
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    /**
+     * Returns the raw {@code sub} claim, as written by the JSON subject encoding.
+     *
+     * @return the serialized subject, or null if the subject is not written into the {@code sub} claim
+     */
+    public String getSubject() {
+        return subject;
+    }
+
+    /**
+     * Returns the {@code iat} claim.
+     *
+     * @return the issue time in epoch seconds, or -1 if the token has none
+     */
+    public long getIssuedAtSeconds() {
+        return issuedAtSeconds;
+    }
+
+    /**
+     * Returns the {@code exp} claim.
+     *
+     * @return the expiration time in epoch seconds, or -1 if the token has none
+     */
+    public long getExpirationSeconds() {
+        return expirationSeconds;
+    }
+
+    /**
+     * Returns whether the expiration claim is in the past.
+     * A token without expiration claim is never expired.
+     *
+     * @param nowMillis the current time in epoch milliseconds
+     * @return true if the token has expired
+     */
+    public boolean isExpired(long nowMillis) {
+        return this.expirationSeconds >= 0 && nowMillis > this.expirationSeconds * 1000;
+    }
+
+    @Override
+    public String toString() {
+        return "TokenPeek{" +
+                "algorithm='" + algorithm + '\'' +
+                ", keyId='" + keyId + '\'' +
+                ", tokenId='" + tokenId + '\'' +
+                ", issuedAtSeconds=" + issuedAtSeconds +
+                ", expirationSeconds=" + expirationSeconds +
+                '}';
+    }
+}
@@ -0,0 +1,280 @@
+package io.github.ohmry.stateless.token.engine;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Cheap structural checks that run before any signature or subject work.
+ * The pre-check rejects oversized tokens, tokens that are not three base64url segments,
+ * tokens whose header names an unexpected algorithm and, optionally, tokens that have already expired.
+ * A token that passes the pre-check is not trusted in any way; it still has to be verified.
+ *
+ * @author ohmry
+ */
+public final class TokenPreCheck {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final ThreadLocal<byte[][]> BUFFER = ThreadLocal.withInitial(() -> new byte[][]{new byte[256]});
+    private static final TokenPreCheck DISABLED = new TokenPreCheck(false, Integer.MAX_VALUE, null, false);
+
+    private final boolean enabled;
+    private final int maxLength;
+    private final Set<String> algorithms;
+    private final boolean expirationPeek;
+
+    private TokenPreCheck(boolean enabled, int maxLength, Set<String> algorithms, boolean expirationPeek) {
+        this.enabled = enabled;
+        this.maxLength = maxLength;
+        this.algorithms = algorithms;
+        this.expirationPeek = expirationPeek;
+    }
+
+    /**
+     * Creates a new builder for constructing a TokenPreCheck.
+     *
+     * @return a new TokenPreCheckBuilder instance
+     */
+    public static TokenPreCheckBuilder builder() {
+        return new TokenPreCheckBuilder();
+    }
+
+    /**
+     * Returns a pre-check with the default settings.
+     *
+     * @return the default pre-check
+     */
+    public static TokenPreCheck defaults() {
+        return builder().build();
+    }
+
+    /**
+     * Returns a pre-check that accepts every token.
+     *
+     * @return the disabled pre-check
+     */
+    public static TokenPreCheck disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * Returns whether the pre-check is enabled.
+     *
+     * @return true if tokens are checked
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Checks the token.
+     *
+     * @param tokenValue the token string to check
+     * @param nowMillis the current time in epoch milliseconds
+     * @return the reason the token is rejected, or null if the token passes the pre-check
+     */
+    public Rejection check(String tokenValue, long nowMillis) {
+        if (!this.enabled) {
+            return null;
+        }
+        if (tokenValue == null || tokenValue.isEmpty()) {
+            return Rejection.MALFORMED;
+        }
+        int length = tokenValue.length();
+        if (length > this.maxLength) {
+            return Rejection.OVERSIZED;
+        }
+
+        int headerEnd = -1;
+        int payloadEnd = -1;
+        for (int i = 0; i < length; i++) {
+            char c = tokenValue.charAt(i);
+            if (c == '.') {
+                if (headerEnd < 0) {
+                    headerEnd = i;
+                } else if (payloadEnd < 0) {
+                    payloadEnd = i;
+                } else {
+                    return Rejection.MALFORMED;
+                }
+            } else if (!Base64Url.isAlphabet(c)) {
+                return Rejection.MALFORMED;
+            }
+        }
+        if (headerEnd <= 0 || payloadEnd <= headerEnd + 1 || payloadEnd == length - 1) {
+            return Rejection.MALFORMED;
+        }
+
+        if (this.algorithms != null) {
+            Rejection rejection = this.checkAlgorithm(tokenValue, headerEnd);
+            if (rejection != null) {
+                return rejection;
+            }
+        }
+        if (this.expirationPeek) {
+            return this.checkExpiration(tokenValue, headerEnd + 1, payloadEnd, nowMillis);
+        }
+        return null;
+    }
+
+    private Rejection checkAlgorithm(String tokenValue, int headerEnd) {
+        byte[] header = buffer(Base64Url.decodedLength(headerEnd));
+        int headerLength = Base64Url.decode(tokenValue, 0, headerEnd, header);
+        if (headerLength < 0) {
+            return Rejection.MALFORMED;
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(header, 0, headerLength)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return Rejection.MALFORMED;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("alg".equals(name)) {
+                    return value == JsonToken.VALUE_STRING && this.algorithms.contains(parser.getText())
+                            ? null
+                            : Rejection.UNSUPPORTED_ALGORITHM;
+                }
+                parser.skipChildren();
+            }
+        } catch (IOException e) {
+            return Rejection.MALFORMED;
+        }
+        return Rejection.UNSUPPORTED_ALGORITHM;
+    }
+
+    private Rejection checkExpiration(String tokenValue, int from, int to, long nowMillis) {
+        byte[] payload = buffer(Base64Url.decodedLength(to - from));
+        int payloadLength = Base64Url.decode(tokenValue, from, to, payload);
+        if (payloadLength < 0) {
+            return Rejection.MALFORMED;
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(payload, 0, payloadLength)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return Rejection.MALFORMED;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("exp".equals(name)) {
+                    // Anything other than an integer is left to the verifier to report.
+                    return value == JsonToken.VALUE_NUMBER_INT && nowMillis > parser.getLongValue() * 1000
+                            ? Rejection.EXPIRED
+                            : null;
+                }
+                parser.skipChildren();
+            }
+        } catch (IOException e) {
+            return Rejection.MALFORMED;
+        }
+        return null;
+    }
+
+    private static byte[] buffer(int length) {
+        byte[][] holder = BUFFER.get();
+        if (length < 0) {
+            return holder[0];
+        }
+        if (holder[0].length < length) {
+            holder[0] = new byte[Math.max(length, holder[0].length * 2)];
+        }
+        return holder[0];
+    }
+
+    /**
+     * Reasons a token can be rejected by the pre-check.
+     */
+    public enum Rejection {
+        /**
+         * The token is not three non-empty base64url segments, or its header or payload is not a JSON object.
+         */
+        MALFORMED,
+        /**
+         * The token is longer than the configured maximum length.
+         */
+        OVERSIZED,
+        /**
+         * The header does not name one of the expected algorithms.
+         */
+        UNSUPPORTED_ALGORITHM,
+        /**
+         * The expiration claim is in the past.
+         */
+        EXPIRED
+    }
+
+    /**
+     * Builder class for constructing TokenPreCheck instances.
+     */
+    public static class TokenPreCheckBuilder {
+        private int maxLength;
+        private Set<String> algorithms;
+        private boolean expirationPeek;
+
+        private TokenPreCheckBuilder() {
+            this.maxLength = 16 * 1024;
+            this.algorithms = Set.of("HS512");
+            this.expirationPeek = true;
+        }
+
+        /**
+         * Sets the maximum accepted token length.
+         *
+         * @param maxLength the maximum number of characters (defaults to 16384)
+         * @return this builder instance
+         * @throws IllegalArgumentException if maxLength is not positive
+         */
+        public TokenPreCheckBuilder maxLength(int maxLength) {
+            if (maxLength <= 0) {
+                throw new IllegalArgumentException("maxLength must be greater than 0.");
+            }
+            this.maxLength = maxLength;
+            return this;
+        }
+
+        /**
+         * Sets the algorithms accepted in the token header.
+         *
+         * @param algorithms the accepted JWS algorithm names (defaults to HS512), or null to accept any algorithm
+         * @return this builder instance
+         */
+        public TokenPreCheckBuilder algorithms(Collection<String> algorithms) {
+            this.algorithms = algorithms != null ? Set.copyOf(algorithms) : null;
+            return this;
+        }
+
+        /**
+         * Sets the algorithms accepted in the token header.
+         *
+         * @param algorithms the accepted JWS algorithm names
+         * @return this builder instance
+         */
+        public TokenPreCheckBuilder algorithms(String... algorithms) {
+            return this.algorithms(Arrays.asList(algorithms));
+        }
+
+        /**
+         * Sets whether the expiration claim is peeked at so that expired tokens are rejected before verification.
+         *
+         * @param expirationPeek true to reject expired tokens early (defaults to true)
+         * @return this builder instance
+         */
+        public TokenPreCheckBuilder expirationPeek(boolean expirationPeek) {
+            this.expirationPeek = expirationPeek;
+            return this;
+        }
+
+        /**
+         * Builds a new TokenPreCheck instance with the configured values.
+         *
+         * @return a new TokenPreCheck instance
+         */
+        public TokenPreCheck build() {
+            return new TokenPreCheck(true, this.maxLength, this.algorithms, this.expirationPeek);
+        }
+    }
+}
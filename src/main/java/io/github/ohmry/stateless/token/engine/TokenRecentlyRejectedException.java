@@ -0,0 +1,29 @@
+package io.github.ohmry.stateless.token.engine;
+
+import io.jsonwebtoken.JwtException;
+
+/**
+ * Thrown when a token is rejected by the {@link io.github.ohmry.stateless.token.cache.RejectedTokenCache}
+ * because the same token failed verification a short time ago.
+ * The cause is the exception the token was first rejected with. Replays are expected under hostile traffic,
+ * so the exception does not capture a stack trace.
+ *
+ * @author ohmry
+ */
+public class TokenRecentlyRejectedException extends JwtException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates a new exception for a token that was rejected with the given exception.
+     *
+     * @param rejection the exception the token was first rejected with
+     */
+    public TokenRecentlyRejectedException(Exception rejection) {
+        super("Token recently rejected: " + rejection.getClass().getSimpleName(), rejection);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
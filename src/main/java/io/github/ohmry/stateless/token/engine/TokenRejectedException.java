@@ -0,0 +1,39 @@
+package io.github.ohmry.stateless.token.engine;
+
+import io.jsonwebtoken.JwtException;
+
+/**
+ * Thrown when a token is rejected by the {@link TokenPreCheck} before any signature work.
+ * Rejections are expected under hostile traffic, so the exception does not capture a stack trace.
+ *
+ * @author ohmry
+ */
+public class TokenRejectedException extends JwtException {
+    private static final long serialVersionUID = 1L;
+
+    private final TokenPreCheck.Rejection rejection;
+
+    /**
+     * Creates a new exception for the given rejection.
+     *
+     * @param rejection the reason the token was rejected
+     */
+    public TokenRejectedException(TokenPreCheck.Rejection rejection) {
+        super("Token rejected by pre-check: " + rejection);
+        this.rejection = rejection;
+    }
+
+    /**
+     * Returns the reason the token was rejected.
+     *
+     * @return the rejection reason
+     */
+    public TokenPreCheck.Rejection getRejection() {
+        return rejection;
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,39 @@
+package io.github.ohmry.stateless.token.engine;
+
+import io.jsonwebtoken.JwtException;
+
+/**
+ * Thrown when a token with a valid signature has been revoked.
+ * Like {@link TokenRejectedException}, the exception does not capture a stack trace.
+ *
+ * @author ohmry
+ */
+public class TokenRevokedException extends JwtException {
+    private static final long serialVersionUID = 1L;
+
+    private final String tokenId;
+
+    /**
+     * Creates a new exception for the given token id.
+     *
+     * @param tokenId the id of the revoked token
+     */
+    public TokenRevokedException(String tokenId) {
+        super("Token revoked: " + tokenId);
+        this.tokenId = tokenId;
+    }
+
+    /**
+     * Returns the id of the revoked token.
+     *
+     * @return the token id
+     */
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
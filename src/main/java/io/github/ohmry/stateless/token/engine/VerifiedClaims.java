@@ -0,0 +1,103 @@
+package io.github.ohmry.stateless.token.engine;
+
+import io.github.ohmry.stateless.token.codec.SubjectCodec;
+import io.jsonwebtoken.Claims;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Claims of a token whose signature and expiration have been verified.
+ *
+ * @author ohmry
+ */
+public final class VerifiedClaims {
+    private final String tokenId;
+    private final String subject;
+    private final String binarySubject;
+    private final Map<String, Object> subjectClaims;
+    private final Long issuedAtSeconds;
+    private final Long expirationSeconds;
+
+    VerifiedClaims(String tokenId, String subject, String binarySubject, Map<String, Object> subjectClaims, Long issuedAtSeconds, Long expirationSeconds) {
+        this.tokenId = tokenId;
+        this.subject = subject;
+        this.binarySubject = binarySubject;
+        this.subjectClaims = subjectClaims;
+        this.issuedAtSeconds = issuedAtSeconds;
+        this.expirationSeconds = expirationSeconds;
+    }
+
+    static VerifiedClaims of(Claims claims) {
+        Date issuedAt = claims.getIssuedAt();
+        Date expiration = claims.getExpiration();
+        Map<String, Object> subjectClaims = Map.of();
+        for (Map.Entry<String, Object> claim : claims.entrySet()) {
+            if (!SubjectCodec.REGISTERED_CLAIMS.contains(claim.getKey())) {
+                if (subjectClaims.isEmpty()) {
+                    subjectClaims = new LinkedHashMap<>();
+                }
+                subjectClaims.put(claim.getKey(), claim.getValue());
+            }
+        }
+        return new VerifiedClaims(claims.getId(), claims.getSubject(), claims.get(SubjectCodec.BINARY_SUBJECT_CLAIM, String.class), subjectClaims,
+                issuedAt != null ? issuedAt.getTime() / 1000 : null,
+                expiration != null ? expiration.getTime() / 1000 : null);
+    }
+
+    /**
+     * Returns the token id.
+     *
+     * @return the jti claim, or null if the token has none
+     */
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    /**
+     * Returns the serialized subject.
+     *
+     * @return the subject claim, or null if the token has none
+     */
+    public String getSubject() {
+        return subject;
+    }
+
+    /**
+     * Returns the binary subject.
+     *
+     * @return the base64url encoded {@link SubjectCodec#BINARY_SUBJECT_CLAIM} claim, or null if the subject is JSON
+     */
+    public String getBinarySubject() {
+        return binarySubject;
+    }
+
+    /**
+     * Returns the claims other than the {@link SubjectCodec#REGISTERED_CLAIMS registered claims},
+     * which hold the subject of tokens written with flattened claims.
+     *
+     * @return the subject claims, empty if the token has none
+     */
+    public Map<String, Object> getSubjectClaims() {
+        return subjectClaims;
+    }
+
+    /**
+     * Returns the time at which the token was issued.
+     *
+     * @return the issued-at claim in epoch seconds, or null if the token has none
+     */
+    public Long getIssuedAtSeconds() {
+        return issuedAtSeconds;
+    }
+
+    /**
+     * Returns the time at which the token expires.
+     *
+     * @return the expiration claim in epoch seconds, or null if the token has none
+     */
+    public Long getExpirationSeconds() {
+        return expirationSeconds;
+    }
+}
@@ -0,0 +1,87 @@
+package io.github.ohmry.stateless.token.engine;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+/**
+ * A verified token with its decoded subject.
+ * If the engine decodes subjects lazily, the subject is only decoded by {@link #decodeSubject()}.
+ *
+ * @param <T> the type of the subject
+ * @author ohmry
+ */
+public final class VerifiedToken<T> {
+    private final String tokenId;
+    private final T subject;
+    private final SubjectDecoder<T> subjectDecoder;
+    private final Long expirationSeconds;
+
+    VerifiedToken(String tokenId, T subject, Long expirationSeconds) {
+        this.tokenId = tokenId;
+        this.subject = subject;
+        this.subjectDecoder = null;
+        this.expirationSeconds = expirationSeconds;
+    }
+
+    VerifiedToken(String tokenId, SubjectDecoder<T> subjectDecoder, Long expirationSeconds) {
+        this.tokenId = tokenId;
+        this.subject = null;
+        this.subjectDecoder = subjectDecoder;
+        this.expirationSeconds = expirationSeconds;
+    }
+
+    /**
+     * Returns the token id.
+     *
+     * @return the jti claim, or null if the token has none
+     */
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    /**
+     * Returns the decoded subject.
+     *
+     * @return the subject, or null if the subject is decoded lazily
+     */
+    public T getSubject() {
+        return subject;
+    }
+
+    /**
+     * Returns whether the subject has to be decoded with {@link #decodeSubject()}.
+     *
+     * @return true if the subject is decoded lazily
+     */
+    public boolean isLazy() {
+        return subjectDecoder != null;
+    }
+
+    /**
+     * Returns the subject, decoding it if it is decoded lazily.
+     * A lazy subject is decoded again on every call, so callers should keep the result.
+     *
+     * @return the subject
+     * @throws JsonProcessingException if the subject cannot be decoded into the requested type
+     * @throws IllegalArgumentException if a binary subject is malformed
+     */
+    public T decodeSubject() throws JsonProcessingException {
+        return this.subjectDecoder != null ? this.subjectDecoder.decode() : this.subject;
+    }
+
+    /**
+     * Returns the expiration.
+     *
+     * @return the expiration in epoch seconds, or null if the token does not expire
+     */
+    public Long getExpirationSeconds() {
+        return expirationSeconds;
+    }
+
+    /**
+     * Decodes the subject of a verified token.
+     */
+    @FunctionalInterface
+    interface SubjectDecoder<T> {
+        T decode() throws JsonProcessingException;
+    }
+}
@@ -0,0 +1,103 @@
+package io.github.ohmry.stateless.token.metrics;
+
+import io.github.ohmry.stateless.token.domain.TokenType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token metrics backed by a Micrometer registry.
+ * All meters are registered up front, so recording a measurement never looks up a meter.
+ * <ul>
+ *   <li>{@code stateless.token.create} - timer of token creation, tagged with {@code type}</li>
+ *   <li>{@code stateless.token.parse} - timer of token parsing, tagged with {@code type}</li>
+ *   <li>{@code stateless.token.parse.outcome} - counter of parse outcomes, tagged with {@code type} and {@code outcome}</li>
+ *   <li>{@code stateless.token.size} - distribution of token sizes in bytes, tagged with {@code type} and {@code operation}</li>
+ * </ul>
+ *
+ * @author ohmry
+ */
+public class MicrometerTokenMetrics implements TokenMetrics {
+    private final Timer[] createTimers;
+    private final Timer[] parseTimers;
+    private final Counter[][] outcomeCounters;
+    private final DistributionSummary[] createSizes;
+    private final DistributionSummary[] parseSizes;
+
+    /**
+     * Creates the metrics and registers their meters.
+     *
+     * @param meterRegistry the registry the meters are registered with
+     */
+    public MicrometerTokenMetrics(MeterRegistry meterRegistry) {
+        TokenType[] tokenTypes = TokenType.values();
+        Outcome[] outcomes = Outcome.values();
+        this.createTimers = new Timer[tokenTypes.length];
+        this.parseTimers = new Timer[tokenTypes.length];
+        this.outcomeCounters = new Counter[tokenTypes.length][outcomes.length];
+        this.createSizes = new DistributionSummary[tokenTypes.length];
+        this.parseSizes = new DistributionSummary[tokenTypes.length];
+
+        for (TokenType tokenType : tokenTypes) {
+            String type = tagValue(tokenType);
+            int index = tokenType.ordinal();
+            this.createTimers[index] = Timer.builder("stateless.token.create")
+                    .description("Time spent creating tokens")
+                    .tag("type", type)
+                    .register(meterRegistry);
+            this.parseTimers[index] = Timer.builder("stateless.token.parse")
+                    .description("Time spent parsing tokens")
+                    .tag("type", type)
+                    .register(meterRegistry);
+            for (Outcome outcome : outcomes) {
+                this.outcomeCounters[index][outcome.ordinal()] = Counter.builder("stateless.token.parse.outcome")
+                        .description("Parsed tokens by outcome")
+                        .tag("type", type)
+                        .tag("outcome", tagValue(outcome))
+                        .register(meterRegistry);
+            }
+            this.createSizes[index] = DistributionSummary.builder("stateless.token.size")
+                    .description("Size of tokens")
+                    .baseUnit("bytes")
+                    .tag("type", type)
+                    .tag("operation", "create")
+                    .register(meterRegistry);
+            this.parseSizes[index] = DistributionSummary.builder("stateless.token.size")
+                    .description("Size of tokens")
+                    .baseUnit("bytes")
+                    .tag("type", type)
+                    .tag("operation", "parse")
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void recordCreate(TokenType tokenType, long durationNanos, int tokenLength) {
+        int index = tokenType.ordinal();
+        this.createTimers[index].record(durationNanos, TimeUnit.NANOSECONDS);
+        this.createSizes[index].record(tokenLength);
+    }
+
+    @Override
+    public void recordParse(TokenType tokenType, long durationNanos, int tokenLength, Outcome outcome) {
+        int index = tokenType.ordinal();
+        this.parseTimers[index].record(durationNanos, TimeUnit.NANOSECONDS);
+        this.outcomeCounters[index][outcome.ordinal()].increment();
+        if (tokenLength >= 0) {
+            this.parseSizes[index].record(tokenLength);
+        }
+    }
+
+    private static String tagValue(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+}
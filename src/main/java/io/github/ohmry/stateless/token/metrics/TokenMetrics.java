@@ -0,0 +1,86 @@
+package io.github.ohmry.stateless.token.metrics;
+
+import io.github.ohmry.stateless.token.domain.TokenType;
+
+/**
+ * Receives measurements of token creation and parsing.
+ * Implementations must be thread-safe. Callers check {@link #isEnabled()} before taking
+ * any measurement, so {@link #NOOP} costs a single call per token.
+ *
+ * @author ohmry
+ */
+public interface TokenMetrics {
+    /**
+     * Metrics that record nothing. This is the default when no metrics are configured.
+     */
+    TokenMetrics NOOP = new TokenMetrics() {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public void recordCreate(TokenType tokenType, long durationNanos, int tokenLength) {
+        }
+
+        @Override
+        public void recordParse(TokenType tokenType, long durationNanos, int tokenLength, Outcome outcome) {
+        }
+    };
+
+    /**
+     * Returns whether measurements should be taken.
+     *
+     * @return true if this instance records measurements
+     */
+    boolean isEnabled();
+
+    /**
+     * Records the creation of a token.
+     *
+     * @param tokenType the type of the created token
+     * @param durationNanos the time spent creating the token in nanoseconds
+     * @param tokenLength the length of the token string in bytes
+     */
+    void recordCreate(TokenType tokenType, long durationNanos, int tokenLength);
+
+    /**
+     * Records the parsing of a token.
+     *
+     * @param tokenType the type of the parsed token
+     * @param durationNanos the time spent parsing the token in nanoseconds
+     * @param tokenLength the length of the token string in bytes, or -1 if there was no token string
+     * @param outcome the outcome of the parse
+     */
+    void recordParse(TokenType tokenType, long durationNanos, int tokenLength, Outcome outcome);
+
+    /**
+     * The possible outcomes of parsing a token.
+     */
+    enum Outcome {
+        /**
+         * The token was verified and its subject was read.
+         */
+        VALID,
+        /**
+         * The token has expired.
+         */
+        EXPIRED,
+        /**
+         * The token signature does not match.
+         */
+        BAD_SIGNATURE,
+        /**
+         * The token is not a well-formed token for this policy.
+         */
+        MALFORMED,
+        /**
+         * The token was verified but its id has been revoked.
+         */
+        REVOKED,
+        /**
+         * The token was verified but its subject could not be read as the requested type.
+         */
+        DESERIALIZATION_FAILURE
+    }
+}
@@ -0,0 +1,198 @@
+package io.github.ohmry.stateless.token.revocation;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory denylist of revoked token ids ({@code jti}).
+ * Lookups first probe a Bloom filter, so checking a token that was not revoked costs a few hash probes
+ * and no locks. Only filter hits are confirmed against the exact set of revoked ids.
+ * Each revoked id is kept until the expiration of its token, after which the token is rejected anyway;
+ * expired ids are pruned and the filter is rebuilt without them, so memory stays proportional to the
+ * number of revoked tokens that are still alive.
+ *
+ * @author ohmry
+ */
+public final class TokenRevocationList {
+    private final int expectedRevocations;
+    private final double falsePositiveRate;
+    private final Map<String, Long> revokedTokens;
+    private volatile BloomFilter filter;
+    private volatile long nextPruneAtSeconds;
+
+    /**
+     * Creates a new revocation list.
+     *
+     * @param expectedRevocations the number of live revoked tokens the filter is sized for; the filter grows beyond it
+     * @param falsePositiveRate the rate of filter hits for tokens that were not revoked, between 0 and 1
+     * @throws IllegalArgumentException if expectedRevocations is not positive or falsePositiveRate is not between 0 and 1
+     */
+    public TokenRevocationList(int expectedRevocations, double falsePositiveRate) {
+        if (expectedRevocations <= 0) {
+            throw new IllegalArgumentException("expectedRevocations must be greater than 0.");
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1.");
+        }
+        this.expectedRevocations = expectedRevocations;
+        this.falsePositiveRate = falsePositiveRate;
+        this.revokedTokens = new ConcurrentHashMap<>();
+        this.filter = new BloomFilter(expectedRevocations, falsePositiveRate);
+        this.nextPruneAtSeconds = Long.MAX_VALUE;
+    }
+
+    /**
+     * Revokes a token.
+     *
+     * @param tokenId the id of the token
+     * @param expirationSeconds the expiration of the token in epoch seconds
+     * @return true if the token was revoked, false if it has already expired
+     * @throws IllegalArgumentException if tokenId is null
+     */
+    public boolean revoke(String tokenId, long expirationSeconds) {
+        if (tokenId == null) {
+            throw new IllegalArgumentException("tokenId must be not null.");
+        }
+        long nowSeconds = System.currentTimeMillis() / 1000;
+        if (expirationSeconds < nowSeconds) {
+            return false;
+        }
+        synchronized (this) {
+            if (nowSeconds > this.nextPruneAtSeconds) {
+                this.prune(nowSeconds);
+            }
+            // The id is added to the exact set before the filter, so a reader that sees the filter bits also finds the id.
+            this.revokedTokens.merge(tokenId, expirationSeconds, Math::max);
+            if (this.revokedTokens.size() > this.filter.capacity) {
+                this.rebuild();
+            } else {
+                this.filter.add(tokenId);
+            }
+            this.nextPruneAtSeconds = Math.min(this.nextPruneAtSeconds, expirationSeconds);
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether the token was revoked.
+     *
+     * @param tokenId the id of the token, may be null
+     * @return true if the token was revoked
+     */
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null || !this.filter.mightContain(tokenId)) {
+            return false;
+        }
+        Long expirationSeconds = this.revokedTokens.get(tokenId);
+        if (expirationSeconds == null && System.currentTimeMillis() / 1000 > this.nextPruneAtSeconds) {
+            // A false positive may be caused by ids that expired in the meantime.
+            this.prune();
+        }
+        return expirationSeconds != null;
+    }
+
+    /**
+     * Removes the ids of expired tokens and rebuilds the filter without them.
+     * This happens automatically while tokens are revoked and checked.
+     */
+    public synchronized void prune() {
+        this.prune(System.currentTimeMillis() / 1000);
+    }
+
+    /**
+     * Returns the number of revoked tokens that have not been pruned.
+     *
+     * @return the number of revoked tokens
+     */
+    public int size() {
+        return this.revokedTokens.size();
+    }
+
+    private void prune(long nowSeconds) {
+        long nextPruneAtSeconds = Long.MAX_VALUE;
+        for (Map.Entry<String, Long> entry : this.revokedTokens.entrySet()) {
+            if (entry.getValue() < nowSeconds) {
+                this.revokedTokens.remove(entry.getKey(), entry.getValue());
+            } else {
+                nextPruneAtSeconds = Math.min(nextPruneAtSeconds, entry.getValue());
+            }
+        }
+        this.nextPruneAtSeconds = nextPruneAtSeconds;
+        this.rebuild();
+    }
+
+    /**
+     * Publishes a new filter sized for the current ids, with room to grow.
+     */
+    private void rebuild() {
+        BloomFilter filter = new BloomFilter(Math.max(this.expectedRevocations, this.revokedTokens.size() * 2), this.falsePositiveRate);
+        for (String tokenId : this.revokedTokens.keySet()) {
+            filter.add(tokenId);
+        }
+        this.filter = filter;
+    }
+
+    /**
+     * Bloom filter over strings with bits that can be set concurrently and read without locks.
+     */
+    private static final class BloomFilter {
+        private final int capacity;
+        private final int hashCount;
+        private final long bitCount;
+        private final AtomicLongArray words;
+
+        BloomFilter(int capacity, double falsePositiveRate) {
+            long bitCount = Math.max(64, (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+            this.capacity = capacity;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+            this.words = new AtomicLongArray((int) ((bitCount + 63) >>> 6));
+            this.bitCount = (long) this.words.length() << 6;
+        }
+
+        void add(String value) {
+            long hash = hash(value);
+            int hash1 = (int) hash;
+            int hash2 = (int) (hash >>> 32);
+            for (int i = 0; i < this.hashCount; i++) {
+                long bit = Integer.toUnsignedLong(hash1 + i * hash2) % this.bitCount;
+                long mask = 1L << bit;
+                int index = (int) (bit >>> 6);
+                long word;
+                do {
+                    word = this.words.get(index);
+                } while ((word & mask) == 0 && !this.words.compareAndSet(index, word, word | mask));
+            }
+        }
+
+        boolean mightContain(String value) {
+            long hash = hash(value);
+            int hash1 = (int) hash;
+            int hash2 = (int) (hash >>> 32);
+            for (int i = 0; i < this.hashCount; i++) {
+                long bit = Integer.toUnsignedLong(hash1 + i * hash2) % this.bitCount;
+                if ((this.words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 64-bit FNV-1a over the characters, finished with the MurmurHash3 mixer.
+         */
+        private static long hash(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb9fe1a85ec53L;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+    }
+}
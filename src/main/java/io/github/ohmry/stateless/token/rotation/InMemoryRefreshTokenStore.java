@@ -0,0 +1,174 @@
+package io.github.ohmry.stateless.token.rotation;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * RefreshTokenStore that keeps the families in memory.
+ * The families are spread over lock stripes by the hash of their id, so rotations of different families
+ * rarely contend. Each family is kept until its latest refresh token expires; every stripe removes its
+ * expired families once the earliest expiration it holds has passed.
+ *
+ * @author ohmry
+ */
+public class InMemoryRefreshTokenStore implements RefreshTokenStore {
+    private final Stripe[] stripes;
+
+    /**
+     * Creates a new store with four stripes per available processor.
+     */
+    public InMemoryRefreshTokenStore() {
+        this(Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    /**
+     * Creates a new store.
+     *
+     * @param stripeCount the number of lock stripes, rounded up to a power of two
+     * @throws IllegalArgumentException if stripeCount is not positive
+     */
+    public InMemoryRefreshTokenStore(int stripeCount) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("stripeCount must be greater than 0.");
+        }
+        int size = Integer.highestOneBit(Math.min(stripeCount, 1 << 16) * 2 - 1);
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new Stripe();
+        }
+    }
+
+    @Override
+    public void register(String familyId, String tokenId, long expirationSeconds) {
+        if (familyId == null) {
+            throw new IllegalArgumentException("familyId must be not null.");
+        }
+        if (tokenId == null) {
+            throw new IllegalArgumentException("tokenId must be not null.");
+        }
+        Stripe stripe = this.stripeOf(familyId);
+        synchronized (stripe) {
+            stripe.pruneIfDue(nowSeconds());
+            stripe.families.put(familyId, new Family(tokenId, expirationSeconds));
+            stripe.nextPruneAtSeconds = Math.min(stripe.nextPruneAtSeconds, expirationSeconds);
+        }
+    }
+
+    @Override
+    public Rotation rotate(String familyId, String tokenId, String nextTokenId, long expirationSeconds) {
+        if (familyId == null || tokenId == null) {
+            return Rotation.UNKNOWN;
+        }
+        if (nextTokenId == null) {
+            throw new IllegalArgumentException("nextTokenId must be not null.");
+        }
+        long nowSeconds = nowSeconds();
+        Stripe stripe = this.stripeOf(familyId);
+        synchronized (stripe) {
+            stripe.pruneIfDue(nowSeconds);
+            Family family = stripe.families.get(familyId);
+            if (family == null || family.expirationSeconds < nowSeconds) {
+                return Rotation.UNKNOWN;
+            }
+            if (family.revoked || !family.tokenId.equals(tokenId)) {
+                // The family is kept until it expires, so that its other tokens keep being refused.
+                family.revoked = true;
+                return Rotation.REUSED;
+            }
+            family.tokenId = nextTokenId;
+            family.expirationSeconds = expirationSeconds;
+            return Rotation.ROTATED;
+        }
+    }
+
+    @Override
+    public void revoke(String familyId) {
+        if (familyId == null) {
+            return;
+        }
+        Stripe stripe = this.stripeOf(familyId);
+        synchronized (stripe) {
+            Family family = stripe.families.get(familyId);
+            if (family != null) {
+                family.revoked = true;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of families that have not been removed yet, including expired and revoked ones.
+     *
+     * @return the number of stored families
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : this.stripes) {
+            synchronized (stripe) {
+                size += stripe.families.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Removes the families whose latest refresh token has expired.
+     * This happens automatically while tokens are registered and rotated.
+     */
+    public void prune() {
+        long nowSeconds = nowSeconds();
+        for (Stripe stripe : this.stripes) {
+            synchronized (stripe) {
+                stripe.prune(nowSeconds);
+            }
+        }
+    }
+
+    private Stripe stripeOf(String familyId) {
+        int hash = familyId.hashCode() * 0x9E3779B9;
+        return this.stripes[(hash ^ (hash >>> 16)) & (this.stripes.length - 1)];
+    }
+
+    private static long nowSeconds() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    /**
+     * The families of one lock stripe. All fields are guarded by the stripe itself.
+     */
+    private static final class Stripe {
+        private final Map<String, Family> families = new HashMap<>();
+        private long nextPruneAtSeconds = Long.MAX_VALUE;
+
+        void pruneIfDue(long nowSeconds) {
+            if (nowSeconds > this.nextPruneAtSeconds) {
+                this.prune(nowSeconds);
+            }
+        }
+
+        void prune(long nowSeconds) {
+            long nextPruneAtSeconds = Long.MAX_VALUE;
+            Iterator<Family> iterator = this.families.values().iterator();
+            while (iterator.hasNext()) {
+                Family family = iterator.next();
+                if (family.expirationSeconds < nowSeconds) {
+                    iterator.remove();
+                } else {
+                    nextPruneAtSeconds = Math.min(nextPruneAtSeconds, family.expirationSeconds);
+                }
+            }
+            this.nextPruneAtSeconds = nextPruneAtSeconds;
+        }
+    }
+
+    private static final class Family {
+        private String tokenId;
+        private long expirationSeconds;
+        private boolean revoked;
+
+        Family(String tokenId, long expirationSeconds) {
+            this.tokenId = tokenId;
+            this.expirationSeconds = expirationSeconds;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package io.github.ohmry.stateless.token.rotation;
+
+import io.jsonwebtoken.JwtException;
+
+/**
+ * Thrown when a refresh token cannot be exchanged for a new token pair.
+ * Like the other token exceptions, it does not capture a stack trace.
+ *
+ * @author ohmry
+ */
+public class RefreshTokenRotationException extends JwtException {
+    private static final long serialVersionUID = 1L;
+
+    private final Reason reason;
+
+    /**
+     * Creates a new exception for the given reason.
+     *
+     * @param reason the reason the refresh token was refused
+     */
+    public RefreshTokenRotationException(Reason reason) {
+        super("Refresh token rotation refused: " + reason);
+        this.reason = reason;
+    }
+
+    /**
+     * Returns the reason the refresh token was refused.
+     *
+     * @return the reason
+     */
+    public Reason getReason() {
+        return reason;
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+
+    /**
+     * The reasons a refresh token is refused.
+     */
+    public enum Reason {
+        /**
+         * The refresh token is invalid, expired or revoked.
+         */
+        INVALID,
+        /**
+         * The refresh token was already exchanged, or its family was revoked. The family is revoked.
+         */
+        REUSED,
+        /**
+         * The refresh token does not belong to a known family, for example because it was created
+         * before rotation was enabled.
+         */
+        UNKNOWN_FAMILY
+    }
+}
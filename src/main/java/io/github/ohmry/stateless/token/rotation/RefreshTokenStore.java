@@ -0,0 +1,58 @@
+package io.github.ohmry.stateless.token.rotation;
+
+/**
+ * Stores the refresh token families used for refresh token rotation.
+ * A family starts with a refresh token created at login and is continued by every refresh token that
+ * replaces it. The store only remembers the id of the latest refresh token of each family, so each refresh
+ * token can be exchanged once; presenting one that was already exchanged revokes the whole family.
+ * Implementations must be thread-safe, and {@link #rotate(String, String, String, long)} must be atomic.
+ *
+ * @author ohmry
+ */
+public interface RefreshTokenStore {
+    /**
+     * Starts a new family.
+     *
+     * @param familyId the id of the family
+     * @param tokenId the id of the first refresh token of the family
+     * @param expirationSeconds the expiration of the refresh token in epoch seconds
+     */
+    void register(String familyId, String tokenId, long expirationSeconds);
+
+    /**
+     * Replaces the latest refresh token of a family if the presented token is that token.
+     * If it is not, the presented token was already exchanged and the family is revoked.
+     *
+     * @param familyId the id of the family
+     * @param tokenId the id of the presented refresh token
+     * @param nextTokenId the id of the refresh token that replaces it
+     * @param expirationSeconds the expiration of the replacing refresh token in epoch seconds
+     * @return the outcome of the rotation
+     */
+    Rotation rotate(String familyId, String tokenId, String nextTokenId, long expirationSeconds);
+
+    /**
+     * Revokes a family, so that none of its refresh tokens can be exchanged any more.
+     *
+     * @param familyId the id of the family
+     */
+    void revoke(String familyId);
+
+    /**
+     * The possible outcomes of a rotation.
+     */
+    enum Rotation {
+        /**
+         * The presented token was the latest token of the family and has been replaced.
+         */
+        ROTATED,
+        /**
+         * The presented token was already exchanged, or the family was revoked. The family is revoked.
+         */
+        REUSED,
+        /**
+         * The family is unknown or has expired.
+         */
+        UNKNOWN
+    }
+}
@@ -0,0 +1,39 @@
+package io.github.ohmry.stateless.token.web;
+
+/**
+ * Reads bearer tokens from {@code Authorization} headers, as defined by RFC 6750.
+ *
+ * @author ohmry
+ */
+public final class BearerToken {
+    /**
+     * The {@code WWW-Authenticate} header value sent with responses to requests carrying an invalid token.
+     */
+    public static final String INVALID_TOKEN_CHALLENGE = "Bearer error=\"invalid_token\"";
+
+    /**
+     * The response header carrying the replacement of an access token that is about to expire.
+     */
+    public static final String RENEWED_TOKEN_HEADER = "X-Renewed-Token";
+
+    private static final String SCHEME = "Bearer ";
+
+    private BearerToken() {
+    }
+
+    /**
+     * Returns the token of a bearer {@code Authorization} header.
+     *
+     * @param authorizationHeader the header value
+     * @return the token, or null if the header is missing, uses another scheme or carries no token
+     */
+    public static String resolve(String authorizationHeader) {
+        if (authorizationHeader == null
+                || authorizationHeader.length() <= SCHEME.length()
+                || !authorizationHeader.regionMatches(true, 0, SCHEME, 0, SCHEME.length())) {
+            return null;
+        }
+        String tokenValue = authorizationHeader.substring(SCHEME.length()).trim();
+        return tokenValue.isEmpty() ? null : tokenValue;
+    }
+}
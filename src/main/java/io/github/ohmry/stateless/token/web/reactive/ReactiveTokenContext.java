@@ -0,0 +1,60 @@
+package io.github.ohmry.stateless.token.web.reactive;
+
+import io.github.ohmry.stateless.token.domain.AccessToken;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * Access to the AccessToken that {@link TokenWebFilter} put into the Reactor context of a request.
+ *
+ * @author ohmry
+ */
+public final class ReactiveTokenContext {
+    private static final Class<?> ACCESS_TOKEN_KEY = AccessToken.class;
+
+    private ReactiveTokenContext() {
+    }
+
+    /**
+     * Returns the access token of the current request.
+     *
+     * @param <T> the type of the subject
+     * @return the access token, or an empty Mono if the request carried no valid bearer token
+     */
+    public static <T> Mono<AccessToken<T>> accessToken() {
+        return Mono.deferContextual(context -> Mono.justOrEmpty(context.<AccessToken<T>>getOrEmpty(ACCESS_TOKEN_KEY)));
+    }
+
+    /**
+     * Returns the subject of the current request's access token.
+     *
+     * @param <T> the type of the subject
+     * @return the subject, or an empty Mono if the request carried no valid bearer token
+     */
+    public static <T> Mono<T> subject() {
+        return ReactiveTokenContext.<T>accessToken().mapNotNull(AccessToken::getSubject);
+    }
+
+    /**
+     * Returns the subject of the current request's access token, failing requests without one with 401.
+     *
+     * @param <T> the type of the subject
+     * @return the subject, or a Mono failing with a 401 ResponseStatusException if the request carried no valid bearer token
+     */
+    public static <T> Mono<T> requiredSubject() {
+        return ReactiveTokenContext.<T>subject().switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED)));
+    }
+
+    /**
+     * Returns a context holding the given access token.
+     *
+     * @param context the context to add the access token to
+     * @param accessToken the access token
+     * @return the new context
+     */
+    public static Context withAccessToken(Context context, AccessToken<?> accessToken) {
+        return context.put(ACCESS_TOKEN_KEY, accessToken);
+    }
+}
@@ -0,0 +1,135 @@
+package io.github.ohmry.stateless.token.web.reactive;
+
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicy;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicyHolder;
+import io.github.ohmry.stateless.token.domain.AccessToken;
+import io.github.ohmry.stateless.token.web.BearerToken;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * WebFlux filter that authenticates requests carrying a bearer access token.
+ * Signature verification and subject deserialization do not run on the event loop: tokens that are
+ * already in the verified token cache are parsed inline, all other tokens are parsed on the given scheduler,
+ * which should be bounded so that a burst of new tokens queues up instead of starving the event loop.
+ * A valid token is stored in the {@link #ACCESS_TOKEN_ATTRIBUTE} exchange attribute and in the Reactor
+ * context, see {@link ReactiveTokenContext}. Requests with an invalid token, such as one of another issuer,
+ * and requests without a bearer token are passed on unauthenticated, so that public endpoints keep working;
+ * handlers that need a token use {@link ReactiveTokenContext#requiredSubject()}.
+ * Requests with an invalid token can be answered with 401 by the filter itself instead.
+ * If the policy renews access tokens, the replacement of a token about to expire is minted on the scheduler
+ * as well and sent in the {@link BearerToken#RENEWED_TOKEN_HEADER} response header.
+ *
+ * @param <T> the type of the token subjects
+ * @author ohmry
+ */
+public class TokenWebFilter<T> implements WebFilter {
+    /**
+     * The exchange attribute holding the parsed AccessToken.
+     */
+    public static final String ACCESS_TOKEN_ATTRIBUTE = TokenWebFilter.class.getName() + ".accessToken";
+
+    private final Class<T> subjectType;
+    private final Scheduler scheduler;
+    private final boolean rejectInvalidTokens;
+
+    /**
+     * Creates a filter that parses access tokens on the given scheduler and passes requests with an invalid token on.
+     *
+     * @param subjectType the class type of the token subjects
+     * @param scheduler the scheduler tokens that are not cached are verified on
+     */
+    public TokenWebFilter(Class<T> subjectType, Scheduler scheduler) {
+        this(subjectType, scheduler, false);
+    }
+
+    /**
+     * Creates a filter that parses access tokens on the given scheduler.
+     *
+     * @param subjectType the class type of the token subjects
+     * @param scheduler the scheduler tokens that are not cached are verified on
+     * @param rejectInvalidTokens whether requests with an invalid token are answered with 401 instead of passed on
+     */
+    public TokenWebFilter(Class<T> subjectType, Scheduler scheduler, boolean rejectInvalidTokens) {
+        if (subjectType == null) {
+            throw new IllegalArgumentException("subjectType must be not null.");
+        }
+        if (scheduler == null) {
+            throw new IllegalArgumentException("scheduler must be not null.");
+        }
+        this.subjectType = subjectType;
+        this.scheduler = scheduler;
+        this.rejectInvalidTokens = rejectInvalidTokens;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String tokenValue = BearerToken.resolve(exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+        if (tokenValue == null) {
+            return chain.filter(exchange);
+        }
+        return this.parse(tokenValue).flatMap(accessToken -> {
+            if (accessToken.isInvalidate()) {
+                if (!this.rejectInvalidTokens) {
+                    return chain.filter(exchange);
+                }
+                exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+                exchange.getResponse().getHeaders().set(HttpHeaders.WWW_AUTHENTICATE, BearerToken.INVALID_TOKEN_CHALLENGE);
+                return exchange.getResponse().setComplete();
+            }
+            exchange.getAttributes().put(ACCESS_TOKEN_ATTRIBUTE, accessToken);
+            String renewedValue = accessToken.getRenewedValue();
+            if (renewedValue != null) {
+                exchange.getResponse().getHeaders().set(BearerToken.RENEWED_TOKEN_HEADER, renewedValue);
+            }
+            return chain.filter(exchange).contextWrite(context -> ReactiveTokenContext.withAccessToken(context, accessToken));
+        });
+    }
+
+    /**
+     * Parses the access token inline if it is cached, and on the scheduler otherwise.
+     * A token that is due for renewal gets its replacement on the scheduler before it is returned.
+     *
+     * @param tokenValue the token string to parse
+     * @return the parsed access token; invalid tokens are returned with {@link AccessToken#isInvalidate()} set
+     */
+    public Mono<AccessToken<T>> parse(String tokenValue) {
+        StatelessTokenPolicy policy = StatelessTokenPolicyHolder.getStatelessTokenPolicy();
+        if (policy.getTokenEngine().isCached(policy.getAccessTokenSigningKey(), tokenValue, this.subjectType)) {
+            AccessToken<T> accessToken = AccessToken.parse(tokenValue, this.subjectType);
+            if (!accessToken.isRenewalDue()) {
+                return Mono.just(accessToken);
+            }
+            return Mono.fromCallable(() -> renew(accessToken)).subscribeOn(this.scheduler);
+        }
+        return Mono.fromCallable(() -> renew(AccessToken.parse(tokenValue, this.subjectType))).subscribeOn(this.scheduler);
+    }
+
+    private static <T> AccessToken<T> renew(AccessToken<T> accessToken) {
+        accessToken.getRenewedValue();
+        return accessToken;
+    }
+
+    /**
+     * Returns the class type of the token subjects.
+     *
+     * @return the subject type
+     */
+    public Class<T> getSubjectType() {
+        return subjectType;
+    }
+
+    /**
+     * Returns whether requests with an invalid token are answered with 401.
+     *
+     * @return true if invalid tokens are rejected by the filter, false if they are passed on
+     */
+    public boolean isRejectInvalidTokens() {
+        return rejectInvalidTokens;
+    }
+}
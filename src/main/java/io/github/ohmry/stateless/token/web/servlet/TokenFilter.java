@@ -0,0 +1,111 @@
+package io.github.ohmry.stateless.token.web.servlet;
+
+import io.github.ohmry.stateless.token.domain.AccessToken;
+import io.github.ohmry.stateless.token.web.BearerToken;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Servlet filter that parses the bearer access token of a request exactly once.
+ * A valid token is stored in the {@link #ACCESS_TOKEN_ATTRIBUTE} request attribute, where interceptors,
+ * controllers and {@link TokenSubject} parameters read it instead of parsing the header again.
+ * Requests with an invalid token, such as one of another issuer, and requests without a bearer token are passed on
+ * unauthenticated, so that public endpoints keep working and required {@link TokenSubject} parameters answer with 401.
+ * Requests with an invalid token can be answered with 401 by the filter itself instead.
+ * If the policy renews access tokens, the replacement of a token about to expire is sent in the
+ * {@link BearerToken#RENEWED_TOKEN_HEADER} response header.
+ *
+ * @param <T> the type of the token subjects
+ * @author ohmry
+ */
+public class TokenFilter<T> extends OncePerRequestFilter {
+    /**
+     * The request attribute holding the parsed AccessToken.
+     */
+    public static final String ACCESS_TOKEN_ATTRIBUTE = TokenFilter.class.getName() + ".accessToken";
+
+    private final Class<T> subjectType;
+    private final boolean rejectInvalidTokens;
+
+    /**
+     * Creates a filter that decodes token subjects into the given type and passes requests with an invalid token on.
+     *
+     * @param subjectType the class type of the token subjects
+     */
+    public TokenFilter(Class<T> subjectType) {
+        this(subjectType, false);
+    }
+
+    /**
+     * Creates a filter that decodes token subjects into the given type.
+     *
+     * @param subjectType the class type of the token subjects
+     * @param rejectInvalidTokens whether requests with an invalid token are answered with 401 instead of passed on
+     */
+    public TokenFilter(Class<T> subjectType, boolean rejectInvalidTokens) {
+        if (subjectType == null) {
+            throw new IllegalArgumentException("subjectType must be not null.");
+        }
+        this.subjectType = subjectType;
+        this.rejectInvalidTokens = rejectInvalidTokens;
+    }
+
+    /**
+     * Returns the access token parsed for the request.
+     *
+     * @param <S> the type of the subject
+     * @param request the request
+     * @return the access token, or null if the request carried no valid bearer token
+     */
+    @SuppressWarnings("unchecked")
+    public static <S> AccessToken<S> getAccessToken(ServletRequest request) {
+        return (AccessToken<S>) request.getAttribute(ACCESS_TOKEN_ATTRIBUTE);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String tokenValue = BearerToken.resolve(request.getHeader(HttpHeaders.AUTHORIZATION));
+        if (tokenValue != null && request.getAttribute(ACCESS_TOKEN_ATTRIBUTE) == null) {
+            AccessToken<T> accessToken = AccessToken.parse(tokenValue, this.subjectType);
+            if (accessToken.isInvalidate()) {
+                if (this.rejectInvalidTokens) {
+                    response.setHeader(HttpHeaders.WWW_AUTHENTICATE, BearerToken.INVALID_TOKEN_CHALLENGE);
+                    response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+                    return;
+                }
+            } else {
+                request.setAttribute(ACCESS_TOKEN_ATTRIBUTE, accessToken);
+                String renewedValue = accessToken.getRenewedValue();
+                if (renewedValue != null) {
+                    response.setHeader(BearerToken.RENEWED_TOKEN_HEADER, renewedValue);
+                }
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Returns the class type of the token subjects.
+     *
+     * @return the subject type
+     */
+    public Class<T> getSubjectType() {
+        return subjectType;
+    }
+
+    /**
+     * Returns whether requests with an invalid token are answered with 401.
+     *
+     * @return true if invalid tokens are rejected by the filter, false if they are passed on
+     */
+    public boolean isRejectInvalidTokens() {
+        return rejectInvalidTokens;
+    }
+}
@@ -0,0 +1,26 @@
+package io.github.ohmry.stateless.token.web.servlet;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Binds a handler method parameter to the subject of the access token parsed by {@link TokenFilter}.
+ * A parameter of type AccessToken receives the token itself.
+ *
+ * @author ohmry
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface TokenSubject {
+    /**
+     * Whether a request without a valid access token is rejected with 401.
+     * If false, the parameter is null for such requests.
+     *
+     * @return true if the access token is required (defaults to true)
+     */
+    boolean required() default true;
+}
@@ -0,0 +1,68 @@
+package io.github.ohmry.stateless.token.web.servlet;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicyHolder;
+import io.github.ohmry.stateless.token.domain.AccessToken;
+import io.github.ohmry.stateless.token.web.BearerToken;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Resolves {@link TokenSubject} parameters from the access token {@link TokenFilter} stored in the request,
+ * so that the token is not verified again.
+ * A required parameter of a request without a valid access token is answered with 401; if the request carried
+ * a bearer token, the response asks for a new one with an {@code invalid_token} challenge.
+ * Subjects that were decoded into another type than the parameter type, such as the maps decoded for
+ * Object, are converted with the ObjectMapper of the policy.
+ *
+ * @author ohmry
+ */
+public class TokenSubjectArgumentResolver implements HandlerMethodArgumentResolver {
+    /**
+     * Default constructor.
+     */
+    public TokenSubjectArgumentResolver() {}
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(TokenSubject.class);
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer, NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        AccessToken<?> accessToken = (AccessToken<?>) webRequest.getAttribute(TokenFilter.ACCESS_TOKEN_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        Class<?> parameterType = parameter.getParameterType();
+        if (accessToken != null && AccessToken.class.isAssignableFrom(parameterType)) {
+            return accessToken;
+        }
+        // A lazily decoded subject that does not fit the subject type invalidates the token on this call.
+        Object subject = accessToken != null ? accessToken.getSubject() : null;
+        if (accessToken == null || accessToken.isInvalidate()) {
+            TokenSubject tokenSubject = parameter.getParameterAnnotation(TokenSubject.class);
+            if (tokenSubject != null && tokenSubject.required()) {
+                HttpServletResponse response = webRequest.getNativeResponse(HttpServletResponse.class);
+                if (response != null && BearerToken.resolve(webRequest.getHeader(HttpHeaders.AUTHORIZATION)) != null) {
+                    response.setHeader(HttpHeaders.WWW_AUTHENTICATE, BearerToken.INVALID_TOKEN_CHALLENGE);
+                }
+                throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+            }
+            return null;
+        }
+
+        if (subject == null || parameterType.isInstance(subject)) {
+            return subject;
+        }
+        ObjectMapper objectMapper = StatelessTokenPolicyHolder.getStatelessTokenPolicy().getSubjectCodec().getObjectMapper();
+        JavaType javaType = objectMapper.constructType(parameter.getGenericParameterType());
+        return objectMapper.convertValue(subject, javaType);
+    }
+}
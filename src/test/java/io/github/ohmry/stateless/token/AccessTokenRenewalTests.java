@@ -0,0 +1,140 @@
+package io.github.ohmry.stateless.token;
+
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicy;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicyHolder;
+import io.github.ohmry.stateless.token.domain.AccessToken;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mockStatic;
+
+public class AccessTokenRenewalTests {
+    private static final String SECRET = "ABCDEFGH".repeat(8);
+
+    @Test
+    void tokens_are_renewed_within_the_window() {
+        FakeTokenClock clock = new FakeTokenClock();
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret(SECRET)
+                .clock(clock)
+                .tokenTimeout(300L)
+                .accessTokenTimeout(100L)
+                .accessTokenRenewalWindow(0.2)
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            // Given
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(statelessTokenPolicy);
+            String tokenValue = AccessToken.create(new TestUser(1, "User1")).getValue();
+
+            // When
+            AccessToken<TestUser> freshToken = AccessToken.parse(tokenValue, TestUser.class);
+            clock.advance(Duration.ofSeconds(90));
+            AccessToken<TestUser> dueToken = AccessToken.parse(tokenValue, TestUser.class);
+            String renewedValue = dueToken.getRenewedValue();
+            AccessToken<TestUser> renewedToken = AccessToken.parse(renewedValue, TestUser.class);
+
+            // Then
+            assertThat(freshToken.isRenewalDue()).isFalse();
+            assertThat(freshToken.getRenewedValue()).isNull();
+            assertThat(dueToken.isRenewalDue()).isTrue();
+            assertThat(renewedValue).isNotEqualTo(tokenValue);
+            assertThat(renewedToken.isInvalidate()).isFalse();
+            assertThat(renewedToken.getSubject().name).isEqualTo("User1");
+            assertThat(renewedToken.getExpirationSeconds()).isGreaterThan(dueToken.getExpirationSeconds());
+            assertThat(renewedToken.getRenewedValue()).isNull();
+        }
+    }
+
+    @Test
+    void each_token_is_renewed_once() {
+        FakeTokenClock clock = new FakeTokenClock();
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret(SECRET)
+                .clock(clock)
+                .tokenTimeout(300L)
+                .accessTokenTimeout(100L)
+                .accessTokenRenewalWindow(0.2)
+                .build();
+        // The tokens are parsed on other threads, where a static mock of the holder is not visible.
+        StatelessTokenPolicy previousPolicy = StatelessTokenPolicyHolder.getStatelessTokenPolicy();
+        new StatelessTokenPolicyHolder().setStatelessTokenPolicy(statelessTokenPolicy);
+
+        try {
+            // Given
+            String tokenValue = AccessToken.create(new TestUser(1, "User1")).getValue();
+            clock.advance(Duration.ofSeconds(90));
+
+            // When
+            List<CompletableFuture<String>> renewedValues = List.of(
+                    CompletableFuture.supplyAsync(() -> AccessToken.parse(tokenValue, TestUser.class).getRenewedValue()),
+                    CompletableFuture.supplyAsync(() -> AccessToken.parse(tokenValue, TestUser.class).getRenewedValue()),
+                    CompletableFuture.supplyAsync(() -> AccessToken.parse(tokenValue, TestUser.class).getRenewedValue()));
+            String renewedValue = AccessToken.parse(tokenValue, TestUser.class).getRenewedValue();
+
+            // Then
+            assertThat(renewedValues).allSatisfy(future -> assertThat(future.join()).isEqualTo(renewedValue));
+            assertThat(statelessTokenPolicy.getAccessTokenRenewal().getRenewalCount()).isEqualTo(1);
+        } finally {
+            new StatelessTokenPolicyHolder().setStatelessTokenPolicy(previousPolicy);
+        }
+    }
+
+    @Test
+    void renewal_window_is_shorter_than_the_timeout() {
+        // When
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret(SECRET)
+                .tokenTimeout(300L)
+                .accessTokenTimeout(2L)
+                .accessTokenRenewalWindow(0.8)
+                .build();
+
+        // Then
+        assertThat(statelessTokenPolicy.getAccessTokenRenewal().getWindowSeconds()).isEqualTo(1L);
+        assertThatThrownBy(() -> StatelessTokenPolicy.builder()
+                .tokenSecret(SECRET)
+                .tokenTimeout(300L)
+                .accessTokenTimeout(1L)
+                .accessTokenRenewalWindow(0.5)
+                .build())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("accessTokenRenewalWindow");
+    }
+
+    @Test
+    void renewal_is_disabled_by_default() {
+        FakeTokenClock clock = new FakeTokenClock();
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret(SECRET)
+                .clock(clock)
+                .tokenTimeout(300L)
+                .accessTokenTimeout(100L)
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            // Given
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(statelessTokenPolicy);
+            String tokenValue = AccessToken.create(new TestUser(1, "User1")).getValue();
+            clock.advance(Duration.ofSeconds(99));
+
+            // When
+            AccessToken<TestUser> accessToken = AccessToken.parse(tokenValue, TestUser.class);
+
+            // Then
+            assertThat(statelessTokenPolicy.getAccessTokenRenewal()).isNull();
+            assertThat(accessToken.isRenewalDue()).isFalse();
+            assertThat(accessToken.getRenewedValue()).isNull();
+        }
+    }
+}
@@ -5,9 +5,12 @@ import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicy;
 import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicyHolder;
 import io.github.ohmry.stateless.token.domain.AccessToken;
 import io.github.ohmry.stateless.token.domain.Token;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
 import org.junit.jupiter.api.Test;
 import org.mockito.MockedStatic;
 
+import java.time.Duration;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -92,9 +95,11 @@ public class AccessTokenTests {
     }
 
     @Test
-    void expired_access_token() throws InterruptedException {
+    void expired_access_token() {
+        FakeTokenClock clock = new FakeTokenClock();
         StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
                 .tokenSecret("ABCDEFGH".repeat(8))
+                .clock(clock)
                 .tokenTimeout(300L)
                 .accessTokenTimeout(1L)
                 .build();
@@ -116,7 +121,7 @@ public class AccessTokenTests {
             assertThat(accessToken.isInvalidate()).isFalse();
             assertThat(accessToken.getValue()).isNotEqualTo(token.getValue());
 
-            Thread.sleep(1100);
+            clock.advance(Duration.ofSeconds(2));
 
             // When - Parse
             String tokenValue = accessToken.getValue();
@@ -169,4 +174,35 @@ public class AccessTokenTests {
             assertThat(parsedToken.isInvalidate()).isFalse();
         }
     }
+
+    @Test
+    void access_token_mint_and_parse() {
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret("ABCDEFGH".repeat(8))
+                .tokenTimeout(300L)
+                .accessTokenTimeout(600L)
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(statelessTokenPolicy);
+
+            // When
+            String tokenValue = AccessToken.mint(new TestUser(1, "Administrator"));
+            AccessToken<TestUser> parsedToken = AccessToken.parse(tokenValue, TestUser.class);
+            Claims claims = Jwts.parser()
+                                .verifyWith(statelessTokenPolicy.getAccessTokenSecretKey())
+                                .build()
+                                .parseSignedClaims(tokenValue)
+                                .getPayload();
+
+            // Then
+            assertThat(parsedToken.isInvalidate()).isFalse();
+            assertThat(parsedToken.getSubject().name).isEqualTo("Administrator");
+            assertThat(claims.getId()).isNotNull();
+            assertThat(claims.getExpiration().getTime() - claims.getIssuedAt().getTime()).isEqualTo(600_000L);
+            assertThat(AccessToken.create("other").getValue()).startsWith(tokenValue.substring(0, tokenValue.indexOf('.') + 1));
+        }
+    }
 }
@@ -0,0 +1,119 @@
+package io.github.ohmry.stateless.token;
+
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicy;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicyHolder;
+import io.github.ohmry.stateless.token.domain.BulkTokenIssuer;
+import io.github.ohmry.stateless.token.domain.RefreshToken;
+import io.github.ohmry.stateless.token.domain.TokenPair;
+import io.github.ohmry.stateless.token.domain.TokenType;
+import io.github.ohmry.stateless.token.engine.TokenEngine;
+import io.github.ohmry.stateless.token.rotation.InMemoryRefreshTokenStore;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mockStatic;
+
+public class BulkTokenIssuerTests {
+    private static final StatelessTokenPolicy POLICY = StatelessTokenPolicy.builder()
+            .tokenSecret("ABCDEFGH".repeat(8))
+            .tokenTimeout(300L)
+            .accessTokenSecret("12345678".repeat(8))
+            .build();
+
+    @Test
+    void bulk_issue_writes_token_pairs_in_subject_order() throws Exception {
+        BulkTokenIssuer bulkTokenIssuer = BulkTokenIssuer.builder()
+                .policy(POLICY)
+                .chunkSize(7)
+                .build();
+        StringWriter writer = new StringWriter();
+
+        // When
+        BulkTokenIssuer.Result result = bulkTokenIssuer.issue(IntStream.range(0, 50).mapToObj(i -> new TestUser(i, "User" + i)), writer);
+
+        // Then
+        TokenEngine tokenEngine = POLICY.getTokenEngine();
+        List<String> lines = writer.toString().lines().toList();
+        assertThat(lines).hasSize(50);
+        for (int i = 0; i < 50; i++) {
+            String[] columns = lines.get(i).split("\t");
+            assertThat(columns).hasSize(2);
+            TestUser accessSubject = tokenEngine.parseSubject(POLICY.getAccessTokenSecretKey(), columns[0], TestUser.class);
+            TestUser refreshSubject = tokenEngine.parseSubject(POLICY.getRefreshTokenSecretKey(), columns[1], TestUser.class);
+            assertThat(accessSubject.id).isEqualTo(i);
+            assertThat(refreshSubject.id).isEqualTo(i);
+        }
+        assertThat(result.getSubjectCount()).isEqualTo(50);
+        assertThat(result.getTokenCount()).isEqualTo(100);
+        assertThat(result.getTokensPerSecond()).isPositive();
+    }
+
+    @Test
+    void bulk_issue_to_output_stream() throws Exception {
+        BulkTokenIssuer bulkTokenIssuer = BulkTokenIssuer.builder()
+                .policy(POLICY)
+                .tokenTypes(TokenType.TOKEN)
+                .build();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // When
+        BulkTokenIssuer.Result result = bulkTokenIssuer.issue(List.of("a", "b", "c"), outputStream);
+
+        // Then
+        List<String> lines = outputStream.toString(StandardCharsets.US_ASCII).lines().toList();
+        String subject = POLICY.getTokenEngine().parseSubject(POLICY.getTokenSecretKey(), lines.get(2), String.class);
+        assertThat(result.getTokenCount()).isEqualTo(3);
+        assertThat(lines).hasSize(3);
+        assertThat(subject).isEqualTo("c");
+    }
+
+    @Test
+    void bulk_issued_refresh_tokens_can_be_rotated() throws Exception {
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret("ABCDEFGH".repeat(8))
+                .tokenTimeout(300L)
+                .refreshTokenStore(new InMemoryRefreshTokenStore())
+                .build();
+        BulkTokenIssuer bulkTokenIssuer = BulkTokenIssuer.builder()
+                .policy(statelessTokenPolicy)
+                .tokenTypes(TokenType.REFRESH)
+                .chunkSize(3)
+                .build();
+        StringWriter writer = new StringWriter();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            // Given
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(statelessTokenPolicy);
+            bulkTokenIssuer.issue(IntStream.range(0, 5).mapToObj(i -> new TestUser(i, "User" + i)), writer);
+            List<String> lines = writer.toString().lines().toList();
+
+            // When
+            RefreshToken<TestUser> refreshToken = RefreshToken.parse(lines.get(4), TestUser.class);
+            TokenPair<TestUser> tokenPair = refreshToken.rotate();
+
+            // Then
+            assertThat(refreshToken.getFamilyId()).isNotNull();
+            assertThat(RefreshToken.parse(lines.get(0), TestUser.class).getFamilyId()).isNotEqualTo(refreshToken.getFamilyId());
+            assertThat(tokenPair.getAccessToken().getSubject().id).isEqualTo(4);
+            assertThat(tokenPair.getRefreshToken().getFamilyId()).isEqualTo(refreshToken.getFamilyId());
+        }
+    }
+
+    @Test
+    void bulk_issue_rejects_invalid_settings() {
+        assertThatThrownBy(() -> BulkTokenIssuer.builder().chunkSize(0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BulkTokenIssuer.builder().tokenTypes())
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,51 @@
+package io.github.ohmry.stateless.token;
+
+import io.github.ohmry.stateless.token.engine.TokenClock;
+
+import java.time.Duration;
+
+/**
+ * A clock that only moves when told to, for testing token expiration without waiting.
+ */
+public final class FakeTokenClock extends TokenClock {
+    private volatile long nowMillis;
+
+    /**
+     * Creates a clock that starts at the current system time.
+     */
+    public FakeTokenClock() {
+        this(System.currentTimeMillis());
+    }
+
+    /**
+     * Creates a clock that starts at the given time.
+     *
+     * @param nowMillis the initial time in epoch milliseconds
+     */
+    public FakeTokenClock(long nowMillis) {
+        this.nowMillis = nowMillis;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return nowMillis;
+    }
+
+    /**
+     * Moves the clock forward.
+     *
+     * @param duration the duration to move the clock by
+     */
+    public synchronized void advance(Duration duration) {
+        this.nowMillis += duration.toMillis();
+    }
+
+    /**
+     * Sets the clock to the given time.
+     *
+     * @param nowMillis the time in epoch milliseconds
+     */
+    public void set(long nowMillis) {
+        this.nowMillis = nowMillis;
+    }
+}
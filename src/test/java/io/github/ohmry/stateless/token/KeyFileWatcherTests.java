@@ -0,0 +1,94 @@
+package io.github.ohmry.stateless.token;
+
+import io.github.ohmry.stateless.token.configuration.KeyFileWatcher;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicy;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicyConfiguration;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicyHolder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class KeyFileWatcherTests {
+    @TempDir
+    Path directory;
+
+    @Test
+    void reload_publishes_only_complete_changed_policies() throws Exception {
+        Path secretFile = this.directory.resolve("secret");
+        Files.writeString(secretFile, "ABCDEFGH".repeat(8) + "\n");
+        ConfigurableEnvironment environment = environment(secretFile);
+        StatelessTokenPolicyConfiguration configuration = new StatelessTokenPolicyConfiguration();
+        AtomicReference<StatelessTokenPolicy> published = new AtomicReference<>();
+        KeyFileWatcher keyFileWatcher = new KeyFileWatcher(List.of(secretFile), () -> configuration.statelessTokenPolicy(environment), published::set);
+
+        // Unchanged files do not rebuild the policy
+        assertThat(keyFileWatcher.reload()).isFalse();
+
+        // A weak secret keeps the current policy
+        Files.writeString(secretFile, "short");
+        assertThat(keyFileWatcher.reload()).isFalse();
+        assertThat(published.get()).isNull();
+
+        // A valid secret publishes a new policy
+        Files.writeString(secretFile, "12345678".repeat(8));
+        assertThat(keyFileWatcher.reload()).isTrue();
+        assertThat(published.get().getTokenSecretKey().getEncoded()).isEqualTo("12345678".repeat(8).getBytes());
+    }
+
+    @Test
+    void watcher_publishes_policy_to_holder() throws Exception {
+        Path secretFile = this.directory.resolve("secret");
+        Files.writeString(secretFile, "ABCDEFGH".repeat(8));
+
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.setEnvironment(environment(secretFile));
+        context.register(StatelessTokenPolicyConfiguration.class);
+        context.refresh();
+
+        try {
+            // Given
+            StatelessTokenPolicy initialPolicy = StatelessTokenPolicyHolder.getStatelessTokenPolicy();
+            StatelessTokenPolicy injectedPolicy = context.getBean(StatelessTokenPolicy.class);
+            assertThat(context.getBean(KeyFileWatcher.class)).isNotNull();
+            assertThat(injectedPolicy.getTokenSecretKey().getEncoded()).isEqualTo("ABCDEFGH".repeat(8).getBytes());
+            assertThat(initialPolicy.getTokenSecretKey().getEncoded()).isEqualTo("ABCDEFGH".repeat(8).getBytes());
+
+            // When
+            Path newSecretFile = this.directory.resolve("secret.new");
+            Files.writeString(newSecretFile, "12345678".repeat(8));
+            Files.move(newSecretFile, secretFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            // Then
+            long deadline = System.currentTimeMillis() + 20_000;
+            while (StatelessTokenPolicyHolder.getStatelessTokenPolicy() == initialPolicy && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertThat(StatelessTokenPolicyHolder.getStatelessTokenPolicy().getTokenSecretKey().getEncoded())
+                    .isEqualTo("12345678".repeat(8).getBytes());
+            assertThat(injectedPolicy.getTokenSecretKey().getEncoded()).isEqualTo("12345678".repeat(8).getBytes());
+            assertThat(injectedPolicy.getTokenEngine()).isSameAs(StatelessTokenPolicyHolder.getStatelessTokenPolicy().getTokenEngine());
+        } finally {
+            context.close();
+        }
+    }
+
+    private static ConfigurableEnvironment environment(Path secretFile) {
+        ConfigurableEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("test", Map.of(
+                "stateless.token.secretFile", secretFile.toString(),
+                "stateless.token.timeout", "300")));
+        return environment;
+    }
+}
@@ -0,0 +1,169 @@
+package io.github.ohmry.stateless.token;
+
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicy;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicyConfiguration;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicyHolder;
+import io.github.ohmry.stateless.token.domain.AccessToken;
+import io.github.ohmry.stateless.token.domain.RefreshToken;
+import io.github.ohmry.stateless.token.engine.SigningKey;
+import io.github.ohmry.stateless.token.engine.TokenAlgorithm;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+import org.springframework.core.env.Environment;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mockStatic;
+
+public class KeyRingTests {
+    private static final String OLD_SECRET = "ABCDEFGH".repeat(8);
+    private static final String NEW_SECRET = "12345678".repeat(8);
+
+    @Test
+    void tokens_of_previous_key_stay_valid_after_rotation() {
+        StatelessTokenPolicy oldPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret(OLD_SECRET)
+                .tokenTimeout(300L)
+                .build();
+        StatelessTokenPolicy newPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret(NEW_SECRET)
+                .tokenVerificationKeys(SigningKey.hmac(TokenAlgorithm.HS512, OLD_SECRET))
+                .tokenTimeout(300L)
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            // Given
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(oldPolicy);
+            String oldAccessToken = AccessToken.create(new TestUser(1, "User1")).getValue();
+            String oldRefreshToken = RefreshToken.create(new TestUser(1, "User1")).getValue();
+
+            // When
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(newPolicy);
+            AccessToken<TestUser> accessToken = AccessToken.parse(oldAccessToken, TestUser.class);
+            RefreshToken<TestUser> refreshToken = RefreshToken.parse(oldRefreshToken, TestUser.class);
+            String newAccessToken = AccessToken.create(new TestUser(2, "User2")).getValue();
+
+            // Then
+            assertThat(accessToken.isInvalidate()).isFalse();
+            assertThat(accessToken.getSubject().id).isEqualTo(1);
+            assertThat(refreshToken.isInvalidate()).isFalse();
+            assertThat(header(oldAccessToken)).contains("\"kid\":\"" + oldPolicy.getAccessTokenSigningKey().getKeyId() + "\"");
+            assertThat(header(newAccessToken)).contains("\"kid\":\"" + newPolicy.getAccessTokenSigningKey().getKeyId() + "\"");
+            assertThat(newPolicy.getAccessTokenVerificationKeys()).hasSize(1);
+
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(oldPolicy);
+            assertThat(AccessToken.parse(newAccessToken, TestUser.class).isInvalidate()).isTrue();
+        }
+    }
+
+    @Test
+    void tokens_without_key_id_try_every_key() {
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret(NEW_SECRET)
+                .tokenVerificationKeys(SigningKey.hmac(TokenAlgorithm.HS512, OLD_SECRET))
+                .tokenTimeout(300L)
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(statelessTokenPolicy);
+
+            // Given
+            String oldTokenValue = legacyToken(OLD_SECRET, "\"old\"");
+            String newTokenValue = legacyToken(NEW_SECRET, "\"new\"");
+            String unknownTokenValue = legacyToken("ZYXWVUTS".repeat(8), "\"unknown\"");
+
+            // When
+            AccessToken<String> oldToken = AccessToken.parse(oldTokenValue, String.class);
+            AccessToken<String> newToken = AccessToken.parse(newTokenValue, String.class);
+            AccessToken<String> unknownToken = AccessToken.parse(unknownTokenValue, String.class);
+
+            // Then
+            assertThat(header(oldTokenValue)).doesNotContain("kid");
+            assertThat(oldToken.getSubject()).isEqualTo("old");
+            assertThat(newToken.getSubject()).isEqualTo("new");
+            assertThat(unknownToken.isInvalidate()).isTrue();
+        }
+    }
+
+    @Test
+    void tokens_with_unknown_key_id_are_rejected() {
+        StatelessTokenPolicy otherPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret("ZYXWVUTS".repeat(8))
+                .tokenTimeout(300L)
+                .build();
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret(NEW_SECRET)
+                .tokenVerificationKeys(SigningKey.hmac(TokenAlgorithm.HS512, OLD_SECRET))
+                .tokenTimeout(300L)
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            // Given
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(otherPolicy);
+            String tokenValue = AccessToken.create("subject").getValue();
+
+            // When
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(statelessTokenPolicy);
+            AccessToken<String> token = AccessToken.parse(tokenValue, String.class);
+
+            // Then
+            assertThat(token.isInvalidate()).isTrue();
+        }
+    }
+
+    @Test
+    void previous_secrets_from_properties() {
+        StatelessTokenPolicyConfiguration configuration = new StatelessTokenPolicyConfiguration();
+        Environment environment = Mockito.mock(Environment.class);
+
+        // Given
+        Mockito.when(environment.getProperty("stateless.token.secret"))
+                .thenReturn(NEW_SECRET);
+        Mockito.when(environment.getProperty("stateless.token.previousSecrets"))
+                .thenReturn(OLD_SECRET + ", " + "ZYXWVUTS".repeat(8));
+        Mockito.when(environment.getProperty("stateless.token.timeout"))
+                .thenReturn("300");
+        Mockito.when(environment.getProperty("stateless.refreshToken.secret"))
+                .thenReturn("ABCD1234".repeat(8));
+
+        // When
+        StatelessTokenPolicy statelessTokenPolicy = configuration.statelessTokenPolicy(environment);
+
+        // Then
+        assertThat(statelessTokenPolicy.getTokenVerificationKeys()).hasSize(2);
+        assertThat(statelessTokenPolicy.getAccessTokenVerificationKeys()).hasSize(2);
+        assertThat(statelessTokenPolicy.getRefreshTokenVerificationKeys()).isEmpty();
+    }
+
+    private static String legacyToken(String secret, String subject) {
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                   .subject(subject)
+                   .signWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)), Jwts.SIG.HS512)
+                   .issuedAt(new Date(now))
+                   .expiration(new Date(now + 300_000))
+                   .compact();
+    }
+
+    private static String header(String tokenValue) {
+        return new String(Base64.getUrlDecoder().decode(tokenValue.substring(0, tokenValue.indexOf('.'))), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,135 @@
+package io.github.ohmry.stateless.token;
+
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicy;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicyHolder;
+import io.github.ohmry.stateless.token.domain.AccessToken;
+import io.github.ohmry.stateless.token.domain.Token;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mockStatic;
+
+public class LazySubjectTests {
+    private static final String SECRET = "ABCDEFGH".repeat(8);
+
+    @Test
+    void subject_is_decoded_on_first_access() {
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret(SECRET)
+                .tokenTimeout(300L)
+                .lazySubjects(true)
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            // Given
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(statelessTokenPolicy);
+            String tokenValue = AccessToken.create(new TestUser(1, "User1")).getValue();
+
+            // When
+            AccessToken<TestUser> accessToken = AccessToken.parse(tokenValue, TestUser.class);
+
+            // Then
+            assertThat(accessToken.isInvalidate()).isFalse();
+            assertThat(accessToken.getSubject().name).isEqualTo("User1");
+            assertThat(accessToken.getSubject()).isSameAs(accessToken.getSubject());
+        }
+    }
+
+    @Test
+    void tampered_and_expired_tokens_are_rejected_eagerly() {
+        FakeTokenClock clock = new FakeTokenClock();
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret(SECRET)
+                .clock(clock)
+                .tokenTimeout(300L)
+                .lazySubjects(true)
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            // Given
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(statelessTokenPolicy);
+            String tokenValue = Token.create(new TestUser(1, "User1")).getValue();
+            String otherTokenValue = Token.create(new TestUser(2, "User2")).getValue();
+            String expiredTokenValue = Token.create(new TestUser(1, "User1"), 1L).getValue();
+            clock.advance(Duration.ofSeconds(2));
+
+            // When
+            Token<TestUser> tamperedToken = Token.parse(tokenValue.substring(0, tokenValue.lastIndexOf('.')) + otherTokenValue.substring(otherTokenValue.lastIndexOf('.')), TestUser.class);
+            Token<TestUser> expiredToken = Token.parse(expiredTokenValue, TestUser.class);
+
+            // Then
+            assertThat(tamperedToken.isInvalidate()).isTrue();
+            assertThat(tamperedToken.getSubject()).isNull();
+            assertThat(expiredToken.isInvalidate()).isTrue();
+            assertThat(expiredToken.getSubject()).isNull();
+        }
+    }
+
+    @Test
+    void undecodable_subject_invalidates_the_token_on_access() {
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret(SECRET)
+                .tokenTimeout(300L)
+                .lazySubjects(true)
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            // Given
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(statelessTokenPolicy);
+            String tokenValue = Token.create("not a user").getValue();
+
+            // When
+            Token<TestUser> token = Token.parse(tokenValue, TestUser.class);
+            boolean invalidBeforeAccess = token.isInvalidate();
+
+            // Then
+            assertThat(invalidBeforeAccess).isFalse();
+            assertThat(token.getSubject()).isNull();
+            assertThat(token.isInvalidate()).isTrue();
+        }
+    }
+
+    @Test
+    void concurrent_first_accesses_see_the_same_subject() {
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret(SECRET)
+                .tokenTimeout(300L)
+                .lazySubjects(true)
+                .verifiedTokenCache(100L)
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            // Given
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(statelessTokenPolicy);
+            String tokenValue = AccessToken.create(new TestUser(1, "User1")).getValue();
+            AccessToken<TestUser> accessToken = AccessToken.parse(tokenValue, TestUser.class);
+
+            // When
+            List<CompletableFuture<TestUser>> subjects = List.of(
+                    CompletableFuture.supplyAsync(accessToken::getSubject),
+                    CompletableFuture.supplyAsync(accessToken::getSubject),
+                    CompletableFuture.supplyAsync(accessToken::getSubject));
+            TestUser subject = subjects.get(0).join();
+            AccessToken<TestUser> cachedToken = AccessToken.parse(tokenValue, TestUser.class);
+
+            // Then
+            assertThat(subjects).allSatisfy(future -> assertThat(future.join()).isSameAs(subject));
+            assertThat(cachedToken.getSubject()).isNotSameAs(subject);
+            assertThat(cachedToken.getSubject().name).isEqualTo("User1");
+            assertThat(statelessTokenPolicy.getVerifiedTokenCache().getHitCount()).isEqualTo(1);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package io.github.ohmry.stateless.token;
+
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicy;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicyConfiguration;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicyHolder;
+import io.github.ohmry.stateless.token.domain.RefreshToken;
+import io.github.ohmry.stateless.token.domain.TokenPair;
+import io.github.ohmry.stateless.token.rotation.InMemoryRefreshTokenStore;
+import io.github.ohmry.stateless.token.rotation.RefreshTokenRotationException;
+import io.github.ohmry.stateless.token.rotation.RefreshTokenStore;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mockStatic;
+
+public class RefreshTokenRotationTests {
+    private static final String SECRET = "ABCDEFGH".repeat(8);
+
+    @Test
+    void rotation_issues_a_new_pair_of_the_same_family() {
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret(SECRET)
+                .tokenTimeout(300L)
+                .refreshTokenStore(new InMemoryRefreshTokenStore())
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            // Given
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(statelessTokenPolicy);
+            RefreshToken<TestUser> refreshToken = RefreshToken.create(new TestUser(1, "User1"));
+
+            // When
+            TokenPair<TestUser> tokenPair = RefreshToken.parse(refreshToken.getValue(), TestUser.class).rotate();
+            TokenPair<TestUser> nextTokenPair = RefreshToken.parse(tokenPair.getRefreshToken().getValue(), TestUser.class).rotate();
+
+            // Then
+            assertThat(tokenPair.getAccessToken().isInvalidate()).isFalse();
+            assertThat(tokenPair.getAccessToken().getSubject().id).isEqualTo(1);
+            assertThat(tokenPair.getRefreshToken().getFamilyId()).isEqualTo(refreshToken.getFamilyId());
+            assertThat(tokenPair.getRefreshToken().getTokenId()).isNotEqualTo(refreshToken.getTokenId());
+            assertThat(nextTokenPair.getRefreshToken().getFamilyId()).isEqualTo(refreshToken.getFamilyId());
+        }
+    }
+
+    @Test
+    void reused_refresh_token_revokes_the_family() {
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret(SECRET)
+                .tokenTimeout(300L)
+                .refreshTokenStore(new InMemoryRefreshTokenStore())
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            // Given
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(statelessTokenPolicy);
+            String refreshTokenValue = RefreshToken.create(new TestUser(1, "User1")).getValue();
+            TokenPair<TestUser> tokenPair = RefreshToken.parse(refreshTokenValue, TestUser.class).rotate();
+
+            // When
+            RefreshToken<TestUser> reusedToken = RefreshToken.parse(refreshTokenValue, TestUser.class);
+
+            // Then
+            assertThatThrownBy(reusedToken::rotate)
+                    .isInstanceOfSatisfying(RefreshTokenRotationException.class,
+                            e -> assertThat(e.getReason()).isEqualTo(RefreshTokenRotationException.Reason.REUSED));
+            assertThatThrownBy(tokenPair.getRefreshToken()::rotate)
+                    .isInstanceOfSatisfying(RefreshTokenRotationException.class,
+                            e -> assertThat(e.getReason()).isEqualTo(RefreshTokenRotationException.Reason.REUSED));
+        }
+    }
+
+    @Test
+    void invalid_and_familyless_refresh_tokens_are_refused() {
+        StatelessTokenPolicy policyWithoutRotation = StatelessTokenPolicy.builder()
+                .tokenSecret(SECRET)
+                .tokenTimeout(300L)
+                .build();
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret(SECRET)
+                .tokenTimeout(300L)
+                .refreshTokenStore(new InMemoryRefreshTokenStore())
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            // Given
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(policyWithoutRotation);
+            RefreshToken<TestUser> familylessToken = RefreshToken.create(new TestUser(1, "User1"));
+            assertThatThrownBy(familylessToken::rotate).isInstanceOf(IllegalStateException.class);
+
+            // When
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(statelessTokenPolicy);
+            RefreshToken<TestUser> parsedToken = RefreshToken.parse(familylessToken.getValue(), TestUser.class);
+            RefreshToken<TestUser> invalidToken = RefreshToken.parse("invalid", TestUser.class);
+
+            // Then
+            assertThat(parsedToken.getFamilyId()).isNull();
+            assertThatThrownBy(parsedToken::rotate)
+                    .isInstanceOfSatisfying(RefreshTokenRotationException.class,
+                            e -> assertThat(e.getReason()).isEqualTo(RefreshTokenRotationException.Reason.UNKNOWN_FAMILY));
+            assertThatThrownBy(invalidToken::rotate)
+                    .isInstanceOfSatisfying(RefreshTokenRotationException.class,
+                            e -> assertThat(e.getReason()).isEqualTo(RefreshTokenRotationException.Reason.INVALID));
+        }
+    }
+
+    @Test
+    void only_one_concurrent_rotation_succeeds() throws Exception {
+        // Given
+        InMemoryRefreshTokenStore refreshTokenStore = new InMemoryRefreshTokenStore(4);
+        long expirationSeconds = System.currentTimeMillis() / 1000 + 300;
+        refreshTokenStore.register("family", "token-0", expirationSeconds);
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        List<Callable<RefreshTokenStore.Rotation>> rotations = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            String nextTokenId = "token-" + (i + 1);
+            rotations.add(() -> refreshTokenStore.rotate("family", "token-0", nextTokenId, expirationSeconds));
+        }
+
+        // When
+        List<RefreshTokenStore.Rotation> outcomes = new ArrayList<>();
+        for (Future<RefreshTokenStore.Rotation> future : executorService.invokeAll(rotations)) {
+            outcomes.add(future.get());
+        }
+        executorService.shutdown();
+
+        // Then
+        assertThat(outcomes).filteredOn(outcome -> outcome == RefreshTokenStore.Rotation.ROTATED).hasSize(1);
+        assertThat(outcomes).filteredOn(outcome -> outcome == RefreshTokenStore.Rotation.REUSED).hasSize(7);
+    }
+
+    @Test
+    void expired_families_are_pruned() {
+        // Given
+        InMemoryRefreshTokenStore refreshTokenStore = new InMemoryRefreshTokenStore(1);
+        long nowSeconds = System.currentTimeMillis() / 1000;
+        refreshTokenStore.register("expired", "token", nowSeconds - 10);
+        refreshTokenStore.register("live", "token", nowSeconds + 300);
+
+        // When
+        RefreshTokenStore.Rotation rotation = refreshTokenStore.rotate("expired", "token", "next", nowSeconds + 300);
+
+        // Then
+        assertThat(rotation).isEqualTo(RefreshTokenStore.Rotation.UNKNOWN);
+        assertThat(refreshTokenStore.size()).isEqualTo(1);
+    }
+
+    @Test
+    void rotation_property_creates_the_in_memory_store() {
+        // Given
+        ConfigurableEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("test", Map.of(
+                "stateless.token.secret", SECRET,
+                "stateless.token.timeout", "300",
+                "stateless.refreshToken.rotation.enabled", "true")));
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.setEnvironment(environment);
+        context.register(StatelessTokenPolicyConfiguration.class);
+
+        // When
+        context.refresh();
+
+        // Then
+        assertThat(context.getBean(StatelessTokenPolicy.class).getRefreshTokenStore())
+                .isSameAs(context.getBean(RefreshTokenStore.class));
+        context.close();
+    }
+}
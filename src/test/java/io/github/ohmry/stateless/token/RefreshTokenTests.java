@@ -8,6 +8,7 @@ import io.github.ohmry.stateless.token.domain.Token;
 import org.junit.jupiter.api.Test;
 import org.mockito.MockedStatic;
 
+import java.time.Duration;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -92,9 +93,11 @@ public class RefreshTokenTests {
     }
 
     @Test
-    void expired_refresh_token() throws InterruptedException {
+    void expired_refresh_token() {
+        FakeTokenClock clock = new FakeTokenClock();
         StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
                 .tokenSecret("ABCDEFGH".repeat(8))
+                .clock(clock)
                 .tokenTimeout(300L)
                 .refreshTokenTimeout(1L)
                 .build();
@@ -116,7 +119,7 @@ public class RefreshTokenTests {
             assertThat(refreshToken.isInvalidate()).isFalse();
             assertThat(refreshToken.getValue()).isNotEqualTo(token.getValue());
 
-            Thread.sleep(1100);
+            clock.advance(Duration.ofSeconds(2));
 
             // When - Parse
             String tokenValue = refreshToken.getValue();
@@ -0,0 +1,90 @@
+package io.github.ohmry.stateless.token;
+
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicy;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicyHolder;
+import io.github.ohmry.stateless.token.domain.AccessToken;
+import io.github.ohmry.stateless.token.domain.Token;
+import io.github.ohmry.stateless.token.engine.TokenRecentlyRejectedException;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mockStatic;
+
+public class RejectedTokenCacheTests {
+    private static final String SECRET = "ABCDEFGH".repeat(8);
+
+    @Test
+    void replayed_tokens_are_rejected_without_verification() {
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret(SECRET)
+                .tokenTimeout(300L)
+                .rejectedTokenCache(100L)
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            // Given
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(statelessTokenPolicy);
+            String tokenValue = AccessToken.create(new TestUser(1, "User1")).getValue();
+            String tamperedTokenValue = tokenValue.substring(0, tokenValue.length() - 4) + "AAAA";
+
+            // When
+            AccessToken<TestUser> rejectedToken = AccessToken.parse(tamperedTokenValue, TestUser.class);
+            AccessToken<TestUser> replayedToken = AccessToken.parse(tamperedTokenValue, TestUser.class);
+            AccessToken<TestUser> validToken = AccessToken.parse(tokenValue, TestUser.class);
+
+            // Then
+            assertThat(rejectedToken.isInvalidate()).isTrue();
+            assertThat(replayedToken.isInvalidate()).isTrue();
+            assertThat(validToken.isInvalidate()).isFalse();
+            assertThat(statelessTokenPolicy.getRejectedTokenCache().getHitCount()).isEqualTo(1);
+            assertThatThrownBy(() -> statelessTokenPolicy.getTokenEngine().parse(statelessTokenPolicy.getAccessTokenSigningKey(), tamperedTokenValue))
+                    .isInstanceOf(TokenRecentlyRejectedException.class)
+                    .hasCauseInstanceOf(SignatureException.class);
+        }
+    }
+
+    @Test
+    void undecodable_subjects_are_only_rejected_for_the_same_subject_type() {
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret(SECRET)
+                .tokenTimeout(300L)
+                .rejectedTokenCache(100L)
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            // Given
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(statelessTokenPolicy);
+            String tokenValue = Token.create("not a user").getValue();
+
+            // When
+            Token<TestUser> rejectedToken = Token.parse(tokenValue, TestUser.class);
+            Token<TestUser> replayedToken = Token.parse(tokenValue, TestUser.class);
+            Token<String> stringToken = Token.parse(tokenValue, String.class);
+
+            // Then
+            assertThat(rejectedToken.isInvalidate()).isTrue();
+            assertThat(replayedToken.isInvalidate()).isTrue();
+            assertThat(stringToken.isInvalidate()).isFalse();
+            assertThat(stringToken.getSubject()).isEqualTo("not a user");
+            assertThat(statelessTokenPolicy.getRejectedTokenCache().getHitCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void rejected_token_cache_is_disabled_by_default() {
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret(SECRET)
+                .tokenTimeout(300L)
+                .build();
+
+        // When & Then
+        assertThat(statelessTokenPolicy.getRejectedTokenCache()).isNull();
+    }
+}
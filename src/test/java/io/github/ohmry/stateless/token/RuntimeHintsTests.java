@@ -0,0 +1,75 @@
+package io.github.ohmry.stateless.token;
+
+import io.github.ohmry.stateless.token.aot.StatelessTokenRuntimeHints;
+import io.github.ohmry.stateless.token.aot.TokenSubjectTypes;
+import io.github.ohmry.stateless.token.aot.TokenSubjectTypesAotProcessor;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.generate.GenerationContext;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.beans.factory.aot.BeanFactoryInitializationAotContribution;
+import org.springframework.beans.factory.aot.BeanFactoryInitializationCode;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RuntimeHintsTests {
+    @Test
+    void jjwt_implementation_classes_are_registered() {
+        // Given
+        RuntimeHints hints = new RuntimeHints();
+
+        // When
+        new StatelessTokenRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        // Then
+        assertThat(RuntimeHintsPredicates.reflection()
+                .onType(TypeReference.of("io.jsonwebtoken.impl.DefaultJwtParserBuilder$Supplier"))
+                .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection()
+                .onType(TypeReference.of("io.jsonwebtoken.impl.security.StandardSecureDigestAlgorithms"))
+                .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.resource().forResource("META-INF/services/io.jsonwebtoken.io.Deserializer")).accepts(hints);
+    }
+
+    @Test
+    void declared_subject_types_are_registered_for_binding() {
+        // Given
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("application", new RootBeanDefinition(Application.class));
+        beanFactory.registerSingleton("environment", new MockEnvironment().withProperty("stateless.token.aot.subjectTypes", Map.class.getName()));
+        RuntimeHints hints = new RuntimeHints();
+        GenerationContext generationContext = mock(GenerationContext.class);
+        when(generationContext.getRuntimeHints()).thenReturn(hints);
+
+        // When
+        BeanFactoryInitializationAotContribution contribution = new TokenSubjectTypesAotProcessor().processAheadOfTime(beanFactory);
+        contribution.applyTo(generationContext, mock(BeanFactoryInitializationCode.class));
+
+        // Then
+        assertThat(RuntimeHintsPredicates.reflection().onType(TestUser.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(Map.class)).accepts(hints);
+    }
+
+    @Test
+    void nothing_is_contributed_without_subject_types() {
+        // Given
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("other", new RootBeanDefinition(Object.class));
+
+        // When & Then
+        assertThat(new TokenSubjectTypesAotProcessor().processAheadOfTime(beanFactory)).isNull();
+    }
+
+    @TokenSubjectTypes(TestUser.class)
+    static class Application {
+    }
+}
@@ -170,4 +170,40 @@ public class StatelessTokenPolicyConfigurationTests {
         assertThat(statelessTokenPolicy.getAccessTokenTimeoutSeconds()).isEqualTo(60 * 30L);
         assertThat(statelessTokenPolicy.getRefreshTokenTimeoutSeconds()).isEqualTo(600);
     }
+
+    @Test
+    void stateless_token_cache_enabled() {
+        StatelessTokenPolicyConfiguration configuration = new StatelessTokenPolicyConfiguration();
+        Environment environment = Mockito.mock(Environment.class);
+
+        // When
+        Mockito.when(environment.getProperty("stateless.token.secret"))
+                .thenReturn("ABCDEFGH".repeat(8));
+        Mockito.when(environment.getProperty("stateless.token.timeout"))
+                .thenReturn("300");
+        Mockito.when(environment.getProperty("stateless.token.cache.enabled"))
+                .thenReturn("true");
+
+        // Then
+        StatelessTokenPolicy statelessTokenPolicy = configuration.statelessTokenPolicy(environment);
+        assertThat(statelessTokenPolicy.getVerifiedTokenCache()).isNotNull();
+    }
+
+    @Test
+    void stateless_token_rejected_cache_enabled() {
+        StatelessTokenPolicyConfiguration configuration = new StatelessTokenPolicyConfiguration();
+        Environment environment = Mockito.mock(Environment.class);
+
+        // When
+        Mockito.when(environment.getProperty("stateless.token.secret"))
+                .thenReturn("ABCDEFGH".repeat(8));
+        Mockito.when(environment.getProperty("stateless.token.timeout"))
+                .thenReturn("300");
+        Mockito.when(environment.getProperty("stateless.token.rejectedCache.enabled"))
+                .thenReturn("true");
+
+        // Then
+        StatelessTokenPolicy statelessTokenPolicy = configuration.statelessTokenPolicy(environment);
+        assertThat(statelessTokenPolicy.getRejectedTokenCache()).isNotNull();
+    }
 }
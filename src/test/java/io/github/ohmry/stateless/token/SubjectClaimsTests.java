@@ -0,0 +1,171 @@
+package io.github.ohmry.stateless.token;
+
+import com.fasterxml.jackson.core.json.JsonWriteFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.github.ohmry.stateless.token.codec.SubjectEncoding;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicy;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicyHolder;
+import io.github.ohmry.stateless.token.domain.AccessToken;
+import io.github.ohmry.stateless.token.domain.Token;
+import io.github.ohmry.stateless.token.engine.SigningKey;
+import io.github.ohmry.stateless.token.engine.TokenAlgorithm;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Base64;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mockStatic;
+
+public class SubjectClaimsTests {
+    private static final String SECRET = "ABCDEFGH".repeat(8);
+
+    private static final StatelessTokenPolicy CLAIMS_POLICY = StatelessTokenPolicy.builder()
+            .tokenSecret(SECRET)
+            .tokenTimeout(300L)
+            .subjectEncoding(SubjectEncoding.CLAIMS)
+            .build();
+
+    @Test
+    void subject_properties_are_written_as_top_level_claims() {
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            // Given
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(CLAIMS_POLICY);
+
+            // When
+            String tokenValue = AccessToken.create(new TestUser(1, "User1")).getValue();
+            AccessToken<TestUser> accessToken = AccessToken.parse(tokenValue, TestUser.class);
+
+            // Then
+            assertThat(payload(tokenValue)).contains("\"id\":1", "\"name\":\"User1\"").doesNotContain("\"sub\"");
+            assertThat(accessToken.isInvalidate()).isFalse();
+            assertThat(accessToken.getSubject().id).isEqualTo(1);
+            assertThat(accessToken.getSubject().name).isEqualTo("User1");
+        }
+    }
+
+    @Test
+    void subjects_that_are_not_objects_are_written_into_the_subject_claim() {
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            // Given
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(CLAIMS_POLICY);
+
+            // When
+            String tokenValue = Token.create("user@example.com").getValue();
+            Token<String> token = Token.parse(tokenValue, String.class);
+
+            // Then
+            assertThat(payload(tokenValue)).contains("\"sub\"");
+            assertThat(token.getSubject()).isEqualTo("user@example.com");
+        }
+    }
+
+    @Test
+    void subject_properties_named_like_registered_claims_are_rejected() {
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            // Given
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(CLAIMS_POLICY);
+
+            // When & Then
+            assertThatThrownBy(() -> Token.create(Map.of("exp", 0)))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void json_and_claims_tokens_are_read_by_either_policy() {
+        StatelessTokenPolicy jsonPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret(SECRET)
+                .tokenTimeout(300L)
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            // Given
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(jsonPolicy);
+            String jsonTokenValue = AccessToken.create(new TestUser(1, "User1")).getValue();
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(CLAIMS_POLICY);
+            String claimsTokenValue = AccessToken.create(new TestUser(2, "User2")).getValue();
+
+            // When
+            AccessToken<TestUser> legacyToken = AccessToken.parse(jsonTokenValue, TestUser.class);
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(jsonPolicy);
+            AccessToken<TestUser> claimsToken = AccessToken.parse(claimsTokenValue, TestUser.class);
+
+            // Then
+            assertThat(legacyToken.getSubject().id).isEqualTo(1);
+            assertThat(claimsToken.getSubject().id).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void claims_subjects_with_asymmetric_keys() throws Exception {
+        KeyPair keyPair = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSigningKey(SigningKey.asymmetric(TokenAlgorithm.EdDSA, keyPair.getPrivate(), keyPair.getPublic()))
+                .tokenTimeout(300L)
+                .subjectEncoding(SubjectEncoding.CLAIMS)
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            // Given
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(statelessTokenPolicy);
+
+            // When
+            String tokenValue = AccessToken.create(new TestUser(1, "User1")).getValue();
+            AccessToken<TestUser> accessToken = AccessToken.parse(tokenValue, TestUser.class);
+
+            // Then
+            assertThat(accessToken.isInvalidate()).isFalse();
+            assertThat(accessToken.getSubject().name).isEqualTo("User1");
+        }
+    }
+
+    @Test
+    void subject_claims_are_written_with_the_policy_object_mapper() {
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret(SECRET)
+                .tokenTimeout(300L)
+                .subjectEncoding(SubjectEncoding.CLAIMS)
+                .objectMapper(JsonMapper.builder().enable(JsonWriteFeature.ESCAPE_NON_ASCII).build())
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            // Given
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(statelessTokenPolicy);
+
+            // When
+            String tokenValue = AccessToken.create(new TestUser(1, "J\u00fcrgen")).getValue();
+            AccessToken<TestUser> accessToken = AccessToken.parse(tokenValue, TestUser.class);
+
+            // Then
+            assertThat(payload(tokenValue)).contains("\"name\":\"J\\u00FCrgen\"");
+            assertThat(accessToken.getSubject().name).isEqualTo("J\u00fcrgen");
+        }
+    }
+
+    private static String payload(String tokenValue) {
+        String[] segments = tokenValue.split("\\.");
+        return new String(Base64.getUrlDecoder().decode(segments[1]), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,70 @@
+package io.github.ohmry.stateless.token;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import io.github.ohmry.stateless.token.codec.SubjectCodec;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicy;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicyHolder;
+import io.github.ohmry.stateless.token.domain.Token;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mockStatic;
+
+public class SubjectCodecTests {
+    @Test
+    void codec_reuses_readers_and_writers() {
+        SubjectCodec subjectCodec = new SubjectCodec();
+
+        assertThat(subjectCodec.readerFor(TestUser.class)).isSameAs(subjectCodec.readerFor(TestUser.class));
+        assertThat(subjectCodec.writerFor(TestUser.class)).isSameAs(subjectCodec.writerFor(TestUser.class));
+        assertThat(subjectCodec.readerFor(new TypeReference<Map<String, Object>>() {}.getType()))
+                .isSameAs(subjectCodec.readerFor(new TypeReference<Map<String, Object>>() {}.getType()));
+    }
+
+    @Test
+    void codec_write_and_read() throws Exception {
+        SubjectCodec subjectCodec = new SubjectCodec();
+        TestUser user = new TestUser(1, "Administrator");
+
+        // When
+        String value = subjectCodec.write(user);
+        TestUser parsedUser = subjectCodec.read(value, TestUser.class);
+        Map<String, Object> parsedMap = subjectCodec.read(value, new TypeReference<Map<String, Object>>() {});
+
+        // Then
+        assertThat(parsedUser.id).isEqualTo(user.id);
+        assertThat(parsedUser.name).isEqualTo(user.name);
+        assertThat(parsedMap).containsEntry("name", "Administrator");
+    }
+
+    @Test
+    void policy_object_mapper_is_used_for_subjects() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .setPropertyNamingStrategy(PropertyNamingStrategies.UPPER_CAMEL_CASE);
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret("ABCDEFGH".repeat(8))
+                .tokenTimeout(300L)
+                .objectMapper(objectMapper)
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(statelessTokenPolicy);
+
+            // When
+            Token<TestUser> token = Token.create(new TestUser(1, "Administrator"));
+            Token<Map<String, Object>> parsedToken = Token.parse(token.getValue(), new TypeReference<>() {});
+
+            // Then
+            assertThat(statelessTokenPolicy.getSubjectCodec().getObjectMapper()).isSameAs(objectMapper);
+            assertThat(parsedToken.isInvalidate()).isFalse();
+            assertThat(parsedToken.getSubject()).containsEntry("Name", "Administrator");
+        }
+    }
+}
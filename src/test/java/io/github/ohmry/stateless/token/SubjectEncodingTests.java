@@ -0,0 +1,180 @@
+package io.github.ohmry.stateless.token;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.github.ohmry.stateless.token.codec.SubjectCodec;
+import io.github.ohmry.stateless.token.codec.SubjectEncoding;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicy;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicyConfiguration;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicyHolder;
+import io.github.ohmry.stateless.token.domain.AccessToken;
+import io.github.ohmry.stateless.token.domain.Token;
+import io.github.ohmry.stateless.token.engine.SigningKey;
+import io.github.ohmry.stateless.token.engine.TokenAlgorithm;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+import org.springframework.core.env.Environment;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mockStatic;
+
+public class SubjectEncodingTests {
+    private static final String SECRET = "ABCDEFGH".repeat(8);
+
+    @Test
+    void binary_subjects_round_trip_in_the_binary_claim() {
+        for (SubjectEncoding subjectEncoding : List.of(SubjectEncoding.CBOR, SubjectEncoding.SMILE)) {
+            StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                    .tokenSecret(SECRET)
+                    .tokenTimeout(300L)
+                    .subjectEncoding(subjectEncoding)
+                    .build();
+
+            try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+                // Given
+                statelessTokenPolicyHolder
+                        .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                        .thenReturn(statelessTokenPolicy);
+
+                // When
+                String tokenValue = AccessToken.create(new TestUser(1, "User1")).getValue();
+                AccessToken<TestUser> accessToken = AccessToken.parse(tokenValue, TestUser.class);
+
+                // Then
+                assertThat(payload(tokenValue)).contains("\"" + SubjectCodec.BINARY_SUBJECT_CLAIM + "\"").doesNotContain("\"sub\"");
+                assertThat(accessToken.isInvalidate()).isFalse();
+                assertThat(accessToken.getSubject().id).isEqualTo(1);
+                assertThat(accessToken.getSubject().name).isEqualTo("User1");
+            }
+        }
+    }
+
+    @Test
+    void large_subjects_are_compressed_and_smaller() {
+        StatelessTokenPolicy jsonPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret(SECRET)
+                .tokenTimeout(300L)
+                .build();
+        StatelessTokenPolicy compressingPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret(SECRET)
+                .tokenTimeout(300L)
+                .subjectEncoding(SubjectEncoding.CBOR)
+                .subjectCompressionThreshold(64)
+                .build();
+        Map<String, Object> subject = new HashMap<>();
+        for (int i = 0; i < 20; i++) {
+            subject.put("permission" + i, "ROLE_READ_WRITE_" + i);
+        }
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            // Given
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(jsonPolicy);
+            String jsonTokenValue = Token.create(subject).getValue();
+
+            // When
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(compressingPolicy);
+            String compressedTokenValue = Token.create(subject).getValue();
+            Map<String, Object> parsedSubject = Token.parse(compressedTokenValue, new TypeReference<Map<String, Object>>() {}).getSubject();
+
+            // Then
+            assertThat(compressedTokenValue.length()).isLessThan(jsonTokenValue.length() / 2);
+            assertThat(parsedSubject).isEqualTo(subject);
+        }
+    }
+
+    @Test
+    void tokens_of_any_encoding_are_read_by_any_policy() {
+        StatelessTokenPolicy jsonPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret(SECRET)
+                .tokenTimeout(300L)
+                .build();
+        StatelessTokenPolicy smilePolicy = StatelessTokenPolicy.builder()
+                .tokenSecret(SECRET)
+                .tokenTimeout(300L)
+                .subjectEncoding(SubjectEncoding.SMILE)
+                .subjectCompressionThreshold(0)
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            // Given
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(jsonPolicy);
+            String jsonTokenValue = AccessToken.create(new TestUser(1, "User1")).getValue();
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(smilePolicy);
+            String smileTokenValue = AccessToken.create(new TestUser(2, "User2")).getValue();
+
+            // When
+            AccessToken<TestUser> legacyToken = AccessToken.parse(jsonTokenValue, TestUser.class);
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(jsonPolicy);
+            AccessToken<TestUser> smileToken = AccessToken.parse(smileTokenValue, TestUser.class);
+
+            // Then
+            assertThat(legacyToken.getSubject().id).isEqualTo(1);
+            assertThat(smileToken.getSubject().id).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void binary_subjects_with_asymmetric_keys() throws Exception {
+        KeyPair keyPair = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSigningKey(SigningKey.asymmetric(TokenAlgorithm.EdDSA, keyPair.getPrivate(), keyPair.getPublic()))
+                .tokenTimeout(300L)
+                .subjectEncoding(SubjectEncoding.CBOR)
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            // Given
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(statelessTokenPolicy);
+
+            // When
+            String tokenValue = AccessToken.create(new TestUser(1, "User1")).getValue();
+            AccessToken<TestUser> accessToken = AccessToken.parse(tokenValue, TestUser.class);
+
+            // Then
+            assertThat(accessToken.isInvalidate()).isFalse();
+            assertThat(accessToken.getSubject().name).isEqualTo("User1");
+        }
+    }
+
+    @Test
+    void subject_encoding_is_read_from_properties() {
+        // Given
+        Environment environment = Mockito.mock(Environment.class);
+        Mockito.when(environment.getProperty("stateless.token.secret")).thenReturn(SECRET);
+        Mockito.when(environment.getProperty("stateless.token.timeout")).thenReturn("300");
+        Mockito.when(environment.getProperty("stateless.token.subject.encoding")).thenReturn("cbor");
+        Mockito.when(environment.getProperty("stateless.token.subject.compressionThreshold", Integer.class)).thenReturn(256);
+
+        // When
+        StatelessTokenPolicy statelessTokenPolicy = new StatelessTokenPolicyConfiguration().statelessTokenPolicy(environment);
+
+        // Then
+        assertThat(statelessTokenPolicy.getSubjectCodec().getEncoding()).isEqualTo(SubjectEncoding.CBOR);
+        assertThat(statelessTokenPolicy.getSubjectCodec().getCompressionThreshold()).isEqualTo(256);
+    }
+
+    private static String payload(String tokenValue) {
+        String[] segments = tokenValue.split("\\.");
+        return new String(Base64.getUrlDecoder().decode(segments[1]), StandardCharsets.UTF_8);
+    }
+}
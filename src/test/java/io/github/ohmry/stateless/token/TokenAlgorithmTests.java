@@ -0,0 +1,148 @@
+package io.github.ohmry.stateless.token;
+
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicy;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicyConfiguration;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicyHolder;
+import io.github.ohmry.stateless.token.domain.AccessToken;
+import io.github.ohmry.stateless.token.domain.RefreshToken;
+import io.github.ohmry.stateless.token.domain.Token;
+import io.github.ohmry.stateless.token.engine.SigningKey;
+import io.github.ohmry.stateless.token.engine.TokenAlgorithm;
+import io.jsonwebtoken.security.WeakKeyException;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+import org.springframework.core.env.Environment;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mockStatic;
+
+public class TokenAlgorithmTests {
+    @Test
+    void access_tokens_with_hs256() {
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret("ABCDEFGH".repeat(8))
+                .tokenTimeout(300L)
+                .accessTokenAlgorithm(TokenAlgorithm.HS256)
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(statelessTokenPolicy);
+
+            // When
+            AccessToken<String> accessToken = AccessToken.create("subject");
+            RefreshToken<String> refreshToken = RefreshToken.create("subject");
+
+            // Then
+            assertThat(header(accessToken.getValue())).contains("\"HS256\"");
+            assertThat(header(refreshToken.getValue())).contains("\"HS512\"");
+            assertThat(AccessToken.parse(accessToken.getValue(), String.class).getSubject()).isEqualTo("subject");
+            assertThat(RefreshToken.parse(refreshToken.getValue(), String.class).getSubject()).isEqualTo("subject");
+            assertThat(statelessTokenPolicy.getAlgorithmNames()).containsExactlyInAnyOrder("HS256", "HS512");
+        }
+    }
+
+    @Test
+    void tokens_with_eddsa_and_verification_only_key() throws Exception {
+        KeyPair keyPair = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+        StatelessTokenPolicy signingPolicy = StatelessTokenPolicy.builder()
+                .tokenSigningKey(SigningKey.asymmetric(TokenAlgorithm.EdDSA, keyPair.getPrivate(), keyPair.getPublic()))
+                .tokenTimeout(300L)
+                .build();
+        StatelessTokenPolicy verifyingPolicy = StatelessTokenPolicy.builder()
+                .tokenSigningKey(SigningKey.asymmetric(TokenAlgorithm.EdDSA, null, keyPair.getPublic()))
+                .tokenTimeout(300L)
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            // Given
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(signingPolicy);
+            String tokenValue = Token.create(new TestUser(1, "User1")).getValue();
+
+            // When
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(verifyingPolicy);
+            Token<TestUser> token = Token.parse(tokenValue, TestUser.class);
+
+            // Then
+            assertThat(header(tokenValue)).contains("\"EdDSA\"");
+            assertThat(token.isInvalidate()).isFalse();
+            assertThat(token.getSubject().id).isEqualTo(1);
+            assertThat(verifyingPolicy.getTokenSecretKey()).isNull();
+            assertThatThrownBy(() -> Token.create("subject"))
+                    .isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Test
+    void tokens_with_es256_from_properties() throws Exception {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("EC");
+        keyPairGenerator.initialize(256);
+        KeyPair keyPair = keyPairGenerator.generateKeyPair();
+        StatelessTokenPolicyConfiguration configuration = new StatelessTokenPolicyConfiguration();
+        Environment environment = Mockito.mock(Environment.class);
+
+        // Given
+        Mockito.when(environment.getProperty("stateless.token.algorithm"))
+                .thenReturn("ES256");
+        Mockito.when(environment.getProperty("stateless.token.privateKey"))
+                .thenReturn(pem("PRIVATE KEY", keyPair.getPrivate().getEncoded()));
+        Mockito.when(environment.getProperty("stateless.token.publicKey"))
+                .thenReturn(pem("PUBLIC KEY", keyPair.getPublic().getEncoded()));
+        Mockito.when(environment.getProperty("stateless.token.timeout"))
+                .thenReturn("300");
+        Mockito.when(environment.getProperty("stateless.refreshToken.algorithm"))
+                .thenReturn("HS384");
+        Mockito.when(environment.getProperty("stateless.refreshToken.secret"))
+                .thenReturn("12345678".repeat(6));
+
+        StatelessTokenPolicy statelessTokenPolicy = configuration.statelessTokenPolicy(environment);
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(statelessTokenPolicy);
+
+            // When
+            String accessTokenValue = AccessToken.create("subject").getValue();
+            String refreshTokenValue = RefreshToken.create("subject").getValue();
+
+            // Then
+            assertThat(header(accessTokenValue)).contains("\"ES256\"");
+            assertThat(header(refreshTokenValue)).contains("\"HS384\"");
+            assertThat(AccessToken.parse(accessTokenValue, String.class).getSubject()).isEqualTo("subject");
+            assertThat(RefreshToken.parse(refreshTokenValue, String.class).getSubject()).isEqualTo("subject");
+            assertThat(RefreshToken.parse(accessTokenValue, String.class).isInvalidate()).isTrue();
+        }
+    }
+
+    @Test
+    void hmac_secret_must_match_algorithm() {
+        assertThat(SigningKey.hmac(TokenAlgorithm.HS256, "ABCDEFGH".repeat(4)).getAlgorithm()).isEqualTo(TokenAlgorithm.HS256);
+        assertThatThrownBy(() -> SigningKey.hmac(TokenAlgorithm.HS512, "ABCDEFGH".repeat(4)))
+                .isInstanceOf(WeakKeyException.class);
+        assertThatThrownBy(() -> TokenAlgorithm.of("RS256"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String header(String tokenValue) {
+        return new String(Base64.getUrlDecoder().decode(tokenValue.substring(0, tokenValue.indexOf('.'))), StandardCharsets.UTF_8);
+    }
+
+    private static String pem(String type, byte[] encoded) {
+        return "-----BEGIN " + type + "-----\n"
+                + Base64.getMimeEncoder(64, "\n".getBytes(StandardCharsets.US_ASCII)).encodeToString(encoded)
+                + "\n-----END " + type + "-----\n";
+    }
+}
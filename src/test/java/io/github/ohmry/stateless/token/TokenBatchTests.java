@@ -0,0 +1,136 @@
+package io.github.ohmry.stateless.token;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicy;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicyHolder;
+import io.github.ohmry.stateless.token.domain.AccessToken;
+import io.github.ohmry.stateless.token.domain.RefreshToken;
+import io.github.ohmry.stateless.token.domain.Token;
+import io.github.ohmry.stateless.token.engine.TokenEngine;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mockStatic;
+
+public class TokenBatchTests {
+    @Test
+    void parse_all_keeps_input_order_and_deduplicates() {
+        AtomicInteger submittedTasks = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret("ABCDEFGH".repeat(8))
+                .tokenTimeout(300L)
+                .batchExecutor(task -> {
+                    submittedTasks.incrementAndGet();
+                    executorService.execute(task);
+                })
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(statelessTokenPolicy);
+
+            // Given
+            List<String> tokenValues = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                tokenValues.add(AccessToken.create(new TestUser(i, "User" + i)).getValue());
+            }
+            tokenValues.add(tokenValues.get(0));
+            tokenValues.add("garbage");
+
+            // When
+            List<AccessToken<TestUser>> tokens = AccessToken.parseAll(tokenValues, TestUser.class);
+
+            // Then
+            assertThat(tokens).hasSize(102);
+            for (int i = 0; i < 100; i++) {
+                assertThat(tokens.get(i).getValue()).isEqualTo(tokenValues.get(i));
+                assertThat(tokens.get(i).isInvalidate()).isFalse();
+                assertThat(tokens.get(i).getSubject().id).isEqualTo(i);
+            }
+            assertThat(tokens.get(100)).isSameAs(tokens.get(0));
+            assertThat(tokens.get(101).isInvalidate()).isTrue();
+            assertThat(submittedTasks.get()).isGreaterThan(1);
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    void parse_all_from_a_batch_executor_thread_does_not_deadlock() throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(1);
+        TokenEngine engine = TokenEngine.builder()
+                .batchExecutor(executorService)
+                .build();
+
+        try {
+            // Given
+            List<String> values = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                values.add("value" + i);
+            }
+
+            // When
+            Future<List<Integer>> lengths = executorService.submit(() -> engine.parseAll(values, String::length));
+
+            // Then
+            assertThat(lengths.get(10, TimeUnit.SECONDS)).hasSize(100).containsOnly(6, 7);
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    void parse_all_with_type_reference() {
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret("ABCDEFGH".repeat(8))
+                .tokenTimeout(300L)
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(statelessTokenPolicy);
+
+            // Given
+            String refreshTokenValue = RefreshToken.create(Map.of("id", 1)).getValue();
+            String tokenValue = Token.create(Map.of("id", 2)).getValue();
+
+            // When
+            List<RefreshToken<Map<String, Object>>> refreshTokens = RefreshToken.parseAll(List.of(refreshTokenValue), new TypeReference<>() {});
+            List<? extends Token<Map<String, Object>>> tokens = Token.parseAll(List.of(tokenValue, tokenValue), new TypeReference<>() {});
+
+            // Then
+            assertThat(refreshTokens.get(0).getSubject()).containsEntry("id", 1);
+            assertThat(tokens).hasSize(2);
+            assertThat(tokens.get(1).getSubject()).containsEntry("id", 2);
+        }
+    }
+
+    @Test
+    void parse_all_empty_batch() {
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret("ABCDEFGH".repeat(8))
+                .tokenTimeout(300L)
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(statelessTokenPolicy);
+
+            assertThat(Token.parseAll(List.of(), String.class)).isEmpty();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package io.github.ohmry.stateless.token;
+
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicy;
+import io.github.ohmry.stateless.token.engine.TokenEngine;
+import io.github.ohmry.stateless.token.engine.TokenPreCheck;
+import io.github.ohmry.stateless.token.engine.VerifiedClaims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TokenEngineTests {
+    @Test
+    void engine_issue_and_parse_with_policy_keys() {
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret("ABCDEFGH".repeat(8))
+                .tokenTimeout(300L)
+                .accessTokenSecret("12345678".repeat(8))
+                .build();
+        TokenEngine tokenEngine = statelessTokenPolicy.getTokenEngine();
+
+        // When
+        String tokenValue = tokenEngine.issue(statelessTokenPolicy.getAccessTokenSecretKey(), "subject", 300L);
+        VerifiedClaims claims = tokenEngine.parse(statelessTokenPolicy.getAccessTokenSecretKey(), tokenValue);
+
+        // Then
+        assertThat(claims.getSubject()).isEqualTo("subject");
+        assertThat(claims.getExpirationSeconds()).isEqualTo(claims.getIssuedAtSeconds() + 300L);
+    }
+
+    @Test
+    void engine_parse_with_unregistered_key() {
+        TokenEngine tokenEngine = new TokenEngine();
+        SecretKey secretKey = Keys.hmacShaKeyFor("ABCDEFGH".repeat(8).getBytes(StandardCharsets.UTF_8));
+        SecretKey equalSecretKey = Keys.hmacShaKeyFor("ABCDEFGH".repeat(8).getBytes(StandardCharsets.UTF_8));
+
+        // When
+        String tokenValue = tokenEngine.issue(secretKey, "subject", 300L);
+
+        // Then
+        assertThat(tokenEngine.parse(equalSecretKey, tokenValue).getSubject()).isEqualTo("subject");
+    }
+
+    @Test
+    void engine_parse_with_wrong_key() {
+        TokenEngine tokenEngine = new TokenEngine();
+        SecretKey secretKey = Keys.hmacShaKeyFor("ABCDEFGH".repeat(8).getBytes(StandardCharsets.UTF_8));
+        SecretKey otherSecretKey = Keys.hmacShaKeyFor("12345678".repeat(8).getBytes(StandardCharsets.UTF_8));
+
+        // When
+        String tokenValue = tokenEngine.issue(secretKey, "subject", 300L);
+
+        // Then
+        assertThatThrownBy(() -> tokenEngine.parse(otherSecretKey, tokenValue))
+                .isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void engine_rejects_tampered_tokens() {
+        TokenEngine tokenEngine = new TokenEngine();
+        SecretKey secretKey = Keys.hmacShaKeyFor("ABCDEFGH".repeat(8).getBytes(StandardCharsets.UTF_8));
+        String tokenValue = tokenEngine.issue(secretKey, "subject", 300L);
+        String[] segments = tokenValue.split("\\.");
+        String otherPayload = tokenEngine.issue(secretKey, "other", 300L).split("\\.")[1];
+        char lastCharacter = segments[2].charAt(segments[2].length() - 1);
+
+        // Then
+        assertThatThrownBy(() -> tokenEngine.parse(secretKey, segments[0] + "." + otherPayload + "." + segments[2]))
+                .isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> tokenEngine.parse(secretKey, tokenValue.substring(0, tokenValue.length() - 1) + (lastCharacter == 'A' ? 'B' : 'A')))
+                .isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> tokenEngine.parse(secretKey, segments[0] + "." + segments[1] + "."))
+                .isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> tokenEngine.parse(secretKey, segments[0] + "." + segments[1] + ".!" + segments[2].substring(1)))
+                .isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void engine_rejects_expired_tokens() {
+        TokenEngine tokenEngine = TokenEngine.builder()
+                .preCheck(TokenPreCheck.disabled())
+                .build();
+        SecretKey secretKey = Keys.hmacShaKeyFor("ABCDEFGH".repeat(8).getBytes(StandardCharsets.UTF_8));
+
+        // When
+        String tokenValue = tokenEngine.issue(secretKey, "subject", -10L);
+
+        // Then
+        assertThatThrownBy(() -> tokenEngine.parse(secretKey, tokenValue))
+                .isInstanceOf(ExpiredJwtException.class);
+    }
+
+    @Test
+    void engine_parse_with_unusual_header() {
+        TokenEngine tokenEngine = new TokenEngine();
+        SecretKey secretKey = Keys.hmacShaKeyFor("ABCDEFGH".repeat(8).getBytes(StandardCharsets.UTF_8));
+
+        // When
+        String tokenValue = Jwts.builder()
+                                .header().add("typ", "JWT").and()
+                                .subject("subject")
+                                .expiration(new Date(System.currentTimeMillis() + 300_000L))
+                                .signWith(secretKey, Jwts.SIG.HS512)
+                                .compact();
+
+        // Then
+        assertThat(tokenEngine.parse(secretKey, tokenValue).getSubject()).isEqualTo("subject");
+    }
+}
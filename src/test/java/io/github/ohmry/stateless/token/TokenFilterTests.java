@@ -0,0 +1,192 @@
+package io.github.ohmry.stateless.token;
+
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicy;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicyHolder;
+import io.github.ohmry.stateless.token.domain.AccessToken;
+import io.github.ohmry.stateless.token.web.BearerToken;
+import io.github.ohmry.stateless.token.web.servlet.TokenFilter;
+import io.github.ohmry.stateless.token.web.servlet.TokenSubject;
+import io.github.ohmry.stateless.token.web.servlet.TokenSubjectArgumentResolver;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mockStatic;
+
+public class TokenFilterTests {
+    private static final StatelessTokenPolicy POLICY = StatelessTokenPolicy.builder()
+            .tokenSecret("ABCDEFGH".repeat(8))
+            .tokenTimeout(300L)
+            .build();
+
+    @Test
+    void token_is_parsed_once_per_request() throws Exception {
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            // Given
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(POLICY);
+            TokenFilter<TestUser> filter = new TokenFilter<>(TestUser.class);
+            MockHttpServletRequest request = bearerRequest(AccessToken.create(new TestUser(1, "User1")).getValue());
+
+            // When
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            AccessToken<TestUser> accessToken = TokenFilter.getAccessToken(request);
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+            // Then
+            assertThat(accessToken.getSubject().name).isEqualTo("User1");
+            assertThat(TokenFilter.<TestUser>getAccessToken(request)).isSameAs(accessToken);
+        }
+    }
+
+    @Test
+    void invalid_tokens_are_passed_on_unauthenticated() throws Exception {
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            // Given
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(POLICY);
+            TokenFilter<TestUser> filter = new TokenFilter<>(TestUser.class);
+            TokenSubjectArgumentResolver resolver = new TokenSubjectArgumentResolver();
+            Method handler = Handlers.class.getDeclaredMethod("handle", TestUser.class, AccessToken.class, TestUser.class);
+            MockHttpServletRequest request = bearerRequest("invalid.token.value");
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            MockFilterChain filterChain = new MockFilterChain();
+
+            // When
+            filter.doFilter(request, response, filterChain);
+            ServletWebRequest webRequest = new ServletWebRequest(request, response);
+            Object optionalUser = resolver.resolveArgument(new MethodParameter(handler, 2), null, webRequest, null);
+
+            // Then
+            assertThat(filterChain.getRequest()).isSameAs(request);
+            assertThat(response.getStatus()).isEqualTo(200);
+            assertThat(TokenFilter.<TestUser>getAccessToken(request)).isNull();
+            assertThat(optionalUser).isNull();
+            assertThatThrownBy(() -> resolver.resolveArgument(new MethodParameter(handler, 0), null, webRequest, null))
+                    .isInstanceOf(ResponseStatusException.class);
+            assertThat(response.getHeader(HttpHeaders.WWW_AUTHENTICATE)).contains("invalid_token");
+        }
+    }
+
+    @Test
+    void invalid_tokens_are_answered_with_unauthorized_if_rejected() throws Exception {
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            // Given
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(POLICY);
+            TokenFilter<TestUser> filter = new TokenFilter<>(TestUser.class, true);
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            MockFilterChain filterChain = new MockFilterChain();
+
+            // When
+            filter.doFilter(bearerRequest("invalid.token.value"), response, filterChain);
+
+            // Then
+            assertThat(response.getStatus()).isEqualTo(401);
+            assertThat(response.getHeader(HttpHeaders.WWW_AUTHENTICATE)).contains("invalid_token");
+            assertThat(filterChain.getRequest()).isNull();
+        }
+    }
+
+    @Test
+    void token_subject_parameters_are_resolved_from_the_request() throws Exception {
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            // Given
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(POLICY);
+            TokenFilter<Object> filter = new TokenFilter<>(Object.class);
+            TokenSubjectArgumentResolver resolver = new TokenSubjectArgumentResolver();
+            Method handler = Handlers.class.getDeclaredMethod("handle", TestUser.class, AccessToken.class, TestUser.class);
+            MockHttpServletRequest request = bearerRequest(AccessToken.create(new TestUser(1, "User1")).getValue());
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            ServletWebRequest webRequest = new ServletWebRequest(request);
+
+            // When
+            Object user = resolver.resolveArgument(new MethodParameter(handler, 0), null, webRequest, null);
+            Object accessToken = resolver.resolveArgument(new MethodParameter(handler, 1), null, webRequest, null);
+
+            // Then
+            assertThat(resolver.supportsParameter(new MethodParameter(handler, 0))).isTrue();
+            assertThat(user).isInstanceOf(TestUser.class);
+            assertThat(((TestUser) user).name).isEqualTo("User1");
+            assertThat(accessToken).isSameAs(TokenFilter.getAccessToken(request));
+        }
+    }
+
+    @Test
+    void missing_tokens_reject_required_parameters_only() throws Exception {
+        // Given
+        TokenSubjectArgumentResolver resolver = new TokenSubjectArgumentResolver();
+        Method handler = Handlers.class.getDeclaredMethod("handle", TestUser.class, AccessToken.class, TestUser.class);
+        ServletWebRequest webRequest = new ServletWebRequest(new MockHttpServletRequest());
+
+        // When
+        Object optionalUser = resolver.resolveArgument(new MethodParameter(handler, 2), null, webRequest, null);
+
+        // Then
+        assertThat(optionalUser).isNull();
+        assertThatThrownBy(() -> resolver.resolveArgument(new MethodParameter(handler, 0), null, webRequest, null))
+                .isInstanceOf(ResponseStatusException.class);
+    }
+
+    @Test
+    void renewed_tokens_are_sent_in_a_response_header() throws Exception {
+        FakeTokenClock clock = new FakeTokenClock();
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret("ABCDEFGH".repeat(8))
+                .clock(clock)
+                .tokenTimeout(300L)
+                .accessTokenTimeout(100L)
+                .accessTokenRenewalWindow(0.2)
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            // Given
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(statelessTokenPolicy);
+            TokenFilter<TestUser> filter = new TokenFilter<>(TestUser.class);
+            String tokenValue = AccessToken.create(new TestUser(1, "User1")).getValue();
+            MockHttpServletResponse freshResponse = new MockHttpServletResponse();
+            MockHttpServletResponse dueResponse = new MockHttpServletResponse();
+
+            // When
+            filter.doFilter(bearerRequest(tokenValue), freshResponse, new MockFilterChain());
+            clock.advance(Duration.ofSeconds(90));
+            filter.doFilter(bearerRequest(tokenValue), dueResponse, new MockFilterChain());
+
+            // Then
+            assertThat(freshResponse.getHeader(BearerToken.RENEWED_TOKEN_HEADER)).isNull();
+            assertThat(dueResponse.getHeader(BearerToken.RENEWED_TOKEN_HEADER)).isNotNull();
+            assertThat(AccessToken.parse(dueResponse.getHeader(BearerToken.RENEWED_TOKEN_HEADER), TestUser.class).getSubject().name).isEqualTo("User1");
+        }
+    }
+
+    private static MockHttpServletRequest bearerRequest(String tokenValue) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + tokenValue);
+        return request;
+    }
+
+    static class Handlers {
+        void handle(@TokenSubject TestUser user,
+                    @TokenSubject AccessToken<TestUser> accessToken,
+                    @TokenSubject(required = false) TestUser optionalUser) {
+        }
+    }
+}
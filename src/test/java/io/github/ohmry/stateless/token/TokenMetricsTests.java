@@ -0,0 +1,75 @@
+package io.github.ohmry.stateless.token;
+
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicy;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicyHolder;
+import io.github.ohmry.stateless.token.domain.AccessToken;
+import io.github.ohmry.stateless.token.domain.RefreshToken;
+import io.github.ohmry.stateless.token.domain.Token;
+import io.github.ohmry.stateless.token.metrics.MicrometerTokenMetrics;
+import io.github.ohmry.stateless.token.metrics.TokenMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mockStatic;
+
+public class TokenMetricsTests {
+    @Test
+    void metrics_record_create_and_parse_outcomes() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret("ABCDEFGH".repeat(8))
+                .tokenTimeout(300L)
+                .tokenMetrics(new MicrometerTokenMetrics(meterRegistry))
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(statelessTokenPolicy);
+
+            // Given
+            String accessTokenValue = AccessToken.create("subject").getValue();
+            String expiredTokenValue = AccessToken.create("subject", -10L).getValue();
+            String tamperedTokenValue = accessTokenValue.substring(0, accessTokenValue.indexOf('.') + 1)
+                    + Token.create("other").getValue().split("\\.")[1]
+                    + accessTokenValue.substring(accessTokenValue.lastIndexOf('.'));
+            String refreshTokenValue = RefreshToken.create(new TestUser(1, "User1")).getValue();
+
+            // When
+            AccessToken.parse(accessTokenValue, String.class);
+            AccessToken.parse(expiredTokenValue, String.class);
+            AccessToken.parse(tamperedTokenValue, String.class);
+            AccessToken.parse("garbage", String.class);
+            RefreshToken.parse(refreshTokenValue, Integer.class);
+
+            // Then
+            assertThat(meterRegistry.get("stateless.token.create").tag("type", "access").timer().count()).isEqualTo(2);
+            assertThat(meterRegistry.get("stateless.token.create").tag("type", "token").timer().count()).isEqualTo(1);
+            assertThat(meterRegistry.get("stateless.token.parse").tag("type", "access").timer().count()).isEqualTo(4);
+            assertThat(outcomeCount(meterRegistry, "access", "valid")).isEqualTo(1);
+            assertThat(outcomeCount(meterRegistry, "access", "expired")).isEqualTo(1);
+            assertThat(outcomeCount(meterRegistry, "access", "bad_signature")).isEqualTo(1);
+            assertThat(outcomeCount(meterRegistry, "access", "malformed")).isEqualTo(1);
+            assertThat(outcomeCount(meterRegistry, "refresh", "deserialization_failure")).isEqualTo(1);
+            assertThat(meterRegistry.get("stateless.token.size").tag("type", "access").tag("operation", "create").summary().max())
+                    .isEqualTo(accessTokenValue.length());
+        }
+    }
+
+    @Test
+    void metrics_are_disabled_by_default() {
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret("ABCDEFGH".repeat(8))
+                .tokenTimeout(300L)
+                .build();
+
+        assertThat(statelessTokenPolicy.getTokenMetrics()).isSameAs(TokenMetrics.NOOP);
+        assertThat(statelessTokenPolicy.getTokenMetrics().isEnabled()).isFalse();
+    }
+
+    private static double outcomeCount(SimpleMeterRegistry meterRegistry, String type, String outcome) {
+        return meterRegistry.get("stateless.token.parse.outcome").tag("type", type).tag("outcome", outcome).counter().count();
+    }
+}
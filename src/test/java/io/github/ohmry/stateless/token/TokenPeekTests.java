@@ -0,0 +1,99 @@
+package io.github.ohmry.stateless.token;
+
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicy;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicyHolder;
+import io.github.ohmry.stateless.token.domain.AccessToken;
+import io.github.ohmry.stateless.token.domain.RefreshToken;
+import io.github.ohmry.stateless.token.domain.Token;
+import io.github.ohmry.stateless.token.domain.TokenType;
+import io.github.ohmry.stateless.token.engine.TokenPeek;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mockStatic;
+
+public class TokenPeekTests {
+    private static final String SECRET = "ABCDEFGH".repeat(8);
+
+    @Test
+    void header_and_standard_claims_are_read_without_verification() {
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret(SECRET)
+                .tokenTimeout(300L)
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            // Given
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(statelessTokenPolicy);
+            long now = System.currentTimeMillis();
+            String tokenValue = Token.create(new TestUser(1, "User1")).getValue();
+            String tamperedTokenValue = tokenValue.substring(0, tokenValue.lastIndexOf('.') + 1) + "AAAA";
+
+            // When
+            TokenPeek peek = TokenPeek.of(tokenValue);
+            TokenPeek tamperedPeek = TokenPeek.of(tamperedTokenValue);
+
+            // Then
+            assertThat(peek.getAlgorithm()).isEqualTo("HS512");
+            assertThat(peek.getKeyId()).isEqualTo(statelessTokenPolicy.getTokenSigningKey().getKeyId());
+            assertThat(peek.getTokenId()).isNotNull();
+            assertThat(peek.getSubject()).contains("User1");
+            assertThat(peek.getIssuedAtSeconds()).isBetween(now / 1000 - 1, now / 1000 + 1);
+            assertThat(peek.getExpirationSeconds()).isEqualTo(peek.getIssuedAtSeconds() + 300);
+            assertThat(peek.isExpired(now)).isFalse();
+            assertThat(peek.isExpired(now + 301_000)).isTrue();
+            assertThat(tamperedPeek.getTokenId()).isEqualTo(peek.getTokenId());
+        }
+    }
+
+    @Test
+    void malformed_tokens_are_not_peeked() {
+        assertThat(TokenPeek.of(null)).isNull();
+        assertThat(TokenPeek.of("")).isNull();
+        assertThat(TokenPeek.of("abc")).isNull();
+        assertThat(TokenPeek.of("abc.def")).isNull();
+        assertThat(TokenPeek.of("a.b.c.d")).isNull();
+        assertThat(TokenPeek.of("e30.!!!.c")).isNull();
+        assertThat(TokenPeek.of("e30.WzFd.c")).isNull();
+        assertThat(TokenPeek.of("e30.e30.c")).isNotNull();
+    }
+
+    @Test
+    void token_type_is_resolved_from_distinct_key_ids() {
+        StatelessTokenPolicy sharedKeyPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret(SECRET)
+                .tokenTimeout(300L)
+                .build();
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret(SECRET)
+                .accessTokenSecret("IJKLMNOP".repeat(8))
+                .refreshTokenSecret("QRSTUVWX".repeat(8))
+                .tokenTimeout(300L)
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            // Given
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(statelessTokenPolicy);
+            String tokenValue = Token.create("user-id").getValue();
+            String accessTokenValue = AccessToken.create("user-id").getValue();
+            String refreshTokenValue = RefreshToken.create("user-id").getValue();
+
+            // When
+            TokenType tokenType = TokenType.of(statelessTokenPolicy, TokenPeek.of(tokenValue).getKeyId());
+            TokenType accessTokenType = TokenType.of(statelessTokenPolicy, TokenPeek.of(accessTokenValue).getKeyId());
+            TokenType refreshTokenType = TokenType.of(statelessTokenPolicy, TokenPeek.of(refreshTokenValue).getKeyId());
+
+            // Then
+            assertThat(tokenType).isEqualTo(TokenType.TOKEN);
+            assertThat(accessTokenType).isEqualTo(TokenType.ACCESS);
+            assertThat(refreshTokenType).isEqualTo(TokenType.REFRESH);
+            assertThat(TokenType.of(sharedKeyPolicy, TokenPeek.of(tokenValue).getKeyId())).isNull();
+            assertThat(TokenType.of(statelessTokenPolicy, "unknown")).isNull();
+        }
+    }
+}
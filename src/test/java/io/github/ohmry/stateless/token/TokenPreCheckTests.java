@@ -0,0 +1,109 @@
+package io.github.ohmry.stateless.token;
+
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicy;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicyHolder;
+import io.github.ohmry.stateless.token.domain.AccessToken;
+import io.github.ohmry.stateless.token.domain.Token;
+import io.github.ohmry.stateless.token.engine.TokenEngine;
+import io.github.ohmry.stateless.token.engine.TokenPreCheck;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mockStatic;
+
+public class TokenPreCheckTests {
+    private static final SecretKey SECRET_KEY = Keys.hmacShaKeyFor("ABCDEFGH".repeat(8).getBytes(StandardCharsets.UTF_8));
+
+    @Test
+    void pre_check_accepts_issued_tokens() {
+        String tokenValue = new TokenEngine().issue(SECRET_KEY, "subject", 300L);
+
+        assertThat(TokenPreCheck.defaults().check(tokenValue, System.currentTimeMillis())).isNull();
+    }
+
+    @Test
+    void pre_check_rejects_malformed_tokens() {
+        TokenPreCheck preCheck = TokenPreCheck.defaults();
+        long now = System.currentTimeMillis();
+
+        assertThat(preCheck.check(null, now)).isEqualTo(TokenPreCheck.Rejection.MALFORMED);
+        assertThat(preCheck.check("", now)).isEqualTo(TokenPreCheck.Rejection.MALFORMED);
+        assertThat(preCheck.check("abc.def", now)).isEqualTo(TokenPreCheck.Rejection.MALFORMED);
+        assertThat(preCheck.check("abc.def.ghi.jkl", now)).isEqualTo(TokenPreCheck.Rejection.MALFORMED);
+        assertThat(preCheck.check("abc..ghi", now)).isEqualTo(TokenPreCheck.Rejection.MALFORMED);
+        assertThat(preCheck.check("abc.d+f.ghi", now)).isEqualTo(TokenPreCheck.Rejection.MALFORMED);
+        assertThat(preCheck.check("' OR 1=1 --", now)).isEqualTo(TokenPreCheck.Rejection.MALFORMED);
+    }
+
+    @Test
+    void pre_check_rejects_oversized_tokens() {
+        TokenPreCheck preCheck = TokenPreCheck.builder()
+                .maxLength(32)
+                .build();
+        String tokenValue = new TokenEngine().issue(SECRET_KEY, "subject", 300L);
+
+        assertThat(preCheck.check(tokenValue, System.currentTimeMillis())).isEqualTo(TokenPreCheck.Rejection.OVERSIZED);
+    }
+
+    @Test
+    void pre_check_rejects_unexpected_algorithms() {
+        String tokenValue = Jwts.builder()
+                                .subject("subject")
+                                .signWith(Keys.hmacShaKeyFor("ABCDEFGH".repeat(4).getBytes(StandardCharsets.UTF_8)), Jwts.SIG.HS256)
+                                .compact();
+        String unsecuredTokenValue = Jwts.builder()
+                                         .subject("subject")
+                                         .compact() + "c2lnbmF0dXJl";
+
+        assertThat(TokenPreCheck.defaults().check(tokenValue, System.currentTimeMillis()))
+                .isEqualTo(TokenPreCheck.Rejection.UNSUPPORTED_ALGORITHM);
+        assertThat(TokenPreCheck.defaults().check(unsecuredTokenValue, System.currentTimeMillis()))
+                .isEqualTo(TokenPreCheck.Rejection.UNSUPPORTED_ALGORITHM);
+        assertThat(TokenPreCheck.builder().algorithms("HS256").build().check(tokenValue, System.currentTimeMillis()))
+                .isNull();
+    }
+
+    @Test
+    void pre_check_rejects_expired_tokens() {
+        String tokenValue = new TokenEngine().issue(SECRET_KEY, "subject", -10L);
+
+        assertThat(TokenPreCheck.defaults().check(tokenValue, System.currentTimeMillis()))
+                .isEqualTo(TokenPreCheck.Rejection.EXPIRED);
+        assertThat(TokenPreCheck.builder().expirationPeek(false).build().check(tokenValue, System.currentTimeMillis()))
+                .isNull();
+        assertThat(TokenPreCheck.disabled().check(tokenValue, System.currentTimeMillis()))
+                .isNull();
+    }
+
+    @Test
+    void rejected_and_tampered_tokens_are_invalid() {
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret("ABCDEFGH".repeat(8))
+                .tokenTimeout(300L)
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(statelessTokenPolicy);
+            String tokenValue = AccessToken.create("subject").getValue();
+            String tamperedTokenValue = tokenValue.substring(0, tokenValue.lastIndexOf('.') + 1) + "A".repeat(86);
+
+            // When
+            Token<String> garbageToken = Token.parse("garbage", String.class);
+            AccessToken<String> tamperedToken = AccessToken.parse(tamperedTokenValue, String.class);
+
+            // Then
+            assertThat(garbageToken.isInvalidate()).isTrue();
+            assertThat(garbageToken.getSubject()).isNull();
+            assertThat(tamperedToken.isInvalidate()).isTrue();
+            assertThat(tamperedToken.getSubject()).isNull();
+        }
+    }
+}
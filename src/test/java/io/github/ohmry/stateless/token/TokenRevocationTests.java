@@ -0,0 +1,138 @@
+package io.github.ohmry.stateless.token;
+
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicy;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicyHolder;
+import io.github.ohmry.stateless.token.domain.AccessToken;
+import io.github.ohmry.stateless.token.revocation.TokenRevocationList;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mockStatic;
+
+public class TokenRevocationTests {
+    private static final String SECRET = "ABCDEFGH".repeat(8);
+
+    @Test
+    void revoked_token_is_invalid_and_others_stay_valid() {
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret(SECRET)
+                .tokenTimeout(300L)
+                .revocationList(new TokenRevocationList(1000, 0.01))
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            // Given
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(statelessTokenPolicy);
+            AccessToken<TestUser> revokedToken = AccessToken.create(new TestUser(1, "User1"));
+            AccessToken<TestUser> otherToken = AccessToken.create(new TestUser(1, "User1"));
+
+            // When
+            AccessToken<TestUser> parsedToken = AccessToken.parse(revokedToken.getValue(), TestUser.class);
+            boolean revoked = parsedToken.revoke();
+
+            // Then
+            assertThat(revokedToken.getTokenId()).isNotNull().isNotEqualTo(otherToken.getTokenId());
+            assertThat(parsedToken.getTokenId()).isEqualTo(revokedToken.getTokenId());
+            assertThat(revoked).isTrue();
+            assertThat(AccessToken.parse(revokedToken.getValue(), TestUser.class).isInvalidate()).isTrue();
+            assertThat(AccessToken.parse(otherToken.getValue(), TestUser.class).isInvalidate()).isFalse();
+        }
+    }
+
+    @Test
+    void revoked_token_is_invalid_when_served_from_cache() {
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret(SECRET)
+                .tokenTimeout(300L)
+                .verifiedTokenCache(100L)
+                .revocationList(new TokenRevocationList(1000, 0.01))
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            // Given
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(statelessTokenPolicy);
+            String tokenValue = AccessToken.create(new TestUser(1, "User1")).getValue();
+            AccessToken<TestUser> parsedToken = AccessToken.parse(tokenValue, TestUser.class);
+
+            // When
+            parsedToken.revoke();
+
+            // Then
+            assertThat(AccessToken.parse(tokenValue, TestUser.class).isInvalidate()).isTrue();
+        }
+    }
+
+    @Test
+    void expired_tokens_are_not_revoked() {
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret(SECRET)
+                .tokenTimeout(300L)
+                .revocationList(new TokenRevocationList(1000, 0.01))
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            // Given
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(statelessTokenPolicy);
+            AccessToken<TestUser> expiredToken = AccessToken.create(new TestUser(1, "User1"), -10L);
+
+            // When
+            boolean revoked = expiredToken.revoke();
+
+            // Then
+            assertThat(revoked).isFalse();
+            assertThat(statelessTokenPolicy.getRevocationList().size()).isZero();
+        }
+    }
+
+    @Test
+    void revoke_fails_without_revocation_list() {
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret(SECRET)
+                .tokenTimeout(300L)
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            // Given
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(statelessTokenPolicy);
+            AccessToken<TestUser> accessToken = AccessToken.create(new TestUser(1, "User1"));
+
+            // When & Then
+            assertThatThrownBy(accessToken::revoke).isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Test
+    void revocation_list_has_no_false_negatives_and_few_false_positives() {
+        // Given
+        TokenRevocationList revocationList = new TokenRevocationList(1000, 0.01);
+        long expirationSeconds = System.currentTimeMillis() / 1000 + 300;
+
+        // When
+        for (int i = 0; i < 5000; i++) {
+            revocationList.revoke("revoked-" + i, expirationSeconds);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (revocationList.isRevoked("valid-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Then
+        for (int i = 0; i < 5000; i++) {
+            assertThat(revocationList.isRevoked("revoked-" + i)).isTrue();
+        }
+        assertThat(falsePositives).isZero();
+        assertThat(revocationList.size()).isEqualTo(5000);
+    }
+}
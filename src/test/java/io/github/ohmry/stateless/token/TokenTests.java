@@ -7,6 +7,7 @@ import io.github.ohmry.stateless.token.domain.Token;
 import org.junit.jupiter.api.Test;
 import org.mockito.MockedStatic;
 
+import java.time.Duration;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -51,9 +52,11 @@ public class TokenTests {
     }
 
     @Test
-    void expired_token() throws InterruptedException {
+    void expired_token() {
+        FakeTokenClock clock = new FakeTokenClock();
         StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
                 .tokenSecret("ABCDEFGH".repeat(8))
+                .clock(clock)
                 .tokenTimeout(1L)
                 .build();
 
@@ -72,7 +75,7 @@ public class TokenTests {
             assertThat(token.getSubject()).isEqualTo(user);
             assertThat(token.isInvalidate()).isFalse();
 
-            Thread.sleep(1100);
+            clock.advance(Duration.ofSeconds(2));
 
             // When - Parse
             String tokenValue = token.getValue();
@@ -86,6 +89,37 @@ public class TokenTests {
         }
     }
 
+    @Test
+    void expired_token_within_clock_skew() {
+        FakeTokenClock clock = new FakeTokenClock();
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret("ABCDEFGH".repeat(8))
+                .clock(clock)
+                .clockSkew(5L)
+                .tokenTimeout(1L)
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(statelessTokenPolicy);
+
+            // Given
+            String tokenValue = Token.create(new TestUser(1, "Administrator")).getValue();
+
+            // When
+            clock.advance(Duration.ofSeconds(3));
+            Token<TestUser> skewedToken = Token.parse(tokenValue, TestUser.class);
+            clock.advance(Duration.ofSeconds(5));
+            Token<TestUser> expiredToken = Token.parse(tokenValue, TestUser.class);
+
+            // Then
+            assertThat(skewedToken.isInvalidate()).isFalse();
+            assertThat(skewedToken.getSubject().name).isEqualTo("Administrator");
+            assertThat(expiredToken.isInvalidate()).isTrue();
+        }
+    }
+
     @Test
     void token_map_class_subject() {
         StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
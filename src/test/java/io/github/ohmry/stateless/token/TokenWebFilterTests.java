@@ -0,0 +1,139 @@
+package io.github.ohmry.stateless.token;
+
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicy;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicyHolder;
+import io.github.ohmry.stateless.token.domain.AccessToken;
+import io.github.ohmry.stateless.token.web.reactive.ReactiveTokenContext;
+import io.github.ohmry.stateless.token.web.reactive.TokenWebFilter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The filter verifies tokens on scheduler threads, where a static mock of the policy holder is not visible,
+ * so these tests publish their policy through the holder itself and restore the previous policy afterwards.
+ */
+public class TokenWebFilterTests {
+    private static final String SECRET = "ABCDEFGH".repeat(8);
+
+    private StatelessTokenPolicy previousPolicy;
+
+    @BeforeEach
+    void savePolicy() {
+        this.previousPolicy = StatelessTokenPolicyHolder.getStatelessTokenPolicy();
+    }
+
+    @AfterEach
+    void restorePolicy() {
+        publish(this.previousPolicy);
+    }
+
+    @Test
+    void subject_is_propagated_through_the_reactor_context() {
+        // Given
+        publish(StatelessTokenPolicy.builder().tokenSecret(SECRET).tokenTimeout(300L).build());
+        TokenWebFilter<TestUser> filter = new TokenWebFilter<>(TestUser.class, Schedulers.boundedElastic());
+        String tokenValue = AccessToken.create(new TestUser(1, "User1")).getValue();
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + tokenValue));
+        AtomicReference<TestUser> subject = new AtomicReference<>();
+
+        // When
+        filter.filter(exchange, chainExchange -> ReactiveTokenContext.<TestUser>subject().doOnNext(subject::set).then()).block();
+
+        // Then
+        assertThat(subject.get().name).isEqualTo("User1");
+        assertThat(exchange.<AccessToken<TestUser>>getAttribute(TokenWebFilter.ACCESS_TOKEN_ATTRIBUTE).getSubject().id).isEqualTo(1);
+    }
+
+    @Test
+    void invalid_tokens_are_passed_on_unauthenticated() {
+        // Given
+        publish(StatelessTokenPolicy.builder().tokenSecret(SECRET).tokenTimeout(300L).build());
+        TokenWebFilter<TestUser> filter = new TokenWebFilter<>(TestUser.class, Schedulers.boundedElastic());
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer invalid.token.value"));
+        AtomicReference<Boolean> hasToken = new AtomicReference<>();
+        AtomicReference<Throwable> requiredSubjectError = new AtomicReference<>();
+
+        // When
+        filter.filter(exchange, chainExchange -> ReactiveTokenContext.accessToken().hasElement().doOnNext(hasToken::set)
+                .then(ReactiveTokenContext.requiredSubject().doOnError(requiredSubjectError::set).onErrorComplete().then())).block();
+
+        // Then
+        assertThat(hasToken.get()).isFalse();
+        assertThat(exchange.getResponse().getStatusCode()).isNull();
+        assertThat(exchange.<Object>getAttribute(TokenWebFilter.ACCESS_TOKEN_ATTRIBUTE)).isNull();
+        assertThat(requiredSubjectError.get()).isInstanceOfSatisfying(ResponseStatusException.class,
+                e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED));
+    }
+
+    @Test
+    void invalid_tokens_are_answered_with_unauthorized_if_rejected() {
+        // Given
+        publish(StatelessTokenPolicy.builder().tokenSecret(SECRET).tokenTimeout(300L).build());
+        TokenWebFilter<TestUser> filter = new TokenWebFilter<>(TestUser.class, Schedulers.boundedElastic(), true);
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer invalid.token.value"));
+        AtomicReference<Boolean> chainCalled = new AtomicReference<>(false);
+
+        // When
+        filter.filter(exchange, chainExchange -> Mono.fromRunnable(() -> chainCalled.set(true))).block();
+
+        // Then
+        assertThat(chainCalled.get()).isFalse();
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(exchange.getResponse().getHeaders().getFirst(HttpHeaders.WWW_AUTHENTICATE)).contains("invalid_token");
+    }
+
+    @Test
+    void requests_without_bearer_token_pass_unauthenticated() {
+        // Given
+        publish(StatelessTokenPolicy.builder().tokenSecret(SECRET).tokenTimeout(300L).build());
+        TokenWebFilter<TestUser> filter = new TokenWebFilter<>(TestUser.class, Schedulers.boundedElastic());
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/")
+                .header(HttpHeaders.AUTHORIZATION, "Basic dXNlcjpwYXNz"));
+        AtomicReference<Boolean> hasToken = new AtomicReference<>();
+
+        // When
+        filter.filter(exchange, chainExchange -> ReactiveTokenContext.accessToken().hasElement().doOnNext(hasToken::set).then()).block();
+
+        // Then
+        assertThat(hasToken.get()).isFalse();
+        assertThat(exchange.getResponse().getStatusCode()).isNull();
+    }
+
+    @Test
+    void cached_tokens_are_parsed_without_the_scheduler() {
+        // Given
+        publish(StatelessTokenPolicy.builder().tokenSecret(SECRET).tokenTimeout(300L).verifiedTokenCache(100L).build());
+        Scheduler disposedScheduler = Schedulers.newSingle("disposed");
+        disposedScheduler.dispose();
+        TokenWebFilter<TestUser> filter = new TokenWebFilter<>(TestUser.class, disposedScheduler);
+        String tokenValue = AccessToken.create(new TestUser(1, "User1")).getValue();
+        AccessToken.parse(tokenValue, TestUser.class);
+
+        // When
+        AccessToken<TestUser> accessToken = filter.parse(tokenValue).block();
+
+        // Then
+        assertThat(accessToken.isInvalidate()).isFalse();
+        assertThat(accessToken.getSubject().name).isEqualTo("User1");
+    }
+
+    private static void publish(StatelessTokenPolicy statelessTokenPolicy) {
+        new StatelessTokenPolicyHolder().setStatelessTokenPolicy(statelessTokenPolicy);
+    }
+}
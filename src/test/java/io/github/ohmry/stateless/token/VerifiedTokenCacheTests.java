@@ -0,0 +1,142 @@
+package io.github.ohmry.stateless.token;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.github.ohmry.stateless.token.cache.VerifiedTokenCache;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicy;
+import io.github.ohmry.stateless.token.configuration.StatelessTokenPolicyHolder;
+import io.github.ohmry.stateless.token.domain.AccessToken;
+import io.github.ohmry.stateless.token.domain.RefreshToken;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mockStatic;
+
+public class VerifiedTokenCacheTests {
+    @Test
+    void cache_serves_repeated_parses() {
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret("ABCDEFGH".repeat(8))
+                .tokenTimeout(300L)
+                .verifiedTokenCache(100L)
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(statelessTokenPolicy);
+            VerifiedTokenCache verifiedTokenCache = statelessTokenPolicy.getVerifiedTokenCache();
+
+            // When
+            String tokenValue = AccessToken.create(new TestUser(1, "Administrator")).getValue();
+            AccessToken<TestUser> firstToken = AccessToken.parse(tokenValue, TestUser.class);
+            AccessToken<TestUser> secondToken = AccessToken.parse(tokenValue, TestUser.class);
+
+            // Then
+            assertThat(firstToken.isInvalidate()).isFalse();
+            assertThat(secondToken.isInvalidate()).isFalse();
+            assertThat(secondToken.getSubject().name).isEqualTo("Administrator");
+            assertThat(verifiedTokenCache.getMissCount()).isEqualTo(1);
+            assertThat(verifiedTokenCache.getHitCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void cache_hands_out_independent_mutable_subjects() {
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret("ABCDEFGH".repeat(8))
+                .tokenTimeout(300L)
+                .verifiedTokenCache(100L)
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(statelessTokenPolicy);
+
+            // When
+            String tokenValue = AccessToken.create(new TestUser(1, "Administrator")).getValue();
+            AccessToken<Object> firstToken = AccessToken.parse(tokenValue, Object.class);
+            ((Map<String, Object>) firstToken.getSubject()).put("name", "Intruder");
+            AccessToken<Object> secondToken = AccessToken.parse(tokenValue, Object.class);
+            AccessToken<TestUser> userToken = AccessToken.parse(tokenValue, TestUser.class);
+            userToken.getSubject().name = "Intruder";
+            AccessToken<TestUser> secondUserToken = AccessToken.parse(tokenValue, TestUser.class);
+
+            // Then
+            assertThat((Map<String, Object>) secondToken.getSubject()).containsEntry("name", "Administrator");
+            assertThat(secondUserToken.getSubject().name).isEqualTo("Administrator");
+            assertThat(statelessTokenPolicy.getVerifiedTokenCache().getHitCount()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void cache_does_not_share_entries_between_subject_types() {
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret("ABCDEFGH".repeat(8))
+                .tokenTimeout(300L)
+                .verifiedTokenCache(100L)
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(statelessTokenPolicy);
+
+            // When
+            String tokenValue = RefreshToken.create(new TestUser(1, "Administrator")).getValue();
+            RefreshToken<TestUser> userToken = RefreshToken.parse(tokenValue, TestUser.class);
+            RefreshToken<Map<String, Object>> mapToken = RefreshToken.parse(tokenValue, new TypeReference<>() {});
+
+            // Then
+            assertThat(userToken.getSubject()).isInstanceOf(TestUser.class);
+            assertThat(mapToken.getSubject()).containsEntry("name", "Administrator");
+            assertThat(statelessTokenPolicy.getVerifiedTokenCache().getHitCount()).isZero();
+        }
+    }
+
+    @Test
+    void cache_never_serves_expired_tokens() {
+        FakeTokenClock clock = new FakeTokenClock();
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret("ABCDEFGH".repeat(8))
+                .clock(clock)
+                .tokenTimeout(300L)
+                .verifiedTokenCache(100L)
+                .build();
+
+        try (MockedStatic<StatelessTokenPolicyHolder> statelessTokenPolicyHolder = mockStatic(StatelessTokenPolicyHolder.class)) {
+            statelessTokenPolicyHolder
+                    .when(StatelessTokenPolicyHolder::getStatelessTokenPolicy)
+                    .thenReturn(statelessTokenPolicy);
+
+            // When
+            String tokenValue = AccessToken.create("subject", 1L).getValue();
+            AccessToken<String> validToken = AccessToken.parse(tokenValue, String.class);
+
+            clock.advance(Duration.ofSeconds(2));
+
+            AccessToken<String> expiredToken = AccessToken.parse(tokenValue, String.class);
+
+            // Then
+            assertThat(validToken.isInvalidate()).isFalse();
+            assertThat(expiredToken.isInvalidate()).isTrue();
+            assertThat(expiredToken.getSubject()).isNull();
+            assertThat(statelessTokenPolicy.getVerifiedTokenCache().getHitCount()).isZero();
+        }
+    }
+
+    @Test
+    void cache_is_disabled_by_default() {
+        StatelessTokenPolicy statelessTokenPolicy = StatelessTokenPolicy.builder()
+                .tokenSecret("ABCDEFGH".repeat(8))
+                .tokenTimeout(300L)
+                .build();
+
+        assertThat(statelessTokenPolicy.getVerifiedTokenCache()).isNull();
+    }
+}